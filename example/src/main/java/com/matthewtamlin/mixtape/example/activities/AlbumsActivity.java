@@ -32,9 +32,13 @@ import com.matthewtamlin.mixtape.example.data.Mp3AlbumDataSource;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
 import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
 import com.matthewtamlin.mixtape.library.data.ImmutableDisplayableDefaults;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.databinders.ArenaTextCache;
 import com.matthewtamlin.mixtape.library.databinders.ArtworkBinder;
+import com.matthewtamlin.mixtape.library.databinders.ContentAddressedArtworkCache;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache;
 import com.matthewtamlin.mixtape.library.databinders.SubtitleBinder;
 import com.matthewtamlin.mixtape.library.databinders.TitleBinder;
 import com.matthewtamlin.mixtape.library.mixtape_body.BodyView;
@@ -56,23 +60,72 @@ public class AlbumsActivity extends AppCompatActivity {
 
 	private Mp3AlbumDataSource dataSource;
 
-	private LruCache<LibraryItem, CharSequence> titleCache;
+	private ArenaTextCache titleCache;
 
-	private LruCache<LibraryItem, CharSequence> subtitleCache;
+	private ArenaTextCache subtitleCache;
 
-	private LruCache<LibraryItem, Drawable> artworkCache;
+	private ContentAddressedArtworkCache artworkCache;
+
+	private NegativeResultCache negativeResultCache;
+
+	private DirectBodyPresenter<Mp3Album, Mp3AlbumDataSource, RecyclerBodyView> presenter;
 
 	@Override
 	protected void onCreate(final Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setTitle("Albums");
 
-		setupDataSource();
-		setupCaches();
-		precacheText();
+		final RetainedState retainedState = (RetainedState) getLastCustomNonConfigurationInstance();
+
+		if (retainedState == null) {
+			setupDataSource();
+			setupCaches();
+			precacheText();
+
+			setupView();
+			setupPresenter();
+		} else {
+			restoreRetainedState(retainedState);
+
+			// The presenter still has the albums, so they are shown without scanning again
+			setupView();
+			presenter.setView(body);
+		}
+	}
+
+	@Override
+	public Object onRetainCustomNonConfigurationInstance() {
+		final RetainedState retainedState = new RetainedState();
+
+		retainedState.dataSource = dataSource;
+		retainedState.titleCache = titleCache;
+		retainedState.subtitleCache = subtitleCache;
+		retainedState.artworkCache = artworkCache;
+		retainedState.negativeResultCache = negativeResultCache;
+		retainedState.presenter = presenter;
+
+		return retainedState;
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+
+		// Let the next activity take over any load in progress rather than starting it again
+		if (isChangingConfigurations()) {
+			presenter.detachView();
+		} else {
+			presenter.setView(null);
+		}
+	}
 
-		setupView();
-		setupPresenter();
+	private void restoreRetainedState(final RetainedState retainedState) {
+		dataSource = retainedState.dataSource;
+		titleCache = retainedState.titleCache;
+		subtitleCache = retainedState.subtitleCache;
+		artworkCache = retainedState.artworkCache;
+		negativeResultCache = retainedState.negativeResultCache;
+		presenter = retainedState.presenter;
 	}
 
 	private void setupDataSource() {
@@ -80,17 +133,23 @@ public class AlbumsActivity extends AppCompatActivity {
 	}
 
 	private void setupCaches() {
-		// Titles and subtitles are small enough to stay cached, so use a very high max size
-		titleCache = new LruCache<>(10000);
-		subtitleCache = new LruCache<>(10000);
+		// Titles and subtitles repeat heavily, so store them deduplicated in a 1 MB arena
+		titleCache = new ArenaTextCache(1000000);
+		subtitleCache = new ArenaTextCache(1000000);
 
 		// Every artwork item will be a BitmapDrawable, so use the bitmap byte count for sizing
-		artworkCache = new LruCache<LibraryItem, Drawable>(50000000) {
+		final LruCache<Object, Drawable> lruCache = new LruCache<Object, Drawable>(50000000) {
 			@Override
-			protected int sizeOf(final LibraryItem key, final Drawable value) {
+			protected int sizeOf(final Object key, final Drawable value) {
 				return ((BitmapDrawable) value).getBitmap().getByteCount();
 			}
 		};
+
+		// Items with identical covers share one bitmap, so each cover is only decoded once
+		artworkCache = new ContentAddressedArtworkCache(lruCache, 10000);
+
+		// Remember albums without tags or artwork for a few minutes so they aren't re-read
+		negativeResultCache = new NegativeResultCache(10000, 5 * 60 * 1000);
 	}
 
 	private void precacheText() {
@@ -132,6 +191,10 @@ public class AlbumsActivity extends AppCompatActivity {
 
 		body = new GridBody(this);
 		body.setContextualMenuResource(R.menu.album_menu);
+		body.setItemIdProvider(ItemIdentity.ID_PROVIDER);
+
+		// Inflate the first screen of rows in the background while the data loads
+		body.prewarmViewHolders(12);
 
 		rootView = (CoordinatedMixtapeContainer) findViewById(R.id.example_layout_coordinator);
 		rootView.setBody(body);
@@ -144,9 +207,10 @@ public class AlbumsActivity extends AppCompatActivity {
 				"Unknown subtitle",
 				new BitmapDrawable(getResources(), defaultArtwork));
 
-		body.setTitleDataBinder(new TitleBinder(titleCache, defaults));
-		body.setSubtitleDataBinder(new SubtitleBinder(subtitleCache, defaults));
-		body.setArtworkDataBinder(new ArtworkBinder(artworkCache, defaults));
+		body.setTitleDataBinder(new TitleBinder(titleCache, negativeResultCache, defaults));
+		body.setSubtitleDataBinder(new SubtitleBinder(subtitleCache, negativeResultCache,
+				defaults));
+		body.setArtworkDataBinder(new ArtworkBinder(artworkCache, negativeResultCache, defaults));
 
 		body.addLibraryItemSelectedListener(
 				new BodyView.LibraryItemSelectedListener() {
@@ -178,12 +242,13 @@ public class AlbumsActivity extends AppCompatActivity {
 				"Unknown subtitle",
 				new BitmapDrawable(getResources(), defaultArtwork));
 
-		final TitleBinder titleBinder = new TitleBinder(titleCache, defaults);
-		final SubtitleBinder subtitleBinder = new SubtitleBinder(subtitleCache, defaults);
-		final ArtworkBinder artworkBinder = new ArtworkBinder(artworkCache, defaults);
+		final TitleBinder titleBinder = new TitleBinder(titleCache, negativeResultCache, defaults);
+		final SubtitleBinder subtitleBinder = new SubtitleBinder(subtitleCache,
+				negativeResultCache, defaults);
+		final ArtworkBinder artworkBinder = new ArtworkBinder(artworkCache, negativeResultCache,
+				defaults);
 
-		final DirectBodyPresenter<Mp3Album, Mp3AlbumDataSource, RecyclerBodyView> presenter = new
-				DirectBodyPresenter<>();
+		presenter = new DirectBodyPresenter<>();
 
 		presenter.setView(body);
 		presenter.setDataSource(dataSource);
@@ -218,7 +283,7 @@ public class AlbumsActivity extends AppCompatActivity {
 					displayMessage("Deleted \"untitled\"");
 				}
 
-				dataSource.deleteItem((Mp3Album) item);
+				dataSource.removeItem((Mp3Album) item);
 			}
 		}
 	}
@@ -234,4 +299,22 @@ public class AlbumsActivity extends AppCompatActivity {
 	private void displayMessage(final String message) {
 		Snackbar.make(rootView, message, Snackbar.LENGTH_LONG).show();
 	}
+
+	/**
+	 * The state which is handed from one instance of the activity to the next when the activity is
+	 * recreated for a configuration change.
+	 */
+	private static class RetainedState {
+		private Mp3AlbumDataSource dataSource;
+
+		private ArenaTextCache titleCache;
+
+		private ArenaTextCache subtitleCache;
+
+		private ContentAddressedArtworkCache artworkCache;
+
+		private NegativeResultCache negativeResultCache;
+
+		private DirectBodyPresenter<Mp3Album, Mp3AlbumDataSource, RecyclerBodyView> presenter;
+	}
 }
\ No newline at end of file
@@ -34,12 +34,18 @@ import com.matthewtamlin.mixtape.example.data.HeaderDataSource;
 import com.matthewtamlin.mixtape.example.data.Mp3Song;
 import com.matthewtamlin.mixtape.example.data.Mp3SongDataSource;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
 import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
 import com.matthewtamlin.mixtape.library.data.ImmutableDisplayableDefaults;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.databinders.ArenaTextCache;
 import com.matthewtamlin.mixtape.library.databinders.ArtworkBinder;
+import com.matthewtamlin.mixtape.library.databinders.ContentAddressedArtworkCache;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache;
 import com.matthewtamlin.mixtape.library.databinders.SubtitleBinder;
+import com.matthewtamlin.mixtape.library.databinders.TextLayoutCache;
 import com.matthewtamlin.mixtape.library.databinders.TitleBinder;
 import com.matthewtamlin.mixtape.library.mixtape_body.BodyView;
 import com.matthewtamlin.mixtape.library.mixtape_body.DirectBodyPresenter;
@@ -49,8 +55,10 @@ import com.matthewtamlin.mixtape.library.mixtape_container.CoordinatedMixtapeCon
 import com.matthewtamlin.mixtape.library.mixtape_header.DirectHeaderPresenter;
 import com.matthewtamlin.mixtape.library.mixtape_header.ToolbarHeader;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import timber.log.Timber;
@@ -68,11 +76,19 @@ public class PlaylistActivity extends AppCompatActivity {
 
 	private DirectHeaderPresenter<LibraryItem, HeaderDataSource, ToolbarHeader> headerPresenter;
 
-	private LruCache<LibraryItem, CharSequence> bodyTitleCache;
+	private DirectBodyPresenter<Mp3Song, Mp3SongDataSource, RecyclerBodyView> bodyPresenter;
 
-	private LruCache<LibraryItem, CharSequence> bodySubtitleCache;
+	private ArenaTextCache bodyTitleCache;
 
-	private LruCache<LibraryItem, Drawable> bodyArtworkCache;
+	private ArenaTextCache bodySubtitleCache;
+
+	private ContentAddressedArtworkCache bodyArtworkCache;
+
+	private NegativeResultCache bodyNegativeResultCache;
+
+	private TextLayoutCache bodyTitleLayoutCache;
+
+	private TextLayoutCache bodySubtitleLayoutCache;
 
 	private LruCache<LibraryItem, CharSequence> headerTitleCache;
 
@@ -80,25 +96,109 @@ public class PlaylistActivity extends AppCompatActivity {
 
 	private LruCache<LibraryItem, Drawable> headerArtworkCache;
 
+	private SongTextPrecacher songTextPrecacher;
+
 	@Override
 	protected void onCreate(final Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.example_layout);
 
-		setupDataSources();
-		setupCaches();
-		precacheText();
+		final RetainedState retainedState = (RetainedState) getLastCustomNonConfigurationInstance();
+
+		if (retainedState == null) {
+			setupDataSources();
+			setupCaches();
+			precacheText();
+		} else {
+			restoreRetainedState(retainedState);
+		}
 
 		setupHeaderView();
 		setupBodyView();
 		setupContainerView();
 
-		setupHeaderPresenter();
-		setupBodyPresenter();
+		if (retainedState == null) {
+			setupHeaderPresenter();
+			setupBodyPresenter();
+		} else {
+			// The presenters still have the songs, so they are shown without scanning again
+			headerPresenter.setView(header);
+			bodyPresenter.setView(body);
+		}
+	}
+
+	@Override
+	public Object onRetainCustomNonConfigurationInstance() {
+		final RetainedState retainedState = new RetainedState();
+
+		retainedState.headerDataSource = headerDataSource;
+		retainedState.bodyDataSource = bodyDataSource;
+		retainedState.headerPresenter = headerPresenter;
+		retainedState.bodyPresenter = bodyPresenter;
+		retainedState.bodyTitleCache = bodyTitleCache;
+		retainedState.bodySubtitleCache = bodySubtitleCache;
+		retainedState.bodyArtworkCache = bodyArtworkCache;
+		retainedState.bodyNegativeResultCache = bodyNegativeResultCache;
+		retainedState.bodyTitleLayoutCache = bodyTitleLayoutCache;
+		retainedState.bodySubtitleLayoutCache = bodySubtitleLayoutCache;
+		retainedState.headerTitleCache = headerTitleCache;
+		retainedState.headerSubtitleCache = headerSubtitleCache;
+		retainedState.headerArtworkCache = headerArtworkCache;
+		retainedState.songTextPrecacher = songTextPrecacher;
+
+		return retainedState;
+	}
+
+	@Override
+	protected void onStop() {
+		super.onStop();
+
+		// Remember the first two screens of songs so that the next launch can show them immediately
+		if (!isChangingConfigurations()) {
+			bodyDataSource.saveSnapshot(2 * body.getVisibleItemCount());
+		}
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+
+		// Let the next activity take over any loads in progress rather than starting them again
+		if (isChangingConfigurations()) {
+			headerPresenter.detachView();
+			bodyPresenter.detachView();
+		} else {
+			headerPresenter.setView(null);
+			bodyPresenter.setView(null);
+
+			bodyDataSource.unregisterItemAddedListener(songTextPrecacher);
+			bodyDataSource.unregisterItemModifiedListener(songTextPrecacher);
+
+			// The precacher is only retained across configuration changes, so it is no longer used
+			songTextPrecacher.shutdown();
+		}
+	}
+
+	private void restoreRetainedState(final RetainedState retainedState) {
+		headerDataSource = retainedState.headerDataSource;
+		bodyDataSource = retainedState.bodyDataSource;
+		headerPresenter = retainedState.headerPresenter;
+		bodyPresenter = retainedState.bodyPresenter;
+		bodyTitleCache = retainedState.bodyTitleCache;
+		bodySubtitleCache = retainedState.bodySubtitleCache;
+		bodyArtworkCache = retainedState.bodyArtworkCache;
+		bodyNegativeResultCache = retainedState.bodyNegativeResultCache;
+		bodyTitleLayoutCache = retainedState.bodyTitleLayoutCache;
+		bodySubtitleLayoutCache = retainedState.bodySubtitleLayoutCache;
+		headerTitleCache = retainedState.headerTitleCache;
+		headerSubtitleCache = retainedState.headerSubtitleCache;
+		headerArtworkCache = retainedState.headerArtworkCache;
+		songTextPrecacher = retainedState.songTextPrecacher;
 	}
 
 	private void setupDataSources() {
 		bodyDataSource = new Mp3SongDataSource(getResources());
+		bodyDataSource.setSnapshotFile(new File(getFilesDir(), "songs.snapshot"));
 
 		final Bitmap headerArtwork = BitmapFactory.decodeResource(getResources(),
 				R.raw.header_artwork);
@@ -108,18 +208,28 @@ public class PlaylistActivity extends AppCompatActivity {
 	}
 
 	private void setupCaches() {
-		// Titles and subtitles are small enough to stay cached, so use a very high max size
-		bodyTitleCache = new LruCache<>(10000);
-		bodySubtitleCache = new LruCache<>(10000);
+		// Titles and subtitles repeat heavily, so store them deduplicated in a 1 MB arena
+		bodyTitleCache = new ArenaTextCache(1000000);
+		bodySubtitleCache = new ArenaTextCache(1000000);
+
+		// The flattened rows can draw precomputed text, so lay it out in the background
+		bodyTitleLayoutCache = new TextLayoutCache(500);
+		bodySubtitleLayoutCache = new TextLayoutCache(500);
 
 		// Every artwork item will be a BitmapDrawable, so use the bitmap byte count for sizing
-		bodyArtworkCache = new LruCache<LibraryItem, Drawable>(1000000) {
+		final LruCache<Object, Drawable> lruCache = new LruCache<Object, Drawable>(1000000) {
 			@Override
-			protected int sizeOf(final LibraryItem key, final Drawable value) {
+			protected int sizeOf(final Object key, final Drawable value) {
 				return ((BitmapDrawable) value).getBitmap().getByteCount();
 			}
 		};
 
+		// Items with identical covers share one bitmap, so each cover is only decoded once
+		bodyArtworkCache = new ContentAddressedArtworkCache(lruCache, 10000);
+
+		// Remember songs without tags or artwork for a few minutes so they aren't re-read
+		bodyNegativeResultCache = new NegativeResultCache(10000, 5 * 60 * 1000);
+
 		// Header cache will only contain one item
 		headerTitleCache = new LruCache<>(2);
 		headerSubtitleCache = new LruCache<>(2);
@@ -127,37 +237,14 @@ public class PlaylistActivity extends AppCompatActivity {
 	}
 
 	private void precacheText() {
-		bodyDataSource.loadData(true, new BaseDataSource.DataLoadedListener<List<Mp3Song>>() {
-			@Override
-			public void onDataLoaded(final BaseDataSource<List<Mp3Song>> source,
-					final List<Mp3Song> data) {
-				Executors.newSingleThreadExecutor().execute(new Runnable() {
-					@Override
-					public void run() {
-						final Executor cacheExecutor = Executors.newCachedThreadPool();
-
-						for (final Mp3Song song : data) {
-							cacheExecutor.execute(new Runnable() {
-								@Override
-								public void run() {
-									try {
-										bodyTitleCache.put(song, song.getTitle());
-										bodySubtitleCache.put(song, song.getSubtitle());
-									} catch (final LibraryReadException e) {
-										Timber.w("A library item could not be pre-cached.", e);
-									}
-								}
-							});
-						}
-					}
-				});
-			}
+		songTextPrecacher = new SongTextPrecacher(bodyTitleCache, bodySubtitleCache);
 
-			@Override
-			public void onLoadDataFailed(final BaseDataSource<List<Mp3Song>> source) {
-				// Do nothing
-			}
-		});
+		// Songs are added and revalidated after the snapshot is shown, so precache them as well
+		bodyDataSource.registerItemAddedListener(songTextPrecacher);
+		bodyDataSource.registerItemModifiedListener(songTextPrecacher);
+
+		// Nothing has been loaded yet, so this delivers the snapshot and then revalidates it
+		bodyDataSource.loadData(false, songTextPrecacher);
 	}
 
 	private void setupHeaderView() {
@@ -189,6 +276,11 @@ public class PlaylistActivity extends AppCompatActivity {
 	private void setupBodyView() {
 		body = new ListBody(this);
 		body.setContextualMenuResource(R.menu.song_menu);
+		body.setItemIdProvider(ItemIdentity.ID_PROVIDER);
+		body.useFlattenedRows(true);
+
+		// Create the first screen of rows in the background while the data loads
+		body.prewarmViewHolders(12);
 
 		final Bitmap defaultArtwork = BitmapFactory.decodeResource(getResources(), R.raw
 				.default_artwork);
@@ -196,9 +288,17 @@ public class PlaylistActivity extends AppCompatActivity {
 				"Unknown artist",
 				new BitmapDrawable(getResources(), defaultArtwork));
 
-		body.setTitleDataBinder(new TitleBinder(bodyTitleCache, defaults));
-		body.setSubtitleDataBinder(new SubtitleBinder(bodySubtitleCache, defaults));
-		body.setArtworkDataBinder(new ArtworkBinder(bodyArtworkCache, defaults));
+		final TitleBinder titleBinder = new TitleBinder(bodyTitleCache, bodyNegativeResultCache,
+				defaults);
+		titleBinder.setTextLayoutCache(bodyTitleLayoutCache);
+		body.setTitleDataBinder(titleBinder);
+
+		final SubtitleBinder subtitleBinder = new SubtitleBinder(bodySubtitleCache,
+				bodyNegativeResultCache, defaults);
+		subtitleBinder.setTextLayoutCache(bodySubtitleLayoutCache);
+		body.setSubtitleDataBinder(subtitleBinder);
+		body.setArtworkDataBinder(new ArtworkBinder(bodyArtworkCache, bodyNegativeResultCache,
+				defaults));
 
 		body.addLibraryItemSelectedListener(
 				new BodyView.LibraryItemSelectedListener() {
@@ -236,8 +336,7 @@ public class PlaylistActivity extends AppCompatActivity {
 	}
 
 	private void setupBodyPresenter() {
-		final DirectBodyPresenter<Mp3Song, Mp3SongDataSource, RecyclerBodyView> bodyPresenter =
-				new DirectBodyPresenter<>();
+		bodyPresenter = new DirectBodyPresenter<>();
 
 		bodyPresenter.setView(body);
 		bodyPresenter.setDataSource(bodyDataSource);
@@ -306,7 +405,7 @@ public class PlaylistActivity extends AppCompatActivity {
 					displayMessage("Deleted \"untitled\"");
 				}
 
-				bodyDataSource.deleteItem((Mp3Song) item);
+				bodyDataSource.removeItem((Mp3Song) item);
 			}
 		}
 	}
@@ -322,4 +421,128 @@ public class PlaylistActivity extends AppCompatActivity {
 	private void displayMessage(final String message) {
 		Snackbar.make(rootView, message, Snackbar.LENGTH_LONG).show();
 	}
+
+	/**
+	 * The state which is handed from one instance of the activity to the next when the activity is
+	 * recreated for a configuration change.
+	 */
+	private static class RetainedState {
+		private HeaderDataSource headerDataSource;
+
+		private Mp3SongDataSource bodyDataSource;
+
+		private DirectHeaderPresenter<LibraryItem, HeaderDataSource, ToolbarHeader> headerPresenter;
+
+		private DirectBodyPresenter<Mp3Song, Mp3SongDataSource, RecyclerBodyView> bodyPresenter;
+
+		private ArenaTextCache bodyTitleCache;
+
+		private ArenaTextCache bodySubtitleCache;
+
+		private ContentAddressedArtworkCache bodyArtworkCache;
+
+		private NegativeResultCache bodyNegativeResultCache;
+
+		private TextLayoutCache bodyTitleLayoutCache;
+
+		private TextLayoutCache bodySubtitleLayoutCache;
+
+		private LruCache<LibraryItem, CharSequence> headerTitleCache;
+
+		private LruCache<LibraryItem, CharSequence> headerSubtitleCache;
+
+		private LruCache<LibraryItem, Drawable> headerArtworkCache;
+
+		private SongTextPrecacher songTextPrecacher;
+	}
+
+	/**
+	 * Caches the titles and subtitles of songs in the background as they are loaded, added and
+	 * revalidated. It stays registered with the data source while the activity is recreated, so
+	 * it must not reference the activity.
+	 */
+	private static class SongTextPrecacher implements
+			BaseDataSource.DataLoadedListener<List<Mp3Song>>,
+			ListDataSource.ItemAddedListener<Mp3Song>,
+			ListDataSource.ItemModifiedListener<Mp3Song> {
+		private final ArenaTextCache titleCache;
+
+		private final ArenaTextCache subtitleCache;
+
+		private final ExecutorService cacheExecutor = Executors.newCachedThreadPool();
+
+		private SongTextPrecacher(final ArenaTextCache titleCache,
+				final ArenaTextCache subtitleCache) {
+			this.titleCache = titleCache;
+			this.subtitleCache = subtitleCache;
+		}
+
+		@Override
+		public void onDataLoaded(final BaseDataSource<List<Mp3Song>> source,
+				final List<Mp3Song> data) {
+			final List<Mp3Song> songs = new ArrayList<>(data);
+
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					for (final Mp3Song song : songs) {
+						// Restored songs already hold their text, and are replaced when revalidated
+						if (!song.isRestoredFromSnapshot()) {
+							cacheText(song);
+						}
+					}
+				}
+			});
+		}
+
+		@Override
+		public void onLoadDataFailed(final BaseDataSource<List<Mp3Song>> source) {
+			// Do nothing
+		}
+
+		@Override
+		public void onDataAdded(final ListDataSource<Mp3Song> source, final Mp3Song added,
+				final int index) {
+			precache(added);
+		}
+
+		@Override
+		public void onItemModified(final ListDataSource<Mp3Song> source, final Mp3Song modified,
+				final int index) {
+			// The cached text may belong to the restored song which was replaced
+			titleCache.remove(modified);
+			subtitleCache.remove(modified);
+
+			precache(modified);
+		}
+
+		private void precache(final Mp3Song song) {
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					cacheText(song);
+				}
+			});
+		}
+
+		private void shutdown() {
+			cacheExecutor.shutdown();
+		}
+
+		private void execute(final Runnable task) {
+			// A load started before shutdown may still deliver its data afterwards
+			if (!cacheExecutor.isShutdown()) {
+				cacheExecutor.execute(task);
+			}
+		}
+
+		private void cacheText(final Mp3Song song) {
+			try {
+				titleCache.put(song, song.getTitle());
+				subtitleCache.put(song, song.getSubtitle());
+			} catch (final LibraryReadException e) {
+				Timber.w("A library item could not be pre-cached.", e);
+			}
+		}
+	}
 }
\ No newline at end of file
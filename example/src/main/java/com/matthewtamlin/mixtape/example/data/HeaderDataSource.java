@@ -18,11 +18,11 @@ package com.matthewtamlin.mixtape.example.data;
 
 import android.graphics.drawable.Drawable;
 
-import com.matthewtamlin.mixtape.library.data.BaseDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.BackgroundDataSourceHelper;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
 
-public class HeaderDataSource extends BaseDataSourceHelper<LibraryItem> {
+public class HeaderDataSource extends BackgroundDataSourceHelper<LibraryItem> {
 	private final LibraryItem item;
 
 	public HeaderDataSource(final CharSequence title, final CharSequence subtitle,
@@ -47,8 +47,7 @@ public class HeaderDataSource extends BaseDataSourceHelper<LibraryItem> {
 	}
 
 	@Override
-	public void loadData(final boolean forceRefresh,
-			final DataLoadedListener<LibraryItem> callback) {
-		callback.onDataLoaded(this, item);
+	protected LibraryItem loadDataInBackground(final boolean forceRefresh) {
+		return item;
 	}
 }
\ No newline at end of file
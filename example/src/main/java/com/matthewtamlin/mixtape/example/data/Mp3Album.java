@@ -20,8 +20,11 @@ import android.graphics.drawable.Drawable;
 import android.text.TextUtils;
 
 import com.matthewtamlin.mixtape.example.util.Id3Util;
-import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
+import com.matthewtamlin.mixtape.library.data.FingerprintedArtworkItem;
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.PreviewableLibraryItem;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -29,7 +32,21 @@ import java.util.ArrayList;
 import static com.matthewtamlin.mixtape.example.util.Id3Util.MetadataField.ALBUM;
 import static com.matthewtamlin.mixtape.example.util.Id3Util.MetadataField.ALBUM_ARTIST;
 
-public class Mp3Album extends ArrayList<Mp3Song> implements LibraryItem {
+public class Mp3Album extends ArrayList<Mp3Song> implements IdentifiableLibraryItem,
+		FingerprintedArtworkItem, PreviewableLibraryItem {
+	private final long id;
+
+	private volatile ArtworkPreview artworkPreview;
+
+	public Mp3Album(final long id) {
+		this.id = id;
+	}
+
+	@Override
+	public long getId() {
+		return id;
+	}
+
 	@Override
 	public CharSequence getTitle() throws LibraryReadException {
 		if (isEmpty()) {
@@ -78,4 +95,18 @@ public class Mp3Album extends ArrayList<Mp3Song> implements LibraryItem {
 			}
 		}
 	}
+
+	@Override
+	public Long getArtworkFingerprint() throws LibraryReadException {
+		return isEmpty() ? null : get(0).getArtworkFingerprint();
+	}
+
+	@Override
+	public ArtworkPreview getArtworkPreview() {
+		return artworkPreview;
+	}
+
+	public void setArtworkPreview(final ArtworkPreview artworkPreview) {
+		this.artworkPreview = artworkPreview;
+	}
 }
\ No newline at end of file
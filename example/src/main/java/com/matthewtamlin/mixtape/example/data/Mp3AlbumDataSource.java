@@ -17,12 +17,12 @@
 package com.matthewtamlin.mixtape.example.data;
 
 import android.content.res.Resources;
-import android.os.AsyncTask;
 import android.os.Environment;
 
 import com.matthewtamlin.java_utilities.file.FileFinder;
 import com.matthewtamlin.mixtape.example.util.Id3Util;
-import com.matthewtamlin.mixtape.library.data.ListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
+import com.matthewtamlin.mixtape.library.data.IndexedListDataSource;
 
 import java.io.File;
 import java.io.IOException;
@@ -35,50 +35,18 @@ import java.util.Set;
 import static android.os.Environment.getExternalStoragePublicDirectory;
 import static com.matthewtamlin.mixtape.example.util.Id3Util.MetadataField.ALBUM;
 
-public class Mp3AlbumDataSource extends ListDataSourceHelper<Mp3Album> {
-	private final Resources resources;
+public class Mp3AlbumDataSource extends IndexedListDataSource<Mp3Album> {
+	private static final int PREVIEW_SIZE = 4;
 
-	private List<Mp3Album> albums = null;
+	private final Resources resources;
 
 	public Mp3AlbumDataSource(final Resources resources) {
 		this.resources = resources;
 	}
 
 	@Override
-	public void loadData(final boolean forceRefresh,
-			final DataLoadedListener<List<Mp3Album>> callback) {
-		final AsyncTask<Void, Void, Void> task = new AsyncTask<Void, Void, Void>() {
-			@Override
-			protected Void doInBackground(final Void... params) {
-				if (albums == null || forceRefresh) {
-					final List<Mp3Song> songs = loadMp3SongsFromMusicDirectory();
-					albums = sortSongsByAlbum(songs);
-				}
-
-				return null;
-			}
-
-			@Override
-			protected void onPostExecute(final Void aVoid) {
-				if (callback != null) {
-					callback.onDataLoaded(Mp3AlbumDataSource.this, albums);
-				}
-			}
-		};
-
-		task.execute();
-	}
-
-	public void deleteItem(final Mp3Album item) {
-		if (albums.contains(item)) {
-			final int index = albums.indexOf(item);
-
-			albums.remove(item);
-
-			for (final ItemRemovedListener<Mp3Album> listener : getItemRemovedListeners()) {
-				listener.onDataRemoved(this, item, index);
-			}
-		}
+	protected List<Mp3Album> loadItemsInBackground(final boolean forceRefresh) {
+		return sortSongsByAlbum(loadMp3SongsFromMusicDirectory());
 	}
 
 	private List<Mp3Song> loadMp3SongsFromMusicDirectory() {
@@ -107,7 +75,7 @@ public class Mp3AlbumDataSource extends ListDataSourceHelper<Mp3Album> {
 				final String key = Id3Util.getMetadataFromId3Tag(song.getMp3File(), ALBUM);
 
 				if (!albumMap.containsKey(key)) {
-					albumMap.put(key, new Mp3Album());
+					albumMap.put(key, new Mp3Album(ItemIdentity.hash(key)));
 				}
 
 				albumMap.get(key).add(song);
@@ -116,6 +84,17 @@ public class Mp3AlbumDataSource extends ListDataSourceHelper<Mp3Album> {
 			}
 		}
 
+		// Index the artwork previews now so that they can be shown without any loading
+		for (final Mp3Album album : albumMap.values()) {
+			try {
+				final Mp3Song firstSong = album.get(0);
+				firstSong.indexArtwork(PREVIEW_SIZE);
+				album.setArtworkPreview(firstSong.getArtworkPreview());
+			} catch (final IOException e) {
+				// The album will be shown without a preview
+			}
+		}
+
 		return new ArrayList<>(albumMap.values());
 	}
 }
\ No newline at end of file
@@ -22,32 +22,80 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 
 import com.matthewtamlin.mixtape.example.util.Id3Util;
-import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
+import com.matthewtamlin.mixtape.library.data.BatchReadableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.FingerprintedArtworkItem;
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.PreviewableLibraryItem;
+
+import org.jaudiotagger.tag.Tag;
 
 import java.io.File;
 import java.io.IOException;
 
 import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
 
-public class Mp3Song implements LibraryItem {
+public class Mp3Song implements IdentifiableLibraryItem, FingerprintedArtworkItem,
+		PreviewableLibraryItem, BatchReadableLibraryItem {
 	private final Resources resources;
 
 	private File mp3File;
 
+	private final long id;
+
+	private volatile ArtworkPreview artworkPreview;
+
+	// Cached so that the shared artwork cache does not need to parse the tag a second time
+	private volatile Long artworkFingerprint;
+
+	private volatile boolean artworkFingerprintKnown;
+
+	// Songs restored from a snapshot show the saved metadata instead of reading the file
+	private final CharSequence snapshotTitle;
+
+	private final CharSequence snapshotSubtitle;
+
+	// While a row is being bound every field is read from this tag, so the file is parsed once
+	private Tag batchTag;
+
+	private int batchReadCount;
+
 	public Mp3Song(final File mp3File, final Resources resources) {
+		this(mp3File, resources, null, null);
+	}
+
+	public Mp3Song(final File mp3File, final Resources resources, final CharSequence snapshotTitle,
+			final CharSequence snapshotSubtitle) {
 		this.mp3File = checkNotNull(mp3File, "mp3File cannot be null.");
 		this.resources = checkNotNull(resources, "resources cannot be null.");
+		this.id = ItemIdentity.hash(mp3File.getAbsolutePath());
+		this.snapshotTitle = snapshotTitle;
+		this.snapshotSubtitle = snapshotSubtitle;
+	}
+
+	@Override
+	public long getId() {
+		return id;
 	}
 
 	public File getMp3File() {
 		return mp3File;
 	}
 
+	public boolean isRestoredFromSnapshot() {
+		return snapshotTitle != null || snapshotSubtitle != null;
+	}
+
 	@Override
 	public CharSequence getTitle() throws LibraryReadException {
+		if (snapshotTitle != null) {
+			return snapshotTitle;
+		}
+
 		try {
-			return Id3Util.getMetadataFromId3Tag(mp3File, Id3Util.MetadataField.TITLE);
+			return Id3Util.getMetadata(readTag(), Id3Util.MetadataField.TITLE);
 		} catch (final IOException e) {
 			throw new LibraryReadException("Cannot read ID3 tag from file " + mp3File, e);
 		}
@@ -55,8 +103,12 @@ public class Mp3Song implements LibraryItem {
 
 	@Override
 	public CharSequence getSubtitle() throws LibraryReadException {
+		if (snapshotSubtitle != null) {
+			return snapshotSubtitle;
+		}
+
 		try {
-			return Id3Util.getMetadataFromId3Tag(mp3File, Id3Util.MetadataField.ARTIST);
+			return Id3Util.getMetadata(readTag(), Id3Util.MetadataField.ARTIST);
 		} catch (final IOException e) {
 			throw new LibraryReadException("Cannot read ID3 tag from file " + mp3File, e);
 		}
@@ -65,13 +117,86 @@ public class Mp3Song implements LibraryItem {
 	@Override
 	public Drawable getArtwork(final int width, final int height) throws LibraryReadException {
 		try {
-			final Bitmap artwork = Id3Util.getCoverArtFromId3Tag(mp3File, width, height);
+			final byte[] artworkData = Id3Util.getCoverArtData(readTag());
+			setArtworkFingerprint(Id3Util.fingerprintCoverArt(artworkData));
+
+			final Bitmap artwork = Id3Util.decodeCoverArt(artworkData, width, height);
 			return new BitmapDrawable(resources, artwork);
 		} catch (final IOException e) {
 			throw new LibraryReadException("Cannot read ID3 tag from file " + mp3File, e);
 		}
 	}
 
+	@Override
+	public Long getArtworkFingerprint() throws LibraryReadException {
+		if (artworkFingerprintKnown) {
+			return artworkFingerprint;
+		}
+
+		try {
+			final byte[] artworkData = Id3Util.getCoverArtData(readTag());
+			final Long fingerprint = Id3Util.fingerprintCoverArt(artworkData);
+			setArtworkFingerprint(fingerprint);
+
+			return fingerprint;
+		} catch (final IOException e) {
+			throw new LibraryReadException("Cannot read ID3 tag from file " + mp3File, e);
+		}
+	}
+
+	@Override
+	public synchronized void beginBatchRead() throws LibraryReadException {
+		if (batchReadCount == 0) {
+			try {
+				batchTag = Id3Util.readId3Tag(mp3File);
+			} catch (final IOException e) {
+				throw new LibraryReadException("Cannot read ID3 tag from file " + mp3File, e);
+			}
+		}
+
+		batchReadCount++;
+	}
+
+	@Override
+	public synchronized void endBatchRead() {
+		if (batchReadCount > 0 && --batchReadCount == 0) {
+			batchTag = null;
+		}
+	}
+
+	@Override
+	public ArtworkPreview getArtworkPreview() {
+		return artworkPreview;
+	}
+
+	public void setArtworkPreview(final ArtworkPreview artworkPreview) {
+		this.artworkPreview = artworkPreview;
+	}
+
+	public void setArtworkFingerprint(final Long artworkFingerprint) {
+		this.artworkFingerprint = artworkFingerprint;
+		artworkFingerprintKnown = true;
+	}
+
+	// Derives both the preview and the fingerprint from a single read of the tag
+	public void indexArtwork(final int previewSize) throws IOException {
+		final byte[] artworkData = Id3Util.getCoverArtDataFromId3Tag(mp3File);
+
+		setArtworkPreview(Id3Util.previewCoverArt(artworkData, previewSize));
+		setArtworkFingerprint(Id3Util.fingerprintCoverArt(artworkData));
+	}
+
+	// Uses the tag of the batch read in progress, or parses the file if there is none
+	private Tag readTag() throws IOException {
+		synchronized (this) {
+			if (batchReadCount > 0) {
+				return batchTag;
+			}
+		}
+
+		return Id3Util.readId3Tag(mp3File);
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		if (obj == null) {
@@ -17,62 +17,48 @@
 package com.matthewtamlin.mixtape.example.data;
 
 import android.content.res.Resources;
-import android.os.AsyncTask;
 import android.os.Environment;
 
 import com.matthewtamlin.java_utilities.file.FileFinder;
-import com.matthewtamlin.mixtape.library.data.ListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.IndexedListDataSource;
+import com.matthewtamlin.mixtape.library.data.ListSnapshot;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
 import static android.os.Environment.getExternalStoragePublicDirectory;
 
-public class Mp3SongDataSource extends ListDataSourceHelper<Mp3Song> {
-	private final Resources resources;
+public class Mp3SongDataSource extends IndexedListDataSource<Mp3Song> {
+	private static final int PREVIEW_SIZE = 4;
 
-	private List<Mp3Song> songs = null;
+	private final Resources resources;
 
 	public Mp3SongDataSource(final Resources resources) {
 		this.resources = resources;
+		setStaleWhileRevalidateEnabled(true);
 	}
 
 	@Override
-	public void loadData(final boolean forceRefresh,
-			final DataLoadedListener<List<Mp3Song>> callback) {
-		final AsyncTask<Void, Void, Void> task = new AsyncTask<Void, Void, Void>() {
-			@Override
-			protected Void doInBackground(final Void... params) {
-				if (songs == null || forceRefresh) {
-					songs = loadMp3SongsFromMusicDirectory();
-				}
-
-				return null;
-			}
-
-			@Override
-			protected void onPostExecute(final Void aVoid) {
-				if (callback != null) {
-					callback.onDataLoaded(Mp3SongDataSource.this, songs);
-				}
-			}
-		};
-
-		task.execute();
+	protected List<Mp3Song> loadItemsInBackground(final boolean forceRefresh) {
+		return loadMp3SongsFromMusicDirectory();
 	}
 
-	public void deleteItem(final Mp3Song item) {
-		if (songs.contains(item)) {
-			final int index = songs.indexOf(item);
+	@Override
+	protected ListSnapshot.Entry createSnapshotEntry(final Mp3Song item) {
+		return ListSnapshot.Entry.fromItem(item.getMp3File().getAbsolutePath(), item);
+	}
 
-			songs.remove(item);
+	@Override
+	protected Mp3Song restoreSnapshotEntry(final ListSnapshot.Entry entry) {
+		// Restored songs are replaced by the scanned songs once the music directory is revalidated
+		final Mp3Song song = new Mp3Song(new File(entry.getKey()), resources, entry.getTitle(),
+				entry.getSubtitle());
+		song.setArtworkPreview(entry.getArtworkPreview());
 
-			for (final ItemRemovedListener<Mp3Song> listener : getItemRemovedListeners()) {
-				listener.onDataRemoved(this, item, index);
-			}
-		}
+		return song;
 	}
 
 	private List<Mp3Song> loadMp3SongsFromMusicDirectory() {
@@ -86,7 +72,16 @@ public class Mp3SongDataSource extends ListDataSourceHelper<Mp3Song> {
 
 			if (splitName.length > 1) {
 				if (splitName[splitName.length - 1].toLowerCase().equals("mp3")) {
-					mp3Songs.add(new Mp3Song(file, resources));
+					final Mp3Song song = new Mp3Song(file, resources);
+
+					// Index the artwork preview and fingerprint now from a single read of the tag
+					try {
+						song.indexArtwork(PREVIEW_SIZE);
+					} catch (final IOException e) {
+						// The song will be shown without a preview
+					}
+
+					mp3Songs.add(song);
 				}
 			}
 		}
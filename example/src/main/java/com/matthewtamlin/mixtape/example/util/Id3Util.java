@@ -20,6 +20,8 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
 import com.matthewtamlin.android_utilities.library.helpers.BitmapEfficiencyHelper;
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
 
 import org.jaudiotagger.audio.AudioFileIO;
@@ -47,14 +49,39 @@ public abstract class Id3Util {
 	 */
 	public static String getMetadataFromId3Tag(final File file, final MetadataField field)
 			throws IOException {
+		return getMetadata(readId3Tag(file), field);
+	}
+
+	/**
+	 * Reads the ID3 tag of an MP3 file, so that several fields can be accessed from a single read.
+	 *
+	 * @param file
+	 * 		the MP3 file to read from
+	 * @return the tag, null if the file has none
+	 * @throws IOException
+	 * 		if an error occurs while accessing the ID3 tag
+	 */
+	public static Tag readId3Tag(final File file) throws IOException {
 		try {
-			final Tag tag = AudioFileIO.read(file).getTag();
-			return tag == null ? null : tag.getFirst(field.fieldKey);
+			return AudioFileIO.read(file).getTag();
 		} catch (final Exception e) {
-			throw new LibraryReadException("Cannot read ID3 tag from file " + field, e);
+			throw new LibraryReadException("Cannot read ID3 tag from file " + file, e);
 		}
 	}
 
+	/**
+	 * Accesses the metadata stored in an ID3 tag which has already been read.
+	 *
+	 * @param tag
+	 * 		the tag to access, may be null
+	 * @param field
+	 * 		the metadata field to access
+	 * @return the metadata, null if none is found
+	 */
+	public static String getMetadata(final Tag tag, final MetadataField field) {
+		return tag == null ? null : tag.getFirst(field.fieldKey);
+	}
+
 	/**
 	 * Reads the cover art stored in the ID3v2 tag of an MP3 file. The supplied dimensions are used
 	 * to optimise the image so that memory usage is reduced without distortion or degradation. If
@@ -73,33 +100,120 @@ public abstract class Id3Util {
 	 */
 	public static Bitmap getCoverArtFromId3Tag(final File file, final int width, final int
 			height) throws IOException {
-		try {
-			final Tag tag = AudioFileIO.read(file).getTag();
-			final Artwork artwork = tag == null ? null : tag.getFirstArtwork();
-			return artworkToBitmap(artwork, width, height);
-		} catch (final Exception e) {
-			throw new LibraryReadException("Cannot read ID3 tag from file " + file, e);
+		return decodeCoverArt(getCoverArtDataFromId3Tag(file), width, height);
+	}
+
+	/**
+	 * Reads the encoded cover art stored in the ID3v2 tag of an MP3 file without decoding it. This
+	 * allows the cover art, its fingerprint and its preview to be derived from a single read of the
+	 * tag.
+	 *
+	 * @param file
+	 * 		the MP3 file to read from
+	 * @return the encoded cover art, null if none is found
+	 * @throws IllegalArgumentException
+	 * 		if an error occurs while accessing the ID3 tag
+	 */
+	public static byte[] getCoverArtDataFromId3Tag(final File file) throws IOException {
+		return getCoverArtData(readId3Tag(file));
+	}
+
+	/**
+	 * Accesses the encoded cover art stored in an ID3v2 tag which has already been read.
+	 *
+	 * @param tag
+	 * 		the tag to access, may be null
+	 * @return the encoded cover art, null if none is found
+	 */
+	public static byte[] getCoverArtData(final Tag tag) {
+		final Artwork artwork = tag == null ? null : tag.getFirstArtwork();
+		return artwork == null ? null : artwork.getBinaryData();
+	}
+
+	/**
+	 * Computes a fingerprint of the cover art stored in the ID3v2 tag of an MP3 file. The encoded
+	 * image is hashed without being decoded, so files which embed identical cover art produce
+	 * identical fingerprints.
+	 *
+	 * @param file
+	 * 		the MP3 file to read from
+	 * @return the fingerprint, null if no cover art is found
+	 * @throws IllegalArgumentException
+	 * 		if an error occurs while accessing the ID3 tag
+	 */
+	public static Long getCoverArtFingerprintFromId3Tag(final File file) throws IOException {
+		return fingerprintCoverArt(getCoverArtDataFromId3Tag(file));
+	}
+
+	/**
+	 * Computes a fingerprint of encoded cover art.
+	 *
+	 * @param coverArtData
+	 * 		the encoded cover art, may be null
+	 * @return the fingerprint, null if {@code coverArtData} is null
+	 */
+	public static Long fingerprintCoverArt(final byte[] coverArtData) {
+		return coverArtData == null ? null : ItemIdentity.hash(coverArtData);
+	}
+
+	/**
+	 * Computes a preview of the cover art stored in the ID3v2 tag of an MP3 file. The cover art is
+	 * decoded at a reduced size, so this is cheaper than reading the full cover art.
+	 *
+	 * @param file
+	 * 		the MP3 file to read from
+	 * @param size
+	 * 		the width and height of the preview thumbnail, between one and {@link
+	 * 		ArtworkPreview#MAX_SIZE} inclusive
+	 * @return the preview, null if no cover art is found
+	 * @throws IllegalArgumentException
+	 * 		if an error occurs while accessing the ID3 tag
+	 */
+	public static ArtworkPreview getCoverArtPreviewFromId3Tag(final File file, final int size)
+			throws IOException {
+		return previewCoverArt(getCoverArtDataFromId3Tag(file), size);
+	}
+
+	/**
+	 * Computes a preview of encoded cover art. The cover art is decoded at a reduced size, so this
+	 * is cheaper than decoding the full cover art.
+	 *
+	 * @param coverArtData
+	 * 		the encoded cover art, may be null
+	 * @param size
+	 * 		the width and height of the preview thumbnail, between one and {@link
+	 * 		ArtworkPreview#MAX_SIZE} inclusive
+	 * @return the preview, null if {@code coverArtData} is null
+	 */
+	public static ArtworkPreview previewCoverArt(final byte[] coverArtData, final int size) {
+		final Bitmap coverArt = decodeCoverArt(coverArtData, size * 4, size * 4);
+
+		if (coverArt == null) {
+			return null;
+		} else {
+			final ArtworkPreview preview = ArtworkPreview.fromBitmap(coverArt, size);
+			coverArt.recycle();
+
+			return preview;
 		}
 	}
 
 	/**
-	 * Converts an image from an Artwork object to a Bitmap object. The supplied dimensions are used
-	 * to optimise the image so that memory usage is reduced without distortion or degradation. If
-	 * either dimension parameter is less than or equal to 0, then the full unoptimised cover art is
+	 * Decodes encoded cover art to a Bitmap object. The supplied dimensions are used to optimise
+	 * the image so that memory usage is reduced without distortion or degradation. If either
+	 * dimension parameter is less than or equal to 0, then the full unoptimised cover art is
 	 * returned.
 	 *
-	 * @param artwork
-	 * 		the artwork to convert
+	 * @param rawBitmapArray
+	 * 		the encoded cover art, may be null
 	 * @param width
 	 * 		the desired width of the image
 	 * @param height
 	 * 		the desired height of the image
-	 * @return the converted image
+	 * @return the decoded image, null if {@code rawBitmapArray} is null
 	 */
-	private static Bitmap artworkToBitmap(final Artwork artwork, final int width, final int
+	public static Bitmap decodeCoverArt(final byte[] rawBitmapArray, final int width, final int
 			height) {
-		final byte[] rawBitmapArray = (artwork == null) ? null : artwork.getBinaryData();
-
 		if (rawBitmapArray == null) {
 			return null;
 		} else if (width == 0 || height == 0) {
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.databinders;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.matthewtamlin.mixtape.library.databinders.LongKeyedLruCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Compares the footprint and throughput of LongKeyedLruCache against an LruCache with boxed long
+ * keys, which is how LruMetadataCache stores identifiable items. The results are written to the
+ * log under the {@link #TAG} tag. Nothing is asserted, since the results depend on the device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LongKeyedLruCacheBenchmark {
+	/**
+	 * The tag to log results under.
+	 */
+	private static final String TAG = "LongKeyedLruCacheBench";
+
+	/**
+	 * The number of entries in each cache, chosen to match a large music library.
+	 */
+	private static final int ENTRY_COUNT = 50000;
+
+	/**
+	 * The number of operations to time in each throughput pass.
+	 */
+	private static final int OPERATION_COUNT = 1000000;
+
+	/**
+	 * The values to store in the caches. The same values are shared by both caches so that only
+	 * the overhead of the caches themselves is measured.
+	 */
+	private String[] values;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		values = new String[ENTRY_COUNT];
+
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			values[i] = "Title " + i;
+		}
+	}
+
+	/**
+	 * Measures the heap used by each cache when holding {@link #ENTRY_COUNT} entries.
+	 */
+	@Test
+	public void benchmarkFootprint() {
+		final long lruCacheBaseline = usedMemory();
+		final LruCache<Object, String> lruCache = new LruCache<>(ENTRY_COUNT);
+		fill(lruCache);
+		final long lruCacheBytes = usedMemory() - lruCacheBaseline;
+
+		final long longKeyedBaseline = usedMemory();
+		final LongKeyedLruCache<String> longKeyedCache = new LongKeyedLruCache<>(ENTRY_COUNT);
+		fill(longKeyedCache);
+		final long longKeyedBytes = usedMemory() - longKeyedBaseline;
+
+		Log.i(TAG, "Footprint of " + lruCache.size() + " entries in LruCache: " +
+				lruCacheBytes / 1024 + " KB");
+		Log.i(TAG, "Footprint of " + longKeyedCache.size() + " entries in LongKeyedLruCache: " +
+				longKeyedBytes / 1024 + " KB");
+	}
+
+	/**
+	 * Measures the throughput of each cache under a mix of gets and puts, after warming up.
+	 */
+	@Test
+	public void benchmarkThroughput() {
+		final LruCache<Object, String> lruCache = new LruCache<>(ENTRY_COUNT);
+		final LongKeyedLruCache<String> longKeyedCache = new LongKeyedLruCache<>(ENTRY_COUNT);
+		fill(lruCache);
+		fill(longKeyedCache);
+
+		for (int pass = 0; pass < 3; pass++) {
+			final long lruCacheNs = timeOperations(lruCache);
+			final long longKeyedNs = timeOperations(longKeyedCache);
+
+			Log.i(TAG, "Pass " + pass + " LruCache: " + opsPerMs(lruCacheNs) + " ops/ms");
+			Log.i(TAG, "Pass " + pass + " LongKeyedLruCache: " + opsPerMs(longKeyedNs) +
+					" ops/ms");
+		}
+	}
+
+	/**
+	 * Fills an LruCache with one entry per value.
+	 *
+	 * @param cache
+	 * 		the cache to fill, not null
+	 */
+	private void fill(final LruCache<Object, String> cache) {
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			cache.put((long) i, values[i]);
+		}
+	}
+
+	/**
+	 * Fills a LongKeyedLruCache with one entry per value.
+	 *
+	 * @param cache
+	 * 		the cache to fill, not null
+	 */
+	private void fill(final LongKeyedLruCache<String> cache) {
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			cache.put(i, values[i]);
+		}
+	}
+
+	/**
+	 * Times a mix of 90% gets and 10% puts against an LruCache. Keys are drawn from twice the
+	 * cache size, so roughly half of all gets miss and every put evicts an entry.
+	 *
+	 * @param cache
+	 * 		the cache to time, not null
+	 * @return the elapsed time, measured in nanoseconds
+	 */
+	private long timeOperations(final LruCache<Object, String> cache) {
+		final Random random = new Random(1);
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < OPERATION_COUNT; i++) {
+			final int key = random.nextInt(ENTRY_COUNT * 2);
+
+			if (i % 10 == 0) {
+				cache.put((long) key, values[key % ENTRY_COUNT]);
+			} else {
+				cache.get((long) key);
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Times the same operations as {@link #timeOperations(LruCache)} against a LongKeyedLruCache.
+	 *
+	 * @param cache
+	 * 		the cache to time, not null
+	 * @return the elapsed time, measured in nanoseconds
+	 */
+	private long timeOperations(final LongKeyedLruCache<String> cache) {
+		final Random random = new Random(1);
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < OPERATION_COUNT; i++) {
+			final int key = random.nextInt(ENTRY_COUNT * 2);
+
+			if (i % 10 == 0) {
+				cache.put(key, values[key % ENTRY_COUNT]);
+			} else {
+				cache.get(key);
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @param elapsedNs
+	 * 		the time taken to perform {@link #OPERATION_COUNT} operations, measured in
+	 * 		nanoseconds
+	 * @return the number of operations per millisecond
+	 */
+	private static long opsPerMs(final long elapsedNs) {
+		return OPERATION_COUNT * 1000000L / Math.max(1, elapsedNs);
+	}
+
+	/**
+	 * @return the heap in use after requesting garbage collection, measured in bytes
+	 */
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++) {
+			runtime.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
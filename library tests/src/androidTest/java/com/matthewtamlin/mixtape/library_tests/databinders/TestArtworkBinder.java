@@ -16,9 +16,13 @@
 
 package com.matthewtamlin.mixtape.library_tests.databinders;
 
+import android.content.Context;
 import android.graphics.drawable.Drawable;
+import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 import android.support.v4.util.LruCache;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
@@ -26,10 +30,12 @@ import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
 import com.matthewtamlin.mixtape.library.databinders.ArtworkBinder;
 import com.matthewtamlin.mixtape.library.databinders.TitleBinder;
+import com.matthewtamlin.mixtape.library.mixtape_body.FlatListBodyItem;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.nullValue;
@@ -253,6 +259,137 @@ public class TestArtworkBinder {
 		assertThat("Something was added to the cache.", cache.get(libraryItem), is(nullValue()));
 	}
 
+	/**
+	 * Test to verify that the {@link ArtworkBinder#bind(ImageView, LibraryItem)} method decodes
+	 * artwork at the exact size given by the layout parameters of the view, when the view has not
+	 * been measured yet. The test will only pass if the artwork is requested at that size.
+	 */
+	@Test
+	public void testBind_unmeasuredView_decodesAtLayoutSize() throws LibraryReadException {
+		final ArtworkBinder binder = new ArtworkBinder(cache, displayableDefaults);
+		when(imageView.getLayoutParams()).thenReturn(new ViewGroup.LayoutParams(123, 45));
+
+		binder.bind(imageView, libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem).getArtwork(123, 45);
+		verify(imageView).setImageDrawable(artwork);
+	}
+
+	/**
+	 * Test to verify that the {@link ArtworkBinder#bind(ImageView, LibraryItem)} method defers
+	 * loading while the list is flinging, and starts the deferred load once the list is idle. The
+	 * test will only pass if the artwork is only requested after the list stops.
+	 */
+	@Test
+	public void testBind_flinging_loadDeferredUntilIdle() throws LibraryReadException {
+		final ArtworkBinder binder = new ArtworkBinder(cache, displayableDefaults);
+		when(imageView.isShown()).thenReturn(true);
+
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_SETTLING, 10000);
+		binder.bind(imageView, libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem, never()).getArtwork(anyInt(), anyInt());
+
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_IDLE, 0);
+
+		waitForAsyncEventsToFinish();
+
+		verify(imageView).setImageDrawable(artwork);
+	}
+
+	/**
+	 * Test to verify that a load which is deferred while the list is flinging is started once the
+	 * list is idle when the ImageView is the artwork target of a {@link FlatListBodyItem}. The
+	 * target is never attached to the window, so the test will only pass if the load is started
+	 * because the row which hosts the target is shown.
+	 */
+	@Test
+	public void testBind_flinging_flatRowLoadDeferredUntilIdle() throws LibraryReadException {
+		final ArtworkBinder binder = new ArtworkBinder(cache, displayableDefaults);
+		final FlatListBodyItem row = new ShownFlatListBodyItem(InstrumentationRegistry
+				.getTargetContext());
+
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_SETTLING, 10000);
+		binder.bind(row.getArtworkTarget(), libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem, never()).getArtwork(anyInt(), anyInt());
+
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_IDLE, 0);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem).getArtwork(anyInt(), anyInt());
+	}
+
+	/**
+	 * Test to verify that the {@link ArtworkBinder#bind(ImageView, LibraryItem)} method still binds
+	 * cached artwork while the list is flinging. The test will only pass if the cached artwork is
+	 * bound without the list stopping.
+	 */
+	@Test
+	public void testBind_flinging_dataCached() {
+		final ArtworkBinder binder = new ArtworkBinder(cache, displayableDefaults);
+		cache.put(libraryItem, cachedArtwork);
+
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_SETTLING, 10000);
+		binder.bind(imageView, libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(imageView).setImageDrawable(cachedArtwork);
+	}
+
+	/**
+	 * Test to verify that a bind operation is cancelled when the ImageView is detached, and
+	 * restarted when the ImageView is reattached. The test will only pass if the artwork is not
+	 * loaded while the view is detached, and is bound once the view is reattached.
+	 */
+	@Test
+	public void testBind_viewDetachedAndReattached() throws LibraryReadException {
+		final ArtworkBinder binder = new ArtworkBinder(cache, displayableDefaults);
+		final ArgumentCaptor<View.OnAttachStateChangeListener> listenerCaptor = ArgumentCaptor
+				.forClass(View.OnAttachStateChangeListener.class);
+		when(imageView.isShown()).thenReturn(true);
+
+		// Defer the load so that the view can be detached before loading starts
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_SETTLING, 10000);
+		binder.bind(imageView, libraryItem);
+
+		verify(imageView).addOnAttachStateChangeListener(listenerCaptor.capture());
+		listenerCaptor.getValue().onViewDetachedFromWindow(imageView);
+		binder.onScrollStateChanged(ArtworkBinder.SCROLL_STATE_IDLE, 0);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem, never()).getArtwork(anyInt(), anyInt());
+
+		listenerCaptor.getValue().onViewAttachedToWindow(imageView);
+
+		waitForAsyncEventsToFinish();
+
+		verify(imageView).setImageDrawable(artwork);
+	}
+
+	/**
+	 * A FlatListBodyItem which reports that it is shown without being attached to a window.
+	 */
+	private static class ShownFlatListBodyItem extends FlatListBodyItem {
+		public ShownFlatListBodyItem(final Context context) {
+			super(context);
+		}
+
+		@Override
+		public boolean isShown() {
+			return true;
+		}
+	}
+
 	/**
 	 * Suspends execution of the current thread. The duration is defined by the {@code
 	 * PAUSE_DURATION} constant.
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.databinders;
+
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.matthewtamlin.mixtape.library.databinders.FadeInDrawable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link FadeInDrawable} class.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TestFadeInDrawable {
+	/**
+	 * A fade duration which is long enough that the fade never finishes during a test.
+	 */
+	private static final int LONG_DURATION_MS = 1000000;
+
+	/**
+	 * The Drawable to fade from.
+	 */
+	private Drawable start;
+
+	/**
+	 * The Drawable to fade in.
+	 */
+	private Drawable end;
+
+	/**
+	 * The canvas to draw on.
+	 */
+	private Canvas canvas;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		start = mock(Drawable.class);
+		end = mock(Drawable.class);
+		when(end.getIntrinsicWidth()).thenReturn(100);
+		when(end.getIntrinsicHeight()).thenReturn(50);
+		when(end.getOpacity()).thenReturn(PixelFormat.OPAQUE);
+		canvas = mock(Canvas.class);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a null end Drawable.
+	 * The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullEnd() {
+		new FadeInDrawable(start, null, LONG_DURATION_MS);
+	}
+
+	/**
+	 * Test to verify that the start Drawable is drawn underneath the transparent end Drawable
+	 * while the fade is in progress. The test will only pass if both Drawables are drawn and the
+	 * end Drawable is drawn fully transparent.
+	 */
+	@Test
+	public void testDraw_fadeInProgress() {
+		final FadeInDrawable drawable = new FadeInDrawable(start, end, LONG_DURATION_MS);
+
+		drawable.draw(canvas);
+
+		verify(start).draw(canvas);
+		verify(end).setAlpha(0);
+		verify(end).draw(canvas);
+		assertThat(drawable.isFinished(), is(false));
+		assertThat(drawable.getOpacity(), is(PixelFormat.TRANSLUCENT));
+	}
+
+	/**
+	 * Test to verify that only the end Drawable is drawn once the fade has finished. The test
+	 * will only pass if the end Drawable is drawn fully opaque and the start Drawable is not drawn.
+	 */
+	@Test
+	public void testDraw_fadeFinished() {
+		final FadeInDrawable drawable = new FadeInDrawable(start, end, 0);
+
+		drawable.draw(canvas);
+
+		verify(start, never()).draw(canvas);
+		verify(end).setAlpha(255);
+		verify(end).draw(canvas);
+		assertThat(drawable.isFinished(), is(true));
+		assertThat(drawable.getOpacity(), is(PixelFormat.OPAQUE));
+	}
+
+	/**
+	 * Test to verify that the size and bounds of the FadeInDrawable are applied to both Drawables.
+	 * The test will only pass if the intrinsic size of the end Drawable is used and the bounds are
+	 * passed to both Drawables.
+	 */
+	@Test
+	public void testSizeAndBounds() {
+		final FadeInDrawable drawable = new FadeInDrawable(start, end, LONG_DURATION_MS);
+		final Rect bounds = new Rect(0, 0, 10, 20);
+
+		drawable.setBounds(bounds);
+
+		assertThat(drawable.getIntrinsicWidth(), is(100));
+		assertThat(drawable.getIntrinsicHeight(), is(50));
+		verify(start).setBounds(bounds);
+		verify(end).setBounds(bounds);
+	}
+}
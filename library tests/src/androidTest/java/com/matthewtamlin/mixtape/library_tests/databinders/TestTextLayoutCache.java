@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.databinders;
+
+import android.graphics.Typeface;
+import android.support.test.runner.AndroidJUnit4;
+import android.text.Layout;
+import android.text.TextPaint;
+
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.TextLayoutCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the {@link TextLayoutCache} class.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TestTextLayoutCache {
+	/**
+	 * The width to create layouts for, measured in pixels.
+	 */
+	private static final int WIDTH = 200;
+
+	/**
+	 * The text to create layouts for.
+	 */
+	private static final String TEXT = "Title";
+
+	/**
+	 * The cache under test.
+	 */
+	private TextLayoutCache cache;
+
+	/**
+	 * The paint to create layouts with.
+	 */
+	private TextPaint paint;
+
+	/**
+	 * The item the text belongs to.
+	 */
+	private LibraryItem item;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		cache = new TextLayoutCache(10);
+		paint = new TextPaint();
+		paint.setTextSize(20);
+		item = mock(LibraryItem.class);
+	}
+
+	/**
+	 * Test to verify that a layout is created once and then returned from the cache. The test will
+	 * only pass if the same layout is returned by subsequent calls.
+	 */
+	@Test
+	public void testGetOrCreate_cachesLayout() {
+		assertThat(cache.get(item, TEXT, paint, WIDTH), is(nullValue()));
+
+		final Layout layout = cache.getOrCreate(item, TEXT, paint, WIDTH);
+
+		assertThat(layout.getText().toString(), is(TEXT));
+		assertThat(layout.getWidth(), is(WIDTH));
+		assertThat(cache.get(item, TEXT, paint, WIDTH), is(sameInstance(layout)));
+		assertThat(cache.getOrCreate(item, TEXT, paint, WIDTH), is(sameInstance(layout)));
+	}
+
+	/**
+	 * Test to verify that a cached layout is not returned for different text, a different width or
+	 * a different paint. The test will only pass if null is returned in each case.
+	 */
+	@Test
+	public void testGet_parametersChanged() {
+		cache.getOrCreate(item, TEXT, paint, WIDTH);
+
+		final TextPaint largerPaint = new TextPaint(paint);
+		largerPaint.setTextSize(40);
+
+		final TextPaint boldPaint = new TextPaint(paint);
+		boldPaint.setTypeface(Typeface.DEFAULT_BOLD);
+
+		assertThat(cache.get(item, "Other title", paint, WIDTH), is(nullValue()));
+		assertThat(cache.get(item, TEXT, paint, WIDTH + 1), is(nullValue()));
+		assertThat(cache.get(item, TEXT, largerPaint, WIDTH), is(nullValue()));
+		assertThat(cache.get(item, TEXT, boldPaint, WIDTH), is(nullValue()));
+		assertThat(cache.get(item, new StringBuilder(TEXT), paint, WIDTH), is(not(nullValue())));
+	}
+
+	/**
+	 * Test to verify that text which does not fit the width is ellipsized onto a single line. The
+	 * test will only pass if the layout has one line which is shorter than the text.
+	 */
+	@Test
+	public void testCreateLayout_ellipsizesLongText() {
+		final StringBuilder longText = new StringBuilder();
+
+		for (int i = 0; i < 100; i++) {
+			longText.append(TEXT);
+		}
+
+		final Layout layout = TextLayoutCache.createLayout(longText, paint, WIDTH);
+
+		assertThat(layout.getLineCount(), is(1));
+		assertThat(layout.getText().length(), is(lessThan(longText.length())));
+	}
+
+	/**
+	 * Test to verify that the {@link TextLayoutCache#remove(LibraryItem)} and {@link
+	 * TextLayoutCache#evictAll()} methods discard cached layouts. The test will only pass if no
+	 * layouts are returned afterwards.
+	 */
+	@Test
+	public void testRemoveAndEvictAll() {
+		final LibraryItem otherItem = mock(LibraryItem.class);
+
+		cache.getOrCreate(item, TEXT, paint, WIDTH);
+		cache.getOrCreate(otherItem, TEXT, paint, WIDTH);
+		cache.remove(item);
+
+		assertThat(cache.get(item, TEXT, paint, WIDTH), is(nullValue()));
+		assertThat(cache.get(otherItem, TEXT, paint, WIDTH), is(not(nullValue())));
+
+		cache.evictAll();
+
+		assertThat(cache.get(otherItem, TEXT, paint, WIDTH), is(nullValue()));
+	}
+}
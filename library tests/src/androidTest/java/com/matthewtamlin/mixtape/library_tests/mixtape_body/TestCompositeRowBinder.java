@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.mixtape_body;
+
+import android.graphics.drawable.Drawable;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v4.util.LruCache;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.matthewtamlin.mixtape.library.data.BatchReadableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.databinders.ArtworkBinder;
+import com.matthewtamlin.mixtape.library.databinders.DataBinder;
+import com.matthewtamlin.mixtape.library.databinders.SubtitleBinder;
+import com.matthewtamlin.mixtape.library.databinders.TitleBinder;
+import com.matthewtamlin.mixtape.library.mixtape_body.BodyViewHolder;
+import com.matthewtamlin.mixtape.library.mixtape_body.CompositeRowBinder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link CompositeRowBinder} class.
+ */
+@SuppressWarnings("ResourceType") // Using mock Views so don't need to use actual resource IDs
+@RunWith(AndroidJUnit4.class)
+public class TestCompositeRowBinder {
+	/**
+	 * The length of time to pause for when waiting for background tasks to finish.
+	 */
+	private static final int PAUSE_DURATION = 500;
+
+	/**
+	 * A mock title.
+	 */
+	private CharSequence title;
+
+	/**
+	 * A mock subtitle.
+	 */
+	private CharSequence subtitle;
+
+	/**
+	 * A mock artwork.
+	 */
+	private Drawable artwork;
+
+	/**
+	 * A mock LibraryItem which returns the title, subtitle and artwork.
+	 */
+	private LibraryItem libraryItem;
+
+	/**
+	 * A mock view holder which data can be bound to.
+	 */
+	private BodyViewHolder viewHolder;
+
+	/**
+	 * Binds titles using a functional cache.
+	 */
+	private TitleBinder titleBinder;
+
+	/**
+	 * Binds subtitles using a functional cache.
+	 */
+	private SubtitleBinder subtitleBinder;
+
+	/**
+	 * Binds artwork using a functional cache.
+	 */
+	private ArtworkBinder artworkBinder;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() throws LibraryReadException {
+		title = mock(CharSequence.class);
+		subtitle = mock(CharSequence.class);
+		artwork = mock(Drawable.class);
+
+		libraryItem = mock(LibraryItem.class);
+		when(libraryItem.getTitle()).thenReturn(title);
+		when(libraryItem.getSubtitle()).thenReturn(subtitle);
+		when(libraryItem.getArtwork(anyInt(), anyInt())).thenReturn(artwork);
+
+		viewHolder = new BodyViewHolder(mock(View.class), mock(TextView.class),
+				mock(TextView.class), mock(ImageView.class), mock(View.class));
+
+		final DisplayableDefaults defaults = mock(DisplayableDefaults.class);
+		titleBinder = new TitleBinder(new LruCache<LibraryItem, CharSequence>(10), defaults);
+		subtitleBinder = new SubtitleBinder(new LruCache<LibraryItem, CharSequence>(10), defaults);
+		artworkBinder = new ArtworkBinder(new LruCache<LibraryItem, Drawable>(10), defaults);
+		artworkBinder.setFadeInDurationMs(0);
+	}
+
+	/**
+	 * Test to verify that the getters return the data binders passed to the constructor. The test
+	 * will only pass if each getter returns the corresponding data binder.
+	 */
+	@Test
+	public void testConstructor() {
+		final CompositeRowBinder binder = new CompositeRowBinder(titleBinder, subtitleBinder,
+				artworkBinder);
+
+		assertThat(binder.getTitleDataBinder(), is((Object) titleBinder));
+		assertThat(binder.getSubtitleDataBinder(), is((Object) subtitleBinder));
+		assertThat(binder.getArtworkDataBinder(), is((Object) artworkBinder));
+	}
+
+	/**
+	 * Test to verify that the correct exception is thrown when the {@code viewHolder} argument of
+	 * {@link CompositeRowBinder#bind(BodyViewHolder, LibraryItem)} is null. The test will only pass
+	 * if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBind_nullViewHolder() {
+		new CompositeRowBinder(titleBinder, subtitleBinder, artworkBinder).bind(null, libraryItem);
+	}
+
+	/**
+	 * Test to verify that the {@link CompositeRowBinder#bind(BodyViewHolder, LibraryItem)} method
+	 * loads and binds every field when none are cached. The test will only pass if each field is
+	 * read once and bound to its view.
+	 */
+	@Test
+	public void testBind_batchableBinders() throws LibraryReadException {
+		final CompositeRowBinder binder = new CompositeRowBinder(titleBinder, subtitleBinder,
+				artworkBinder);
+
+		binder.bind(viewHolder, libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(libraryItem, times(1)).getTitle();
+		verify(libraryItem, times(1)).getSubtitle();
+		verify(viewHolder.getTitleTextView()).setText(title);
+		verify(viewHolder.getSubtitleTextView()).setText(subtitle);
+		verify(viewHolder.getArtworkImageView()).setImageDrawable(artwork);
+	}
+
+	/**
+	 * Test to verify that the {@link CompositeRowBinder#bind(BodyViewHolder, LibraryItem)} method
+	 * wraps the reads of a {@link BatchReadableLibraryItem} in a single batch read. The test will
+	 * only pass if the batch read begins before the fields are read and ends after them.
+	 */
+	@Test
+	public void testBind_batchReadableItem() throws LibraryReadException {
+		final BatchReadableLibraryItem item = mock(BatchReadableLibraryItem.class);
+		when(item.getTitle()).thenReturn(title);
+		when(item.getSubtitle()).thenReturn(subtitle);
+		when(item.getArtwork(anyInt(), anyInt())).thenReturn(artwork);
+
+		final CompositeRowBinder binder = new CompositeRowBinder(titleBinder, subtitleBinder,
+				artworkBinder);
+
+		binder.bind(viewHolder, item);
+
+		waitForAsyncEventsToFinish();
+
+		final InOrder order = inOrder(item);
+		order.verify(item, times(1)).beginBatchRead();
+		order.verify(item, times(1)).getTitle();
+		order.verify(item, times(1)).getSubtitle();
+		order.verify(item, times(1)).endBatchRead();
+		verify(viewHolder.getTitleTextView()).setText(title);
+		verify(viewHolder.getSubtitleTextView()).setText(subtitle);
+	}
+
+	/**
+	 * Test to verify that the {@link CompositeRowBinder#bind(BodyViewHolder, LibraryItem)} method
+	 * delegates to data binders which are not batchable. The test will only pass if the data
+	 * binder is asked to bind the field itself.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testBind_customBinder() {
+		final DataBinder<LibraryItem, TextView> customBinder = mock(DataBinder.class);
+		final CompositeRowBinder binder = new CompositeRowBinder(customBinder, subtitleBinder,
+				artworkBinder);
+
+		binder.bind(viewHolder, libraryItem);
+
+		waitForAsyncEventsToFinish();
+
+		verify(customBinder).bind(viewHolder.getTitleTextView(), libraryItem);
+		verify(viewHolder.getSubtitleTextView()).setText(subtitle);
+	}
+
+	/**
+	 * Suspends execution of the current thread.
+	 */
+	private void waitForAsyncEventsToFinish() {
+		try {
+			Thread.sleep(PAUSE_DURATION);
+		} catch (final InterruptedException e) {
+			throw new RuntimeException("Wait interrupted, test aborted.");
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.mixtape_body;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import com.matthewtamlin.mixtape.library.R;
+import com.matthewtamlin.mixtape.library.mixtape_body.BodyViewHolder;
+import com.matthewtamlin.mixtape.library.mixtape_body.FlatListBodyItem;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit tests for the {@link FlatListBodyItem} class.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TestFlatListBodyItem {
+	/**
+	 * The width to measure items at, measured in pixels.
+	 */
+	private static final int WIDTH = 1000;
+
+	/**
+	 * The context to create items in.
+	 */
+	private Context context;
+
+	/**
+	 * The size of the artwork, measured in pixels.
+	 */
+	private int artworkSize;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		context = InstrumentationRegistry.getTargetContext();
+		artworkSize = context.getResources().getDimensionPixelSize(R.dimen
+				.listBodyItem_artworkSize);
+	}
+
+	/**
+	 * Test to verify that the view holder created by {@link
+	 * FlatListBodyItem#createViewHolder(Context)} binds to the targets of a single item. The test
+	 * will only pass if each view of the view holder is the corresponding target of the item.
+	 */
+	@Test
+	public void testCreateViewHolder() {
+		final BodyViewHolder viewHolder = FlatListBodyItem.createViewHolder(context);
+
+		assertThat(viewHolder.getRootView(), is(instanceOf(FlatListBodyItem.class)));
+
+		final FlatListBodyItem item = (FlatListBodyItem) viewHolder.getRootView();
+
+		assertThat(viewHolder.getTitleTextView(), is(item.getTitleTarget()));
+		assertThat(viewHolder.getSubtitleTextView(), is(item.getSubtitleTarget()));
+		assertThat(viewHolder.getArtworkImageView(), is(item.getArtworkTarget()));
+		assertThat(viewHolder.getContextualMenuButton(), is((View) item.getMenuButton()));
+	}
+
+	/**
+	 * Test to verify that the artwork target reports the size of the artwork, both before and
+	 * after the item is laid out. The test will only pass if the target has the artwork size.
+	 */
+	@Test
+	public void testArtworkTarget_hasArtworkSize() {
+		final FlatListBodyItem item = new FlatListBodyItem(context);
+
+		assertThat(item.getArtworkTarget().getLayoutParams().width, is(artworkSize));
+		assertThat(item.getArtworkTarget().getLayoutParams().height, is(artworkSize));
+
+		measureAndLayout(item);
+
+		assertThat(item.getArtworkTarget().getWidth(), is(artworkSize));
+		assertThat(item.getArtworkTarget().getHeight(), is(artworkSize));
+	}
+
+	/**
+	 * Test to verify that hiding the artwork target removes the artwork from the item. The test
+	 * will only pass if the item is shorter without artwork, but still tall enough for the menu
+	 * button.
+	 */
+	@Test
+	public void testMeasure_artworkHidden() {
+		final FlatListBodyItem item = new FlatListBodyItem(context);
+
+		measureAndLayout(item);
+		final int heightWithArtwork = item.getMeasuredHeight();
+
+		item.getArtworkTarget().setVisibility(View.GONE);
+		measureAndLayout(item);
+		final int heightWithoutArtwork = item.getMeasuredHeight();
+
+		assertThat(heightWithArtwork, is(greaterThan(artworkSize)));
+		assertThat(heightWithoutArtwork, is(lessThan(heightWithArtwork)));
+		assertThat(heightWithoutArtwork >= item.getMenuButton().getMeasuredHeight(), is(true));
+		assertThat(item.getMeasuredWidth(), is(WIDTH));
+	}
+
+	/**
+	 * Measures an item at the test width and lays it out at its measured size.
+	 *
+	 * @param item
+	 * 		the item to measure and lay out, not null
+	 */
+	private static void measureAndLayout(final FlatListBodyItem item) {
+		item.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY), MeasureSpec
+				.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+		item.layout(0, 0, item.getMeasuredWidth(), item.getMeasuredHeight());
+	}
+}
@@ -16,10 +16,15 @@
 
 package com.matthewtamlin.mixtape.library_tests.mixtape_body;
 
+import android.graphics.drawable.Drawable;
 import android.support.test.espresso.ViewInteraction;
 import android.support.test.runner.AndroidJUnit4;
+import android.widget.TextView;
 
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
 import com.matthewtamlin.mixtape.library.databinders.ArtworkBinder;
 import com.matthewtamlin.mixtape.library.databinders.DataBinder;
 import com.matthewtamlin.mixtape.library.databinders.SubtitleBinder;
@@ -36,10 +41,14 @@ import java.util.List;
 import static com.matthewtamlin.mixtape.library_tests.mixtape_body.RecyclerBodyViewViewActions.scrollToEnd;
 import static com.matthewtamlin.mixtape.library_tests.mixtape_body.RecyclerBodyViewViewActions.scrollToStart;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(AndroidJUnit4.class)
 public abstract class TestRecyclerViewBody extends TestBodyView {
@@ -72,6 +81,65 @@ public abstract class TestRecyclerViewBody extends TestBodyView {
 		assertThat(getBodyViewDirect().getArtworkDataBinder(), is((DataBinder) binder));
 	}
 
+	@Test
+	public void testSetAndGetItemIdProvider() {
+		getBodyViewDirect().setItemIdProvider(ItemIdentity.ID_PROVIDER);
+
+		assertThat(getBodyViewDirect().getItemIdProvider(), is(ItemIdentity.ID_PROVIDER));
+
+		getBodyViewDirect().setItemIdProvider(null);
+
+		assertThat(getBodyViewDirect().getItemIdProvider(), is(nullValue()));
+	}
+
+	@Test
+	public void testSetItems_withItemIdProvider() {
+		final List<LibraryItem> items1 = new ArrayList<>();
+		final List<LibraryItem> items2 = new ArrayList<>();
+
+		for (int i = 0; i < NUMBER_OF_ITEMS; i++) {
+			final IdentifiableLibraryItem item = mock(IdentifiableLibraryItem.class);
+			when(item.getId()).thenReturn((long) i);
+
+			items1.add(item);
+
+			// Remove every third item and reverse the rest
+			if (i % 3 != 0) {
+				items2.add(0, item);
+			}
+		}
+
+		getBodyViewDirect().setItemIdProvider(ItemIdentity.ID_PROVIDER);
+		getBodyViewDirect().setItems(items1);
+		getBodyViewDirect().setItems(items2);
+
+		assertThat(getBodyViewDirect().getItems(), is((List) items2));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSetItems_equalItemIsRebound() {
+		final List<LibraryItem> items1 = new ArrayList<>();
+		final List<LibraryItem> items2 = new ArrayList<>();
+
+		for (int i = 0; i < NUMBER_OF_ITEMS; i++) {
+			items1.add(new EqualById(i));
+			items2.add(i == 0 ? new EqualById(i) : items1.get(i));
+		}
+
+		final DataBinder<LibraryItem, TextView> binder = mock(DataBinder.class);
+
+		getBodyViewDirect().setTitleDataBinder(binder);
+		getBodyViewDirect().setItemIdProvider(ItemIdentity.ID_PROVIDER);
+		getBodyViewDirect().setItems(items1);
+		getBodyViewEspresso().perform(scrollToStart());
+
+		getBodyViewDirect().setItems(items2);
+		getBodyViewEspresso().perform(scrollToStart());
+
+		verify(binder, times(1)).bind(any(TextView.class), same(items2.get(0)));
+	}
+
 	@Test
 	public void testAddAndRemoveTopReachedListener() {
 		final List<LibraryItem> items = new ArrayList<>();
@@ -122,5 +190,47 @@ public abstract class TestRecyclerViewBody extends TestBodyView {
 	@Override
 	public abstract RecyclerBodyView getBodyViewDirect();
 
+	/**
+	 * An item which is equal to any other item with the same id, regardless of its contents.
+	 */
+	private static class EqualById implements IdentifiableLibraryItem {
+		private final long id;
+
+		public EqualById(final long id) {
+			this.id = id;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public CharSequence getTitle() throws LibraryReadException {
+			return "Title " + id;
+		}
+
+		@Override
+		public CharSequence getSubtitle() throws LibraryReadException {
+			return "Subtitle " + id;
+		}
+
+		@Override
+		public Drawable getArtwork(final int width, final int height)
+				throws LibraryReadException {
+			return null;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof EqualById && ((EqualById) obj).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) id;
+		}
+	}
+
 	public abstract ViewInteraction getBodyViewEspresso();
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * An Executor which simulates a looper thread for use in unit tests. While unpaused, tasks are run
+ * immediately on the calling thread. While paused, tasks are queued until they are explicitly run,
+ * which allows tests to observe the state before and after delivery. This class is not thread
+ * safe.
+ */
+public class FakeLooper implements Executor {
+	/**
+	 * The tasks which have been submitted but not yet run.
+	 */
+	private final Queue<Runnable> pendingTasks = new LinkedList<>();
+
+	/**
+	 * Whether or not tasks are queued instead of being run immediately.
+	 */
+	private boolean paused = false;
+
+	@Override
+	public void execute(final Runnable task) {
+		if (paused) {
+			pendingTasks.add(task);
+		} else {
+			task.run();
+		}
+	}
+
+	/**
+	 * Causes subsequently submitted tasks to be queued instead of being run immediately.
+	 */
+	public void pause() {
+		paused = true;
+	}
+
+	/**
+	 * Runs all pending tasks and causes subsequently submitted tasks to be run immediately.
+	 */
+	public void unpause() {
+		paused = false;
+		runToEndOfTasks();
+	}
+
+	/**
+	 * Runs all pending tasks in submission order, including any tasks submitted while running.
+	 */
+	public void runToEndOfTasks() {
+		while (!pendingTasks.isEmpty()) {
+			pendingTasks.remove().run();
+		}
+	}
+
+	/**
+	 * Runs the oldest pending task, if there is one.
+	 *
+	 * @return true if a task was run, false otherwise
+	 */
+	public boolean runOneTask() {
+		if (pendingTasks.isEmpty()) {
+			return false;
+		}
+
+		pendingTasks.remove().run();
+		return true;
+	}
+
+	/**
+	 * @return the number of tasks which have been submitted but not yet run
+	 */
+	public int getPendingTaskCount() {
+		return pendingTasks.size();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit tests for the {@link ArtworkPreview} class.
+ */
+@RunWith(JUnit4.class)
+public class TestArtworkPreview {
+	/**
+	 * An opaque red colour.
+	 */
+	private static final int RED = 0xFFF00000;
+
+	/**
+	 * An opaque blue colour.
+	 */
+	private static final int BLUE = 0xFF0000F0;
+
+	/**
+	 * Test to verify that the dominant colour is taken from the most common group of similar
+	 * pixels. The test will only pass if the colour of the majority of the pixels is returned.
+	 */
+	@Test
+	public void testFromPixels_dominantColor() {
+		final int[] pixels = {RED, RED, RED, BLUE};
+		final ArtworkPreview preview = ArtworkPreview.fromPixels(pixels, 2, 2);
+
+		assertThat(preview.getDominantColor(), is(RED));
+		assertThat(preview.getWidth(), is(2));
+		assertThat(preview.getHeight(), is(2));
+	}
+
+	/**
+	 * Test to verify that the {@link ArtworkPreview#fromPixels(int[], int, int)} method throws an
+	 * exception when the dimensions exceed the maximum size. The test will only pass if an
+	 * IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromPixels_tooLarge() {
+		final int size = ArtworkPreview.MAX_SIZE + 1;
+		ArtworkPreview.fromPixels(new int[size * size], size, size);
+	}
+
+	/**
+	 * Test to verify that the {@link ArtworkPreview#fromPixels(int[], int, int)} method throws an
+	 * exception when the number of pixels does not match the dimensions. The test will only pass
+	 * if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromPixels_mismatchedDimensions() {
+		ArtworkPreview.fromPixels(new int[3], 2, 2);
+	}
+
+	/**
+	 * Test to verify that a preview survives conversion to and from a byte array, and that a 4 by
+	 * 4 preview occupies a few dozen bytes. The test will only pass if the recreated preview is
+	 * equal to the original.
+	 */
+	@Test
+	public void testByteArray_roundTrip() {
+		final int[] pixels = new int[16];
+
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = 0xFF000000 | (i * 0x0F0F0F);
+		}
+
+		final ArtworkPreview preview = ArtworkPreview.fromPixels(pixels, 4, 4);
+		final byte[] bytes = preview.toByteArray();
+
+		assertThat(bytes.length, is(54));
+		assertThat(ArtworkPreview.fromByteArray(bytes), is(preview));
+	}
+
+	/**
+	 * Test to verify that a preview which consists of only a dominant colour is opaque and
+	 * survives conversion to and from a byte array. The test will only pass if the alpha channel
+	 * is forced to opaque and the recreated preview is equal to the original.
+	 */
+	@Test
+	public void testColorOnlyPreview() {
+		final ArtworkPreview preview = new ArtworkPreview(0x00123456);
+
+		assertThat(preview.getDominantColor(), is(0xFF123456));
+		assertThat(preview.getWidth(), is(0));
+		assertThat(ArtworkPreview.fromByteArray(preview.toByteArray()), is(preview));
+	}
+
+	/**
+	 * Test to verify that the {@link ArtworkPreview#fromByteArray(byte[])} method throws an
+	 * exception when passed a truncated array. The test will only pass if an
+	 * IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromByteArray_truncated() {
+		final int[] pixels = {RED, RED, RED, BLUE};
+		final byte[] bytes = ArtworkPreview.fromPixels(pixels, 2, 2).toByteArray();
+
+		ArtworkPreview.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1));
+	}
+}
@@ -18,9 +18,11 @@ package com.matthewtamlin.mixtape.library_tests.data.data;
 
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataModifiedListener;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataReplacedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LongOperationListener;
 import com.matthewtamlin.mixtape.library.data.BaseDataSourceHelper;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.SimpleLoadHandle;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -184,9 +186,10 @@ public class TestBaseDataSourceHelper {
 	public BaseDataSourceHelper createNewDataSource() {
 		return new BaseDataSourceHelper<LibraryItem>() {
 			@Override
-			public void loadData(final boolean forceRefresh,
+			public LoadHandle loadData(final boolean forceRefresh,
 					final DataLoadedListener<LibraryItem> callback) {
 				// Do nothing, not needed for test
+				return new SimpleLoadHandle();
 			}
 		};
 	}
@@ -0,0 +1,560 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataLoadedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemAddedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemModifiedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemRemovedListener;
+import com.matthewtamlin.mixtape.library.data.BackgroundListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.BaseDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.ListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.ListSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the thread delivery and load deduplication contracts of the {@link
+ * BaseDataSourceHelper} and {@link ListDataSourceHelper} classes. Fake loopers stand in for the
+ * worker and callback threads so that the state between loading and delivery can be observed.
+ */
+@SuppressWarnings("unchecked") // Warning caused by mocks, but it isn't a problem
+@RunWith(JUnit4.class)
+public class TestDataSourceHelperDelivery {
+	/**
+	 * Runs load operations for the data source under test.
+	 */
+	private FakeLooper workerLooper;
+
+	/**
+	 * Delivers callbacks for the data source under test.
+	 */
+	private FakeLooper callbackLooper;
+
+	/**
+	 * The data source under test.
+	 */
+	private CountingDataSource dataSource;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		workerLooper = new FakeLooper();
+		workerLooper.pause();
+
+		callbackLooper = new FakeLooper();
+		callbackLooper.pause();
+
+		dataSource = new CountingDataSource();
+		dataSource.setWorkerExecutor(workerLooper);
+		dataSource.setCallbackExecutor(callbackLooper);
+	}
+
+	/**
+	 * Test to verify that the {@link BackgroundListDataSourceHelper#loadData(boolean,
+	 * DataLoadedListener)} implementation loads on the worker executor and delivers on the
+	 * callback executor. The test will only pass if loading does not happen on the calling thread,
+	 * and if the callback is not delivered until the callback looper runs.
+	 */
+	@Test
+	public void testLoadData_loadsOnWorkerAndDeliversOnCallbackExecutor() {
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+
+		dataSource.loadData(false, callback);
+
+		assertThat(dataSource.loadCount, is(0));
+		assertThat(workerLooper.getPendingTaskCount(), is(1));
+
+		workerLooper.runToEndOfTasks();
+
+		assertThat(dataSource.loadCount, is(1));
+		verify(callback, never()).onDataLoaded(any(BaseDataSourceHelper.class), any(List.class));
+
+		callbackLooper.runToEndOfTasks();
+
+		verify(callback).onDataLoaded(dataSource, dataSource.data);
+	}
+
+	/**
+	 * Test to verify that a failure in {@link BaseDataSourceHelper#loadData(boolean,
+	 * DataLoadedListener)} is delivered on the callback executor. The test will only pass if the
+	 * failure callback is delivered once the callback looper runs.
+	 */
+	@Test
+	public void testLoadData_failureDeliveredOnCallbackExecutor() {
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		dataSource.fail = true;
+
+		dataSource.loadData(false, callback);
+		workerLooper.runToEndOfTasks();
+
+		verify(callback, never()).onLoadDataFailed(dataSource);
+
+		callbackLooper.runToEndOfTasks();
+
+		verify(callback).onLoadDataFailed(dataSource);
+		verify(callback, never()).onDataLoaded(any(BaseDataSourceHelper.class), any(List.class));
+	}
+
+	/**
+	 * Test to verify that an unchecked exception thrown while loading in the background is
+	 * delivered as a failure. The test will only pass if the failure callback is delivered and the
+	 * load is no longer reported as in progress.
+	 */
+	@Test
+	public void testLoadData_uncheckedExceptionDeliveredAsFailure() {
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		dataSource.crash = true;
+
+		dataSource.loadData(false, callback);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		verify(callback).onLoadDataFailed(dataSource);
+		assertThat(dataSource.isLoadInProgress(), is(false));
+	}
+
+	/**
+	 * Test to verify that concurrent calls to {@link BaseDataSourceHelper#loadData(boolean,
+	 * DataLoadedListener)} share a single load. The test will only pass if the data is loaded once
+	 * and both callbacks receive the result.
+	 */
+	@Test
+	public void testLoadData_concurrentCallsJoinInFlightLoad() {
+		final DataLoadedListener<List<LibraryItem>> callback1 = mock(DataLoadedListener.class);
+		final DataLoadedListener<List<LibraryItem>> callback2 = mock(DataLoadedListener.class);
+
+		dataSource.loadData(false, callback1);
+		dataSource.loadData(false, callback2);
+
+		assertThat(workerLooper.getPendingTaskCount(), is(1));
+		assertThat(dataSource.isLoadInProgress(), is(true));
+
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(dataSource.loadCount, is(1));
+		assertThat(dataSource.isLoadInProgress(), is(false));
+		verify(callback1).onDataLoaded(dataSource, dataSource.data);
+		verify(callback2).onDataLoaded(dataSource, dataSource.data);
+	}
+
+	/**
+	 * Test to verify that a forced refresh does not join an in-flight load which may return cached
+	 * data. The test will only pass if a second load is started.
+	 */
+	@Test
+	public void testLoadData_forceRefreshDoesNotJoinCachedLoad() {
+		dataSource.loadData(false, null);
+		dataSource.loadData(true, null);
+
+		assertThat(workerLooper.getPendingTaskCount(), is(2));
+
+		// A subsequent non-forced request can join the forced load
+		dataSource.loadData(false, null);
+
+		assertThat(workerLooper.getPendingTaskCount(), is(2));
+	}
+
+	/**
+	 * Test to verify that cancelling a handle stops delivery to its callback without affecting
+	 * other callers sharing the load. The test will only pass if only the uncancelled callback is
+	 * invoked.
+	 */
+	@Test
+	public void testLoadData_cancelledHandleIsNotDelivered() {
+		final DataLoadedListener<List<LibraryItem>> callback1 = mock(DataLoadedListener.class);
+		final DataLoadedListener<List<LibraryItem>> callback2 = mock(DataLoadedListener.class);
+
+		final LoadHandle handle1 = dataSource.loadData(false, callback1);
+		final LoadHandle handle2 = dataSource.loadData(false, callback2);
+
+		workerLooper.runToEndOfTasks();
+
+		// Cancelling after the load finishes but before delivery must still prevent delivery
+		handle1.cancel();
+
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(handle1.isCancelled(), is(true));
+		assertThat(handle2.isCancelled(), is(false));
+		verify(callback1, never()).onDataLoaded(any(BaseDataSourceHelper.class), any(List.class));
+		verify(callback2).onDataLoaded(dataSource, dataSource.data);
+	}
+
+	/**
+	 * Test to verify that a load is skipped if every request sharing it is cancelled before it
+	 * starts. The test will only pass if the data is never loaded.
+	 */
+	@Test
+	public void testLoadData_allHandlesCancelled() {
+		dataSource.loadData(false, mock(DataLoadedListener.class)).cancel();
+		dataSource.loadData(false, mock(DataLoadedListener.class)).cancel();
+
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(dataSource.loadCount, is(0));
+		assertThat(dataSource.isLoadInProgress(), is(false));
+		assertThat(callbackLooper.getPendingTaskCount(), is(0));
+	}
+
+	/**
+	 * Test to verify that a forced refresh with stale while revalidate enabled delivers the stale
+	 * data immediately, and then publishes the differences as item callbacks. The test will only
+	 * pass if the stale list is delivered before the fresh data is published, and if the stale list
+	 * is updated in place.
+	 */
+	@Test
+	public void testLoadData_staleWhileRevalidate() {
+		final LibraryItem item1 = mock(LibraryItem.class);
+		final LibraryItem item2 = mock(LibraryItem.class);
+		final LibraryItem item3 = mock(LibraryItem.class);
+
+		dataSource.setStaleWhileRevalidateEnabled(true);
+		dataSource.data = new ArrayList<>(Arrays.asList(item1, item2));
+		dataSource.loadData(false, null);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		final List<LibraryItem> staleData = dataSource.data;
+		dataSource.data = new ArrayList<>(Arrays.asList(item2, item3));
+
+		final ItemAddedListener<LibraryItem> addedListener = mock(ItemAddedListener.class);
+		final ItemRemovedListener<LibraryItem> removedListener = mock(ItemRemovedListener.class);
+		dataSource.registerItemAddedListener(addedListener);
+		dataSource.registerItemRemovedListener(removedListener);
+
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		dataSource.loadData(true, callback);
+		workerLooper.runToEndOfTasks();
+
+		// The stale data is delivered first
+		callbackLooper.runOneTask();
+
+		verify(callback).onDataLoaded(dataSource, staleData);
+		assertThat(staleData, is(Arrays.asList(item1, item2)));
+		verify(removedListener, never()).onDataRemoved(any(ListDataSourceHelper.class),
+				any(LibraryItem.class), anyInt());
+
+		// The stale list is copied on the callback executor and diffed on the worker executor
+		callbackLooper.runToEndOfTasks();
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(dataSource.loadCount, is(2));
+		assertThat(staleData, is(Arrays.asList(item2, item3)));
+		verify(removedListener).onDataRemoved(dataSource, item1, 0);
+		verify(addedListener).onDataAdded(dataSource, item3, 1);
+	}
+
+	/**
+	 * Test to verify that a saved snapshot is restored as the stale data of a new data source, and
+	 * is then revalidated against the fresh data. The test will only pass if the restored items are
+	 * delivered before any data is loaded, and if they are replaced by the fresh data afterwards.
+	 */
+	@Test
+	public void testSaveSnapshot_restoredAsStaleData() throws IOException, LibraryReadException {
+		final File snapshotFile = File.createTempFile("snapshot", null);
+		snapshotFile.deleteOnExit();
+
+		final List<LibraryItem> freshData = new ArrayList<>(Arrays.asList(createItem("1"),
+				createItem("2"), createItem("3")));
+
+		dataSource.setSnapshotFile(snapshotFile);
+		dataSource.data = freshData;
+		dataSource.loadData(false, null);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		dataSource.saveSnapshot(2);
+		workerLooper.runToEndOfTasks();
+
+		final CountingDataSource restartedDataSource = new CountingDataSource();
+		restartedDataSource.setWorkerExecutor(workerLooper);
+		restartedDataSource.setCallbackExecutor(callbackLooper);
+		restartedDataSource.setSnapshotFile(snapshotFile);
+		restartedDataSource.setStaleWhileRevalidateEnabled(true);
+		restartedDataSource.data = freshData;
+
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		restartedDataSource.loadData(true, callback);
+		workerLooper.runToEndOfTasks();
+
+		// The snapshot is delivered first
+		final ArgumentCaptor<List> staleData = ArgumentCaptor.forClass(List.class);
+		callbackLooper.runOneTask();
+		verify(callback).onDataLoaded(eq(restartedDataSource), staleData.capture());
+
+		final List<LibraryItem> restoredItems = staleData.getValue();
+		assertThat(restoredItems.size(), is(2));
+		assertThat(restoredItems.get(0).getTitle().toString(), is("1"));
+		assertThat(restoredItems.get(1).getTitle().toString(), is("2"));
+
+		callbackLooper.runToEndOfTasks();
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(restartedDataSource.loadCount, is(1));
+		assertThat(restoredItems, is(freshData));
+	}
+
+	/**
+	 * Test to verify that a saved snapshot is delivered to a load which does not force a refresh
+	 * when nothing has been loaded yet. The test will only pass if the restored items are
+	 * delivered first, and if they are then revalidated against the fresh data.
+	 */
+	@Test
+	public void testSaveSnapshot_restoredForColdLoad() throws IOException, LibraryReadException {
+		final File snapshotFile = File.createTempFile("snapshot", null);
+		snapshotFile.deleteOnExit();
+
+		final List<LibraryItem> freshData = new ArrayList<>(Arrays.asList(createItem("1"),
+				createItem("2"), createItem("3")));
+
+		dataSource.setSnapshotFile(snapshotFile);
+		dataSource.data = freshData;
+		dataSource.loadData(false, null);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		dataSource.saveSnapshot(2);
+		workerLooper.runToEndOfTasks();
+
+		final CountingDataSource restartedDataSource = new CountingDataSource();
+		restartedDataSource.setWorkerExecutor(workerLooper);
+		restartedDataSource.setCallbackExecutor(callbackLooper);
+		restartedDataSource.setSnapshotFile(snapshotFile);
+		restartedDataSource.setStaleWhileRevalidateEnabled(true);
+		restartedDataSource.data = freshData;
+
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		restartedDataSource.loadData(false, callback);
+		workerLooper.runToEndOfTasks();
+
+		final ArgumentCaptor<List> staleData = ArgumentCaptor.forClass(List.class);
+		callbackLooper.runOneTask();
+		verify(callback).onDataLoaded(eq(restartedDataSource), staleData.capture());
+
+		final List<LibraryItem> restoredItems = staleData.getValue();
+		assertThat(restoredItems.size(), is(2));
+
+		callbackLooper.runToEndOfTasks();
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		assertThat(restoredItems, is(freshData));
+	}
+
+	/**
+	 * Test to verify that restored items are reported as modified when they are replaced by fresh
+	 * items which match them. The test will only pass if the item modified listener is notified of
+	 * each fresh item which replaced a restored item.
+	 */
+	@Test
+	public void testSaveSnapshot_restoredItemsReportedAsModified() throws IOException {
+		final File snapshotFile = File.createTempFile("snapshot", null);
+		snapshotFile.deleteOnExit();
+
+		final List<LibraryItem> freshData = new ArrayList<>(Arrays.asList(createItem("1"),
+				createItem("2"), createItem("3")));
+
+		dataSource.setSnapshotFile(snapshotFile);
+		dataSource.data = freshData;
+		dataSource.loadData(false, null);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		dataSource.saveSnapshot(2);
+		workerLooper.runToEndOfTasks();
+
+		final CountingDataSource restartedDataSource = new CountingDataSource();
+		restartedDataSource.setWorkerExecutor(workerLooper);
+		restartedDataSource.setCallbackExecutor(callbackLooper);
+		restartedDataSource.setSnapshotFile(snapshotFile);
+		restartedDataSource.setStaleWhileRevalidateEnabled(true);
+		restartedDataSource.keyByTitle = true;
+		restartedDataSource.data = freshData;
+
+		final ItemAddedListener<LibraryItem> addedListener = mock(ItemAddedListener.class);
+		final ItemModifiedListener<LibraryItem> modifiedListener = mock(ItemModifiedListener.class);
+		restartedDataSource.registerItemAddedListener(addedListener);
+		restartedDataSource.registerItemModifiedListener(modifiedListener);
+
+		restartedDataSource.loadData(false, null);
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+		workerLooper.runToEndOfTasks();
+		callbackLooper.runToEndOfTasks();
+
+		verify(modifiedListener).onItemModified(restartedDataSource, freshData.get(0), 0);
+		verify(modifiedListener).onItemModified(restartedDataSource, freshData.get(1), 1);
+		verify(addedListener).onDataAdded(restartedDataSource, freshData.get(2), 2);
+	}
+
+	/**
+	 * Test to verify that item callbacks raised on a worker thread are delivered on the callback
+	 * executor. The test will only pass if the listener is not notified until the callback looper
+	 * runs.
+	 */
+	@Test
+	public void testNotifyItemRemoved_deliveredOnCallbackExecutor() {
+		final ItemRemovedListener<LibraryItem> listener = mock(ItemRemovedListener.class);
+		dataSource.registerItemRemovedListener(listener);
+
+		final LibraryItem item = mock(LibraryItem.class);
+		dataSource.removeInBackground(item, 3);
+		workerLooper.runToEndOfTasks();
+
+		verify(listener, never()).onDataRemoved(any(ListDataSourceHelper.class),
+				any(LibraryItem.class), anyInt());
+
+		callbackLooper.runToEndOfTasks();
+
+		verify(listener).onDataRemoved(dataSource, item, 3);
+	}
+
+	/**
+	 * A BackgroundListDataSourceHelper which records how many times data was loaded.
+	 */
+	private static class CountingDataSource extends BackgroundListDataSourceHelper<LibraryItem> {
+		/**
+		 * The data supplied by this source.
+		 */
+		private List<LibraryItem> data = new ArrayList<>();
+
+		/**
+		 * The number of times data has been loaded.
+		 */
+		private int loadCount = 0;
+
+		/**
+		 * Whether or not loading should fail.
+		 */
+		private boolean fail = false;
+
+		/**
+		 * Whether or not loading should throw an unchecked exception.
+		 */
+		private boolean crash = false;
+
+		/**
+		 * Whether or not items should be matched by their titles when revalidating.
+		 */
+		private boolean keyByTitle = false;
+
+		@Override
+		protected List<LibraryItem> loadDataInBackground(final boolean forceRefresh) throws
+				LibraryReadException {
+			loadCount++;
+
+			if (fail) {
+				throw new LibraryReadException();
+			}
+
+			if (crash) {
+				throw new IllegalStateException();
+			}
+
+			return data;
+		}
+
+		@Override
+		protected ListSnapshot.Entry createSnapshotEntry(final LibraryItem item) {
+			return ListSnapshot.Entry.fromItem(String.valueOf(data.indexOf(item)), item);
+		}
+
+		@Override
+		protected LibraryItem restoreSnapshotEntry(final ListSnapshot.Entry entry) {
+			return createItem(entry.getTitle().toString());
+		}
+
+		@Override
+		protected Object getItemKey(final LibraryItem item) {
+			if (!keyByTitle) {
+				return item;
+			}
+
+			try {
+				return item.getTitle();
+			} catch (final LibraryReadException e) {
+				throw new AssertionError(e);
+			}
+		}
+
+		/**
+		 * Simulates removing an item on the worker thread.
+		 *
+		 * @param item
+		 * 		the item to remove
+		 * @param index
+		 * 		the index of the item
+		 */
+		private void removeInBackground(final LibraryItem item, final int index) {
+			getWorkerExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					notifyItemRemoved(item, index);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Creates a mock LibraryItem.
+	 *
+	 * @param title
+	 * 		the title of the item
+	 * @return the item
+	 */
+	private static LibraryItem createItem(final String title) {
+		final LibraryItem item = mock(LibraryItem.class);
+
+		try {
+			when(item.getTitle()).thenReturn(title);
+		} catch (final LibraryReadException e) {
+			// Stubbing a mock does not actually call the method
+		}
+
+		return item;
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.IndexedList;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit tests for the {@link IndexedList} class.
+ */
+@RunWith(JUnit4.class)
+public class TestIndexedList {
+	/**
+	 * The number of random operations to perform when comparing against an ArrayList.
+	 */
+	private static final int OPERATION_COUNT = 5000;
+
+	/**
+	 * Used to create distinct item instances.
+	 */
+	private int nextItemId = 0;
+
+	/**
+	 * Test to verify that the list behaves like an ArrayList over a long sequence of random
+	 * insertions, removals, moves and replacements. The test will only pass if the contents and
+	 * the index of every item always match the ArrayList.
+	 */
+	@Test
+	public void testRandomOperations_matchesArrayList() {
+		final Random random = new Random(1);
+		final List<String> expected = new ArrayList<>();
+		final IndexedList<String> list = new IndexedList<>();
+
+		for (int i = 0; i < OPERATION_COUNT; i++) {
+			final int operation = expected.isEmpty() ? 0 : random.nextInt(5);
+
+			if (operation <= 1) {
+				final int index = random.nextInt(expected.size() + 1);
+				final String item = createItem();
+
+				expected.add(index, item);
+				list.add(index, item);
+			} else if (operation == 2) {
+				final int index = random.nextInt(expected.size());
+
+				assertThat(list.remove(index), is(expected.remove(index)));
+			} else if (operation == 3) {
+				final int initialIndex = random.nextInt(expected.size());
+				final int finalIndex = random.nextInt(expected.size());
+
+				expected.add(finalIndex, expected.remove(initialIndex));
+				list.move(initialIndex, finalIndex);
+			} else {
+				final int index = random.nextInt(expected.size());
+				final String item = createItem();
+
+				assertThat(list.set(index, item), is(expected.set(index, item)));
+			}
+
+			assertThat(list.size(), is(expected.size()));
+		}
+
+		assertThat(list, is(expected));
+
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(list.indexOf(expected.get(i)), is(i));
+		}
+	}
+
+	/**
+	 * Test to verify that a list constructed from a collection contains the items of the
+	 * collection in order. The test will only pass if the contents and the index of every item
+	 * match the collection.
+	 */
+	@Test
+	public void testConstructor_fromCollection() {
+		final List<String> expected = new ArrayList<>();
+
+		for (int i = 0; i < 100; i++) {
+			expected.add(createItem());
+		}
+
+		final IndexedList<String> list = new IndexedList<>(expected);
+
+		assertThat(list, is(expected));
+
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(list.indexOf(expected.get(i)), is(i));
+		}
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a collection which
+	 * contains the same instance twice. The test will only pass if an IllegalArgumentException is
+	 * thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_duplicateInstance() {
+		final String item = createItem();
+		new IndexedList<>(Arrays.asList(item, createItem(), item));
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedList#add(int, Object)} method throws an exception when
+	 * passed an instance which is already in the list. The test will only pass if an
+	 * IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_duplicateInstance() {
+		final String item = createItem();
+		final IndexedList<String> list = new IndexedList<>(Arrays.asList(item, createItem()));
+
+		list.add(0, item);
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedList#add(int, Object)} method throws an exception when
+	 * passed null. The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_nullItem() {
+		new IndexedList<String>().add(null);
+	}
+
+	/**
+	 * Test to verify that items which are equal to an item in the list but are not the same
+	 * instance are still found. The test will only pass if the index of the equal item is
+	 * returned, and if items which are not in the list are not found.
+	 */
+	@Test
+	public void testIndexOf_equalInstance() {
+		final IndexedList<String> list = new IndexedList<>(Arrays.asList("a", "b", "c"));
+
+		assertThat(list.indexOf(new String("b")), is(1));
+		assertThat(list.contains(new String("c")), is(true));
+		assertThat(list.indexOf("d"), is(-1));
+		assertThat(list.remove(new String("a")), is(true));
+		assertThat(list, is(Arrays.asList("b", "c")));
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedList#indexOfInstance(Object)} and {@link
+	 * IndexedList#containsInstance(Object)} methods ignore items which are only equal. The test
+	 * will only pass if only the instances in the list are found.
+	 */
+	@Test
+	public void testIndexOfInstance_equalInstance() {
+		final String b = new String("b");
+		final IndexedList<String> list = new IndexedList<>(Arrays.asList("a", b, "c"));
+
+		assertThat(list.indexOfInstance(b), is(1));
+		assertThat(list.indexOfInstance(new String("b")), is(-1));
+		assertThat(list.containsInstance(b), is(true));
+		assertThat(list.containsInstance(new String("b")), is(false));
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedList#move(int, int)} method moves items in both
+	 * directions. The test will only pass if the other items are shifted accordingly.
+	 */
+	@Test
+	public void testMove() {
+		final IndexedList<String> list = new IndexedList<>(Arrays.asList("a", "b", "c", "d"));
+
+		assertThat(list.move(0, 2), is("a"));
+		assertThat(list, is(Arrays.asList("b", "c", "a", "d")));
+
+		assertThat(list.move(3, 0), is("d"));
+		assertThat(list, is(Arrays.asList("d", "b", "c", "a")));
+		assertThat(list.indexOf("a"), is(3));
+	}
+
+	/**
+	 * @return a new item which is not equal to any item previously returned
+	 */
+	private String createItem() {
+		return "item " + nextItemId++;
+	}
+}
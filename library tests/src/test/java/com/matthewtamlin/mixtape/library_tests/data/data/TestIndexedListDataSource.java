@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataLoadedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemAddedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemMovedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemRemovedListener;
+import com.matthewtamlin.mixtape.library.data.IndexedList;
+import com.matthewtamlin.mixtape.library.data.IndexedListDataSource;
+import com.matthewtamlin.mixtape.library.data.ListSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the {@link IndexedListDataSource} class.
+ */
+@SuppressWarnings("unchecked") // Warning caused by mocks, but it isn't a problem
+@RunWith(JUnit4.class)
+public class TestIndexedListDataSource {
+	/**
+	 * The data source under test.
+	 */
+	private StringDataSource dataSource;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		dataSource = new StringDataSource();
+		dataSource.setWorkerExecutor(new FakeLooper());
+		dataSource.setCallbackExecutor(new FakeLooper());
+	}
+
+	/**
+	 * Test to verify that loaded items are delivered in an IndexedList, and that the same list is
+	 * delivered again unless a refresh is forced. The test will only pass if the items are only
+	 * reloaded when a refresh is forced.
+	 */
+	@Test
+	public void testLoadData_reusesListUntilForced() {
+		final List<String> first = load(false);
+
+		assertThat(first, is(instanceOf(IndexedList.class)));
+		assertThat(first, is(Arrays.asList("a", "b", "c", "d")));
+		assertThat(load(false), is(sameInstance(first)));
+		assertThat(dataSource.loadCount, is(1));
+
+		load(true);
+
+		assertThat(dataSource.loadCount, is(2));
+	}
+
+	/**
+	 * Test to verify that a list restored from a snapshot is revalidated against the loaded items
+	 * instead of being reused as the loaded list. The test will only pass if the items are loaded
+	 * once, and if the restored list is updated to match them.
+	 */
+	@Test
+	public void testLoadData_restoredSnapshotIsRevalidated() throws IOException {
+		final File snapshotFile = File.createTempFile("snapshot", null);
+		snapshotFile.deleteOnExit();
+
+		dataSource.setSnapshotFile(snapshotFile);
+		load(false);
+		dataSource.saveSnapshot(2);
+
+		final StringDataSource restartedDataSource = new StringDataSource();
+		restartedDataSource.setWorkerExecutor(new FakeLooper());
+		restartedDataSource.setCallbackExecutor(new FakeLooper());
+		restartedDataSource.setSnapshotFile(snapshotFile);
+		restartedDataSource.setStaleWhileRevalidateEnabled(true);
+
+		final DataLoadedListener<List<String>> callback = mock(DataLoadedListener.class);
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+
+		restartedDataSource.loadData(false, callback);
+		verify(callback, atLeastOnce()).onDataLoaded(eq(restartedDataSource), captor.capture());
+
+		final List<String> restoredItems = captor.getAllValues().get(0);
+
+		assertThat(restartedDataSource.loadCount, is(1));
+		assertThat(restoredItems, is(Arrays.asList("a", "b", "c", "d")));
+		assertThat(load(restartedDataSource, false), is(sameInstance(restoredItems)));
+		assertThat(restartedDataSource.loadCount, is(1));
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedListDataSource#removeItem(Object)} method removes the
+	 * item and notifies the listeners. The test will only pass if the listeners receive the index
+	 * of the item before it was removed.
+	 */
+	@Test
+	public void testRemoveItem() {
+		final ItemRemovedListener<String> listener = mock(ItemRemovedListener.class);
+		dataSource.registerItemRemovedListener(listener);
+
+		final List<String> items = load(false);
+		final String item = items.get(2);
+
+		assertThat(dataSource.removeItem(item), is(true));
+		assertThat(items, is(Arrays.asList("a", "b", "d")));
+		verify(listener).onDataRemoved(dataSource, item, 2);
+
+		assertThat(dataSource.removeItem("e"), is(false));
+		verify(listener, never()).onDataRemoved(eq(dataSource), eq("e"), anyInt());
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedListDataSource#addItem(int, Object)} and {@link
+	 * IndexedListDataSource#moveItem(Object, int)} methods update the list and notify the
+	 * listeners. The test will only pass if the listeners receive the correct indices.
+	 */
+	@Test
+	public void testAddItemAndMoveItem() {
+		final ItemAddedListener<String> addedListener = mock(ItemAddedListener.class);
+		final ItemMovedListener<String> movedListener = mock(ItemMovedListener.class);
+		dataSource.registerItemAddedListener(addedListener);
+		dataSource.registerItemMovedListener(movedListener);
+
+		final List<String> items = load(false);
+
+		dataSource.addItem(1, "e");
+		dataSource.addItem("f");
+
+		assertThat(items, is(Arrays.asList("a", "e", "b", "c", "d", "f")));
+		verify(addedListener).onDataAdded(dataSource, "e", 1);
+		verify(addedListener).onDataAdded(dataSource, "f", 5);
+
+		assertThat(dataSource.moveItem("e", 4), is(true));
+
+		assertThat(items, is(Arrays.asList("a", "b", "c", "d", "e", "f")));
+		assertThat(dataSource.indexOfItem("e"), is(4));
+		verify(movedListener).onDataMoved(dataSource, "e", 1, 4);
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedListDataSource#addItem(Object)} method throws an
+	 * exception when no list has been loaded. The test will only pass if an IllegalStateException
+	 * is thrown.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testAddItem_nothingLoaded() {
+		dataSource.addItem("e");
+	}
+
+	/**
+	 * Test to verify that the {@link IndexedListDataSource#removeItem(Object)} method does nothing
+	 * when no list has been loaded. The test will only pass if false is returned.
+	 */
+	@Test
+	public void testRemoveItem_nothingLoaded() {
+		assertThat(dataSource.removeItem("a"), is(false));
+		assertThat(dataSource.indexOfItem("a"), is(-1));
+	}
+
+	/**
+	 * Loads data from the data source under test.
+	 *
+	 * @param forceRefresh
+	 * 		whether or not to force a refresh
+	 * @return the delivered list
+	 */
+	private List<String> load(final boolean forceRefresh) {
+		return load(dataSource, forceRefresh);
+	}
+
+	/**
+	 * Loads data from a data source.
+	 *
+	 * @param source
+	 * 		the data source to load from
+	 * @param forceRefresh
+	 * 		whether or not to force a refresh
+	 * @return the delivered list
+	 */
+	private static List<String> load(final StringDataSource source, final boolean forceRefresh) {
+		final DataLoadedListener<List<String>> callback = mock(DataLoadedListener.class);
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+
+		source.loadData(forceRefresh, callback);
+		verify(callback).onDataLoaded(eq(source), captor.capture());
+
+		return captor.getValue();
+	}
+
+	/**
+	 * An IndexedListDataSource which supplies a fixed list of strings and counts its loads.
+	 */
+	private static class StringDataSource extends IndexedListDataSource<String> {
+		/**
+		 * The number of times the items have been loaded.
+		 */
+		private int loadCount = 0;
+
+		@Override
+		protected List<String> loadItemsInBackground(final boolean forceRefresh) {
+			loadCount++;
+
+			return new ArrayList<>(Arrays.asList("a", "b", "c", "d"));
+		}
+
+		@Override
+		protected ListSnapshot.Entry createSnapshotEntry(final String item) {
+			return new ListSnapshot.Entry(item, item, null, null);
+		}
+
+		@Override
+		protected String restoreSnapshotEntry(final ListSnapshot.Entry entry) {
+			return entry.getKey();
+		}
+	}
+}
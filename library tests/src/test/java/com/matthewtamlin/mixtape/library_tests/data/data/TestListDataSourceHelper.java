@@ -16,12 +16,14 @@
 
 package com.matthewtamlin.mixtape.library_tests.data.data;
 
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemAddedListener;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemModifiedListener;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemMovedListener;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemRemovedListener;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.ListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.SimpleLoadHandle;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -51,8 +53,9 @@ public class TestListDataSourceHelper extends TestBaseDataSourceHelper {
 	public ListDataSourceHelper<LibraryItem> createNewDataSource() {
 		return new ListDataSourceHelper<LibraryItem>() {
 			@Override
-			public void loadData(final boolean forceRefresh, final DataLoadedListener callback) {
+			public LoadHandle loadData(final boolean forceRefresh, final DataLoadedListener callback) {
 				// Do nothing, not needed for test
+				return new SimpleLoadHandle();
 			}
 		};
 	}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.ListDiffer;
+import com.matthewtamlin.mixtape.library.data.ListDiffer.Operation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit tests for the {@link ListDiffer} class.
+ */
+@RunWith(JUnit4.class)
+public class TestListDiffer {
+	/**
+	 * Test to verify that the {@link ListDiffer#ListDiffer(ListDiffer.Callback)} constructor throws
+	 * an exception when passed null. The test will only pass if an IllegalArgumentException is
+	 * thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullCallback() {
+		new ListDiffer<String>(null);
+	}
+
+	/**
+	 * Test to verify that no operations are produced for identical lists. The test will only pass
+	 * if the returned list is empty.
+	 */
+	@Test
+	public void testComputeOperations_identicalLists() {
+		final List<String> list = Arrays.asList("a", "b", "c");
+
+		assertThat(new ListDiffer<String>().computeOperations(list, list).isEmpty(), is(true));
+	}
+
+	/**
+	 * Test to verify that removals are reported first and in descending index order. The test will
+	 * only pass if each removal can be applied without shifting the indices of later removals.
+	 */
+	@Test
+	public void testComputeOperations_removalsInDescendingOrder() {
+		final List<String> oldList = Arrays.asList("a", "b", "c", "d", "e");
+		final List<String> newList = Arrays.asList("a", "c", "e");
+
+		final List<Operation<String>> operations = new ListDiffer<String>().computeOperations(
+				oldList, newList);
+
+		assertThat(operations.size(), is(2));
+		assertThat(operations.get(0).getType(), is(Operation.REMOVE));
+		assertThat(operations.get(0).getIndex(), is(3));
+		assertThat(operations.get(1).getType(), is(Operation.REMOVE));
+		assertThat(operations.get(1).getIndex(), is(1));
+		assertThat(apply(oldList, operations), is(newList));
+	}
+
+	/**
+	 * Test to verify that a single moved item is reported as a move rather than a removal and an
+	 * insertion. The test will only pass if one move is produced.
+	 */
+	@Test
+	public void testComputeOperations_movedItem() {
+		final List<String> oldList = Arrays.asList("a", "b", "c", "d");
+		final List<String> newList = Arrays.asList("d", "a", "b", "c");
+
+		final List<Operation<String>> operations = new ListDiffer<String>().computeOperations(
+				oldList, newList);
+
+		assertThat(operations.size(), is(1));
+		assertThat(operations.get(0).getType(), is(Operation.MOVE));
+		assertThat(operations.get(0).getIndex(), is(3));
+		assertThat(operations.get(0).getFinalIndex(), is(0));
+		assertThat(apply(oldList, operations), is(newList));
+	}
+
+	/**
+	 * Test to verify that moving the first item to the end of a list is reported as a single move
+	 * rather than a move for every other item. The test will only pass if one move is produced.
+	 */
+	@Test
+	public void testComputeOperations_firstItemMovedToEnd() {
+		final List<String> oldList = Arrays.asList("a", "b", "c", "d", "e");
+		final List<String> newList = Arrays.asList("b", "c", "d", "e", "a");
+
+		final List<Operation<String>> operations = new ListDiffer<String>().computeOperations(
+				oldList, newList);
+
+		assertThat(operations.size(), is(1));
+		assertThat(operations.get(0).getType(), is(Operation.MOVE));
+		assertThat(operations.get(0).getIndex(), is(0));
+		assertThat(operations.get(0).getFinalIndex(), is(4));
+		assertThat(apply(oldList, operations), is(newList));
+	}
+
+	/**
+	 * Test to verify that items with the same key but different contents are reported as changed.
+	 * The test will only pass if a single change is produced for the modified item.
+	 */
+	@Test
+	public void testComputeOperations_changedContents() {
+		final ListDiffer<String> differ = new ListDiffer<>(new ListDiffer.Callback<String>() {
+			@Override
+			public Object getKey(final String item) {
+				return item.charAt(0);
+			}
+
+			@Override
+			public boolean areContentsTheSame(final String oldItem, final String newItem) {
+				return oldItem.equals(newItem);
+			}
+		});
+
+		final List<String> oldList = Arrays.asList("a1", "b1", "c1");
+		final List<String> newList = Arrays.asList("a1", "b2", "c1");
+
+		final List<Operation<String>> operations = differ.computeOperations(oldList, newList);
+
+		assertThat(operations.size(), is(1));
+		assertThat(operations.get(0).getType(), is(Operation.CHANGE));
+		assertThat(operations.get(0).getIndex(), is(1));
+		assertThat(operations.get(0).getItem(), is("b2"));
+		assertThat(apply(oldList, operations), is(newList));
+	}
+
+	/**
+	 * Test to verify that applying the operations for a mix of removals, insertions, moves and
+	 * duplicate items transforms the old list into the new list. The test will only pass if the
+	 * transformed list equals the new list.
+	 */
+	@Test
+	public void testComputeOperations_mixedChanges() {
+		final List<String> oldList = Arrays.asList("a", "b", "x", "c", "a", "d", "y");
+		final List<String> newList = Arrays.asList("d", "a", "z", "c", "b", "a", "w");
+
+		final List<Operation<String>> operations = new ListDiffer<String>().computeOperations(
+				oldList, newList);
+
+		assertThat(apply(oldList, operations), is(newList));
+	}
+
+	/**
+	 * Test to verify that applying the operations for randomly shuffled and edited lists
+	 * transforms the old list into the new list. The test will only pass if every transformed list
+	 * equals the corresponding new list.
+	 */
+	@Test
+	public void testComputeOperations_randomChanges() {
+		final Random random = new Random(42);
+
+		for (int trial = 0; trial < 200; trial++) {
+			final List<String> oldList = createRandomList(random);
+			final List<String> newList = createRandomList(random);
+
+			final List<Operation<String>> operations = new ListDiffer<String>()
+					.computeOperations(oldList, newList);
+
+			assertThat(apply(oldList, operations), is(newList));
+		}
+	}
+
+	/**
+	 * Creates a list of up to 20 single letter strings, where letters may be repeated.
+	 *
+	 * @param random
+	 * 		the source of randomness
+	 * @return the new list
+	 */
+	private static List<String> createRandomList(final Random random) {
+		final int size = random.nextInt(20);
+		final List<String> list = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			list.add(String.valueOf((char) ('a' + random.nextInt(10))));
+		}
+
+		return list;
+	}
+
+	/**
+	 * Applies a sequence of operations to a copy of the supplied list.
+	 *
+	 * @param list
+	 * 		the list to copy
+	 * @param operations
+	 * 		the operations to apply
+	 * @return the transformed copy
+	 */
+	private static List<String> apply(final List<String> list,
+			final List<Operation<String>> operations) {
+		final List<String> copy = new ArrayList<>(list);
+
+		for (final Operation<String> operation : operations) {
+			operation.applyTo(copy);
+		}
+
+		return copy;
+	}
+}
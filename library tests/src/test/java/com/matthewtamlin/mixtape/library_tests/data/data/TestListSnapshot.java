@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.ListSnapshot;
+import com.matthewtamlin.mixtape.library.data.PreviewableLibraryItem;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link ListSnapshot} class.
+ */
+@RunWith(JUnit4.class)
+public class TestListSnapshot {
+	/**
+	 * Test to verify that the constructor throws an exception when passed a null list. The test
+	 * will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullEntries() {
+		new ListSnapshot(null);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a list which contains
+	 * null. The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_entriesContainNull() {
+		new ListSnapshot(Collections.<ListSnapshot.Entry>singletonList(null));
+	}
+
+	/**
+	 * Test to verify that a snapshot survives conversion to and from a byte array, including
+	 * entries with missing metadata. The test will only pass if the recreated snapshot is equal to
+	 * the original and the entries are in the same order.
+	 */
+	@Test
+	public void testByteArray_roundTrip() {
+		final ArtworkPreview preview = ArtworkPreview.fromPixels(new int[]{0xFFF00000, 0xFFF00000,
+				0xFFF00000, 0xFF0000F0}, 2, 2);
+
+		final ListSnapshot snapshot = new ListSnapshot(Arrays.asList(
+				new ListSnapshot.Entry("b", "Title", "Subtitle", preview),
+				new ListSnapshot.Entry("a", null, "Subtitle", null),
+				new ListSnapshot.Entry("c", "Title", null, new ArtworkPreview(0xFF123456))));
+
+		final ListSnapshot recreated = ListSnapshot.fromByteArray(snapshot.toByteArray());
+
+		assertThat(recreated, is(snapshot));
+		assertThat(recreated.getEntries().get(0).getKey(), is("b"));
+		assertThat(recreated.getEntries().get(0).getArtworkPreview(), is(preview));
+		assertThat(recreated.getEntries().get(1).getTitle(), is(nullValue()));
+		assertThat(recreated.getEntries().get(2).getSubtitle(), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that the {@link ListSnapshot#fromByteArray(byte[])} method throws an exception
+	 * when passed a truncated array. The test will only pass if an IllegalArgumentException is
+	 * thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromByteArray_truncated() {
+		final ListSnapshot snapshot = new ListSnapshot(Collections.singletonList(
+				new ListSnapshot.Entry("a", "Title", "Subtitle", null)));
+		final byte[] bytes = snapshot.toByteArray();
+
+		ListSnapshot.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1));
+	}
+
+	/**
+	 * Test to verify that the {@link ListSnapshot.Entry#fromItem(String, LibraryItem)} method
+	 * reads the metadata of the item, and omits metadata which cannot be read. The test will only
+	 * pass if the readable metadata and the artwork preview are included in the entry.
+	 */
+	@Test
+	public void testEntryFromItem() throws LibraryReadException {
+		final ArtworkPreview preview = new ArtworkPreview(0xFF123456);
+		final PreviewableLibraryItem item = mock(PreviewableLibraryItem.class);
+
+		when(item.getTitle()).thenReturn("Title");
+		when(item.getSubtitle()).thenThrow(new LibraryReadException());
+		when(item.getArtworkPreview()).thenReturn(preview);
+
+		final ListSnapshot.Entry entry = ListSnapshot.Entry.fromItem("key", item);
+
+		assertThat(entry.getKey(), is("key"));
+		assertThat(entry.getTitle().toString(), is("Title"));
+		assertThat(entry.getSubtitle(), is(nullValue()));
+		assertThat(entry.getArtworkPreview(), is(preview));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataLoadedListener;
+import com.matthewtamlin.mixtape.library.data.PagedListDataSourceHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the {@link PagedListDataSourceHelper} class.
+ */
+@SuppressWarnings("unchecked") // Warning caused by mocks, but it isn't a problem
+@RunWith(JUnit4.class)
+public class TestPagedListDataSourceHelper {
+	/**
+	 * The data source under test.
+	 */
+	private NumberDataSource dataSource;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		final FakeLooper looper = new FakeLooper();
+
+		dataSource = new NumberDataSource();
+		dataSource.setWorkerExecutor(looper);
+		dataSource.setCallbackExecutor(looper);
+	}
+
+	/**
+	 * Test to verify that a page which fails to load with an unchecked exception can be requested
+	 * again. The test will only pass if the page is loaded on the second request.
+	 */
+	@Test
+	public void testLoadPage_uncheckedExceptionAllowsRetry() {
+		final List<Integer> list = load();
+
+		dataSource.crashCount = 1;
+
+		assertThat(list.get(0), is(nullValue()));
+		assertThat(dataSource.pageLoadCount, is(1));
+
+		assertThat(list.get(0), is(nullValue()));
+		assertThat(dataSource.pageLoadCount, is(2));
+
+		assertThat(list.get(0), is(0));
+	}
+
+	/**
+	 * Loads data from the data source under test.
+	 *
+	 * @return the delivered list
+	 */
+	private List<Integer> load() {
+		final DataLoadedListener<List<Integer>> callback = mock(DataLoadedListener.class);
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+
+		dataSource.loadData(false, callback);
+		verify(callback).onDataLoaded(eq(dataSource), captor.capture());
+
+		return captor.getValue();
+	}
+
+	/**
+	 * A PagedListDataSourceHelper which supplies the numbers from 0 to 99.
+	 */
+	private static class NumberDataSource extends PagedListDataSourceHelper<Integer> {
+		/**
+		 * The number of page loads which should throw an unchecked exception.
+		 */
+		private int crashCount = 0;
+
+		/**
+		 * The number of times a page has been loaded.
+		 */
+		private int pageLoadCount = 0;
+
+		/**
+		 * Constructs a new NumberDataSource.
+		 */
+		private NumberDataSource() {
+			super(10, 3);
+		}
+
+		@Override
+		protected int loadItemCount() {
+			return 100;
+		}
+
+		@Override
+		protected List<Integer> loadPage(final int startIndex, final int count) {
+			pageLoadCount++;
+
+			if (crashCount > 0) {
+				crashCount--;
+				throw new IllegalStateException();
+			}
+
+			final List<Integer> page = new ArrayList<>();
+
+			for (int i = startIndex; i < startIndex + count; i++) {
+				page.add(i);
+			}
+
+			return page;
+		}
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import android.graphics.drawable.Drawable;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataLoadedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.DataReplacedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemAddedListener;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemRemovedListener;
+import com.matthewtamlin.mixtape.library.data.IndexedListDataSource;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.SearchDataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link SearchDataSource} class.
+ */
+@SuppressWarnings("unchecked") // Warning caused by mocks, but it isn't a problem
+@RunWith(JUnit4.class)
+public class TestSearchDataSource {
+	/**
+	 * Runs background work for both data sources.
+	 */
+	private FakeLooper workerLooper;
+
+	/**
+	 * An item titled "Yesterday" by "The Beatles".
+	 */
+	private LibraryItem yesterday;
+
+	/**
+	 * An item titled "Let It Be" by "The Beatles".
+	 */
+	private LibraryItem letItBe;
+
+	/**
+	 * An item titled "Bohemian Rhapsody" by "Queen".
+	 */
+	private LibraryItem bohemianRhapsody;
+
+	/**
+	 * The data source being searched.
+	 */
+	private ItemDataSource source;
+
+	/**
+	 * The data source under test.
+	 */
+	private SearchDataSource<LibraryItem> searchSource;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		yesterday = createItem("Yesterday", "The Beatles");
+		letItBe = createItem("Let It Be", "The Beatles");
+		bohemianRhapsody = createItem("Bohemian Rhapsody", "Queen");
+
+		workerLooper = new FakeLooper();
+		final FakeLooper callbackLooper = new FakeLooper();
+
+		source = new ItemDataSource(Arrays.asList(yesterday, letItBe, bohemianRhapsody));
+		source.setWorkerExecutor(workerLooper);
+		source.setCallbackExecutor(callbackLooper);
+
+		searchSource = new SearchDataSource<>(source);
+		searchSource.setWorkerExecutor(workerLooper);
+		searchSource.setCallbackExecutor(callbackLooper);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a null source. The test
+	 * will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullSource() {
+		new SearchDataSource<>(null);
+	}
+
+	/**
+	 * Test to verify that the results are not delivered until the source items have been read on
+	 * the worker executor. The test will only pass if the matching items are delivered once the
+	 * worker runs.
+	 */
+	@Test
+	public void testLoadData_deliversResultsOnceIndexed() {
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		searchSource.setQuery("beatles");
+		workerLooper.pause();
+
+		searchSource.loadData(false, callback);
+		workerLooper.runOneTask();
+
+		verify(callback, never()).onDataLoaded(eq(searchSource), any(List.class));
+
+		workerLooper.runToEndOfTasks();
+
+		verify(callback).onDataLoaded(searchSource, Arrays.asList(letItBe, yesterday));
+	}
+
+	/**
+	 * Test to verify that setting the query replaces the results. The test will only pass if the
+	 * data replaced listeners receive the new results.
+	 */
+	@Test
+	public void testSetQuery_replacesResults() {
+		final DataReplacedListener<List<LibraryItem>> listener = mock(DataReplacedListener.class);
+		searchSource.registerDataReplacedListener(listener);
+
+		final List<LibraryItem> oldResults = load();
+		searchSource.setQuery("queen");
+
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(listener).onDataReplaced(eq(searchSource), eq(oldResults), captor.capture());
+		assertThat(captor.getValue(), is((List) Arrays.asList(bohemianRhapsody)));
+	}
+
+	/**
+	 * Test to verify that items added to the source are added to the results in ranked order. The
+	 * test will only pass if the item added listeners receive the index of the new result.
+	 */
+	@Test
+	public void testSourceItemAdded_addsResult() {
+		final ItemAddedListener<LibraryItem> listener = mock(ItemAddedListener.class);
+		searchSource.registerItemAddedListener(listener);
+		searchSource.setQuery("be");
+
+		final List<LibraryItem> results = load();
+		final LibraryItem beautifulDay = createItem("Beautiful Day", "U2");
+		final LibraryItem heroes = createItem("Heroes", "David Bowie");
+
+		source.addItem(beautifulDay);
+		source.addItem(heroes);
+
+		assertThat(results, is(Arrays.asList(beautifulDay, letItBe, yesterday)));
+		verify(listener).onDataAdded(searchSource, beautifulDay, 0);
+		verify(listener, never()).onDataAdded(eq(searchSource), eq(heroes), anyInt());
+	}
+
+	/**
+	 * Test to verify that items removed from the source are removed from the results. The test
+	 * will only pass if the item removed listeners receive the index of the removed result.
+	 */
+	@Test
+	public void testSourceItemRemoved_removesResult() {
+		final ItemRemovedListener<LibraryItem> listener = mock(ItemRemovedListener.class);
+		searchSource.registerItemRemovedListener(listener);
+		searchSource.setQuery("beatles");
+
+		final List<LibraryItem> results = load();
+		source.removeItem(letItBe);
+
+		assertThat(results, is(Arrays.asList(yesterday)));
+		verify(listener).onDataRemoved(searchSource, letItBe, 0);
+	}
+
+	/**
+	 * Test to verify that replacing the source list with equal but different instances replaces
+	 * the indexed items. The test will only pass if the results contain only the new instances.
+	 */
+	@Test
+	public void testSourceDataReplaced_equalInstances() {
+		final LibraryItem oldYesterday = new TextItem("Yesterday", "The Beatles");
+		final LibraryItem oldLetItBe = new TextItem("Let It Be", "The Beatles");
+		final LibraryItem newYesterday = new TextItem("Yesterday", "The Beatles");
+		final LibraryItem newLetItBe = new TextItem("Let It Be", "The Beatles");
+
+		final ItemDataSource equalSource = new ItemDataSource(Arrays.asList(oldYesterday,
+				oldLetItBe));
+		equalSource.setWorkerExecutor(workerLooper);
+		equalSource.setCallbackExecutor(workerLooper);
+
+		final SearchDataSource<LibraryItem> equalSearchSource = new SearchDataSource<>(
+				equalSource);
+		equalSearchSource.setWorkerExecutor(workerLooper);
+		equalSearchSource.setCallbackExecutor(workerLooper);
+		equalSearchSource.setQuery("beatles");
+
+		final DataReplacedListener<List<LibraryItem>> listener = mock(DataReplacedListener.class);
+		equalSearchSource.registerDataReplacedListener(listener);
+		equalSearchSource.loadData(false, null);
+
+		equalSource.replaceItems(Arrays.asList(newYesterday, newLetItBe));
+
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(listener).onDataReplaced(eq(equalSearchSource), any(List.class), captor.capture());
+
+		final List<LibraryItem> results = captor.getValue();
+		assertThat(results.size(), is(2));
+		assertThat(results.get(0), is(sameInstance(newLetItBe)));
+		assertThat(results.get(1), is(sameInstance(newYesterday)));
+	}
+
+	/**
+	 * Loads data from the data source under test.
+	 *
+	 * @return the delivered results
+	 */
+	private List<LibraryItem> load() {
+		final DataLoadedListener<List<LibraryItem>> callback = mock(DataLoadedListener.class);
+		final ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+
+		searchSource.loadData(false, callback);
+		verify(callback).onDataLoaded(eq(searchSource), captor.capture());
+
+		return captor.getValue();
+	}
+
+	/**
+	 * Creates a mock LibraryItem.
+	 *
+	 * @param title
+	 * 		the title of the item
+	 * @param subtitle
+	 * 		the subtitle of the item
+	 * @return the item
+	 */
+	private static LibraryItem createItem(final String title, final String subtitle) {
+		final LibraryItem item = mock(LibraryItem.class);
+
+		try {
+			when(item.getTitle()).thenReturn(title);
+			when(item.getSubtitle()).thenReturn(subtitle);
+		} catch (final LibraryReadException e) {
+			// Stubbing a mock does not actually call the method
+		}
+
+		return item;
+	}
+
+	/**
+	 * An IndexedListDataSource which supplies a fixed list of items.
+	 */
+	private static class ItemDataSource extends IndexedListDataSource<LibraryItem> {
+		/**
+		 * The items to supply.
+		 */
+		private final List<LibraryItem> items;
+
+		/**
+		 * Constructs a new ItemDataSource.
+		 *
+		 * @param items
+		 * 		the items to supply
+		 */
+		private ItemDataSource(final List<LibraryItem> items) {
+			this.items = new ArrayList<>(items);
+		}
+
+		@Override
+		protected List<LibraryItem> loadItemsInBackground(final boolean forceRefresh) {
+			return new ArrayList<>(items);
+		}
+
+		/**
+		 * Replaces the supplied items and notifies the data replaced listeners.
+		 *
+		 * @param newItems
+		 * 		the new items to supply
+		 */
+		private void replaceItems(final List<LibraryItem> newItems) {
+			final List<LibraryItem> oldItems = new ArrayList<>(items);
+
+			items.clear();
+			items.addAll(newItems);
+			notifyDataReplaced(oldItems, new ArrayList<>(newItems));
+		}
+	}
+
+	/**
+	 * A LibraryItem which is equal to any other TextItem with the same title and subtitle.
+	 */
+	private static class TextItem implements LibraryItem {
+		/**
+		 * The title of the item.
+		 */
+		private final String title;
+
+		/**
+		 * The subtitle of the item.
+		 */
+		private final String subtitle;
+
+		/**
+		 * Constructs a new TextItem.
+		 *
+		 * @param title
+		 * 		the title of the item
+		 * @param subtitle
+		 * 		the subtitle of the item
+		 */
+		private TextItem(final String title, final String subtitle) {
+			this.title = title;
+			this.subtitle = subtitle;
+		}
+
+		@Override
+		public CharSequence getTitle() {
+			return title;
+		}
+
+		@Override
+		public CharSequence getSubtitle() {
+			return subtitle;
+		}
+
+		@Override
+		public Drawable getArtwork(final int width, final int height) {
+			return null;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) {
+				return true;
+			}
+
+			if (!(obj instanceof TextItem)) {
+				return false;
+			}
+
+			final TextItem other = (TextItem) obj;
+
+			return title.equals(other.title) && subtitle.equals(other.subtitle);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * title.hashCode() + subtitle.hashCode();
+		}
+	}
+}
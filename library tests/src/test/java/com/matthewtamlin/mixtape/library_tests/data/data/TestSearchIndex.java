@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.SearchIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Unit tests for the {@link SearchIndex} class.
+ */
+@RunWith(JUnit4.class)
+public class TestSearchIndex {
+	/**
+	 * The index under test.
+	 */
+	private SearchIndex<String> index;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		index = new SearchIndex<>();
+		index.put("yesterday", "Yesterday", "The Beatles");
+		index.put("let it be", "Let It Be", "The Beatles");
+		index.put("bohemian", "Bohemian Rhapsody", "Queen");
+		index.put("beethoven", "Für Elise", "Ludwig van Beethoven");
+		index.put("beautiful", "Beautiful Day", "U2");
+		index.put("maybe", "Maybe", "Someone");
+	}
+
+	/**
+	 * Test to verify that text is normalised by removing accents, converting to lower case and
+	 * collapsing whitespace. The test will only pass if the normalised text is returned.
+	 */
+	@Test
+	public void testNormalize() {
+		assertThat(SearchIndex.normalize("  Für\tÉLISE  now "), is("fur elise now"));
+		assertThat(SearchIndex.normalize(null), is(""));
+	}
+
+	/**
+	 * Test to verify that queries match substrings of titles and subtitles, and that matches are
+	 * ranked by title prefix, then word prefix, then substring. The test will only pass if the
+	 * expected items are returned in the expected order.
+	 */
+	@Test
+	public void testSearch_ranksMatches() {
+		assertThat(index.search("BE"), is(Arrays.asList("beautiful", "beethoven", "let it be",
+				"yesterday", "maybe")));
+		assertThat(index.search("beat"), is(Arrays.asList("let it be", "yesterday")));
+		assertThat(index.search("hem"), is(Collections.singletonList("bohemian")));
+		assertThat(index.search("fur el"), is(Collections.singletonList("beethoven")));
+	}
+
+	/**
+	 * Test to verify that queries shorter than a trigram are matched and ranked in the same way as
+	 * longer queries. The test will only pass if the expected items are returned in the expected
+	 * order.
+	 */
+	@Test
+	public void testSearch_shortQueries() {
+		assertThat(index.search("qu"), is(Collections.singletonList("bohemian")));
+		assertThat(index.search("zq").isEmpty(), is(true));
+		assertThat(index.search("y"), is(Arrays.asList("yesterday", "beautiful", "bohemian",
+				"maybe")));
+	}
+
+	/**
+	 * Test to verify that queries do not match text which spans the title and the subtitle, and
+	 * that an empty query matches nothing. The test will only pass if no items are returned.
+	 */
+	@Test
+	public void testSearch_noMatches() {
+		assertThat(index.search("rhapsody queen").isEmpty(), is(true));
+		assertThat(index.search("xyz").isEmpty(), is(true));
+		assertThat(index.search("").isEmpty(), is(true));
+		assertThat(index.search(null).isEmpty(), is(true));
+	}
+
+	/**
+	 * Test to verify that items can be re-indexed and removed. The test will only pass if queries
+	 * reflect the latest text of each item.
+	 */
+	@Test
+	public void testPutAndRemove_updateResults() {
+		index.put("yesterday", "Yesterday (Remastered)", "The Beatles");
+
+		assertThat(index.search("remaster"), is(Collections.singletonList("yesterday")));
+		assertThat(index.matches("yesterday", "beatles"), is(true));
+
+		assertThat(index.remove("yesterday"), is(true));
+		assertThat(index.remove("yesterday"), is(false));
+
+		assertThat(index.search("remaster").isEmpty(), is(true));
+		assertThat(index.search("beatles"), is(Collections.singletonList("let it be")));
+		assertThat(index.contains("yesterday"), is(false));
+		assertThat(index.size(), is(5));
+	}
+}
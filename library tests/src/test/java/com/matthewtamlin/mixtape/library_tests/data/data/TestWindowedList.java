@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.data;
+
+import com.matthewtamlin.mixtape.library.data.WindowedList;
+import com.matthewtamlin.mixtape.library.data.WindowedList.PageLoader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the {@link WindowedList} class.
+ */
+@SuppressWarnings("unchecked") // Warning caused by mocks, but it isn't a problem
+@RunWith(JUnit4.class)
+public class TestWindowedList {
+	/**
+	 * The total number of items in the list under test.
+	 */
+	private static final int SIZE = 105;
+
+	/**
+	 * The page size of the list under test.
+	 */
+	private static final int PAGE_SIZE = 10;
+
+	/**
+	 * The maximum number of resident pages in the list under test.
+	 */
+	private static final int MAX_RESIDENT_PAGES = 3;
+
+	/**
+	 * A mock page loader which records page requests.
+	 */
+	private PageLoader<String> pageLoader;
+
+	/**
+	 * The list under test.
+	 */
+	private WindowedList<String> list;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		pageLoader = mock(PageLoader.class);
+		list = new WindowedList<>(SIZE, PAGE_SIZE, MAX_RESIDENT_PAGES, pageLoader);
+	}
+
+	/**
+	 * Test to verify that the correct exception is thrown when the {@code pageSize} argument of
+	 * {@link WindowedList#WindowedList(int, int, int, PageLoader)} is zero. The test will only pass
+	 * if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_invalidArgs_zeroPageSize() {
+		new WindowedList<>(SIZE, 0, MAX_RESIDENT_PAGES, pageLoader);
+	}
+
+	/**
+	 * Test to verify that the correct exception is thrown when the {@code pageLoader} argument of
+	 * {@link WindowedList#WindowedList(int, int, int, PageLoader)} is null. The test will only pass
+	 * if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_invalidArgs_nullPageLoader() {
+		new WindowedList<String>(SIZE, PAGE_SIZE, MAX_RESIDENT_PAGES, null);
+	}
+
+	/**
+	 * Test to verify that the total size and page geometry are reported before any pages are
+	 * loaded. The test will only pass if the size includes unloaded items and the last page is
+	 * shorter than the others.
+	 */
+	@Test
+	public void testSizeAndPageGeometry() {
+		assertThat(list.size(), is(SIZE));
+		assertThat(list.getPageCount(), is(11));
+		assertThat(list.getPageLength(0), is(PAGE_SIZE));
+		assertThat(list.getPageLength(10), is(5));
+		assertThat(list.getLoadedPageCount(), is(0));
+	}
+
+	/**
+	 * Test to verify that accessing an unloaded item returns a placeholder and requests the page
+	 * exactly once. The test will only pass if null is returned and a single request is made.
+	 */
+	@Test
+	public void testGet_unloadedItem() {
+		assertThat(list.get(15), is(nullValue()));
+		assertThat(list.get(16), is(nullValue()));
+
+		verify(pageLoader, times(1)).onPageRequested(list, 1);
+		verify(pageLoader, never()).onPageRequested(eq(list), eq(0));
+	}
+
+	/**
+	 * Test to verify that items are returned once their page has been supplied. The test will only
+	 * pass if the supplied items are returned at the correct indices.
+	 */
+	@Test
+	public void testGet_loadedItem() {
+		list.get(15);
+		list.setPage(1, createPage(1));
+
+		assertThat(list.get(10), is("item10"));
+		assertThat(list.get(19), is("item19"));
+		assertThat(list.isLoaded(12), is(true));
+		assertThat(list.isLoaded(25), is(false));
+	}
+
+	/**
+	 * Test to verify that a page is requested again after a failed load. The test will only pass
+	 * if the page is requested twice.
+	 */
+	@Test
+	public void testOnPageLoadFailed() {
+		list.get(5);
+		list.onPageLoadFailed(0);
+		list.get(5);
+
+		verify(pageLoader, times(2)).onPageRequested(list, 0);
+	}
+
+	/**
+	 * Test to verify that the pages furthest from the viewport are evicted once the maximum number
+	 * of resident pages is exceeded. The test will only pass if the loaded page count never exceeds
+	 * the maximum and the distant page is the one removed.
+	 */
+	@Test
+	public void testSetPage_evictsDistantPages() {
+		list.setPage(0, createPage(0));
+		list.setPage(1, createPage(1));
+		list.setPage(2, createPage(2));
+
+		// Move the viewport to page 3
+		list.get(35);
+		list.setPage(3, createPage(3));
+
+		assertThat(list.getLoadedPageCount(), is(MAX_RESIDENT_PAGES));
+		assertThat(list.isLoaded(5), is(false));
+		assertThat(list.isLoaded(15), is(true));
+		assertThat(list.isLoaded(35), is(true));
+	}
+
+	/**
+	 * Test to verify that supplying a page of the wrong size is rejected. The test will only pass
+	 * if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetPage_invalidArgs_wrongSize() {
+		list.setPage(10, createPage(0));
+	}
+
+	/**
+	 * Test to verify that accessing an index outside the list is rejected without requesting a
+	 * page. The test will only pass if an IndexOutOfBoundsException is thrown.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGet_invalidArgs_outOfBounds() {
+		try {
+			list.get(SIZE);
+		} finally {
+			verify(pageLoader, never()).onPageRequested(eq(list), anyInt());
+		}
+	}
+
+	/**
+	 * Creates the contents of a page.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page to create
+	 * @return the items in the page, not null
+	 */
+	private List<String> createPage(final int pageIndex) {
+		final List<String> page = new ArrayList<>();
+
+		for (int i = 0; i < list.getPageLength(pageIndex); i++) {
+			page.add("item" + (list.getPageStart(pageIndex) + i));
+		}
+
+		return page;
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.databinders;
+
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.ArenaTextCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link ArenaTextCache} class.
+ */
+@RunWith(JUnit4.class)
+public class TestArenaTextCache {
+	/**
+	 * The byte budget of the cache under test.
+	 */
+	private static final int MAX_BYTES = 1000;
+
+	/**
+	 * The cache under test.
+	 */
+	private ArenaTextCache cache;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		cache = new ArenaTextCache(MAX_BYTES);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a byte budget of zero.
+	 * The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_zeroMaxBytes() {
+		new ArenaTextCache(0);
+	}
+
+	/**
+	 * Test to verify that ASCII and non-ASCII values are returned intact, for both heap and direct
+	 * arenas. The test will only pass if each view has the original length, characters and string
+	 * form.
+	 */
+	@Test
+	public void testPutAndGet_valuesRoundTrip() {
+		for (final ArenaTextCache cache : new ArenaTextCache[]{this.cache,
+				new ArenaTextCache(MAX_BYTES, true)}) {
+			cache.put(createIdentifiableItem(1), "Title");
+			cache.put(createIdentifiableItem(2), "Sigur Rós ♫");
+			cache.put(createIdentifiableItem(3), "");
+
+			final CharSequence ascii = cache.get(createIdentifiableItem(1));
+			assertThat(ascii.length(), is(5));
+			assertThat(ascii.charAt(1), is('i'));
+			assertThat(ascii.toString(), is("Title"));
+			assertThat(ascii.subSequence(1, 3).toString(), is("it"));
+
+			final CharSequence unicode = cache.get(createIdentifiableItem(2));
+			assertThat(unicode.length(), is(11));
+			assertThat(unicode.charAt(7), is('ó'));
+			assertThat(unicode.toString(), is("Sigur Rós ♫"));
+
+			assertThat(cache.get(createIdentifiableItem(3)).toString(), is(""));
+		}
+	}
+
+	/**
+	 * Test to verify that repeated values are stored once. The test will only pass if storing the
+	 * same value for a second item does not use any more bytes.
+	 */
+	@Test
+	public void testPut_deduplicatesRepeatedValues() {
+		cache.put(createIdentifiableItem(1), "Artist");
+		final int usedBytes = cache.getUsedBytes();
+
+		cache.put(createIdentifiableItem(2), "Artist");
+		cache.put(createIdentifiableItem(3), new StringBuilder("Artist"));
+
+		assertThat(cache.getUsedBytes(), is(usedBytes));
+		assertThat(cache.getDistinctValueCount(), is(1));
+		assertThat(cache.size(), is(3));
+		assertThat(cache.get(createIdentifiableItem(3)).toString(), is("Artist"));
+	}
+
+	/**
+	 * Test to verify that storing a new value for an item replaces the old value. The test will
+	 * only pass if the new value is returned.
+	 */
+	@Test
+	public void testPut_replacesExistingValue() {
+		cache.put(createIdentifiableItem(1), "old");
+		cache.put(createIdentifiableItem(1), "new");
+
+		assertThat(cache.get(createIdentifiableItem(1)).toString(), is("new"));
+		assertThat(cache.size(), is(1));
+	}
+
+	/**
+	 * Test to verify that the cache discards its contents once the byte budget is exhausted, and
+	 * that views returned earlier remain valid. The test will only pass if the old entries are
+	 * gone, the newest entry is present and the old view still reads correctly.
+	 */
+	@Test
+	public void testPut_budgetExhausted() {
+		cache.put(createIdentifiableItem(0), "value 0");
+		final CharSequence firstView = cache.get(createIdentifiableItem(0));
+
+		// Each distinct value is large enough that only a few fit in the budget
+		final StringBuilder padding = new StringBuilder();
+
+		for (int i = 0; i < 300; i++) {
+			padding.append('x');
+		}
+
+		for (int i = 1; i <= 10; i++) {
+			cache.put(createIdentifiableItem(i), padding.toString() + i);
+		}
+
+		assertThat(cache.getUsedBytes() <= MAX_BYTES, is(true));
+		assertThat(cache.get(createIdentifiableItem(0)), is(nullValue()));
+		assertThat(cache.get(createIdentifiableItem(10)).toString(), is(padding.toString() + 10));
+		assertThat(firstView.toString(), is("value 0"));
+	}
+
+	/**
+	 * Test to verify that a value which is larger than the byte budget is not cached. The test
+	 * will only pass if the value is ignored and the existing entries are kept.
+	 */
+	@Test
+	public void testPut_valueLargerThanBudget() {
+		cache.put(createIdentifiableItem(1), "title");
+
+		final StringBuilder value = new StringBuilder();
+
+		for (int i = 0; i <= MAX_BYTES; i++) {
+			value.append('x');
+		}
+
+		cache.put(createIdentifiableItem(2), value);
+
+		assertThat(cache.get(createIdentifiableItem(1)).toString(), is("title"));
+		assertThat(cache.get(createIdentifiableItem(2)), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that many items can be stored and removed while the tables grow. The test
+	 * will only pass if every remaining item maps to its own value.
+	 */
+	@Test
+	public void testPutAndRemove_manyItems() {
+		final ArenaTextCache cache = new ArenaTextCache(1000000);
+
+		for (int i = 0; i < 1000; i++) {
+			cache.put(createIdentifiableItem(i), "Artist " + (i % 50));
+		}
+
+		for (int i = 0; i < 1000; i += 2) {
+			cache.remove(createIdentifiableItem(i));
+		}
+
+		assertThat(cache.size(), is(500));
+		assertThat(cache.getDistinctValueCount(), is(50));
+
+		for (int i = 0; i < 1000; i++) {
+			final CharSequence value = cache.get(createIdentifiableItem(i));
+
+			if (i % 2 == 0) {
+				assertThat(value, is(nullValue()));
+			} else {
+				assertThat(value.toString(), is("Artist " + (i % 50)));
+			}
+		}
+	}
+
+	/**
+	 * Test to verify that items which are not identifiable are never cached. The test will only
+	 * pass if no value is returned for such an item.
+	 */
+	@Test
+	public void testPut_otherItemsNotCached() {
+		final LibraryItem item = mock(LibraryItem.class);
+		cache.put(item, "title");
+
+		assertThat(cache.get(item), is(nullValue()));
+		assertThat(cache.size(), is(0));
+	}
+
+	/**
+	 * Test to verify that the {@link ArenaTextCache#evictAll()} method discards all entries. The
+	 * test will only pass if the cache is empty afterwards.
+	 */
+	@Test
+	public void testEvictAll() {
+		cache.put(createIdentifiableItem(1), "title");
+		cache.evictAll();
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(nullValue()));
+		assertThat(cache.size(), is(0));
+		assertThat(cache.getUsedBytes(), is(0));
+	}
+
+	/**
+	 * Creates a mock IdentifiableLibraryItem.
+	 *
+	 * @param id
+	 * 		the id of the item
+	 * @return the item
+	 */
+	private static IdentifiableLibraryItem createIdentifiableItem(final long id) {
+		final IdentifiableLibraryItem item = mock(IdentifiableLibraryItem.class);
+		when(item.getId()).thenReturn(id);
+
+		return item;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.databinders;
+
+import android.graphics.drawable.Drawable;
+import android.support.v4.util.LruCache;
+
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.ContentAddressedArtworkCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link ContentAddressedArtworkCache} class.
+ */
+@RunWith(JUnit4.class)
+public class TestContentAddressedArtworkCache {
+	/**
+	 * The LruCache which backs the cache under test.
+	 */
+	private LruCache<Object, Drawable> artworkCache;
+
+	/**
+	 * The cache under test.
+	 */
+	private ContentAddressedArtworkCache cache;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		artworkCache = new LruCache<>(10);
+		cache = new ContentAddressedArtworkCache(artworkCache, 10);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a null artwork cache.
+	 * The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullArtworkCache() {
+		new ContentAddressedArtworkCache(null, 10);
+	}
+
+	/**
+	 * Test to verify that items linked to the same fingerprint share a single cached image. The
+	 * test will only pass if the artwork is stored once and returned for every linked item.
+	 */
+	@Test
+	public void testPutAndGetAndLink_sharesArtwork() {
+		final Drawable artwork = mock(Drawable.class);
+
+		cache.put(createIdentifiableItem(1), 100L, artwork);
+
+		assertThat(cache.getAndLink(createIdentifiableItem(2), 100L), is(artwork));
+		assertThat(cache.getAndLink(createIdentifiableItem(3), 200L), is(nullValue()));
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(artwork));
+		assertThat(cache.get(createIdentifiableItem(2)), is(artwork));
+		assertThat(cache.get(createIdentifiableItem(3)), is(nullValue()));
+		assertThat(artworkCache.size(), is(1));
+	}
+
+	/**
+	 * Test to verify that shared artwork is returned as a new Drawable created from the constant
+	 * state of the cached Drawable. The test will only pass if the new Drawable is returned.
+	 */
+	@Test
+	public void testGet_returnsNewDrawableFromConstantState() {
+		final Drawable artwork = mock(Drawable.class);
+		final Drawable copy = mock(Drawable.class);
+		final Drawable.ConstantState constantState = mock(Drawable.ConstantState.class);
+
+		when(artwork.getConstantState()).thenReturn(constantState);
+		when(constantState.newDrawable()).thenReturn(copy);
+
+		cache.put(createIdentifiableItem(1), 100L, artwork);
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(copy));
+	}
+
+	/**
+	 * Test to verify that artwork cached without a fingerprint is stored per item, and does not
+	 * clash with a fingerprint which is equal to the id of the item. The test will only pass if
+	 * each item gets its own artwork.
+	 */
+	@Test
+	public void testPut_withoutFingerprint() {
+		final Drawable sharedArtwork = mock(Drawable.class);
+		final Drawable otherArtwork = mock(Drawable.class);
+		final LibraryItem otherItem = mock(LibraryItem.class);
+
+		cache.put(createIdentifiableItem(1), 7L, sharedArtwork);
+		cache.put(createIdentifiableItem(7), otherArtwork);
+		cache.put(otherItem, otherArtwork);
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(sharedArtwork));
+		assertThat(cache.get(createIdentifiableItem(7)), is(otherArtwork));
+		assertThat(cache.get(otherItem), is(otherArtwork));
+		assertThat(cache.get(null), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that removing an item only unlinks it from shared artwork. The test will only
+	 * pass if other items linked to the same fingerprint still get the artwork.
+	 */
+	@Test
+	public void testRemove_keepsSharedArtwork() {
+		final Drawable artwork = mock(Drawable.class);
+
+		cache.put(createIdentifiableItem(1), 100L, artwork);
+		cache.getAndLink(createIdentifiableItem(2), 100L);
+		cache.remove(createIdentifiableItem(1));
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(nullValue()));
+		assertThat(cache.get(createIdentifiableItem(2)), is(artwork));
+	}
+
+	/**
+	 * Test to verify that the {@link ContentAddressedArtworkCache#evictAll()} method discards all
+	 * artwork and links. The test will only pass if no artwork is returned afterwards.
+	 */
+	@Test
+	public void testEvictAll() {
+		cache.put(createIdentifiableItem(1), 100L, mock(Drawable.class));
+		cache.evictAll();
+
+		assertThat(cache.get(createIdentifiableItem(1)), is(nullValue()));
+		assertThat(cache.getAndLink(createIdentifiableItem(2), 100L), is(nullValue()));
+	}
+
+	/**
+	 * Creates a mock IdentifiableLibraryItem.
+	 *
+	 * @param id
+	 * 		the id of the item
+	 * @return the item
+	 */
+	private static IdentifiableLibraryItem createIdentifiableItem(final long id) {
+		final IdentifiableLibraryItem item = mock(IdentifiableLibraryItem.class);
+		when(item.getId()).thenReturn(id);
+
+		return item;
+	}
+}
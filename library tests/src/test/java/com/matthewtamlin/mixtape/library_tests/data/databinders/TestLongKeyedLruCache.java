@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.databinders;
+
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.LongKeyedLruCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link LongKeyedLruCache} class.
+ */
+@RunWith(JUnit4.class)
+public class TestLongKeyedLruCache {
+	/**
+	 * The maximum size of the cache under test.
+	 */
+	private static final int MAX_SIZE = 3;
+
+	/**
+	 * The cache under test.
+	 */
+	private LongKeyedLruCache<String> cache;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		cache = new LongKeyedLruCache<>(MAX_SIZE);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a max size of zero. The
+	 * test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_zeroMaxSize() {
+		new LongKeyedLruCache<String>(0);
+	}
+
+	/**
+	 * Test to verify that values can be stored, replaced and removed. The test will only pass if
+	 * each operation returns the expected previous value.
+	 */
+	@Test
+	public void testPutGetAndRemove() {
+		assertThat(cache.put(1, "a"), is(nullValue()));
+		assertThat(cache.put(1, "b"), is("a"));
+		assertThat(cache.get(1), is("b"));
+		assertThat(cache.size(), is(1));
+
+		assertThat(cache.remove(1), is("b"));
+		assertThat(cache.get(1), is(nullValue()));
+		assertThat(cache.size(), is(0));
+	}
+
+	/**
+	 * Test to verify that the least recently used entry is evicted once the cache is full. The
+	 * test will only pass if the entry which was not accessed is evicted.
+	 */
+	@Test
+	public void testPut_evictsLeastRecentlyUsed() {
+		cache.put(1, "a");
+		cache.put(2, "b");
+		cache.put(3, "c");
+		cache.get(1);
+		cache.put(4, "d");
+
+		assertThat(cache.size(), is(MAX_SIZE));
+		assertThat(cache.containsKey(1), is(true));
+		assertThat(cache.containsKey(2), is(false));
+		assertThat(cache.containsKey(3), is(true));
+		assertThat(cache.containsKey(4), is(true));
+	}
+
+	/**
+	 * Test to verify that the cache behaves identically to a reference LRU map under a long random
+	 * sequence of operations. The test will only pass if every lookup agrees with the reference.
+	 */
+	@Test
+	public void testRandomOperations_matchReference() {
+		final int maxSize = 64;
+		final LongKeyedLruCache<String> cache = new LongKeyedLruCache<>(maxSize);
+		final Map<Long, String> reference = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, String> eldest) {
+				return size() > maxSize;
+			}
+		};
+
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 100000; i++) {
+			// Many more keys than entries, so evictions and probe collisions are frequent
+			final long key = random.nextInt(200);
+			final int operation = random.nextInt(10);
+
+			if (operation < 5) {
+				assertThat(cache.get(key), is(reference.get(key)));
+			} else if (operation < 9) {
+				final String value = String.valueOf(i);
+				assertThat(cache.put(key, value), is(reference.put(key, value)));
+			} else {
+				assertThat(cache.remove(key), is(reference.remove(key)));
+			}
+
+			assertThat(cache.size(), is(reference.size()));
+		}
+	}
+
+	/**
+	 * Test to verify that identifiable items are cached on their ids, and that other items are not
+	 * cached. The test will only pass if only the identifiable item is retrievable.
+	 */
+	@Test
+	public void testMetadataCacheMethods() {
+		final IdentifiableLibraryItem identifiableItem = mock(IdentifiableLibraryItem.class);
+		when(identifiableItem.getId()).thenReturn(7L);
+
+		final LibraryItem otherItem = mock(LibraryItem.class);
+
+		cache.put(identifiableItem, "a");
+		cache.put(otherItem, "b");
+
+		assertThat(cache.get(7), is("a"));
+		assertThat(cache.get(identifiableItem), is("a"));
+		assertThat(cache.get(otherItem), is(nullValue()));
+		assertThat(cache.size(), is(1));
+
+		cache.evictAll();
+
+		assertThat(cache.get(identifiableItem), is(nullValue()));
+		assertThat(cache.size(), is(0));
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.databinders;
+
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.LruMetadataCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link LruMetadataCache} class.
+ */
+@RunWith(JUnit4.class)
+public class TestLruMetadataCache {
+	/**
+	 * The cache under test.
+	 */
+	private LruMetadataCache<CharSequence> cache;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		cache = new LruMetadataCache<>(10);
+	}
+
+	/**
+	 * Test to verify that the {@link LruMetadataCache#LruMetadataCache(android.support.v4.util
+	 * .LruCache)} constructor throws an exception when passed null. The test will only pass if an
+	 * IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_nullCache() {
+		new LruMetadataCache<CharSequence>(null);
+	}
+
+	/**
+	 * Test to verify that identifiable items are keyed on their ids. The test will only pass if a
+	 * different instance with the same id finds the cached value.
+	 */
+	@Test
+	public void testGet_identifiableItemsKeyedOnId() {
+		cache.put(createIdentifiableItem(7), "title");
+
+		assertThat(cache.get(createIdentifiableItem(7)), is((CharSequence) "title"));
+		assertThat(cache.get(createIdentifiableItem(8)), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that items which are not identifiable are keyed on the items themselves. The
+	 * test will only pass if only the original item finds the cached value.
+	 */
+	@Test
+	public void testGet_otherItemsKeyedOnItem() {
+		final LibraryItem item = mock(LibraryItem.class);
+		cache.put(item, "title");
+
+		assertThat(cache.get(item), is((CharSequence) "title"));
+		assertThat(cache.get(mock(LibraryItem.class)), is(nullValue()));
+		assertThat(cache.get(null), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that the {@link LruMetadataCache#remove(LibraryItem)} method removes the
+	 * value cached for an identifiable item. The test will only pass if the value is not returned
+	 * after removal.
+	 */
+	@Test
+	public void testRemove() {
+		cache.put(createIdentifiableItem(7), "title");
+		cache.remove(createIdentifiableItem(7));
+
+		assertThat(cache.get(createIdentifiableItem(7)), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that the {@link LruMetadataCache#put(LibraryItem, Object)} method throws an
+	 * exception when passed a null value. The test will only pass if an IllegalArgumentException
+	 * is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPut_nullValue() {
+		cache.put(createIdentifiableItem(7), null);
+	}
+
+	/**
+	 * Creates a mock IdentifiableLibraryItem.
+	 *
+	 * @param id
+	 * 		the id of the item
+	 * @return the item
+	 */
+	private static IdentifiableLibraryItem createIdentifiableItem(final long id) {
+		final IdentifiableLibraryItem item = mock(IdentifiableLibraryItem.class);
+		when(item.getId()).thenReturn(id);
+
+		return item;
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.databinders;
+
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Field;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Result;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the {@link NegativeResultCache} class.
+ */
+@RunWith(JUnit4.class)
+public class TestNegativeResultCache {
+	/**
+	 * The maximum size of the cache under test.
+	 */
+	private static final int MAX_SIZE = 2;
+
+	/**
+	 * The time to live of the cache under test, measured in milliseconds.
+	 */
+	private static final long TIME_TO_LIVE_MS = 1000;
+
+	/**
+	 * The cache under test.
+	 */
+	private ManualClockCache cache;
+
+	/**
+	 * An item to record results for.
+	 */
+	private LibraryItem item1;
+
+	/**
+	 * An item to record results for.
+	 */
+	private LibraryItem item2;
+
+	/**
+	 * An item to record results for.
+	 */
+	private LibraryItem item3;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		cache = new ManualClockCache();
+		item1 = mock(LibraryItem.class);
+		item2 = mock(LibraryItem.class);
+		item3 = mock(LibraryItem.class);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a max size of zero. The
+	 * test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_zeroMaxSize() {
+		new NegativeResultCache(0, TIME_TO_LIVE_MS);
+	}
+
+	/**
+	 * Test to verify that the constructor throws an exception when passed a time to live of zero.
+	 * The test will only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_zeroTimeToLive() {
+		new NegativeResultCache(MAX_SIZE, 0);
+	}
+
+	/**
+	 * Test to verify that results are recorded independently for each field. The test will only
+	 * pass if each field returns the result recorded for it.
+	 */
+	@Test
+	public void testPutAndGet_fieldsAreIndependent() {
+		cache.put(item1, Field.TITLE, Result.MISSING);
+		cache.put(item1, Field.ARTWORK, Result.READ_FAILED);
+
+		assertThat(cache.get(item1, Field.TITLE), is(Result.MISSING));
+		assertThat(cache.get(item1, Field.SUBTITLE), is(nullValue()));
+		assertThat(cache.get(item1, Field.ARTWORK), is(Result.READ_FAILED));
+		assertThat(cache.get(item2, Field.TITLE), is(nullValue()));
+		assertThat(cache.get(null, Field.TITLE), is(nullValue()));
+	}
+
+	/**
+	 * Test to verify that records expire once the time to live has elapsed. The test will only
+	 * pass if the record is returned before expiry and discarded afterwards.
+	 */
+	@Test
+	public void testGet_expiredRecordIsDiscarded() {
+		cache.put(item1, Field.TITLE, Result.MISSING);
+
+		cache.timeMs = TIME_TO_LIVE_MS - 1;
+		assertThat(cache.get(item1, Field.TITLE), is(Result.MISSING));
+
+		cache.timeMs = TIME_TO_LIVE_MS;
+		assertThat(cache.get(item1, Field.TITLE), is(nullValue()));
+		assertThat(cache.size(), is(0));
+	}
+
+	/**
+	 * Test to verify that the least recently used item is evicted once the max size is exceeded.
+	 * The test will only pass if the item which was not accessed is evicted.
+	 */
+	@Test
+	public void testPut_evictsLeastRecentlyUsedItem() {
+		cache.put(item1, Field.TITLE, Result.MISSING);
+		cache.put(item2, Field.TITLE, Result.MISSING);
+		cache.get(item1, Field.TITLE);
+		cache.put(item3, Field.TITLE, Result.MISSING);
+
+		assertThat(cache.size(), is(MAX_SIZE));
+		assertThat(cache.get(item1, Field.TITLE), is(Result.MISSING));
+		assertThat(cache.get(item2, Field.TITLE), is(nullValue()));
+		assertThat(cache.get(item3, Field.TITLE), is(Result.MISSING));
+	}
+
+	/**
+	 * Test to verify that the {@link NegativeResultCache#remove(LibraryItem)} method discards all
+	 * records for the item. The test will only pass if no fields of the item return a result.
+	 */
+	@Test
+	public void testRemove() {
+		cache.put(item1, Field.TITLE, Result.MISSING);
+		cache.put(item1, Field.SUBTITLE, Result.READ_FAILED);
+
+		cache.remove(item1);
+
+		assertThat(cache.get(item1, Field.TITLE), is(nullValue()));
+		assertThat(cache.get(item1, Field.SUBTITLE), is(nullValue()));
+	}
+
+	/**
+	 * A NegativeResultCache which uses a manually controlled clock.
+	 */
+	private static class ManualClockCache extends NegativeResultCache {
+		/**
+		 * The current time, measured in milliseconds.
+		 */
+		private long timeMs = 0;
+
+		/**
+		 * Constructs a new ManualClockCache with the test max size and time to live.
+		 */
+		public ManualClockCache() {
+			super(MAX_SIZE, TIME_TO_LIVE_MS);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return timeMs;
+		}
+	}
+}
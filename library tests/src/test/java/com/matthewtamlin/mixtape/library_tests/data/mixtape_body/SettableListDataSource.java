@@ -17,8 +17,10 @@
 package com.matthewtamlin.mixtape.library_tests.data.mixtape_body;
 
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.ListDataSourceHelper;
+import com.matthewtamlin.mixtape.library.data.SimpleLoadHandle;
 
 import java.util.List;
 
@@ -47,12 +49,14 @@ class SettableListDataSource extends ListDataSourceHelper<LibraryItem> {
 	}
 
 	@Override
-	public void loadData(final boolean forceRefresh,
+	public LoadHandle loadData(final boolean forceRefresh,
 			final DataLoadedListener<List<LibraryItem>> callback) {
 		if (data == null) {
 			callback.onLoadDataFailed(this);
 		} else {
 			callback.onDataLoaded(this, data);
 		}
+
+		return new SimpleLoadHandle();
 	}
 }
\ No newline at end of file
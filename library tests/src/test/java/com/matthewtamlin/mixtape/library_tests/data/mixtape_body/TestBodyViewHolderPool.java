@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.mixtape_body;
+
+import com.matthewtamlin.mixtape.library.mixtape_body.BodyViewHolder;
+import com.matthewtamlin.mixtape.library.mixtape_body.BodyViewHolderPool;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the {@link BodyViewHolderPool} class.
+ */
+@RunWith(JUnit4.class)
+public class TestBodyViewHolderPool {
+	/**
+	 * The view type to use when testing.
+	 */
+	private static final int VIEW_TYPE = 1;
+
+	/**
+	 * A different view type to use when testing.
+	 */
+	private static final int OTHER_VIEW_TYPE = 2;
+
+	/**
+	 * The pool under test.
+	 */
+	private BodyViewHolderPool pool;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		pool = new BodyViewHolderPool();
+	}
+
+	/**
+	 * Test to verify that the {@link BodyViewHolderPool#putPrewarmedViewHolder(int,
+	 * BodyViewHolder)} method throws an exception when passed a null view holder. The test will
+	 * only pass if an IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutPrewarmedViewHolder_nullViewHolder() {
+		pool.putPrewarmedViewHolder(VIEW_TYPE, null);
+	}
+
+	/**
+	 * Test to verify that prewarmed view holders are only returned for their own view type, and
+	 * are each returned once. The test will only pass if the view holders are returned in the
+	 * order they were added, and null is returned once they have all been taken.
+	 */
+	@Test
+	public void testPutAndTakePrewarmedViewHolder() {
+		final BodyViewHolder viewHolder1 = mock(BodyViewHolder.class);
+		final BodyViewHolder viewHolder2 = mock(BodyViewHolder.class);
+
+		pool.putPrewarmedViewHolder(VIEW_TYPE, viewHolder1);
+		pool.putPrewarmedViewHolder(VIEW_TYPE, viewHolder2);
+
+		assertThat(pool.getPrewarmedViewHolderCount(VIEW_TYPE), is(2));
+		assertThat(pool.getPrewarmedViewHolderCount(OTHER_VIEW_TYPE), is(0));
+		assertThat(pool.takePrewarmedViewHolder(OTHER_VIEW_TYPE), is(nullValue()));
+
+		assertThat(pool.takePrewarmedViewHolder(VIEW_TYPE), is(viewHolder1));
+		assertThat(pool.takePrewarmedViewHolder(VIEW_TYPE), is(viewHolder2));
+		assertThat(pool.takePrewarmedViewHolder(VIEW_TYPE), is(nullValue()));
+		assertThat(pool.getPrewarmedViewHolderCount(VIEW_TYPE), is(0));
+	}
+
+	/**
+	 * Test to verify that the {@link BodyViewHolderPool#removePrewarmedViewHolder(int,
+	 * BodyViewHolder)} method only removes the given view holder. The test will only pass if the
+	 * other view holders remain in the pool, and a view holder which is not in the pool is not
+	 * removed.
+	 */
+	@Test
+	public void testRemovePrewarmedViewHolder() {
+		final BodyViewHolder viewHolder1 = mock(BodyViewHolder.class);
+		final BodyViewHolder viewHolder2 = mock(BodyViewHolder.class);
+
+		pool.putPrewarmedViewHolder(VIEW_TYPE, viewHolder1);
+		pool.putPrewarmedViewHolder(VIEW_TYPE, viewHolder2);
+
+		assertThat(pool.removePrewarmedViewHolder(VIEW_TYPE, viewHolder1), is(true));
+		assertThat(pool.removePrewarmedViewHolder(VIEW_TYPE, viewHolder1), is(false));
+		assertThat(pool.removePrewarmedViewHolder(OTHER_VIEW_TYPE, viewHolder2), is(false));
+
+		assertThat(pool.getPrewarmedViewHolderCount(VIEW_TYPE), is(1));
+		assertThat(pool.takePrewarmedViewHolder(VIEW_TYPE), is(viewHolder2));
+	}
+
+	/**
+	 * Test to verify that the {@link BodyViewHolderPool#clear()} method discards the prewarmed
+	 * view holders. The test will only pass if no view holders are returned afterwards.
+	 */
+	@Test
+	public void testClear() {
+		pool.putPrewarmedViewHolder(VIEW_TYPE, mock(BodyViewHolder.class));
+		pool.clear();
+
+		assertThat(pool.getPrewarmedViewHolderCount(VIEW_TYPE), is(0));
+		assertThat(pool.takePrewarmedViewHolder(VIEW_TYPE), is(nullValue()));
+	}
+}
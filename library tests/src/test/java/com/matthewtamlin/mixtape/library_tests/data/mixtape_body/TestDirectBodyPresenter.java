@@ -16,27 +16,41 @@
 
 package com.matthewtamlin.mixtape.library_tests.data.mixtape_body;
 
+import android.os.Parcelable;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
 import com.matthewtamlin.mixtape.library.mixtape_body.BodyView;
 import com.matthewtamlin.mixtape.library.mixtape_body.DirectBodyPresenter;
+import com.matthewtamlin.mixtape.library_tests.data.data.FakeLooper;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the {@link DirectBodyPresenter} class.
@@ -49,12 +63,20 @@ public class TestDirectBodyPresenter {
 	 */
 	private DirectBodyPresenter<LibraryItem, ListDataSource<LibraryItem>, BodyView> presenter;
 
+	/**
+	 * Runs view updates for the presenter under test.
+	 */
+	private FakeLooper viewLooper;
+
 	/**
 	 * Initialises the testing objects and assigns them to member variables.
 	 */
 	@Before
 	public void setup() {
 		presenter = new DirectBodyPresenter<>();
+
+		viewLooper = new FakeLooper();
+		presenter.setViewExecutor(viewLooper);
 	}
 
 	/**
@@ -518,6 +540,207 @@ public class TestDirectBodyPresenter {
 		verify(view, times(1)).notifyItemModified(1);
 	}
 
+	/**
+	 * Test to verify that the {@link DirectBodyPresenter} passes the modified fields to the view
+	 * when the data source delivers a field level item modified callback. The test will only pass
+	 * if the view is notified of the modified fields.
+	 */
+	@Test
+	public void testOnItemFieldsModified_withView() {
+		final List<LibraryItem> data = new ArrayList<>();
+		final ListDataSource<LibraryItem> dataSource = createNewDataSource(data);
+		presenter.setDataSource(dataSource);
+
+		final BodyView view = mock(BodyView.class);
+		presenter.setView(view);
+
+		final Set<LibraryItemField> fields = EnumSet.of(LibraryItemField.SUBTITLE);
+		presenter.onItemFieldsModified(dataSource, mock(LibraryItem.class), 1, fields);
+
+		verify(view, times(1)).notifyItemModified(1, fields);
+		verify(view, never()).notifyItemModified(1);
+	}
+
+	/**
+	 * Test to verify that the load requested for a view is cancelled when the view is detached.
+	 * The test will only pass if the handle returned by the data source is cancelled and no further
+	 * load is requested.
+	 */
+	@Test
+	public void testSetView_detachCancelsLoad() {
+		final ListDataSource<LibraryItem> dataSource = mock(ListDataSource.class);
+		final LoadHandle handle = mock(LoadHandle.class);
+		when(dataSource.loadData(anyBoolean(), eq(presenter))).thenReturn(handle);
+
+		presenter.setDataSource(dataSource);
+		presenter.setView(mock(BodyView.class));
+		presenter.setView(null);
+
+		verify(handle, atLeastOnce()).cancel();
+		verify(dataSource, times(2)).loadData(anyBoolean(), eq(presenter));
+	}
+
+	/**
+	 * Test to verify that the {@link DirectBodyPresenter#detachView()} method retains the data and
+	 * scroll position for the next view. The test will only pass if the next view receives the
+	 * retained data and scroll state, and if no further load is requested.
+	 */
+	@Test
+	public void testDetachView_restoresDataAndScrollState() {
+		final List<LibraryItem> data = new ArrayList<>();
+		final ListDataSource<LibraryItem> dataSource = spy(createNewDataSource(data));
+		presenter.setDataSource(dataSource);
+
+		final BodyView view1 = mock(BodyView.class);
+		final Parcelable scrollState = mock(Parcelable.class);
+		when(view1.saveScrollState()).thenReturn(scrollState);
+
+		presenter.setView(view1);
+		presenter.detachView();
+
+		verify(view1).removeLibraryItemSelectedListener(presenter);
+		verify(view1).removeContextualMenuItemSelectedListener(presenter);
+
+		final BodyView view2 = mock(BodyView.class);
+		presenter.setView(view2);
+
+		verify(view2).restoreScrollState(scrollState);
+		verify(view2).setItems(data);
+		verify(dataSource, times(1)).loadData(anyBoolean(), eq(presenter));
+	}
+
+	/**
+	 * Test to verify that the {@link DirectBodyPresenter#detachView()} method does not interrupt a
+	 * load in progress. The test will only pass if the load is not cancelled, and if the loaded
+	 * data is delivered to the next view without requesting another load.
+	 */
+	@Test
+	public void testDetachView_withLoadInProgress() {
+		final ListDataSource<LibraryItem> dataSource = mock(ListDataSource.class);
+		final LoadHandle handle = mock(LoadHandle.class);
+		when(dataSource.loadData(anyBoolean(), eq(presenter))).thenReturn(handle);
+
+		presenter.setView(mock(BodyView.class));
+		presenter.setDataSource(dataSource);
+		presenter.detachView();
+
+		verify(handle, never()).cancel();
+
+		final List<LibraryItem> data = new ArrayList<>();
+		presenter.onDataLoaded(dataSource, data);
+
+		final BodyView view = mock(BodyView.class);
+		presenter.setView(view);
+
+		verify(view).setItems(data);
+		verify(dataSource, times(1)).loadData(anyBoolean(), eq(presenter));
+	}
+
+	/**
+	 * Test to verify that view updates triggered by data source callbacks are run on the view
+	 * executor. The test will only pass if the view is not touched until the view looper runs its
+	 * pending tasks.
+	 */
+	@Test
+	public void testOnDataLoaded_withView_deliveredOnViewExecutor() {
+		final BodyView view = mock(BodyView.class);
+		presenter.setView(view);
+
+		viewLooper.pause();
+
+		final List<LibraryItem> data = new ArrayList<>();
+		presenter.onDataLoaded(mock(ListDataSource.class), data);
+		presenter.onDataAdded(mock(ListDataSource.class), mock(LibraryItem.class), 0);
+
+		verify(view, never()).setItems(data);
+		verify(view, never()).notifyItemAdded(anyInt());
+
+		viewLooper.runToEndOfTasks();
+
+		final InOrder order = inOrder(view);
+		order.verify(view).setItems(data);
+		order.verify(view).notifyItemAdded(0);
+	}
+
+	/**
+	 * Test to verify that item events are held back and merged when notification coalescing is
+	 * enabled. The test will only pass if the view is not notified until the pending notifications
+	 * are flushed, and if a single range notification is then delivered.
+	 */
+	@Test
+	public void testOnItemModified_withView_coalescingEnabled() {
+		presenter = new DirectBodyPresenter<LibraryItem, ListDataSource<LibraryItem>, BodyView>() {
+			@Override
+			protected void scheduleNotificationFlush() {
+				// Flushes are triggered manually by the test
+			}
+		};
+
+		presenter.setViewExecutor(viewLooper);
+
+		final List<LibraryItem> data = new ArrayList<>();
+		final ListDataSource<LibraryItem> dataSource = createNewDataSource(data);
+		presenter.setDataSource(dataSource);
+
+		final BodyView view = mock(BodyView.class);
+		presenter.setView(view);
+		presenter.setNotificationCoalescingEnabled(true);
+
+		presenter.onItemModified(dataSource, mock(LibraryItem.class), 1);
+		presenter.onItemModified(dataSource, mock(LibraryItem.class), 2);
+		presenter.onItemModified(dataSource, mock(LibraryItem.class), 3);
+
+		verify(view, never()).notifyItemModified(anyInt());
+		verify(view, never()).notifyItemRangeModified(anyInt(), anyInt());
+
+		presenter.flushPendingNotifications();
+
+		verify(view, never()).notifyItemModified(anyInt());
+		verify(view, times(1)).notifyItemRangeModified(1, 3);
+	}
+
+	/**
+	 * Test to verify that the list shown by the view is not structurally changed until the
+	 * matching coalesced notifications are flushed. The test will only pass if the view shows a
+	 * copy of the data, and if the copy only reflects the added item after the flush.
+	 */
+	@Test
+	public void testOnDataAdded_withView_coalescingEnabled() {
+		presenter = new DirectBodyPresenter<LibraryItem, ListDataSource<LibraryItem>, BodyView>() {
+			@Override
+			protected void scheduleNotificationFlush() {
+				// Flushes are triggered manually by the test
+			}
+		};
+
+		presenter.setViewExecutor(viewLooper);
+		presenter.setNotificationCoalescingEnabled(true);
+
+		final List<LibraryItem> data = new ArrayList<>();
+		data.add(mock(LibraryItem.class));
+		final ListDataSource<LibraryItem> dataSource = createNewDataSource(data);
+		presenter.setDataSource(dataSource);
+
+		final BodyView view = mock(BodyView.class);
+		presenter.setView(view);
+
+		final ArgumentCaptor<List> shownItems = ArgumentCaptor.forClass(List.class);
+		verify(view).setItems(shownItems.capture());
+		assertThat(shownItems.getValue() == data, is(false));
+
+		final LibraryItem added = mock(LibraryItem.class);
+		data.add(0, added);
+		presenter.onDataAdded(dataSource, added, 0);
+
+		assertThat(shownItems.getValue().size(), is(1));
+		verify(view, never()).notifyItemAdded(anyInt());
+
+		presenter.flushPendingNotifications();
+
+		assertThat(shownItems.getValue(), is((List) data));
+		verify(view).notifyItemAdded(0);
+	}
+
 	/**
 	 * Test to verify that the {@link DirectBodyPresenter} functions correctly when the data source
 	 * delivers a data moved callback and there is no view. The test will only pass if all methods
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library_tests.data.mixtape_body;
+
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
+import com.matthewtamlin.mixtape.library.mixtape_body.BodyView;
+import com.matthewtamlin.mixtape.library.mixtape_body.NotificationCoalescer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Unit tests for the {@link NotificationCoalescer} class.
+ */
+@RunWith(JUnit4.class)
+public class TestNotificationCoalescer {
+	/**
+	 * The coalescer under test.
+	 */
+	private NotificationCoalescer coalescer;
+
+	/**
+	 * A mock view to receive the dispatched notifications.
+	 */
+	private BodyView view;
+
+	/**
+	 * Initialises the testing objects and assigns them to member variables.
+	 */
+	@Before
+	public void setup() {
+		coalescer = new NotificationCoalescer();
+		view = mock(BodyView.class);
+	}
+
+	/**
+	 * Test to verify that the correct exception is thrown when the {@code view} argument of {@link
+	 * NotificationCoalescer#dispatchTo(BodyView)} is null. The test will only pass if an
+	 * IllegalArgumentException is thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDispatchTo_invalidArgs_nullView() {
+		coalescer.dispatchTo(null);
+	}
+
+	/**
+	 * Test to verify that adjacent modifications are merged into a single range regardless of the
+	 * order they arrive in. The test will only pass if one range notification is dispatched.
+	 */
+	@Test
+	public void testItemModified_adjacentIndicesAreMerged() {
+		coalescer.itemModified(5);
+		coalescer.itemModified(7);
+		coalescer.itemModified(6);
+		coalescer.itemModified(4);
+		coalescer.itemModified(6);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemRangeModified(4, 4);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that adjacent modifications are only merged if they changed the same fields.
+	 * The test will only pass if a range notification is dispatched for the matching modifications
+	 * and a separate notification is dispatched for the other modification.
+	 */
+	@Test
+	public void testItemModified_withFields_mergedOnlyIfFieldsMatch() {
+		final Set<LibraryItemField> subtitle = EnumSet.of(LibraryItemField.SUBTITLE);
+		final Set<LibraryItemField> artwork = EnumSet.of(LibraryItemField.ARTWORK);
+
+		coalescer.itemModified(1, subtitle);
+		coalescer.itemModified(2, subtitle);
+		coalescer.itemModified(3, artwork);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemRangeModified(1, 2, subtitle);
+		verify(view).notifyItemModified(3, artwork);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that repeated modifications to the same item combine their fields, and that a
+	 * modification without fields takes precedence. The test will only pass if the combined fields
+	 * are dispatched for the first item and a plain notification is dispatched for the second.
+	 */
+	@Test
+	public void testItemModified_withFields_sameIndexCombinesFields() {
+		coalescer.itemModified(1, EnumSet.of(LibraryItemField.TITLE));
+		coalescer.itemModified(1, EnumSet.of(LibraryItemField.SUBTITLE));
+		coalescer.itemModified(5, EnumSet.of(LibraryItemField.ARTWORK));
+		coalescer.itemModified(5);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemModified(1, EnumSet.of(LibraryItemField.TITLE,
+				LibraryItemField.SUBTITLE));
+		verify(view).notifyItemModified(5);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that consecutive additions are merged into a single range. The test will only
+	 * pass if one range notification is dispatched.
+	 */
+	@Test
+	public void testItemAdded_consecutiveIndicesAreMerged() {
+		coalescer.itemAdded(10);
+		coalescer.itemAdded(11);
+		coalescer.itemAdded(12);
+		coalescer.itemAdded(10);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemRangeAdded(10, 4);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that removals at the same index and at descending indices are merged into a
+	 * single range. The test will only pass if one range notification is dispatched.
+	 */
+	@Test
+	public void testItemRemoved_consecutiveIndicesAreMerged() {
+		coalescer.itemRemoved(3);
+		coalescer.itemRemoved(3);
+		coalescer.itemRemoved(2);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemRangeRemoved(2, 3);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that modifications to an item which is subsequently removed are dropped. The
+	 * test will only pass if only the removal and the surviving modifications are dispatched.
+	 */
+	@Test
+	public void testItemRemoved_collapsesPrecedingModification() {
+		coalescer.itemModified(1);
+		coalescer.itemModified(2);
+		coalescer.itemModified(3);
+		coalescer.itemRemoved(2);
+
+		coalescer.dispatchTo(view);
+
+		final InOrder order = inOrder(view);
+		order.verify(view).notifyItemModified(1);
+		order.verify(view).notifyItemModified(3);
+		order.verify(view).notifyItemRemoved(2);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that an item which is added and then removed before dispatch produces no
+	 * notification. The test will only pass if only the surviving addition is dispatched.
+	 */
+	@Test
+	public void testItemRemoved_cancelsPrecedingAddition() {
+		coalescer.itemAdded(0);
+		coalescer.itemAdded(1);
+		coalescer.itemRemoved(1);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemAdded(0);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that a full change discards all other notifications. The test will only pass
+	 * if a single full change notification is dispatched.
+	 */
+	@Test
+	public void testItemsChanged_discardsOtherNotifications() {
+		coalescer.itemAdded(0);
+		coalescer.itemsChanged();
+		coalescer.itemModified(4);
+		coalescer.itemMoved(1, 2);
+
+		coalescer.dispatchTo(view);
+
+		verify(view).notifyItemsChanged();
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that the order of structural changes is preserved. The test will only pass if
+	 * the notifications are dispatched in the order they were recorded.
+	 */
+	@Test
+	public void testDispatchTo_preservesStructuralOrder() {
+		coalescer.itemAdded(0);
+		coalescer.itemMoved(4, 1);
+		coalescer.itemRemoved(6);
+		coalescer.itemMoved(2, 2);
+
+		coalescer.dispatchTo(view);
+
+		final InOrder order = inOrder(view);
+		order.verify(view).notifyItemAdded(0);
+		order.verify(view).notifyItemMoved(4, 1);
+		order.verify(view).notifyItemRemoved(6);
+		verifyNoMoreInteractions(view);
+	}
+
+	/**
+	 * Test to verify that dispatching clears the pending notifications. The test will only pass if
+	 * the second dispatch does not notify the view.
+	 */
+	@Test
+	public void testDispatchTo_clearsPendingNotifications() {
+		coalescer.itemModified(0);
+		assertThat(coalescer.hasPendingNotifications(), is(true));
+
+		coalescer.dispatchTo(view);
+		assertThat(coalescer.hasPendingNotifications(), is(false));
+
+		final BodyView secondView = mock(BodyView.class);
+		coalescer.dispatchTo(secondView);
+		verifyZeroInteractions(secondView);
+	}
+}
@@ -17,8 +17,10 @@
 package com.matthewtamlin.mixtape.library_tests.data.mixtape_header;
 
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.data.BaseDataSourceHelper;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.SimpleLoadHandle;
 
 /**
  * A BaseDataSource where the data can be set. Whenever {@link #loadData(boolean,
@@ -52,12 +54,14 @@ class SettableBaseDataSource extends BaseDataSourceHelper<LibraryItem> {
 	}
 
 	@Override
-	public void loadData(final boolean forceRefresh,
+	public LoadHandle loadData(final boolean forceRefresh,
 			final DataLoadedListener<LibraryItem> callback) {
 		if (data == null) {
 			callback.onLoadDataFailed(this);
 		} else {
 			callback.onDataLoaded(this, data);
 		}
+
+		return new SimpleLoadHandle();
 	}
 }
\ No newline at end of file
@@ -18,9 +18,11 @@ package com.matthewtamlin.mixtape.library_tests.data.mixtape_header;
 
 
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.mixtape_header.DirectHeaderPresenter;
 import com.matthewtamlin.mixtape.library.mixtape_header.HeaderView;
+import com.matthewtamlin.mixtape.library_tests.data.data.FakeLooper;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +36,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the {@link DirectHeaderPresenter} class.
@@ -52,6 +55,7 @@ public class TestDirectHeaderPresenter {
 	@Before
 	public void setup() {
 		presenter = new DirectHeaderPresenter<>();
+		presenter.setViewExecutor(new FakeLooper());
 	}
 
 	/**
@@ -364,4 +368,31 @@ public class TestDirectHeaderPresenter {
 
 		presenter.onLongOperationFinished(dataSource);
 	}
+
+	/**
+	 * Test to verify that the {@link DirectHeaderPresenter#detachView()} method does not interrupt
+	 * a load in progress. The test will only pass if the load is not cancelled, and if the loaded
+	 * item is delivered to the next view without requesting another load.
+	 */
+	@Test
+	public void testDetachView_withLoadInProgress() {
+		final BaseDataSource<LibraryItem> dataSource = mock(BaseDataSource.class);
+		final LoadHandle handle = mock(LoadHandle.class);
+		when(dataSource.loadData(anyBoolean(), eq(presenter))).thenReturn(handle);
+
+		presenter.setView(mock(HeaderView.class));
+		presenter.setDataSource(dataSource);
+		presenter.detachView();
+
+		verify(handle, never()).cancel();
+
+		final LibraryItem data = mock(LibraryItem.class);
+		presenter.onDataLoaded(dataSource, data);
+
+		final HeaderView view = mock(HeaderView.class);
+		presenter.setView(view);
+
+		verify(view).setItem(data);
+		verify(dataSource, times(1)).loadData(anyBoolean(), eq(presenter));
+	}
 }
\ No newline at end of file
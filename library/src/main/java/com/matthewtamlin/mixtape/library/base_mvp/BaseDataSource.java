@@ -24,7 +24,9 @@ package com.matthewtamlin.mixtape.library.base_mvp;
  * operation which could be potentially long running and may result in data being changed.</li>
  * </ul>
  * <p>
- * All callbacks are delivered on the UI thread.
+ * Loading must not block the calling thread, so implementations should do slow work (such as
+ * reading files and sorting) on a worker thread. Unless an implementation documents otherwise, all
+ * callbacks are delivered on the UI thread, and never on the thread which did the loading.
  *
  * @param <D>
  * 		the type of data supplied by the source
@@ -34,14 +36,20 @@ public interface BaseDataSource<D> {
 	/**
 	 * Asynchronously loads data from the source and notifies the supplied callback when finished.
 	 * If true is passed for the {@code forceRefresh} parameter, all cached data is discarded at the
-	 * start of the load operation.
+	 * start of the load operation. The callback is delivered on the same thread as all other
+	 * callbacks, even if cached data is available immediately.
+	 * <p>
+	 * Implementations may share a single underlying load between concurrent calls. The returned
+	 * handle can be used to cancel delivery to the supplied callback, in which case the callback
+	 * will not be invoked. Cancelling one call never affects the delivery to other callers.
 	 *
 	 * @param forceRefresh
 	 * 		true to request invalidation of cached data, false to use the default behaviour
 	 * @param callback
 	 * 		the callback to be invoked when the operation finishes, null to ignore
+	 * @return a handle for cancelling the load, not null
 	 */
-	void loadData(boolean forceRefresh, DataLoadedListener<D> callback);
+	LoadHandle loadData(boolean forceRefresh, DataLoadedListener<D> callback);
 
 	/**
 	 * Registers a data replaced listener to this data source. If the supplied listener is null or
@@ -191,6 +199,23 @@ public interface BaseDataSource<D> {
 		void onLongOperationFinished(BaseDataSource<I> source);
 	}
 
+	/**
+	 * A handle to a load requested via {@link #loadData(boolean, DataLoadedListener)}.
+	 */
+	interface LoadHandle {
+		/**
+		 * Cancels the load so that the callback supplied with the request is not invoked. If the
+		 * callback has already been invoked or the handle has already been cancelled, then this
+		 * method exits normally. This method may be called on any thread.
+		 */
+		void cancel();
+
+		/**
+		 * @return true if this handle has been cancelled, false otherwise
+		 */
+		boolean isCancelled();
+	}
+
 	/**
 	 * Composition of all BaseDataSource listeners.
 	 *
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.base_mvp;
+
+/**
+ * A ListDataSource which loads its items in fixed-size pages instead of materialising the entire
+ * list at once. The list delivered to the {@link DataLoadedListener} reports the total number of
+ * items up front, but only a limited window of pages is held in memory at any time. Accessing an
+ * index which is not currently loaded returns null (a placeholder) and causes the page containing
+ * the index to be loaded in the background. When a page finishes loading, an item modified
+ * callback is delivered for each index in the page so that placeholders can be replaced.
+ * <p>
+ * The delivered list is read-only and must only be accessed from the UI thread.
+ *
+ * @param <T>
+ * 		the type of objects contained within the list
+ */
+public interface PagedListDataSource<T> extends ListDataSource<T> {
+	/**
+	 * @return the number of items in each page, greater than zero
+	 */
+	int getPageSize();
+
+	/**
+	 * @return the maximum number of pages which are held in memory at once, greater than zero
+	 */
+	int getMaxResidentPages();
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.Arrays;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThanOrEqualTo;
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkLessThanOrEqualTo;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A very small preview of the artwork of a LibraryItem, consisting of the dominant colour of the
+ * artwork and an optional thumbnail of at most {@link #MAX_SIZE} by {@link #MAX_SIZE} pixels.
+ * Previews are intended to be computed when items are indexed and stored alongside their other
+ * metadata, so that they can be displayed immediately while the full artwork loads. A preview can
+ * be converted to and from a compact byte array for persistence. A typical 4 by 4 preview
+ * occupies 54 bytes. This class is immutable.
+ */
+@Tested(testMethod = "automated")
+public final class ArtworkPreview {
+	/**
+	 * The maximum width and height of the thumbnail, measured in pixels.
+	 */
+	public static final int MAX_SIZE = 8;
+
+	/**
+	 * The number of bytes used to store each thumbnail pixel.
+	 */
+	private static final int BYTES_PER_PIXEL = 3;
+
+	/**
+	 * The number of bytes before the thumbnail pixels in the byte array form.
+	 */
+	private static final int HEADER_SIZE = 6;
+
+	/**
+	 * The dominant colour of the artwork, as an opaque ARGB colour.
+	 */
+	private final int dominantColor;
+
+	/**
+	 * The width of the thumbnail, zero if there is no thumbnail.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the thumbnail, zero if there is no thumbnail.
+	 */
+	private final int height;
+
+	/**
+	 * The thumbnail pixels, stored row by row as red, green and blue bytes.
+	 */
+	private final byte[] pixels;
+
+	/**
+	 * Constructs a new ArtworkPreview which consists of only a dominant colour.
+	 *
+	 * @param dominantColor
+	 * 		the dominant colour of the artwork, as an ARGB colour; the alpha channel is ignored
+	 */
+	public ArtworkPreview(final int dominantColor) {
+		this(dominantColor, 0, 0, new byte[0]);
+	}
+
+	/**
+	 * Constructs a new ArtworkPreview.
+	 *
+	 * @param dominantColor
+	 * 		the dominant colour of the artwork, as an ARGB colour; the alpha channel is ignored
+	 * @param width
+	 * 		the width of the thumbnail, between zero and {@link #MAX_SIZE} inclusive
+	 * @param height
+	 * 		the height of the thumbnail, between zero and {@link #MAX_SIZE} inclusive
+	 * @param pixels
+	 * 		the thumbnail pixels stored row by row as red, green and blue bytes, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code width} or {@code height} is negative or greater than {@link #MAX_SIZE}
+	 * @throws IllegalArgumentException
+	 * 		if {@code pixels} is null
+	 * @throws IllegalArgumentException
+	 * 		if the length of {@code pixels} does not match the dimensions
+	 */
+	private ArtworkPreview(final int dominantColor, final int width, final int height,
+			final byte[] pixels) {
+		checkGreaterThanOrEqualTo(width, 0);
+		checkLessThanOrEqualTo(width, MAX_SIZE);
+		checkGreaterThanOrEqualTo(height, 0);
+		checkLessThanOrEqualTo(height, MAX_SIZE);
+		checkNotNull(pixels, "pixels cannot be null.");
+
+		if (pixels.length != width * height * BYTES_PER_PIXEL) {
+			throw new IllegalArgumentException("pixels does not match the dimensions.");
+		}
+
+		this.dominantColor = dominantColor | 0xFF000000;
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+	}
+
+	/**
+	 * Creates a preview from the pixels of an image which has already been scaled down to the
+	 * size of the thumbnail. The dominant colour is the average colour of the most common group
+	 * of similar pixels.
+	 *
+	 * @param argbPixels
+	 * 		the pixels of the image stored row by row as ARGB colours, not null
+	 * @param width
+	 * 		the width of the image, between one and {@link #MAX_SIZE} inclusive
+	 * @param height
+	 * 		the height of the image, between one and {@link #MAX_SIZE} inclusive
+	 * @return the preview, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code argbPixels} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code width} or {@code height} is less than one or greater than {@link #MAX_SIZE}
+	 * @throws IllegalArgumentException
+	 * 		if the length of {@code argbPixels} does not match the dimensions
+	 */
+	public static ArtworkPreview fromPixels(final int[] argbPixels, final int width,
+			final int height) {
+		checkNotNull(argbPixels, "argbPixels cannot be null.");
+		checkGreaterThanOrEqualTo(width, 1);
+		checkGreaterThanOrEqualTo(height, 1);
+
+		if (argbPixels.length != width * height) {
+			throw new IllegalArgumentException("argbPixels does not match the dimensions.");
+		}
+
+		final byte[] pixels = new byte[argbPixels.length * BYTES_PER_PIXEL];
+
+		for (int i = 0; i < argbPixels.length; i++) {
+			pixels[i * BYTES_PER_PIXEL] = (byte) Color.red(argbPixels[i]);
+			pixels[i * BYTES_PER_PIXEL + 1] = (byte) Color.green(argbPixels[i]);
+			pixels[i * BYTES_PER_PIXEL + 2] = (byte) Color.blue(argbPixels[i]);
+		}
+
+		return new ArtworkPreview(computeDominantColor(argbPixels), width, height, pixels);
+	}
+
+	/**
+	 * Creates a preview from a full size image. The image is scaled down to the size of the
+	 * thumbnail, so this method should be called from a background thread when indexing.
+	 *
+	 * @param bitmap
+	 * 		the image to create the preview from, not null
+	 * @param size
+	 * 		the width and height of the thumbnail, between one and {@link #MAX_SIZE} inclusive
+	 * @return the preview, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code bitmap} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code size} is less than one or greater than {@link #MAX_SIZE}
+	 */
+	public static ArtworkPreview fromBitmap(final Bitmap bitmap, final int size) {
+		checkNotNull(bitmap, "bitmap cannot be null.");
+		checkGreaterThanOrEqualTo(size, 1);
+		checkLessThanOrEqualTo(size, MAX_SIZE);
+
+		final Bitmap scaled = Bitmap.createScaledBitmap(bitmap, size, size, true);
+		final int[] argbPixels = new int[size * size];
+		scaled.getPixels(argbPixels, 0, size, 0, 0, size, size);
+
+		if (scaled != bitmap) {
+			scaled.recycle();
+		}
+
+		return fromPixels(argbPixels, size, size);
+	}
+
+	/**
+	 * Recreates a preview from the byte array returned by {@link #toByteArray()}.
+	 *
+	 * @param bytes
+	 * 		the byte array, not null
+	 * @return the preview, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytes} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytes} is not a valid preview
+	 */
+	public static ArtworkPreview fromByteArray(final byte[] bytes) {
+		checkNotNull(bytes, "bytes cannot be null.");
+
+		if (bytes.length < HEADER_SIZE) {
+			throw new IllegalArgumentException("bytes is not a valid preview.");
+		}
+
+		final int dominantColor = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) |
+				((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+
+		return new ArtworkPreview(dominantColor, bytes[4], bytes[5], Arrays.copyOfRange(bytes,
+				HEADER_SIZE, bytes.length));
+	}
+
+	/**
+	 * Converts this preview to a compact byte array, which can be converted back using {@link
+	 * #fromByteArray(byte[])}.
+	 *
+	 * @return the byte array, not null
+	 */
+	public byte[] toByteArray() {
+		final byte[] bytes = new byte[HEADER_SIZE + pixels.length];
+
+		bytes[0] = (byte) (dominantColor >>> 24);
+		bytes[1] = (byte) (dominantColor >>> 16);
+		bytes[2] = (byte) (dominantColor >>> 8);
+		bytes[3] = (byte) dominantColor;
+		bytes[4] = (byte) width;
+		bytes[5] = (byte) height;
+		System.arraycopy(pixels, 0, bytes, HEADER_SIZE, pixels.length);
+
+		return bytes;
+	}
+
+	/**
+	 * Creates a Drawable which displays this preview. The thumbnail is displayed if there is one,
+	 * and is filtered when scaled up so that it appears as a soft blur. Otherwise the dominant
+	 * colour is displayed. This method is inexpensive and can be called on the main thread.
+	 *
+	 * @param resources
+	 * 		the resources to use when creating the Drawable, not null
+	 * @return the Drawable, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code resources} is null
+	 */
+	public Drawable createDrawable(final Resources resources) {
+		checkNotNull(resources, "resources cannot be null.");
+
+		if (width == 0 || height == 0) {
+			return new ColorDrawable(dominantColor);
+		}
+
+		final int[] argbPixels = new int[width * height];
+
+		for (int i = 0; i < argbPixels.length; i++) {
+			argbPixels[i] = Color.rgb(pixels[i * BYTES_PER_PIXEL] & 0xFF,
+					pixels[i * BYTES_PER_PIXEL + 1] & 0xFF, pixels[i * BYTES_PER_PIXEL + 2] & 0xFF);
+		}
+
+		final Bitmap bitmap = Bitmap.createBitmap(argbPixels, width, height,
+				Bitmap.Config.ARGB_8888);
+		final BitmapDrawable drawable = new BitmapDrawable(resources, bitmap);
+		drawable.setFilterBitmap(true);
+
+		return drawable;
+	}
+
+	/**
+	 * @return the dominant colour of the artwork, as an opaque ARGB colour
+	 */
+	public int getDominantColor() {
+		return dominantColor;
+	}
+
+	/**
+	 * @return the width of the thumbnail, zero if there is no thumbnail
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the thumbnail, zero if there is no thumbnail
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) {
+			return true;
+		}
+
+		if (!(obj instanceof ArtworkPreview)) {
+			return false;
+		}
+
+		final ArtworkPreview other = (ArtworkPreview) obj;
+
+		return dominantColor == other.dominantColor && width == other.width &&
+				height == other.height && Arrays.equals(pixels, other.pixels);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * dominantColor + Arrays.hashCode(pixels);
+	}
+
+	/**
+	 * Computes the dominant colour of some pixels. The pixels are grouped by quantising each
+	 * channel to three bits, and the average colour of the largest group is returned.
+	 *
+	 * @param argbPixels
+	 * 		the pixels stored as ARGB colours, not null and not empty
+	 * @return the dominant colour, as an opaque ARGB colour
+	 */
+	private static int computeDominantColor(final int[] argbPixels) {
+		final int[] counts = new int[512];
+		int dominantGroup = 0;
+
+		for (final int pixel : argbPixels) {
+			final int group = groupOf(pixel);
+			counts[group]++;
+
+			if (counts[group] > counts[dominantGroup]) {
+				dominantGroup = group;
+			}
+		}
+
+		int red = 0;
+		int green = 0;
+		int blue = 0;
+
+		for (final int pixel : argbPixels) {
+			if (groupOf(pixel) == dominantGroup) {
+				red += Color.red(pixel);
+				green += Color.green(pixel);
+				blue += Color.blue(pixel);
+			}
+		}
+
+		final int count = counts[dominantGroup];
+
+		return Color.rgb(red / count, green / count, blue / count);
+	}
+
+	/**
+	 * @param pixel
+	 * 		an ARGB colour
+	 * @return the group of similar colours the pixel belongs to, between 0 and 511 inclusive
+	 */
+	private static int groupOf(final int pixel) {
+		return ((Color.red(pixel) >> 5) << 6) | ((Color.green(pixel) >> 5) << 3) |
+				(Color.blue(pixel) >> 5);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+/**
+ * Partial implementation of the BaseDataSource interface which loads the data on the worker
+ * executor. Subclasses only need to implement {@link #loadDataInBackground(boolean)}, and this
+ * class handles deduplication of concurrent loads, stale while revalidate loading and callback
+ * delivery.
+ *
+ * @param <D>
+ * 		the type of data supplied by the source
+ */
+@Tested(testMethod = "automated")
+public abstract class BackgroundDataSourceHelper<D> extends BaseDataSourceHelper<D> {
+	/**
+	 * Delegates background loads to {@link #loadDataInBackground(boolean)}.
+	 */
+	private final BackgroundLoader<D> loader = new BackgroundLoader<D>() {
+		@Override
+		public D loadDataInBackground(final boolean forceRefresh)
+				throws LibraryReadException {
+			return BackgroundDataSourceHelper.this.loadDataInBackground(forceRefresh);
+		}
+	};
+
+	/**
+	 * Loads the data by calling {@link #loadDataInBackground(boolean)} on the worker executor,
+	 * and then delivers the result to the supplied callback on the callback executor.
+	 *
+	 * @param forceRefresh
+	 * 		true to request invalidation of cached data, false to use the default behaviour
+	 * @param callback
+	 * 		the callback to be invoked when the operation finishes, null to ignore
+	 * @return a handle for cancelling delivery to the callback, not null
+	 */
+	@Override
+	public LoadHandle loadData(final boolean forceRefresh,
+			final DataLoadedListener<D> callback) {
+		return loadInBackground(forceRefresh, callback, loader);
+	}
+
+	/**
+	 * Loads the data supplied by this source. This method is called on the worker executor, so
+	 * it may block.
+	 *
+	 * @param forceRefresh
+	 * 		true to request invalidation of cached data, false to use the default behaviour
+	 * @return the loaded data
+	 * @throws LibraryReadException
+	 * 		if the data cannot be loaded
+	 */
+	protected abstract D loadDataInBackground(boolean forceRefresh)
+			throws LibraryReadException;
+}
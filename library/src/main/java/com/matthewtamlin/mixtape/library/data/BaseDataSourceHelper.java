@@ -16,15 +16,38 @@
 
 package com.matthewtamlin.mixtape.library.data;
 
+import android.os.AsyncTask;
+
 import com.matthewtamlin.java_utilities.testing.Tested;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
 
 /**
- * Partial implementation of the BaseDataSource interface which handles listener registration.
- * Getters are provided for accessing the registered listeners.
+ * Partial implementation of the BaseDataSource interface which handles listener registration and
+ * callback delivery. Getters are provided for accessing the registered listeners. Subclasses must
+ * implement {@link #loadData(boolean, DataLoadedListener)}, and must deliver callbacks on the
+ * callback executor. The notify and deliver methods provided by this class can be used to do so
+ * from any thread.
+ * <p>
+ * Work is split across two executors. The worker executor runs the potentially slow parts of
+ * loading, and the callback executor delivers all callbacks, by default on the main thread.
+ * Subclasses can pass a {@link BackgroundLoader} to {@link #loadInBackground(boolean,
+ * DataLoadedListener, BackgroundLoader)} to do heavy work such as sorting and grouping on the
+ * worker executor without blocking the UI. {@link BackgroundDataSourceHelper} and {@link
+ * BackgroundListDataSourceHelper} do this for subclasses which only need to supply the data.
+ * <p>
+ * Concurrent background loads are deduplicated, so that callers which request data while a load
+ * is already running simply receive the result of that load. Each call returns its own handle, and
+ * cancelling it only stops delivery to that caller. Likewise, calls which do not force a refresh
+ * while stale data is being revalidated receive the stale data instead of loading it again.
  *
  * @param <D>
  * 		the type of data supplied by the source
@@ -49,6 +72,185 @@ public abstract class BaseDataSourceHelper<D> implements BaseDataSource<D> {
 	 */
 	private final Set<LongOperationListener<D>> longOperationListeners = new HashSet<>();
 
+	/**
+	 * Runs load operations, lazily initialised to the AsyncTask thread pool.
+	 */
+	private Executor workerExecutor;
+
+	/**
+	 * Delivers callbacks, lazily initialised to the main thread.
+	 */
+	private Executor callbackExecutor;
+
+	/**
+	 * The load currently running on the worker executor, null if there is none. Access must be
+	 * synchronized on this object.
+	 */
+	private Load inFlightLoad;
+
+	/**
+	 * Whether or not forced refreshes and cold loads deliver stale data before revalidating it.
+	 */
+	private volatile boolean staleWhileRevalidate = false;
+
+	/**
+	 * The data most recently delivered by a load, null if no load has succeeded.
+	 */
+	private volatile D lastLoadedData;
+
+	/**
+	 * Whether or not stale data is currently being revalidated.
+	 */
+	private final AtomicBoolean revalidating = new AtomicBoolean(false);
+
+	/**
+	 * Loads data on the worker executor using the supplied loader, and then delivers the result to
+	 * the supplied callback on the callback executor. If a load is already in progress, the request
+	 * joins it instead of starting another one, unless this request forces a refresh and the
+	 * in-flight load does not. If every request sharing a load is cancelled before the load starts,
+	 * then the load is skipped entirely. If the loader throws an exception, the waiting requests
+	 * are notified that the load failed.
+	 *
+	 * @param forceRefresh
+	 * 		true to request invalidation of cached data, false to use the default behaviour
+	 * @param callback
+	 * 		the callback to be invoked when the operation finishes, null to ignore
+	 * @param loader
+	 * 		loads the data on the worker executor, not null
+	 * @return a handle for cancelling delivery to the callback, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code loader} is null
+	 */
+	protected final LoadHandle loadInBackground(final boolean forceRefresh,
+			final DataLoadedListener<D> callback, final BackgroundLoader<D> loader) {
+		checkNotNull(loader, "loader cannot be null.");
+
+		final Request request = new Request(callback);
+		final Load load;
+
+		synchronized (this) {
+			if (inFlightLoad != null && (inFlightLoad.forceRefresh || !forceRefresh)) {
+				inFlightLoad.requests.add(request);
+				return request;
+			}
+
+			load = new Load(forceRefresh, loader);
+			load.requests.add(request);
+			inFlightLoad = load;
+		}
+
+		getWorkerExecutor().execute(load);
+
+		return request;
+	}
+
+	/**
+	 * @return true if a load started by {@link #loadInBackground(boolean, DataLoadedListener,
+	 * BackgroundLoader)} is currently in progress, false otherwise
+	 */
+	public synchronized boolean isLoadInProgress() {
+		return inFlightLoad != null;
+	}
+
+	/**
+	 * Loads previously persisted data to deliver while revalidating, for use when stale while
+	 * revalidate is enabled and no data has been loaded yet. This method is called on the worker
+	 * executor. The default implementation returns null, which means no persisted data exists.
+	 *
+	 * @return the persisted data, null if there is none
+	 * @throws LibraryReadException
+	 * 		if the persisted data cannot be read
+	 */
+	protected D loadPersistedData() throws LibraryReadException {
+		return null;
+	}
+
+	/**
+	 * Publishes freshly loaded data after stale data has been delivered. This method is called on
+	 * the worker executor, and the default implementation replaces the stale data by notifying the
+	 * data replaced listeners on the callback executor. Subclasses can override this method to
+	 * publish finer grained changes, and should call {@link #onDataRevalidated(Object)} once the
+	 * fresh data is current.
+	 *
+	 * @param staleData
+	 * 		the data which was delivered before revalidating, not null
+	 * @param freshData
+	 * 		the freshly loaded data
+	 */
+	protected void publishRevalidatedData(final D staleData, final D freshData) {
+		replaceRevalidatedData(staleData, freshData);
+	}
+
+	/**
+	 * Publishes freshly loaded data by replacing the stale data outright. This is the default
+	 * behaviour of {@link #publishRevalidatedData(Object, Object)}, and is provided for subclasses
+	 * which need to fall back to it. This method may be called on any thread.
+	 *
+	 * @param staleData
+	 * 		the data which was delivered before revalidating
+	 * @param freshData
+	 * 		the freshly loaded data
+	 */
+	protected final void replaceRevalidatedData(final D staleData, final D freshData) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				onDataRevalidated(freshData);
+
+				final List<DataReplacedListener<D>> listeners =
+						new ArrayList<>(dataReplacedListeners);
+
+				for (final DataReplacedListener<D> listener : listeners) {
+					listener.onDataReplaced(BaseDataSourceHelper.this, staleData, freshData);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Invoked on the callback executor once revalidation has finished and the supplied data is the
+	 * current data of this source. Subclasses which keep their own reference to the loaded data
+	 * should override this method to update it. Overriding methods must call through to the
+	 * superclass implementation.
+	 *
+	 * @param data
+	 * 		the current data
+	 */
+	protected void onDataRevalidated(final D data) {
+		lastLoadedData = data;
+	}
+
+	/**
+	 * Enables or disables stale while revalidate loading. When enabled, a forced refresh
+	 * immediately delivers the most recently loaded data (or the persisted data if nothing has been
+	 * loaded yet), and then loads fresh data in the background and publishes it using {@link
+	 * #publishRevalidatedData(Object, Object)}. Loads which do not force a refresh are treated the
+	 * same way when nothing has been loaded yet, so the persisted data is shown on a cold start
+	 * without the caller having to force a refresh. If there is no stale data, the load proceeds
+	 * normally. Disabled by default.
+	 *
+	 * @param enabled
+	 * 		true to enable stale while revalidate loading, false to disable it
+	 */
+	public void setStaleWhileRevalidateEnabled(final boolean enabled) {
+		staleWhileRevalidate = enabled;
+	}
+
+	/**
+	 * @return true if stale while revalidate loading is enabled, false otherwise
+	 */
+	public boolean isStaleWhileRevalidateEnabled() {
+		return staleWhileRevalidate;
+	}
+
+	/**
+	 * @return the data most recently delivered by a load, or the current data once stale data has
+	 * been revalidated, null if no load has succeeded
+	 */
+	protected D getLastLoadedData() {
+		return lastLoadedData;
+	}
+
 	@Override
 	public void registerDataReplacedListener(final DataReplacedListener<D> listener) {
 		if (listener != null) {
@@ -117,4 +319,414 @@ public abstract class BaseDataSourceHelper<D> implements BaseDataSource<D> {
 	public Set<LongOperationListener<D>> getLongOperationListeners() {
 		return longOperationListeners;
 	}
+
+	/**
+	 * Sets the executor used to run load operations. Passing null restores the default, which is
+	 * the AsyncTask thread pool.
+	 *
+	 * @param workerExecutor
+	 * 		the executor to use, may be null
+	 */
+	public void setWorkerExecutor(final Executor workerExecutor) {
+		this.workerExecutor = workerExecutor;
+	}
+
+	/**
+	 * @return the executor used to run load operations, not null
+	 */
+	public Executor getWorkerExecutor() {
+		if (workerExecutor == null) {
+			workerExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+		}
+
+		return workerExecutor;
+	}
+
+	/**
+	 * Sets the executor used to deliver callbacks. Passing null restores the default, which posts
+	 * callbacks to the main thread in order, so they are never delivered synchronously.
+	 *
+	 * @param callbackExecutor
+	 * 		the executor to use, may be null
+	 */
+	public void setCallbackExecutor(final Executor callbackExecutor) {
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * @return the executor used to deliver callbacks, not null
+	 */
+	public Executor getCallbackExecutor() {
+		if (callbackExecutor == null) {
+			callbackExecutor = LooperExecutor.forMainThread();
+		}
+
+		return callbackExecutor;
+	}
+
+	/**
+	 * Delivers a data loaded callback to the supplied listener on the callback executor, unless the
+	 * supplied handle is cancelled before delivery. This method may be called on any thread.
+	 *
+	 * @param handle
+	 * 		the handle returned for the load request, not null
+	 * @param callback
+	 * 		the listener to notify, may be null
+	 * @param data
+	 * 		the loaded data
+	 */
+	protected void deliverDataLoaded(final LoadHandle handle, final DataLoadedListener<D> callback,
+			final D data) {
+		if (callback != null) {
+			getCallbackExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					if (!handle.isCancelled()) {
+						callback.onDataLoaded(BaseDataSourceHelper.this, data);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Delivers a load data failed callback to the supplied listener on the callback executor,
+	 * unless the supplied handle is cancelled before delivery. This method may be called on any
+	 * thread.
+	 *
+	 * @param handle
+	 * 		the handle returned for the load request, not null
+	 * @param callback
+	 * 		the listener to notify, may be null
+	 */
+	protected void deliverLoadDataFailed(final LoadHandle handle,
+			final DataLoadedListener<D> callback) {
+		if (callback != null) {
+			getCallbackExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					if (!handle.isCancelled()) {
+						callback.onLoadDataFailed(BaseDataSourceHelper.this);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Notifies all registered data replaced listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param oldData
+	 * 		the data which was replaced
+	 * @param newData
+	 * 		the replacement data
+	 */
+	protected void notifyDataReplaced(final D oldData, final D newData) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<DataReplacedListener<D>> listeners =
+						new ArrayList<>(dataReplacedListeners);
+
+				for (final DataReplacedListener<D> listener : listeners) {
+					listener.onDataReplaced(BaseDataSourceHelper.this, oldData, newData);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered data modified listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param data
+	 * 		the modified data
+	 */
+	protected void notifyDataModified(final D data) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<DataModifiedListener<D>> listeners =
+						new ArrayList<>(dataModifiedListeners);
+
+				for (final DataModifiedListener<D> listener : listeners) {
+					listener.onDataModified(BaseDataSourceHelper.this, data);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered long operation listeners that an operation has started. The callbacks
+	 * are delivered on the callback executor, and this method may be called on any thread.
+	 */
+	protected void notifyLongOperationStarted() {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<LongOperationListener<D>> listeners =
+						new ArrayList<>(longOperationListeners);
+
+				for (final LongOperationListener<D> listener : listeners) {
+					listener.onLongOperationStarted(BaseDataSourceHelper.this);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered long operation listeners that an operation has finished. The
+	 * callbacks are delivered on the callback executor, and this method may be called on any
+	 * thread.
+	 */
+	protected void notifyLongOperationFinished() {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<LongOperationListener<D>> listeners =
+						new ArrayList<>(longOperationListeners);
+
+				for (final LongOperationListener<D> listener : listeners) {
+					listener.onLongOperationFinished(BaseDataSourceHelper.this);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Loads data on the worker executor for {@link #loadInBackground(boolean, DataLoadedListener,
+	 * BackgroundLoader)}.
+	 *
+	 * @param <D>
+	 * 		the type of data loaded
+	 */
+	public interface BackgroundLoader<D> {
+		/**
+		 * Loads the data. This method is called on the worker executor, so it may block.
+		 *
+		 * @param forceRefresh
+		 * 		true to request invalidation of cached data, false to use the default behaviour
+		 * @return the loaded data
+		 * @throws LibraryReadException
+		 * 		if the data cannot be loaded
+		 */
+		D loadDataInBackground(boolean forceRefresh) throws LibraryReadException;
+	}
+
+	/**
+	 * A single call to {@link #loadInBackground(boolean, DataLoadedListener, BackgroundLoader)}.
+	 */
+	private class Request extends SimpleLoadHandle {
+		/**
+		 * The callback to deliver the result to, may be null.
+		 */
+		private final DataLoadedListener<D> callback;
+
+		/**
+		 * Constructs a new Request.
+		 *
+		 * @param callback
+		 * 		the callback to deliver the result to, may be null
+		 */
+		private Request(final DataLoadedListener<D> callback) {
+			this.callback = callback;
+		}
+	}
+
+	/**
+	 * A load operation which may be shared by several requests.
+	 */
+	private class Load implements Runnable {
+		/**
+		 * Whether or not the load discards cached data.
+		 */
+		private final boolean forceRefresh;
+
+		/**
+		 * Loads the data on the worker executor.
+		 */
+		private final BackgroundLoader<D> loader;
+
+		/**
+		 * Whether or not a result has been delivered to the waiting requests. Access must be
+		 * synchronized on the enclosing data source.
+		 */
+		private boolean delivered = false;
+
+		/**
+		 * The requests waiting for the result of this load. Access must be synchronized on the
+		 * enclosing data source.
+		 */
+		private final List<Request> requests = new ArrayList<>();
+
+		/**
+		 * Constructs a new Load.
+		 *
+		 * @param forceRefresh
+		 * 		whether or not the load discards cached data
+		 * @param loader
+		 * 		loads the data on the worker executor, not null
+		 */
+		private Load(final boolean forceRefresh, final BackgroundLoader<D> loader) {
+			this.forceRefresh = forceRefresh;
+			this.loader = loader;
+		}
+
+		@Override
+		public void run() {
+			try {
+				load();
+			} finally {
+				// Covers unchecked exceptions, so that requests are never left waiting forever
+				deliverToWaitingRequests(null, true);
+			}
+		}
+
+		/**
+		 * Performs the load and delivers the result to the waiting requests.
+		 */
+		private void load() {
+			synchronized (BaseDataSourceHelper.this) {
+				if (allRequestsCancelled()) {
+					delivered = true;
+					finish();
+					return;
+				}
+			}
+
+			// The stale data is current as far as a request which does not force a refresh cares
+			if (!forceRefresh && revalidating.get() && lastLoadedData != null) {
+				deliverToWaitingRequests(lastLoadedData, false);
+				return;
+			}
+
+			// Cold loads use persisted data, so the first screen does not wait for a forced refresh
+			if (staleWhileRevalidate && (forceRefresh || lastLoadedData == null)) {
+				final D staleData = getStaleData();
+
+				if (staleData != null) {
+					// Requests made during revalidation share the revalidation which is running
+					final boolean startRevalidation = revalidating.compareAndSet(false, true);
+
+					deliverToWaitingRequests(staleData, false);
+
+					if (startRevalidation) {
+						try {
+							revalidate(staleData, forceRefresh);
+						} finally {
+							revalidating.set(false);
+						}
+					}
+
+					return;
+				}
+			}
+
+			D data = null;
+			boolean failed = false;
+
+			try {
+				data = loader.loadDataInBackground(forceRefresh);
+				lastLoadedData = data;
+			} catch (final LibraryReadException | RuntimeException e) {
+				failed = true;
+			}
+
+			deliverToWaitingRequests(data, failed);
+		}
+
+		/**
+		 * Delivers a result to all requests waiting for this load, and stops new requests from
+		 * joining it. Only the first call has any effect.
+		 *
+		 * @param data
+		 * 		the loaded data, ignored if {@code failed} is true
+		 * @param failed
+		 * 		true if the load failed, false otherwise
+		 */
+		private void deliverToWaitingRequests(final D data, final boolean failed) {
+			final List<Request> waitingRequests;
+
+			synchronized (BaseDataSourceHelper.this) {
+				if (delivered) {
+					return;
+				}
+
+				delivered = true;
+				waitingRequests = new ArrayList<>(requests);
+				finish();
+			}
+
+			for (final Request request : waitingRequests) {
+				if (failed) {
+					deliverLoadDataFailed(request, request.callback);
+				} else {
+					deliverDataLoaded(request, request.callback, data);
+				}
+			}
+		}
+
+		/**
+		 * @return the data to deliver before revalidating, null if there is none
+		 */
+		private D getStaleData() {
+			if (lastLoadedData != null) {
+				return lastLoadedData;
+			}
+
+			try {
+				lastLoadedData = loadPersistedData();
+			} catch (final LibraryReadException | RuntimeException e) {
+				lastLoadedData = null;
+			}
+
+			return lastLoadedData;
+		}
+
+		/**
+		 * Loads fresh data and publishes it in place of the supplied stale data. Long operation
+		 * callbacks are delivered around the refresh. If the refresh fails, the stale data is
+		 * retained.
+		 *
+		 * @param staleData
+		 * 		the data which has already been delivered, not null
+		 * @param forceRefresh
+		 * 		whether or not the fresh data discards cached data
+		 */
+		private void revalidate(final D staleData, final boolean forceRefresh) {
+			notifyLongOperationStarted();
+
+			try {
+				publishRevalidatedData(staleData, loader.loadDataInBackground(forceRefresh));
+			} catch (final LibraryReadException | RuntimeException e) {
+				// Keep showing the stale data since it is better than nothing
+			} finally {
+				notifyLongOperationFinished();
+			}
+		}
+
+		/**
+		 * @return true if every request waiting for this load has been cancelled, false otherwise
+		 */
+		private boolean allRequestsCancelled() {
+			for (final Request request : requests) {
+				if (!request.isCancelled()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Stops new requests from joining this load. Must be called while synchronized on the
+		 * enclosing data source.
+		 */
+		private void finish() {
+			if (inFlightLoad == this) {
+				inFlightLoad = null;
+			}
+		}
+	}
 }
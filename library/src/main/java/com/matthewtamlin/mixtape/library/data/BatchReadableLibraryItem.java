@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * A LibraryItem which can read all of its fields in a single operation. Reading each field
+ * individually can repeat expensive work, such as parsing the same file once per field. Before
+ * the fields of an item are loaded together, {@link #beginBatchRead()} is called so that the item
+ * can perform the shared work once, and {@link #endBatchRead()} is called once they have all been
+ * loaded so that the item can release the results. Between the two calls the getters may reuse
+ * the shared results, and they must continue to work if the batch read could not begin.
+ */
+public interface BatchReadableLibraryItem extends LibraryItem {
+	/**
+	 * Prepares to read several fields of this item, for example by reading the underlying file
+	 * once. This method may be long running, and it may be called on any thread. Batch reads may
+	 * overlap, and every call which returns normally must be followed by one call to {@link
+	 * #endBatchRead()}.
+	 *
+	 * @throws LibraryReadException
+	 * 		if the shared data cannot be read
+	 */
+	void beginBatchRead() throws LibraryReadException;
+
+	/**
+	 * Ends a batch read started by {@link #beginBatchRead()}. Once every batch read has ended, the
+	 * shared data should be released. This method may be called on any thread.
+	 */
+	void endBatchRead();
+}
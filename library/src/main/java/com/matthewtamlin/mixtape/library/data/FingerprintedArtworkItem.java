@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * A LibraryItem which can identify the content of its artwork without decoding it. Items which
+ * share the same artwork, such as the songs of an album, return the same fingerprint. This allows
+ * caches to decode and store each distinct image once and share it between all items which use
+ * it.
+ */
+public interface FingerprintedArtworkItem extends LibraryItem {
+	/**
+	 * Accesses a fingerprint of the artwork of this item, such as a hash of the encoded image.
+	 * Items with identical artwork must return the same fingerprint, and items with different
+	 * artwork should return different fingerprints. This method may be long running, but it
+	 * should be substantially faster than {@link #getArtwork(int, int)}.
+	 *
+	 * @return the fingerprint of the artwork, null if this item has no artwork
+	 * @throws LibraryReadException
+	 * 		if the artwork cannot be accessed
+	 */
+	Long getArtworkFingerprint() throws LibraryReadException;
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * A LibraryItem which exposes a stable identity in the form of a long id. Caches and other lookup
+ * tables key identifiable items on their ids instead of the items themselves, which avoids calling
+ * potentially expensive hashCode and equals implementations, and ensures that entries are not
+ * orphaned when a mutable item changes. The id of an item must never change, and no two items
+ * which are not equal may share an id.
+ */
+public interface IdentifiableLibraryItem extends LibraryItem {
+	/**
+	 * @return the stable id of this item
+	 */
+	long getId();
+}
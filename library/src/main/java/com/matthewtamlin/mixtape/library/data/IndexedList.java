@@ -0,0 +1,633 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A List backed by a balanced order statistic tree, where inserting, removing, moving and getting
+ * items at any index all take logarithmic time. Each item is also indexed by identity, so finding
+ * the index of an item which is in the list takes logarithmic time too. Items which are only equal
+ * to an item in the list (rather than the same instance) are found using a linear search.
+ * <p>
+ * The identity index requires each instance to appear in the list at most once, and null items are
+ * not permitted. This class is not thread safe.
+ *
+ * @param <E>
+ * 		the type of items in the list
+ */
+@Tested(testMethod = "automated")
+public class IndexedList<E> extends AbstractList<E> {
+	/**
+	 * The root of the tree, null if the list is empty.
+	 */
+	private Node<E> root;
+
+	/**
+	 * Maps each item in the list to the node which contains it, compared by identity.
+	 */
+	private final Map<E, Node<E>> nodes = new IdentityHashMap<>();
+
+	/**
+	 * Constructs a new empty IndexedList.
+	 */
+	public IndexedList() {
+		super();
+	}
+
+	/**
+	 * Constructs a new IndexedList containing the supplied items, in the order returned by their
+	 * iterator. The tree is built directly in linear time.
+	 *
+	 * @param items
+	 * 		the initial items, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code items} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code items} contains null or contains the same instance more than once
+	 */
+	public IndexedList(final Collection<? extends E> items) {
+		checkNotNull(items, "items cannot be null.");
+
+		final List<E> itemList = new ArrayList<>(items);
+
+		for (final E item : itemList) {
+			checkNotNull(item, "items cannot contain null.");
+			nodes.put(item, null);
+		}
+
+		if (nodes.size() != itemList.size()) {
+			throw new IllegalArgumentException("items cannot contain the same item twice.");
+		}
+
+		root = build(itemList, 0, itemList.size() - 1, null);
+	}
+
+	@Override
+	public E get(final int index) {
+		checkElementIndex(index);
+
+		return nodeAt(index).item;
+	}
+
+	@Override
+	public int size() {
+		return size(root);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is already in the list at a different index
+	 */
+	@Override
+	public E set(final int index, final E item) {
+		checkElementIndex(index);
+		checkNotNull(item, "item cannot be null.");
+
+		final Node<E> node = nodeAt(index);
+		final E replaced = node.item;
+
+		if (item != replaced) {
+			checkNotInList(item);
+
+			nodes.remove(replaced);
+			nodes.put(item, node);
+			node.item = item;
+		}
+
+		return replaced;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is already in the list
+	 */
+	@Override
+	public void add(final int index, final E item) {
+		if (index < 0 || index > size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+
+		checkNotNull(item, "item cannot be null.");
+		checkNotInList(item);
+
+		final Node<E> node = new Node<>(item);
+		nodes.put(item, node);
+		insertNode(node, index);
+		modCount++;
+	}
+
+	@Override
+	public E remove(final int index) {
+		checkElementIndex(index);
+
+		final Node<E> node = nodeAt(index);
+		final E item = node.item;
+
+		deleteNode(node);
+		nodes.remove(item);
+		modCount++;
+
+		return item;
+	}
+
+	@Override
+	public boolean remove(final Object object) {
+		final int index = indexOf(object);
+
+		if (index == -1) {
+			return false;
+		} else {
+			remove(index);
+			return true;
+		}
+	}
+
+	/**
+	 * Moves the item at one index to another index, shifting the items in between.
+	 *
+	 * @param initialIndex
+	 * 		the index of the item to move
+	 * @param finalIndex
+	 * 		the index of the item once it has been moved
+	 * @return the moved item
+	 * @throws IndexOutOfBoundsException
+	 * 		if either index is not a valid index of an item in the list
+	 */
+	public E move(final int initialIndex, final int finalIndex) {
+		checkElementIndex(initialIndex);
+		checkElementIndex(finalIndex);
+
+		final E item = remove(initialIndex);
+		add(finalIndex, item);
+
+		return item;
+	}
+
+	@Override
+	@SuppressWarnings("SuspiciousMethodCalls") // Only the identity of the object is used
+	public int indexOf(final Object object) {
+		final Node<E> node = nodes.get(object);
+
+		return node == null ? super.indexOf(object) : rankOf(node);
+	}
+
+	@Override
+	public int lastIndexOf(final Object object) {
+		// Instances appear at most once, so only equal instances can appear later in the list
+		return nodes.containsKey(object) ? indexOf(object) : super.lastIndexOf(object);
+	}
+
+	@Override
+	public boolean contains(final Object object) {
+		return indexOf(object) != -1;
+	}
+
+	/**
+	 * Finds the index of an instance, ignoring items which are only equal to it. This takes
+	 * logarithmic time even if the instance is not in the list.
+	 *
+	 * @param object
+	 * 		the instance to find
+	 * @return the index of the instance, -1 if it is not in the list
+	 */
+	@SuppressWarnings("SuspiciousMethodCalls") // Only the identity of the object is used
+	public int indexOfInstance(final Object object) {
+		final Node<E> node = nodes.get(object);
+
+		return node == null ? -1 : rankOf(node);
+	}
+
+	/**
+	 * Determines whether or not an instance is in the list, ignoring items which are only equal to
+	 * it. This takes constant time.
+	 *
+	 * @param object
+	 * 		the instance to check
+	 * @return true if the instance is in the list, false otherwise
+	 */
+	@SuppressWarnings("SuspiciousMethodCalls") // Only the identity of the object is used
+	public boolean containsInstance(final Object object) {
+		return nodes.containsKey(object);
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		nodes.clear();
+		modCount++;
+	}
+
+	/**
+	 * Throws an exception if the supplied item is already in the list.
+	 *
+	 * @param item
+	 * 		the item to check
+	 * @throws IllegalArgumentException
+	 * 		if the item is already in the list
+	 */
+	private void checkNotInList(final E item) {
+		if (nodes.containsKey(item)) {
+			throw new IllegalArgumentException("item is already in the list.");
+		}
+	}
+
+	/**
+	 * Throws an exception if the supplied index is not the index of an item in the list.
+	 *
+	 * @param index
+	 * 		the index to check
+	 * @throws IndexOutOfBoundsException
+	 * 		if the index is not the index of an item in the list
+	 */
+	private void checkElementIndex(final int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+	}
+
+	/**
+	 * Builds a balanced tree from a range of items, and adds the nodes to the identity index.
+	 *
+	 * @param items
+	 * 		the items to build the tree from, not null
+	 * @param first
+	 * 		the index of the first item in the range
+	 * @param last
+	 * 		the index of the last item in the range
+	 * @param parent
+	 * 		the parent of the root of the tree, null if the tree is the whole list
+	 * @return the root of the tree, null if the range is empty
+	 */
+	private Node<E> build(final List<E> items, final int first, final int last,
+			final Node<E> parent) {
+		if (first > last) {
+			return null;
+		}
+
+		final int middle = (first + last) >>> 1;
+		final Node<E> node = new Node<>(items.get(middle));
+
+		node.parent = parent;
+		node.left = build(items, first, middle - 1, node);
+		node.right = build(items, middle + 1, last, node);
+		update(node);
+		nodes.put(node.item, node);
+
+		return node;
+	}
+
+	/**
+	 * @param index
+	 * 		the index of the node to get, must be a valid index
+	 * @return the node at the supplied index, not null
+	 */
+	private Node<E> nodeAt(final int index) {
+		Node<E> node = root;
+		int remaining = index;
+
+		while (true) {
+			final int leftSize = size(node.left);
+
+			if (remaining < leftSize) {
+				node = node.left;
+			} else if (remaining == leftSize) {
+				return node;
+			} else {
+				remaining -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * @param node
+	 * 		a node in the tree, not null
+	 * @return the index of the node in the list
+	 */
+	private int rankOf(final Node<E> node) {
+		int rank = size(node.left);
+		Node<E> current = node;
+
+		while (current.parent != null) {
+			if (current == current.parent.right) {
+				rank += size(current.parent.left) + 1;
+			}
+
+			current = current.parent;
+		}
+
+		return rank;
+	}
+
+	/**
+	 * Inserts a new node so that it has the supplied index, and rebalances the tree.
+	 *
+	 * @param node
+	 * 		the node to insert, not null
+	 * @param index
+	 * 		the index of the node once inserted, between zero and the size of the list inclusive
+	 */
+	private void insertNode(final Node<E> node, final int index) {
+		if (root == null) {
+			root = node;
+			return;
+		}
+
+		if (index == size()) {
+			// Appending makes the node the right child of the last node
+			node.parent = rightmost(root);
+			node.parent.right = node;
+		} else {
+			final Node<E> successor = nodeAt(index);
+
+			if (successor.left == null) {
+				node.parent = successor;
+				successor.left = node;
+			} else {
+				node.parent = rightmost(successor.left);
+				node.parent.right = node;
+			}
+		}
+
+		rebalanceFrom(node.parent);
+	}
+
+	/**
+	 * Removes a node from the tree, and rebalances the tree.
+	 *
+	 * @param node
+	 * 		the node to remove, not null
+	 */
+	private void deleteNode(final Node<E> node) {
+		if (node.left != null && node.right != null) {
+			// Move the successor into this position, then remove the successor's old position
+			final Node<E> successor = leftmost(node.right);
+
+			node.item = successor.item;
+			nodes.put(node.item, node);
+
+			// The caller removes the deleted item from the index, so keep it mapped until then
+			successor.item = null;
+			deleteNode(successor);
+
+			return;
+		}
+
+		final Node<E> child = node.left != null ? node.left : node.right;
+		final Node<E> parent = node.parent;
+
+		if (child != null) {
+			child.parent = parent;
+		}
+
+		replaceChild(parent, node, child);
+		rebalanceFrom(parent);
+	}
+
+	/**
+	 * Updates the sizes and heights of a node and all of its ancestors, and restores the balance
+	 * of the tree along the way.
+	 *
+	 * @param node
+	 * 		the deepest node to update, may be null
+	 */
+	private void rebalanceFrom(final Node<E> node) {
+		Node<E> current = node;
+
+		while (current != null) {
+			update(current);
+
+			final int balance = height(current.left) - height(current.right);
+
+			if (balance > 1) {
+				if (height(current.left.left) < height(current.left.right)) {
+					rotateLeft(current.left);
+				}
+
+				current = rotateRight(current);
+			} else if (balance < -1) {
+				if (height(current.right.right) < height(current.right.left)) {
+					rotateRight(current.right);
+				}
+
+				current = rotateLeft(current);
+			}
+
+			current = current.parent;
+		}
+	}
+
+	/**
+	 * Rotates a subtree to the left, so that the right child of its root becomes the new root.
+	 *
+	 * @param node
+	 * 		the root of the subtree, must have a right child
+	 * @return the new root of the subtree, not null
+	 */
+	private Node<E> rotateLeft(final Node<E> node) {
+		final Node<E> pivot = node.right;
+
+		node.right = pivot.left;
+
+		if (pivot.left != null) {
+			pivot.left.parent = node;
+		}
+
+		pivot.parent = node.parent;
+		replaceChild(node.parent, node, pivot);
+		pivot.left = node;
+		node.parent = pivot;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Rotates a subtree to the right, so that the left child of its root becomes the new root.
+	 *
+	 * @param node
+	 * 		the root of the subtree, must have a left child
+	 * @return the new root of the subtree, not null
+	 */
+	private Node<E> rotateRight(final Node<E> node) {
+		final Node<E> pivot = node.left;
+
+		node.left = pivot.right;
+
+		if (pivot.right != null) {
+			pivot.right.parent = node;
+		}
+
+		pivot.parent = node.parent;
+		replaceChild(node.parent, node, pivot);
+		pivot.right = node;
+		node.parent = pivot;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Replaces a child of a node, or the root of the tree if the node is null.
+	 *
+	 * @param parent
+	 * 		the parent of the child to replace, null to replace the root
+	 * @param oldChild
+	 * 		the child to replace
+	 * @param newChild
+	 * 		the replacement child, may be null
+	 */
+	private void replaceChild(final Node<E> parent, final Node<E> oldChild,
+			final Node<E> newChild) {
+		if (parent == null) {
+			root = newChild;
+		} else if (parent.left == oldChild) {
+			parent.left = newChild;
+		} else {
+			parent.right = newChild;
+		}
+	}
+
+	/**
+	 * @param node
+	 * 		the root of a subtree, not null
+	 * @return the leftmost node of the subtree, not null
+	 */
+	private static <E> Node<E> leftmost(final Node<E> node) {
+		Node<E> current = node;
+
+		while (current.left != null) {
+			current = current.left;
+		}
+
+		return current;
+	}
+
+	/**
+	 * @param node
+	 * 		the root of a subtree, not null
+	 * @return the rightmost node of the subtree, not null
+	 */
+	private static <E> Node<E> rightmost(final Node<E> node) {
+		Node<E> current = node;
+
+		while (current.right != null) {
+			current = current.right;
+		}
+
+		return current;
+	}
+
+	/**
+	 * Recomputes the size and height of a node from its children.
+	 *
+	 * @param node
+	 * 		the node to update, not null
+	 */
+	private static <E> void update(final Node<E> node) {
+		node.size = size(node.left) + size(node.right) + 1;
+		node.height = Math.max(height(node.left), height(node.right)) + 1;
+	}
+
+	/**
+	 * @param node
+	 * 		the root of a subtree, may be null
+	 * @return the number of nodes in the subtree, zero if the node is null
+	 */
+	private static int size(final Node<?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * @param node
+	 * 		the root of a subtree, may be null
+	 * @return the height of the subtree, zero if the node is null
+	 */
+	private static int height(final Node<?> node) {
+		return node == null ? 0 : node.height;
+	}
+
+	/**
+	 * A node in the tree, which holds one item of the list.
+	 *
+	 * @param <E>
+	 * 		the type of item
+	 */
+	private static final class Node<E> {
+		/**
+		 * The item held by this node.
+		 */
+		private E item;
+
+		/**
+		 * The parent of this node, null if this node is the root.
+		 */
+		private Node<E> parent;
+
+		/**
+		 * The left child of this node, which holds the items before this item.
+		 */
+		private Node<E> left;
+
+		/**
+		 * The right child of this node, which holds the items after this item.
+		 */
+		private Node<E> right;
+
+		/**
+		 * The number of nodes in the subtree rooted at this node.
+		 */
+		private int size = 1;
+
+		/**
+		 * The height of the subtree rooted at this node.
+		 */
+		private int height = 1;
+
+		/**
+		 * Constructs a new Node.
+		 *
+		 * @param item
+		 * 		the item held by the node
+		 */
+		private Node(final E item) {
+			this.item = item;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.List;
+
+/**
+ * A mutable ListDataSource which keeps its items in an {@link IndexedList}, so that items can be
+ * added, removed, moved and found by identity in logarithmic time. The mutator methods update the
+ * loaded list and notify the appropriate item listeners, so subclasses only need to supply the
+ * items. The mutator methods must be called on the callback executor, since that is where the
+ * loaded list is delivered and revalidated.
+ * <p>
+ * Once a list has been loaded, it is returned by subsequent loads until a refresh is forced. A list
+ * restored from a snapshot is not reused until the items have been loaded, so that the snapshot is
+ * always revalidated against the loaded items.
+ *
+ * @param <D>
+ * 		the type of objects contained within the list
+ */
+@Tested(testMethod = "automated")
+public abstract class IndexedListDataSource<D> extends BackgroundListDataSourceHelper<D> {
+	/**
+	 * Whether or not the items have been loaded by {@link #loadItemsInBackground(boolean)}. Until
+	 * they have, the last loaded data can only be a restored snapshot.
+	 */
+	private volatile boolean itemsLoaded = false;
+
+	/**
+	 * Loads the items supplied by this source. This method is called on the worker executor, so
+	 * it may block. The returned list is copied, and must not contain null or contain the same
+	 * instance more than once.
+	 *
+	 * @param forceRefresh
+	 * 		true to request invalidation of cached data, false to use the default behaviour
+	 * @return the loaded items, not null
+	 * @throws LibraryReadException
+	 * 		if the items cannot be loaded
+	 */
+	protected abstract List<D> loadItemsInBackground(boolean forceRefresh)
+			throws LibraryReadException;
+
+	@Override
+	protected List<D> loadDataInBackground(final boolean forceRefresh) throws
+			LibraryReadException {
+		final List<D> currentItems = getLastLoadedData();
+
+		if (itemsLoaded && currentItems != null && !forceRefresh) {
+			return currentItems;
+		} else {
+			final List<D> loadedItems = new IndexedList<>(loadItemsInBackground(forceRefresh));
+			itemsLoaded = true;
+
+			return loadedItems;
+		}
+	}
+
+	@Override
+	protected List<D> loadPersistedData() throws LibraryReadException {
+		final List<D> persistedItems = super.loadPersistedData();
+
+		return persistedItems == null ? null : new IndexedList<>(persistedItems);
+	}
+
+	/**
+	 * Adds an item to the end of the list and notifies the item added listeners.
+	 *
+	 * @param item
+	 * 		the item to add, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is already in the list
+	 * @throws IllegalStateException
+	 * 		if no list has been loaded
+	 */
+	public void addItem(final D item) {
+		addItem(getItems().size(), item);
+	}
+
+	/**
+	 * Inserts an item into the list and notifies the item added listeners.
+	 *
+	 * @param index
+	 * 		the index to insert the item at
+	 * @param item
+	 * 		the item to add, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is already in the list
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code index} is less than zero or greater than the size of the list
+	 * @throws IllegalStateException
+	 * 		if no list has been loaded
+	 */
+	public void addItem(final int index, final D item) {
+		getItems().add(index, item);
+		notifyItemAdded(item, index);
+	}
+
+	/**
+	 * Removes an item from the list and notifies the item removed listeners. Nothing happens if
+	 * the item is not in the list, or if no list has been loaded.
+	 *
+	 * @param item
+	 * 		the item to remove
+	 * @return true if the item was removed, false otherwise
+	 */
+	public boolean removeItem(final D item) {
+		final int index = indexOfItem(item);
+
+		if (index == -1) {
+			return false;
+		} else {
+			removeItemAt(index);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes the item at an index and notifies the item removed listeners.
+	 *
+	 * @param index
+	 * 		the index of the item to remove
+	 * @return the removed item
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code index} is not the index of an item in the list
+	 * @throws IllegalStateException
+	 * 		if no list has been loaded
+	 */
+	public D removeItemAt(final int index) {
+		final D removed = getItems().remove(index);
+		notifyItemRemoved(removed, index);
+
+		return removed;
+	}
+
+	/**
+	 * Moves an item to a new index and notifies the item moved listeners. Nothing happens if the
+	 * item is not in the list, or if no list has been loaded.
+	 *
+	 * @param item
+	 * 		the item to move
+	 * @param finalIndex
+	 * 		the index of the item once it has been moved
+	 * @return true if the item was moved, false otherwise
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code finalIndex} is not the index of an item in the list
+	 */
+	public boolean moveItem(final D item, final int finalIndex) {
+		final int initialIndex = indexOfItem(item);
+
+		if (initialIndex == -1) {
+			return false;
+		} else {
+			getItems().move(initialIndex, finalIndex);
+			notifyItemMoved(item, initialIndex, finalIndex);
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the index of an item in the list. Items in the list are found in logarithmic time.
+	 *
+	 * @param item
+	 * 		the item to find
+	 * @return the index of the item, -1 if the item is not in the list or no list has been loaded
+	 */
+	public int indexOfItem(final D item) {
+		final List<D> items = getLastLoadedData();
+
+		return items == null ? -1 : items.indexOf(item);
+	}
+
+	/**
+	 * @return the loaded list, not null
+	 * @throws IllegalStateException
+	 * 		if no list has been loaded
+	 */
+	private IndexedList<D> getItems() {
+		final List<D> items = getLastLoadedData();
+
+		if (items == null) {
+			throw new IllegalStateException("No list has been loaded.");
+		}
+
+		return (IndexedList<D>) items;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource.ItemModifiedListener;
+
+import java.util.Set;
+
+/**
+ * An ItemModifiedListener which can also be told which fields of the modified item changed.
+ * Listeners of this type are registered in the same way as any other ItemModifiedListener. Data
+ * sources which know the modified fields deliver {@link #onItemFieldsModified(ListDataSource,
+ * Object, int, Set)} instead of {@link #onItemModified(ListDataSource, Object, int)}, and all other
+ * data sources continue to deliver the latter, which signifies that any field may have changed.
+ *
+ * @param <I>
+ * 		the type of objects contained within the list
+ */
+public interface ItemFieldsModifiedListener<I> extends ItemModifiedListener<I> {
+	/**
+	 * Invoked when specific fields of an item in a ListDataSource are modified.
+	 *
+	 * @param source
+	 * 		the data source containing the changed item, not null
+	 * @param modified
+	 * 		the object which was modified, not null
+	 * @param index
+	 * 		the index of the modified object
+	 * @param fields
+	 * 		the fields which were modified, not null and not empty
+	 */
+	void onItemFieldsModified(ListDataSource<I> source, I modified, int index,
+			Set<LibraryItemField> fields);
+}
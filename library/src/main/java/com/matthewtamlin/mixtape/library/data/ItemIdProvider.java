@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * Supplies stable ids for LibraryItems, so that views can recognise the same item across changes
+ * to the list which contains it. The id of an item must never change, and no two distinct items
+ * may share an id.
+ */
+public interface ItemIdProvider {
+	/**
+	 * The id returned for items which have no stable id. Equal to {@code RecyclerView.NO_ID}.
+	 */
+	long NO_ID = -1;
+
+	/**
+	 * Returns the stable id of the supplied item.
+	 *
+	 * @param item
+	 * 		the item to get the id of, may be null
+	 * @return the id of the item, {@link #NO_ID} if the item is null or has no stable id
+	 */
+	long getItemId(LibraryItem item);
+}
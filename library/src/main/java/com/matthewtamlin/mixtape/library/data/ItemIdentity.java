@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * Utilities for identifying LibraryItems in caches and other lookup tables.
+ */
+public abstract class ItemIdentity {
+	/**
+	 * The FNV-1a 64 bit offset basis.
+	 */
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * The FNV-1a 64 bit prime.
+	 */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * An ItemIdProvider which returns the ids of IdentifiableLibraryItems, and {@link
+	 * ItemIdProvider#NO_ID} for all other items.
+	 */
+	public static final ItemIdProvider ID_PROVIDER = new ItemIdProvider() {
+		@Override
+		public long getItemId(final LibraryItem item) {
+			if (item instanceof IdentifiableLibraryItem) {
+				return ((IdentifiableLibraryItem) item).getId();
+			} else {
+				return NO_ID;
+			}
+		}
+	};
+
+	/**
+	 * Returns the key to use when storing the supplied item in a lookup table. The id is used for
+	 * IdentifiableLibraryItems, and the item itself is used otherwise. Keys for identifiable items
+	 * are cheap to hash and are not affected by changes to the item.
+	 *
+	 * @param item
+	 * 		the item to get the key for, may be null
+	 * @return the key for the item, null if the item is null
+	 */
+	public static Object getKey(final LibraryItem item) {
+		if (item instanceof IdentifiableLibraryItem) {
+			return ((IdentifiableLibraryItem) item).getId();
+		} else {
+			return item;
+		}
+	}
+
+	/**
+	 * Computes a 64 bit hash of the supplied text, for use as the id of an item which is uniquely
+	 * identified by a string such as a file path. The same text always produces the same hash.
+	 *
+	 * @param text
+	 * 		the text to hash, null is treated as an empty string
+	 * @return the hash
+	 */
+	public static long hash(final CharSequence text) {
+		long hash = FNV_OFFSET_BASIS;
+
+		if (text != null) {
+			for (int i = 0; i < text.length(); i++) {
+				final char c = text.charAt(i);
+
+				hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+				hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+			}
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Computes a 64 bit hash of the supplied bytes, for use as a fingerprint of binary content such
+	 * as embedded artwork. The same bytes always produce the same hash.
+	 *
+	 * @param bytes
+	 * 		the bytes to hash, null is treated as an empty array
+	 * @return the hash
+	 */
+	public static long hash(final byte[] bytes) {
+		long hash = FNV_OFFSET_BASIS;
+
+		if (bytes != null) {
+			for (final byte b : bytes) {
+				hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+			}
+		}
+
+		return hash;
+	}
+}
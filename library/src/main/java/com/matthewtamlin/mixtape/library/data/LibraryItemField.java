@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * The parts of a LibraryItem which can be displayed, and which can therefore be reported as
+ * modified. Describing which fields changed allows views to rebind only the affected parts of the
+ * item.
+ */
+public enum LibraryItemField {
+	/**
+	 * The title of the item, as returned by {@link LibraryItem#getTitle()}.
+	 */
+	TITLE,
+
+	/**
+	 * The subtitle of the item, as returned by {@link LibraryItem#getSubtitle()}.
+	 */
+	SUBTITLE,
+
+	/**
+	 * The artwork of the item, as returned by {@link LibraryItem#getArtwork(int, int)}.
+	 */
+	ARTWORK,
+
+	/**
+	 * Any other data which is displayed by a customised view, such as data bound in {@link
+	 * com.matthewtamlin.mixtape.library.mixtape_body.RecyclerBodyView#onViewHolderBound}.
+	 */
+	CUSTOM
+}
@@ -19,13 +19,43 @@ package com.matthewtamlin.mixtape.library.data;
 import com.matthewtamlin.java_utilities.testing.Tested;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
+import timber.log.Timber;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThanOrEqualTo;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
 /**
- * Partial implementation of the ListDataSource interface which handles listener registration.
- * Getters are provided for accessing the registered listeners.
+ * Partial implementation of the ListDataSource interface which handles listener registration and
+ * callback delivery. Getters are provided for accessing the registered listeners. Item callbacks
+ * can be delivered from any thread using the notify methods, which dispatch on the callback
+ * executor.
+ * <p>
+ * When stale while revalidate loading is enabled, the freshly loaded list is not delivered as a
+ * replacement. Instead, the differences between the stale and fresh lists are applied to the stale
+ * list in place, and each difference is published through the item level listeners. This keeps
+ * any view of the stale list populated while it is brought up to date. Items are matched using
+ * {@link #getItemKey(Object)}, and {@link #areContentsTheSame(Object, Object)} determines which
+ * matched items are reported as modified. The stale list must therefore be mutable.
+ * <p>
+ * A snapshot of the start of the list can be persisted to a file using {@link #saveSnapshot(int)}.
+ * When a snapshot file is set, the snapshot is used as the stale data on the next launch, so the
+ * first screens of the list can be shown before the real data has loaded. Subclasses which use
+ * snapshots must override {@link #createSnapshotEntry(Object)} and {@link
+ * #restoreSnapshotEntry(ListSnapshot.Entry)}. Restored items are always reported as modified when
+ * they are replaced by the matching fresh items, so that views rebind them.
  *
  * @param <D>
  * 		the type of objects contained within the list
@@ -54,6 +84,19 @@ public abstract class ListDataSourceHelper<D> extends BaseDataSourceHelper<List<
 	 */
 	private final Set<ItemMovedListener<D>> itemMovedListeners = new HashSet<>();
 
+	/**
+	 * The file which the snapshot is persisted to, null if snapshots are not used.
+	 */
+	private volatile File snapshotFile;
+
+	/**
+	 * The items which were restored from the snapshot and have not yet been revalidated. Items are
+	 * compared by identity, since restored items are usually equal to the fresh items which
+	 * replace them.
+	 */
+	private final Set<D> restoredItems = Collections.synchronizedSet(Collections.newSetFromMap(
+			new IdentityHashMap<D, Boolean>()));
+
 	@Override
 	public void registerItemAddedListener(final ItemAddedListener<D> listener) {
 		if (listener != null) {
@@ -144,4 +187,507 @@ public abstract class ListDataSourceHelper<D> extends BaseDataSourceHelper<List<
 	public Set<ItemMovedListener<D>> getItemMovedListeners() {
 		return itemMovedListeners;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Notifies all registered item added listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param added
+	 * 		the added item
+	 * @param index
+	 * 		the index of the added item
+	 */
+	protected void notifyItemAdded(final D added, final int index) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<ItemAddedListener<D>> listeners =
+						new ArrayList<>(itemAddedListeners);
+
+				for (final ItemAddedListener<D> listener : listeners) {
+					listener.onDataAdded(ListDataSourceHelper.this, added, index);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered item removed listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param removed
+	 * 		the removed item
+	 * @param index
+	 * 		the index of the item before removal
+	 */
+	protected void notifyItemRemoved(final D removed, final int index) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<ItemRemovedListener<D>> listeners =
+						new ArrayList<>(itemRemovedListeners);
+
+				for (final ItemRemovedListener<D> listener : listeners) {
+					listener.onDataRemoved(ListDataSourceHelper.this, removed, index);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered item modified listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param modified
+	 * 		the modified item
+	 * @param index
+	 * 		the index of the modified item
+	 */
+	protected void notifyItemModified(final D modified, final int index) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<ItemModifiedListener<D>> listeners =
+						new ArrayList<>(itemModifiedListeners);
+
+				for (final ItemModifiedListener<D> listener : listeners) {
+					listener.onItemModified(ListDataSourceHelper.this, modified, index);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered item modified listeners that specific fields of an item were
+	 * modified, on the callback executor. ItemFieldsModifiedListeners receive the modified fields,
+	 * and all other listeners receive a plain item modified callback. This method may be called on
+	 * any thread.
+	 *
+	 * @param modified
+	 * 		the modified item
+	 * @param index
+	 * 		the index of the modified item
+	 * @param fields
+	 * 		the modified fields, not null and not empty
+	 * @throws IllegalArgumentException
+	 * 		if {@code fields} is null or empty
+	 */
+	protected void notifyItemModified(final D modified, final int index,
+			final Set<LibraryItemField> fields) {
+		checkNotNull(fields, "fields cannot be null.");
+
+		if (fields.isEmpty()) {
+			throw new IllegalArgumentException("fields cannot be empty.");
+		}
+
+		// Copy so that later changes to the supplied set do not affect delivery
+		final Set<LibraryItemField> fieldsCopy = Collections.unmodifiableSet(EnumSet.copyOf(
+				fields));
+
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<ItemModifiedListener<D>> listeners =
+						new ArrayList<>(itemModifiedListeners);
+
+				for (final ItemModifiedListener<D> listener : listeners) {
+					if (listener instanceof ItemFieldsModifiedListener) {
+						((ItemFieldsModifiedListener<D>) listener).onItemFieldsModified(
+								ListDataSourceHelper.this, modified, index, fieldsCopy);
+					} else {
+						listener.onItemModified(ListDataSourceHelper.this, modified, index);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Notifies all registered item moved listeners on the callback executor. This method may be
+	 * called on any thread.
+	 *
+	 * @param moved
+	 * 		the moved item
+	 * @param initialIndex
+	 * 		the index of the item before being moved
+	 * @param finalIndex
+	 * 		the index of the item after being moved
+	 */
+	protected void notifyItemMoved(final D moved, final int initialIndex, final int finalIndex) {
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<ItemMovedListener<D>> listeners =
+						new ArrayList<>(itemMovedListeners);
+
+				for (final ItemMovedListener<D> listener : listeners) {
+					listener.onDataMoved(ListDataSourceHelper.this, moved, initialIndex,
+							finalIndex);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets the file which snapshots are saved to and restored from. Snapshots are only restored
+	 * when stale while revalidate loading is enabled and no data has been loaded yet.
+	 *
+	 * @param snapshotFile
+	 * 		the file to use, null to stop using snapshots
+	 */
+	public void setSnapshotFile(final File snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * @return the file which snapshots are saved to and restored from, null if snapshots are not
+	 * used
+	 */
+	public File getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	/**
+	 * Saves a snapshot of the start of the most recently loaded list to the snapshot file. The
+	 * items are copied on the calling thread, and the snapshot is created and written on the worker
+	 * executor. If there is no snapshot file or there are no items to save, the method exits
+	 * without modifying the existing snapshot. This method must be called on the callback executor.
+	 *
+	 * @param maxItems
+	 * 		the maximum number of items to include in the snapshot, at least zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxItems} is less than zero
+	 */
+	public void saveSnapshot(final int maxItems) {
+		checkGreaterThanOrEqualTo(maxItems, 0);
+
+		final File file = snapshotFile;
+		final List<D> data = getLastLoadedData();
+
+		if (file == null || data == null || data.isEmpty() || maxItems == 0) {
+			return;
+		}
+
+		final List<D> items = new ArrayList<>(data.subList(0, Math.min(maxItems, data.size())));
+
+		getWorkerExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				writeSnapshot(file, items);
+			}
+		});
+	}
+
+	/**
+	 * Creates the snapshot entry for an item. This method is called on the worker executor, so it
+	 * may read the metadata of the item. The default implementation returns null, which leaves the
+	 * item out of the snapshot. {@link ListSnapshot.Entry#fromItem(String, LibraryItem)} can be
+	 * used to create entries for LibraryItems.
+	 *
+	 * @param item
+	 * 		the item to create an entry for
+	 * @return the entry, null to leave the item out of the snapshot
+	 */
+	protected ListSnapshot.Entry createSnapshotEntry(final D item) {
+		return null;
+	}
+
+	/**
+	 * Recreates an item from its snapshot entry. The recreated item is displayed until it is
+	 * replaced by the matching freshly loaded item, which is always reported as modified so that
+	 * views rebind it. The recreated item should display the metadata held by the entry without
+	 * any long running operations. This method is called on the worker executor. The default
+	 * implementation returns null, which leaves the item out of the restored list.
+	 *
+	 * @param entry
+	 * 		the entry to recreate the item from, not null
+	 * @return the item, null to leave it out of the restored list
+	 */
+	protected D restoreSnapshotEntry(final ListSnapshot.Entry entry) {
+		return null;
+	}
+
+	/**
+	 * Restores the list from the snapshot file, if there is one.
+	 *
+	 * @return the restored list, null if there is no snapshot or it contains no items
+	 * @throws LibraryReadException
+	 * 		if the snapshot file cannot be read
+	 */
+	@Override
+	protected List<D> loadPersistedData() throws LibraryReadException {
+		final File file = snapshotFile;
+
+		if (file == null || !file.exists()) {
+			return null;
+		}
+
+		final ListSnapshot snapshot;
+
+		try {
+			snapshot = ListSnapshot.fromByteArray(readFile(file));
+		} catch (final IOException | IllegalArgumentException e) {
+			throw new LibraryReadException("Cannot read snapshot from file " + file, e);
+		}
+
+		// The list must be mutable so that it can be revalidated in place
+		final List<D> items = new ArrayList<>();
+
+		for (final ListSnapshot.Entry entry : snapshot.getEntries()) {
+			final D item = restoreSnapshotEntry(entry);
+
+			if (item != null) {
+				items.add(item);
+			}
+		}
+
+		restoredItems.addAll(items);
+
+		return items.isEmpty() ? null : items;
+	}
+
+	/**
+	 * Publishes the differences between the stale and fresh lists through the item level listeners,
+	 * applying them to the stale list as they are published. Since the stale list may be modified
+	 * on the callback executor, it is copied there and the differences are computed from the copy
+	 * on the worker executor. If the stale list is modified before the differences are applied,
+	 * they are recomputed on the callback executor.
+	 *
+	 * @param staleData
+	 * 		the list which was delivered before revalidating, not null
+	 * @param freshData
+	 * 		the freshly loaded list
+	 */
+	@Override
+	protected void publishRevalidatedData(final List<D> staleData, final List<D> freshData) {
+		if (freshData == null) {
+			replaceRevalidatedData(staleData, null);
+			return;
+		}
+
+		final ListDiffer<D> differ = createDiffer();
+
+		getCallbackExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<D> snapshot = new ArrayList<>(staleData);
+
+				getWorkerExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						final List<ListDiffer.Operation<D>> operations = differ.computeOperations(
+								snapshot, freshData);
+
+						getCallbackExecutor().execute(new Runnable() {
+							@Override
+							public void run() {
+								applyRevalidation(staleData, freshData, snapshot, operations,
+										differ);
+							}
+						});
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Applies the differences computed from a snapshot of the stale list, or recomputes them if
+	 * the stale list has been modified since the snapshot was taken. This method must be called on
+	 * the callback executor.
+	 *
+	 * @param staleData
+	 * 		the list which was delivered before revalidating, not null
+	 * @param freshData
+	 * 		the freshly loaded list, not null
+	 * @param snapshot
+	 * 		the copy of the stale list which the operations were computed from, not null
+	 * @param operations
+	 * 		the operations which transform the snapshot into the fresh list, not null
+	 * @param differ
+	 * 		the differ used to compute the operations, not null
+	 */
+	private void applyRevalidation(final List<D> staleData, final List<D> freshData,
+			final List<D> snapshot, final List<ListDiffer.Operation<D>> operations,
+			final ListDiffer<D> differ) {
+		if (staleData.equals(snapshot)) {
+			applyOperations(staleData, operations);
+		} else {
+			applyOperations(staleData, differ.computeOperations(staleData, freshData));
+		}
+
+		// Every restored item has now been replaced or removed
+		restoredItems.clear();
+
+		onDataRevalidated(staleData);
+	}
+
+	/**
+	 * Returns the key which identifies the supplied item when comparing stale and fresh lists.
+	 * Items with equal keys are treated as the same item. The default implementation returns the
+	 * item itself, so items are matched using their equals and hashCode methods. This method may be
+	 * called on any thread.
+	 *
+	 * @param item
+	 * 		the item to identify
+	 * @return the key for the item
+	 */
+	protected Object getItemKey(final D item) {
+		return item;
+	}
+
+	/**
+	 * Determines whether or not a stale item and the matching fresh item display the same contents.
+	 * Items which do not are reported to the item modified listeners. The default implementation
+	 * returns true, so matched items are never reported as modified. This method may be called on
+	 * any thread.
+	 *
+	 * @param staleItem
+	 * 		the item from the stale list
+	 * @param freshItem
+	 * 		the matching item from the fresh list
+	 * @return true if the contents are the same, false otherwise
+	 */
+	protected boolean areContentsTheSame(final D staleItem, final D freshItem) {
+		return true;
+	}
+
+	/**
+	 * Creates a snapshot of the supplied items and writes it to the supplied file. The snapshot is
+	 * written to a temporary file first, so that an interrupted write cannot corrupt the existing
+	 * snapshot.
+	 *
+	 * @param file
+	 * 		the file to write to, not null
+	 * @param items
+	 * 		the items to snapshot, not null
+	 */
+	private void writeSnapshot(final File file, final List<D> items) {
+		final List<ListSnapshot.Entry> entries = new ArrayList<>();
+
+		for (final D item : items) {
+			final ListSnapshot.Entry entry = createSnapshotEntry(item);
+
+			if (entry != null) {
+				entries.add(entry);
+			}
+		}
+
+		final File tempFile = new File(file.getPath() + ".tmp");
+
+		try {
+			final FileOutputStream out = new FileOutputStream(tempFile);
+
+			try {
+				out.write(new ListSnapshot(entries).toByteArray());
+			} finally {
+				out.close();
+			}
+
+			if (!tempFile.renameTo(file)) {
+				throw new IOException("Cannot rename " + tempFile + " to " + file);
+			}
+		} catch (final IOException e) {
+			Timber.w(e, "Could not save snapshot.");
+		}
+	}
+
+	/**
+	 * Reads the entire contents of a file.
+	 *
+	 * @param file
+	 * 		the file to read, not null
+	 * @return the contents of the file, not null
+	 * @throws IOException
+	 * 		if the file cannot be read
+	 */
+	private static byte[] readFile(final File file) throws IOException {
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+		try {
+			final byte[] bytes = new byte[(int) file.length()];
+			in.readFully(bytes);
+
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return a differ which uses {@link #getItemKey(Object)} and {@link
+	 * #areContentsTheSame(Object, Object)} to compare items, and which treats the contents of
+	 * restored items as changed, not null
+	 */
+	private ListDiffer<D> createDiffer() {
+		return new ListDiffer<>(new ListDiffer.Callback<D>() {
+			@Override
+			public Object getKey(final D item) {
+				return getItemKey(item);
+			}
+
+			@Override
+			public boolean areContentsTheSame(final D oldItem, final D newItem) {
+				return !restoredItems.contains(oldItem) &&
+						ListDataSourceHelper.this.areContentsTheSame(oldItem, newItem);
+			}
+		});
+	}
+
+	/**
+	 * Applies a sequence of operations to the supplied list and notifies the item level listeners
+	 * of each one. This method must be called on the callback executor.
+	 *
+	 * @param list
+	 * 		the list to modify, not null
+	 * @param operations
+	 * 		the operations to apply, not null
+	 */
+	private void applyOperations(final List<D> list,
+			final List<ListDiffer.Operation<D>> operations) {
+		final List<ItemAddedListener<D>> addedListeners = new ArrayList<>(itemAddedListeners);
+		final List<ItemRemovedListener<D>> removedListeners = new ArrayList<>(itemRemovedListeners);
+		final List<ItemMovedListener<D>> movedListeners = new ArrayList<>(itemMovedListeners);
+		final List<ItemModifiedListener<D>> modifiedListeners =
+				new ArrayList<>(itemModifiedListeners);
+
+		for (final ListDiffer.Operation<D> operation : operations) {
+			final D item = operation.getItem();
+			final int index = operation.getIndex();
+
+			operation.applyTo(list);
+
+			switch (operation.getType()) {
+				case ListDiffer.Operation.REMOVE: {
+					for (final ItemRemovedListener<D> listener : removedListeners) {
+						listener.onDataRemoved(this, item, index);
+					}
+
+					break;
+				}
+
+				case ListDiffer.Operation.INSERT: {
+					for (final ItemAddedListener<D> listener : addedListeners) {
+						listener.onDataAdded(this, item, index);
+					}
+
+					break;
+				}
+
+				case ListDiffer.Operation.MOVE: {
+					for (final ItemMovedListener<D> listener : movedListeners) {
+						listener.onDataMoved(this, item, index, operation.getFinalIndex());
+					}
+
+					break;
+				}
+
+				case ListDiffer.Operation.CHANGE: {
+					for (final ItemModifiedListener<D> listener : modifiedListeners) {
+						listener.onItemModified(this, item, index);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Computes a sequence of item level operations which transforms one list into another. Items in
+ * the two lists are matched by key, so an item which appears in both lists is reported as moved or
+ * modified rather than removed and re-added. The operations are expressed in the same terms as the
+ * ListDataSource item callbacks, so they can be applied to a list in order while notifying
+ * listeners of each change.
+ * <p>
+ * Removals are always reported first (in descending index order), followed by moves and insertions
+ * in ascending order of their final index, and finally modifications in ascending index order. The
+ * number of removals and insertions is minimal, and the matched items which form the longest
+ * increasing run stay in place, so the number of moves is also minimal. Each item key is computed
+ * once and the operations are computed in O(n log n) time.
+ *
+ * @param <T>
+ * 		the type of items in the lists
+ */
+@Tested(testMethod = "automated")
+public class ListDiffer<T> {
+	/**
+	 * Identifies and compares items.
+	 */
+	private final Callback<T> callback;
+
+	/**
+	 * Constructs a new ListDiffer which matches items by equality and treats equal items as having
+	 * the same contents.
+	 */
+	public ListDiffer() {
+		this(new Callback<T>() {
+			@Override
+			public Object getKey(final T item) {
+				return item;
+			}
+
+			@Override
+			public boolean areContentsTheSame(final T oldItem, final T newItem) {
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Constructs a new ListDiffer.
+	 *
+	 * @param callback
+	 * 		identifies and compares items, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code callback} is null
+	 */
+	public ListDiffer(final Callback<T> callback) {
+		this.callback = checkNotNull(callback, "callback cannot be null.");
+	}
+
+	/**
+	 * Computes the operations which transform {@code oldList} into {@code newList}. Neither list is
+	 * modified.
+	 *
+	 * @param oldList
+	 * 		the list to transform from, not null
+	 * @param newList
+	 * 		the list to transform to, not null
+	 * @return the operations in the order they must be applied, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code oldList} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code newList} is null
+	 */
+	public List<Operation<T>> computeOperations(final List<T> oldList, final List<T> newList) {
+		checkNotNull(oldList, "oldList cannot be null.");
+		checkNotNull(newList, "newList cannot be null.");
+
+		final int oldSize = oldList.size();
+		final int newSize = newList.size();
+
+		// Index the new list by key, chaining duplicate keys in ascending order
+		final Map<Object, Integer> firstNewIndices = new HashMap<>();
+		final int[] nextNewIndices = new int[newSize];
+
+		for (int j = newSize - 1; j >= 0; j--) {
+			final Integer next = firstNewIndices.put(callback.getKey(newList.get(j)), j);
+			nextNewIndices[j] = next == null ? -1 : next;
+		}
+
+		// Match each old item to the first unmatched new item with the same key
+		final int[] oldIndices = new int[newSize];
+		final int[] matchedNewIndices = new int[Math.min(oldSize, newSize)];
+		int matchedCount = 0;
+
+		Arrays.fill(oldIndices, -1);
+
+		final List<Operation<T>> operations = new ArrayList<>();
+		final List<Integer> removedIndices = new ArrayList<>();
+
+		for (int i = 0; i < oldSize; i++) {
+			final Object key = callback.getKey(oldList.get(i));
+			final Integer j = firstNewIndices.get(key);
+
+			if (j == null) {
+				removedIndices.add(i);
+				continue;
+			}
+
+			if (nextNewIndices[j] == -1) {
+				firstNewIndices.remove(key);
+			} else {
+				firstNewIndices.put(key, nextNewIndices[j]);
+			}
+
+			oldIndices[j] = i;
+			matchedNewIndices[matchedCount++] = j;
+		}
+
+		for (int k = removedIndices.size() - 1; k >= 0; k--) {
+			final int index = removedIndices.get(k);
+			operations.add(new Operation<>(Operation.REMOVE, index, index, oldList.get(index)));
+		}
+
+		// Matched items in the longest increasing run keep their place and the rest are moved
+		final boolean[] stable = findLongestIncreasingSubsequence(matchedNewIndices,
+				matchedCount, newSize);
+
+		addInsertionsAndMoves(operations, oldList, newList, oldIndices, matchedNewIndices,
+				matchedCount, stable);
+
+		// Once the structure matches, each matched item is at its index in the new list
+		for (int j = 0; j < newSize; j++) {
+			if (oldIndices[j] == -1) {
+				continue;
+			}
+
+			final T oldItem = oldList.get(oldIndices[j]);
+			final T newItem = newList.get(j);
+
+			if (!callback.areContentsTheSame(oldItem, newItem)) {
+				operations.add(new Operation<>(Operation.CHANGE, j, j, newItem));
+			} else if (oldItem != newItem) {
+				operations.add(new Operation<>(Operation.REPLACE, j, j, newItem));
+			}
+		}
+
+		return operations;
+	}
+
+	/**
+	 * Adds the insertions and moves which bring the matched old items into the order of the new
+	 * list, in ascending order of their final index. Each inserted or moved item is placed directly
+	 * after the item which precedes it in the new list, so the items placed so far are always in
+	 * the same relative order as in the new list. To find the current index of each item without
+	 * simulating the list, every position an item can occupy is assigned a slot up front, and the
+	 * occupied slots are counted using a Fenwick tree.
+	 *
+	 * @param operations
+	 * 		the list to add the operations to, not null
+	 * @param oldList
+	 * 		the list to transform from, not null
+	 * @param newList
+	 * 		the list to transform to, not null
+	 * @param oldIndices
+	 * 		the index of the matching old item for each new index, -1 for unmatched new items
+	 * @param matchedNewIndices
+	 * 		the new index of each matched old item, in old list order
+	 * @param matchedCount
+	 * 		the number of matched items
+	 * @param stable
+	 * 		whether or not the item at each new index keeps its place
+	 */
+	private void addInsertionsAndMoves(final List<Operation<T>> operations,
+			final List<T> oldList, final List<T> newList, final int[] oldIndices,
+			final int[] matchedNewIndices, final int matchedCount, final boolean[] stable) {
+		final int newSize = newList.size();
+
+		// Each placed item follows the nearest preceding stable item, or the start of the list
+		final int[] anchors = new int[newSize];
+		final int[] offsets = new int[newSize];
+		final int[] runLengths = new int[newSize + 1];
+
+		int anchor = -1;
+
+		for (int j = 0; j < newSize; j++) {
+			if (stable[j]) {
+				anchor = j;
+			} else {
+				anchors[j] = anchor;
+				offsets[j] = runLengths[anchor + 1]++;
+			}
+		}
+
+		// Slots are ordered as the start run, then each matched item followed by its run
+		final int[] originalSlots = new int[newSize];
+		final int[] runStarts = new int[newSize + 1];
+		int slotCount = runLengths[0];
+
+		for (int k = 0; k < matchedCount; k++) {
+			final int j = matchedNewIndices[k];
+			originalSlots[j] = slotCount++;
+
+			if (stable[j]) {
+				runStarts[j + 1] = slotCount;
+				slotCount += runLengths[j + 1];
+			}
+		}
+
+		final int[] occupied = new int[slotCount + 1];
+
+		for (int k = 0; k < matchedCount; k++) {
+			updateOccupied(occupied, originalSlots[matchedNewIndices[k]], 1);
+		}
+
+		for (int j = 0; j < newSize; j++) {
+			if (stable[j]) {
+				continue;
+			}
+
+			final int finalSlot = runStarts[anchors[j] + 1] + offsets[j];
+
+			if (oldIndices[j] == -1) {
+				final int index = countOccupied(occupied, finalSlot);
+				updateOccupied(occupied, finalSlot, 1);
+				operations.add(new Operation<>(Operation.INSERT, index, index, newList.get(j)));
+			} else {
+				final int index = countOccupied(occupied, originalSlots[j]);
+				updateOccupied(occupied, originalSlots[j], -1);
+
+				final int finalIndex = countOccupied(occupied, finalSlot);
+				updateOccupied(occupied, finalSlot, 1);
+
+				operations.add(new Operation<>(Operation.MOVE, index, finalIndex,
+						oldList.get(oldIndices[j])));
+			}
+		}
+	}
+
+	/**
+	 * Finds the longest increasing subsequence of the supplied values in O(n log n) time.
+	 *
+	 * @param values
+	 * 		the values to search, which must be distinct
+	 * @param count
+	 * 		the number of values to consider
+	 * @param range
+	 * 		the exclusive upper bound of the values
+	 * @return an array indexed by value, where an element is true if the value is part of the
+	 * subsequence
+	 */
+	private static boolean[] findLongestIncreasingSubsequence(final int[] values, final int count,
+			final int range) {
+		final int[] tails = new int[count];
+		final int[] predecessors = new int[count];
+		int length = 0;
+
+		for (int k = 0; k < count; k++) {
+			int low = 0;
+			int high = length;
+
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+
+				if (values[tails[middle]] < values[k]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			predecessors[k] = low == 0 ? -1 : tails[low - 1];
+			tails[low] = k;
+
+			if (low == length) {
+				length++;
+			}
+		}
+
+		final boolean[] inSubsequence = new boolean[range];
+
+		for (int k = length == 0 ? -1 : tails[length - 1]; k != -1; k = predecessors[k]) {
+			inSubsequence[values[k]] = true;
+		}
+
+		return inSubsequence;
+	}
+
+	/**
+	 * Adds a value to a slot in a Fenwick tree.
+	 *
+	 * @param tree
+	 * 		the tree to update, with one more element than there are slots
+	 * @param slot
+	 * 		the slot to update
+	 * @param delta
+	 * 		the value to add
+	 */
+	private static void updateOccupied(final int[] tree, final int slot, final int delta) {
+		for (int i = slot + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	/**
+	 * Sums the values of all slots before a slot in a Fenwick tree.
+	 *
+	 * @param tree
+	 * 		the tree to query, with one more element than there are slots
+	 * @param slot
+	 * 		the exclusive upper bound of the slots to sum
+	 * @return the sum
+	 */
+	private static int countOccupied(final int[] tree, final int slot) {
+		int sum = 0;
+
+		for (int i = slot; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Identifies and compares the items being diffed.
+	 *
+	 * @param <T>
+	 * 		the type of items being diffed
+	 */
+	public interface Callback<T> {
+		/**
+		 * Returns a key which identifies the supplied item across both lists. Items with equal keys
+		 * are considered to be the same item.
+		 *
+		 * @param item
+		 * 		the item to identify
+		 * @return the key for the item
+		 */
+		Object getKey(T item);
+
+		/**
+		 * Determines whether or not two items with the same key have the same displayed contents.
+		 *
+		 * @param oldItem
+		 * 		the item from the old list
+		 * @param newItem
+		 * 		the item from the new list
+		 * @return true if the contents are the same, false if the item was modified
+		 */
+		boolean areContentsTheSame(T oldItem, T newItem);
+	}
+
+	/**
+	 * A single operation in the transformation from the old list to the new list.
+	 *
+	 * @param <T>
+	 * 		the type of items being diffed
+	 */
+	public static class Operation<T> {
+		/**
+		 * Type code for removing the item at {@link #getIndex()}.
+		 */
+		public static final int REMOVE = 0;
+
+		/**
+		 * Type code for inserting {@link #getItem()} at {@link #getIndex()}.
+		 */
+		public static final int INSERT = 1;
+
+		/**
+		 * Type code for moving the item at {@link #getIndex()} to {@link #getFinalIndex()}.
+		 */
+		public static final int MOVE = 2;
+
+		/**
+		 * Type code for replacing the item at {@link #getIndex()} with {@link #getItem()} when the
+		 * displayed contents have changed.
+		 */
+		public static final int CHANGE = 3;
+
+		/**
+		 * Type code for replacing the item at {@link #getIndex()} with {@link #getItem()} when the
+		 * displayed contents are the same. No notification is needed for this operation.
+		 */
+		public static final int REPLACE = 4;
+
+		/**
+		 * The type of the operation.
+		 */
+		private final int type;
+
+		/**
+		 * The index the operation applies to.
+		 */
+		private final int index;
+
+		/**
+		 * The index of the item after the operation.
+		 */
+		private final int finalIndex;
+
+		/**
+		 * The item affected by the operation.
+		 */
+		private final T item;
+
+		/**
+		 * Constructs a new Operation.
+		 *
+		 * @param type
+		 * 		the type of the operation
+		 * @param index
+		 * 		the index the operation applies to
+		 * @param finalIndex
+		 * 		the index of the item after the operation
+		 * @param item
+		 * 		the item affected by the operation
+		 */
+		private Operation(final int type, final int index, final int finalIndex, final T item) {
+			this.type = type;
+			this.index = index;
+			this.finalIndex = finalIndex;
+			this.item = item;
+		}
+
+		/**
+		 * @return the type of the operation
+		 */
+		public int getType() {
+			return type;
+		}
+
+		/**
+		 * @return the index the operation applies to, with respect to the list after all preceding
+		 * operations have been applied
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return the index of the item after the operation, only differs from {@link #getIndex()}
+		 * for moves
+		 */
+		public int getFinalIndex() {
+			return finalIndex;
+		}
+
+		/**
+		 * @return the item affected by the operation
+		 */
+		public T getItem() {
+			return item;
+		}
+
+		/**
+		 * Applies this operation to the supplied list.
+		 *
+		 * @param list
+		 * 		the list to modify, not null
+		 */
+		public void applyTo(final List<T> list) {
+			switch (type) {
+				case REMOVE: {
+					list.remove(index);
+					break;
+				}
+
+				case INSERT: {
+					list.add(index, item);
+					break;
+				}
+
+				case MOVE: {
+					list.add(finalIndex, list.remove(index));
+					break;
+				}
+
+				default: {
+					list.set(index, item);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Operation{type=" + type + ", index=" + index + ", finalIndex=" + finalIndex +
+					", item=" + item + "}";
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A compact record of the start of a list of LibraryItems, consisting of the key, title, subtitle
+ * and artwork preview of each item in order. Snapshots are intended to be persisted when the app
+ * exits, so that the first screens of a list can be displayed immediately on the next launch
+ * while the real data loads. A snapshot can be converted to and from a byte array for persistence.
+ * This class is immutable.
+ */
+@Tested(testMethod = "automated")
+public final class ListSnapshot {
+	/**
+	 * The version of the byte array form, incremented whenever the form changes.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Flag which indicates that an entry has a title.
+	 */
+	private static final int FLAG_TITLE = 1;
+
+	/**
+	 * Flag which indicates that an entry has a subtitle.
+	 */
+	private static final int FLAG_SUBTITLE = 1 << 1;
+
+	/**
+	 * Flag which indicates that an entry has an artwork preview.
+	 */
+	private static final int FLAG_PREVIEW = 1 << 2;
+
+	/**
+	 * The entries of this snapshot, in list order.
+	 */
+	private final List<Entry> entries;
+
+	/**
+	 * Constructs a new ListSnapshot.
+	 *
+	 * @param entries
+	 * 		the entries of the snapshot in list order, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code entries} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code entries} contains null
+	 */
+	public ListSnapshot(final List<Entry> entries) {
+		checkNotNull(entries, "entries cannot be null.");
+
+		if (entries.contains(null)) {
+			throw new IllegalArgumentException("entries cannot contain null.");
+		}
+
+		this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+	}
+
+	/**
+	 * Recreates a snapshot from the byte array returned by {@link #toByteArray()}.
+	 *
+	 * @param bytes
+	 * 		the byte array, not null
+	 * @return the snapshot, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytes} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code bytes} is not a valid snapshot
+	 */
+	public static ListSnapshot fromByteArray(final byte[] bytes) {
+		checkNotNull(bytes, "bytes cannot be null.");
+
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+		try {
+			if (in.readByte() != VERSION) {
+				throw new IllegalArgumentException("bytes is not a valid snapshot.");
+			}
+
+			final int size = in.readInt();
+			final List<Entry> entries = new ArrayList<>();
+
+			for (int i = 0; i < size; i++) {
+				final String key = in.readUTF();
+				final int flags = in.readByte();
+				final String title = (flags & FLAG_TITLE) == 0 ? null : in.readUTF();
+				final String subtitle = (flags & FLAG_SUBTITLE) == 0 ? null : in.readUTF();
+				ArtworkPreview preview = null;
+
+				if ((flags & FLAG_PREVIEW) != 0) {
+					final byte[] previewBytes = new byte[in.readUnsignedByte()];
+					in.readFully(previewBytes);
+					preview = ArtworkPreview.fromByteArray(previewBytes);
+				}
+
+				entries.add(new Entry(key, title, subtitle, preview));
+			}
+
+			return new ListSnapshot(entries);
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("bytes is not a valid snapshot.", e);
+		}
+	}
+
+	/**
+	 * Converts this snapshot to a compact byte array, which can be converted back using {@link
+	 * #fromByteArray(byte[])}. Titles and subtitles are stored as strings, so any styling is lost.
+	 *
+	 * @return the byte array, not null
+	 */
+	public byte[] toByteArray() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+
+		try {
+			out.writeByte(VERSION);
+			out.writeInt(entries.size());
+
+			for (final Entry entry : entries) {
+				final int flags = (entry.title == null ? 0 : FLAG_TITLE) |
+						(entry.subtitle == null ? 0 : FLAG_SUBTITLE) |
+						(entry.artworkPreview == null ? 0 : FLAG_PREVIEW);
+
+				out.writeUTF(entry.key);
+				out.writeByte(flags);
+
+				if (entry.title != null) {
+					out.writeUTF(entry.title.toString());
+				}
+
+				if (entry.subtitle != null) {
+					out.writeUTF(entry.subtitle.toString());
+				}
+
+				if (entry.artworkPreview != null) {
+					final byte[] previewBytes = entry.artworkPreview.toByteArray();
+					out.writeByte(previewBytes.length);
+					out.write(previewBytes);
+				}
+			}
+		} catch (final IOException e) {
+			// Writing to a byte array never fails
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @return the entries of this snapshot in list order, not null
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof ListSnapshot && entries.equals(((ListSnapshot) obj).entries);
+	}
+
+	@Override
+	public int hashCode() {
+		return entries.hashCode();
+	}
+
+	/**
+	 * The snapshot of a single LibraryItem. This class is immutable.
+	 */
+	public static final class Entry {
+		/**
+		 * Identifies the item, so that it can be recreated from the snapshot.
+		 */
+		private final String key;
+
+		/**
+		 * The title of the item, null if it has none.
+		 */
+		private final String title;
+
+		/**
+		 * The subtitle of the item, null if it has none.
+		 */
+		private final String subtitle;
+
+		/**
+		 * The preview of the artwork of the item, null if it has none.
+		 */
+		private final ArtworkPreview artworkPreview;
+
+		/**
+		 * Constructs a new Entry.
+		 *
+		 * @param key
+		 * 		identifies the item, so that it can be recreated from the snapshot, not null
+		 * @param title
+		 * 		the title of the item, may be null
+		 * @param subtitle
+		 * 		the subtitle of the item, may be null
+		 * @param artworkPreview
+		 * 		the preview of the artwork of the item, may be null
+		 * @throws IllegalArgumentException
+		 * 		if {@code key} is null
+		 */
+		public Entry(final String key, final CharSequence title, final CharSequence subtitle,
+				final ArtworkPreview artworkPreview) {
+			this.key = checkNotNull(key, "key cannot be null.");
+			this.title = title == null ? null : title.toString();
+			this.subtitle = subtitle == null ? null : subtitle.toString();
+			this.artworkPreview = artworkPreview;
+		}
+
+		/**
+		 * Creates an entry from the metadata of a LibraryItem. The artwork preview is only
+		 * included if the item is a {@link PreviewableLibraryItem}, and metadata which cannot be
+		 * read is omitted. Reading the metadata may be a long running operation, so this method
+		 * should not be called on the UI thread.
+		 *
+		 * @param key
+		 * 		identifies the item, so that it can be recreated from the snapshot, not null
+		 * @param item
+		 * 		the item to create the entry from, not null
+		 * @return the entry, not null
+		 * @throws IllegalArgumentException
+		 * 		if {@code key} is null
+		 * @throws IllegalArgumentException
+		 * 		if {@code item} is null
+		 */
+		public static Entry fromItem(final String key, final LibraryItem item) {
+			checkNotNull(item, "item cannot be null.");
+
+			CharSequence title = null;
+			CharSequence subtitle = null;
+
+			try {
+				title = item.getTitle();
+			} catch (final LibraryReadException e) {
+				// Leave the title out of the snapshot
+			}
+
+			try {
+				subtitle = item.getSubtitle();
+			} catch (final LibraryReadException e) {
+				// Leave the subtitle out of the snapshot
+			}
+
+			final ArtworkPreview artworkPreview = item instanceof PreviewableLibraryItem ?
+					((PreviewableLibraryItem) item).getArtworkPreview() : null;
+
+			return new Entry(key, title, subtitle, artworkPreview);
+		}
+
+		/**
+		 * @return the key which identifies the item, not null
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return the title of the item, null if it has none
+		 */
+		public CharSequence getTitle() {
+			return title;
+		}
+
+		/**
+		 * @return the subtitle of the item, null if it has none
+		 */
+		public CharSequence getSubtitle() {
+			return subtitle;
+		}
+
+		/**
+		 * @return the preview of the artwork of the item, null if it has none
+		 */
+		public ArtworkPreview getArtworkPreview() {
+			return artworkPreview;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) {
+				return true;
+			}
+
+			if (!(obj instanceof Entry)) {
+				return false;
+			}
+
+			final Entry other = (Entry) obj;
+
+			return key.equals(other.key) && equal(title, other.title) &&
+					equal(subtitle, other.subtitle) &&
+					equal(artworkPreview, other.artworkPreview);
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode();
+		}
+
+		/**
+		 * Compares two objects for equality, allowing for null.
+		 *
+		 * @param a
+		 * 		the first object, may be null
+		 * @param b
+		 * 		the second object, may be null
+		 * @return true if the objects are equal or both null, false otherwise
+		 */
+		private static boolean equal(final Object a, final Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+}
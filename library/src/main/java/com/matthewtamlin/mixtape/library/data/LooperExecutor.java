@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * An Executor which runs tasks on the thread of a particular Looper. Every task is posted to the
+ * Looper's message queue and run in submission order, even when it is submitted from the Looper's
+ * own thread. Tasks are therefore never run synchronously, and a task can never run ahead of tasks
+ * which were submitted before it.
+ */
+public class LooperExecutor implements Executor {
+	/**
+	 * The looper to run tasks on.
+	 */
+	private final Looper looper;
+
+	/**
+	 * Posts tasks to the looper.
+	 */
+	private final Handler handler;
+
+	/**
+	 * Constructs a new LooperExecutor.
+	 *
+	 * @param looper
+	 * 		the looper to run tasks on, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code looper} is null
+	 */
+	public LooperExecutor(final Looper looper) {
+		this.looper = checkNotNull(looper, "looper cannot be null.");
+		this.handler = new Handler(looper);
+	}
+
+	/**
+	 * @return a new LooperExecutor which runs tasks on the main thread, not null
+	 */
+	public static LooperExecutor forMainThread() {
+		return new LooperExecutor(Looper.getMainLooper());
+	}
+
+	@Override
+	public void execute(final Runnable task) {
+		checkNotNull(task, "task cannot be null.");
+
+		handler.post(task);
+	}
+
+	/**
+	 * @return the looper tasks are run on, not null
+	 */
+	public Looper getLooper() {
+		return looper;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.PagedListDataSource;
+
+import java.util.List;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThan;
+
+/**
+ * Partial implementation of the PagedListDataSource interface. Subclasses only need to report the
+ * total number of items and load individual pages, and this class handles windowing, page requests
+ * and item modified callbacks. Both loading methods are called on the worker executor, and all
+ * callbacks are delivered on the callback executor.
+ *
+ * @param <D>
+ * 		the type of objects contained within the list
+ */
+public abstract class PagedListDataSourceHelper<D> extends BackgroundListDataSourceHelper<D>
+		implements PagedListDataSource<D> {
+	/**
+	 * The number of items in each page.
+	 */
+	private final int pageSize;
+
+	/**
+	 * The maximum number of pages to hold in memory at once.
+	 */
+	private final int maxResidentPages;
+
+	/**
+	 * The most recently loaded list, null if no list has been loaded yet. The list is created on
+	 * the worker executor but only accessed on the callback executor.
+	 */
+	private volatile WindowedList<D> currentList;
+
+	/**
+	 * Loads pages in the background as the current list requests them, and delivers item modified
+	 * callbacks once the items are available.
+	 */
+	private final WindowedList.PageLoader<D> pageLoader = new WindowedList.PageLoader<D>() {
+		@Override
+		public void onPageRequested(final WindowedList<D> list, final int pageIndex) {
+			final int startIndex = list.getPageStart(pageIndex);
+			final int count = list.getPageLength(pageIndex);
+
+			getWorkerExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					List<D> loaded;
+
+					// The page must always be delivered, or it would never be requested again
+					try {
+						loaded = loadPage(startIndex, count);
+					} catch (final LibraryReadException | RuntimeException e) {
+						loaded = null;
+					}
+
+					final List<D> items = loaded;
+
+					getCallbackExecutor().execute(new Runnable() {
+						@Override
+						public void run() {
+							onPageLoaded(list, pageIndex, items);
+						}
+					});
+				}
+			});
+		}
+	};
+
+	/**
+	 * Constructs a new PagedListDataSourceHelper.
+	 *
+	 * @param pageSize
+	 * 		the number of items in each page, greater than zero
+	 * @param maxResidentPages
+	 * 		the maximum number of pages to hold in memory at once, greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code pageSize} is not greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxResidentPages} is not greater than zero
+	 */
+	public PagedListDataSourceHelper(final int pageSize, final int maxResidentPages) {
+		this.pageSize = checkGreaterThan(pageSize, 0);
+		this.maxResidentPages = checkGreaterThan(maxResidentPages, 0);
+	}
+
+	@Override
+	protected List<D> loadDataInBackground(final boolean forceRefresh) throws
+			LibraryReadException {
+		final WindowedList<D> existingList = currentList;
+
+		if (existingList != null && !forceRefresh) {
+			return existingList;
+		}
+
+		final WindowedList<D> newList = new WindowedList<>(loadItemCount(), pageSize,
+				maxResidentPages, pageLoader);
+		currentList = newList;
+
+		return newList;
+	}
+
+	/**
+	 * Replaces the stale list outright, since windowed lists are read-only and cannot be compared
+	 * without loading every page.
+	 */
+	@Override
+	protected void publishRevalidatedData(final List<D> staleData, final List<D> freshData) {
+		replaceRevalidatedData(staleData, freshData);
+	}
+
+	/**
+	 * Supplies a loaded page to the list which requested it and notifies item modified listeners.
+	 * This method is called on the callback executor.
+	 *
+	 * @param list
+	 * 		the list which requested the page, not null
+	 * @param pageIndex
+	 * 		the index of the page
+	 * @param items
+	 * 		the loaded items, null if the page could not be loaded
+	 */
+	private void onPageLoaded(final WindowedList<D> list, final int pageIndex,
+			final List<D> items) {
+		// Pages for a list which has since been replaced are no longer relevant
+		if (list != currentList) {
+			return;
+		}
+
+		if (items == null || items.size() != list.getPageLength(pageIndex)) {
+			list.onPageLoadFailed(pageIndex);
+			return;
+		}
+
+		list.setPage(pageIndex, items);
+
+		final int startIndex = list.getPageStart(pageIndex);
+
+		for (int i = 0; i < items.size(); i++) {
+			for (final ItemModifiedListener<D> listener : getItemModifiedListeners()) {
+				listener.onItemModified(this, items.get(i), startIndex + i);
+			}
+		}
+	}
+
+	@Override
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public int getMaxResidentPages() {
+		return maxResidentPages;
+	}
+
+	/**
+	 * Counts the total number of items available from this source. This method is called on the
+	 * worker executor.
+	 *
+	 * @return the number of items, not less than zero
+	 * @throws LibraryReadException
+	 * 		if the items cannot be counted
+	 */
+	protected abstract int loadItemCount() throws LibraryReadException;
+
+	/**
+	 * Loads a contiguous range of items from this source. This method is called on the worker
+	 * executor.
+	 *
+	 * @param startIndex
+	 * 		the index of the first item to load
+	 * @param count
+	 * 		the number of items to load
+	 * @return the loaded items, exactly {@code count} in size, not null
+	 * @throws LibraryReadException
+	 * 		if the items cannot be loaded
+	 */
+	protected abstract List<D> loadPage(int startIndex, int count) throws LibraryReadException;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+/**
+ * A LibraryItem which can supply a small preview of its artwork without performing any long
+ * running operations. Previews are typically computed when items are indexed and stored alongside
+ * their other metadata, so that they can be displayed immediately while the full artwork loads.
+ */
+public interface PreviewableLibraryItem extends LibraryItem {
+	/**
+	 * Returns the preview of the artwork of this item. Unlike the other getters, this method is
+	 * called on the main thread, so it must return quickly without reading from disk or decoding
+	 * images.
+	 *
+	 * @return the preview, null if none is available
+	 */
+	ArtworkPreview getArtworkPreview();
+}
@@ -0,0 +1,605 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A ListDataSource which supplies the items of another ListDataSource that match a search query,
+ * ranked as described in {@link SearchIndex}. The titles and subtitles of the source items are
+ * read once on the worker executor and kept in a SearchIndex, which is then updated incrementally
+ * from the item level events of the source. Changes to individual items are published through
+ * the item level listeners, while changes to the query or to the whole source list replace the
+ * results.
+ * <p>
+ * Loading this source loads the source list, and the results are delivered once every item in the
+ * source list has been indexed. The source must deliver its callbacks on the callback executor of
+ * this source. Items are tracked by identity, so an item which is replaced by an equal instance is
+ * indexed again. The source list must not contain the same instance more than once: loads which
+ * deliver such a list fail, and replacing the source list with one throws an
+ * IllegalArgumentException. The query must only be set on the callback executor.
+ *
+ * @param <D>
+ * 		the type of objects contained within the list
+ */
+@Tested(testMethod = "automated")
+public class SearchDataSource<D extends LibraryItem> extends ListDataSourceHelper<D> {
+	/**
+	 * The maximum number of items which can change in a single batch before the results are
+	 * replaced rather than updated item by item.
+	 */
+	private static final int MAX_ITEM_UPDATES = 50;
+
+	/**
+	 * The data source being searched.
+	 */
+	private final ListDataSource<D> source;
+
+	/**
+	 * The index of the items in the source list. Only accessed on the callback executor.
+	 */
+	private final SearchIndex<D> searchIndex = new SearchIndex<>();
+
+	/**
+	 * A copy of the source list which is kept up to date from its events, so that the items
+	 * replaced by item modified events can be found. Null until the source list has been loaded.
+	 * Only accessed on the callback executor.
+	 */
+	private IndexedList<D> sourceItems;
+
+	/**
+	 * Items in the source list which need to be indexed or re-indexed. Only accessed on the
+	 * callback executor.
+	 */
+	private final Set<D> pendingItems = Collections.newSetFromMap(
+			new IdentityHashMap<D, Boolean>());
+
+	/**
+	 * Whether or not item text is being read on the worker executor. Only accessed on the callback
+	 * executor.
+	 */
+	private boolean readInProgress = false;
+
+	/**
+	 * Whether or not the results must be replaced once indexing finishes, because more has changed
+	 * than can be published item by item. Only accessed on the callback executor.
+	 */
+	private boolean resultsStale = false;
+
+	/**
+	 * Loads which are waiting for indexing to finish. Only accessed on the callback executor.
+	 */
+	private final List<SearchLoad> waitingLoads = new ArrayList<>();
+
+	/**
+	 * The current search query, not null. Only accessed on the callback executor.
+	 */
+	private CharSequence query = "";
+
+	/**
+	 * The current results, null if no results have been delivered yet. Only accessed on the
+	 * callback executor.
+	 */
+	private IndexedList<D> results;
+
+	/**
+	 * Constructs a new SearchDataSource. The new source registers listeners with the supplied
+	 * source immediately.
+	 *
+	 * @param source
+	 * 		the data source to search, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code source} is null
+	 */
+	public SearchDataSource(final ListDataSource<D> source) {
+		this.source = checkNotNull(source, "source cannot be null.");
+
+		final SourceListener listener = new SourceListener();
+
+		source.registerDataReplacedListener(listener);
+		source.registerDataModifiedListener(listener);
+		source.registerItemAddedListener(listener);
+		source.registerItemRemovedListener(listener);
+		source.registerItemModifiedListener(listener);
+		source.registerItemMovedListener(listener);
+	}
+
+	/**
+	 * Loads the source list and delivers the results once it has been indexed.
+	 *
+	 * @param forceRefresh
+	 * 		true to force the source to refresh, false to use its default behaviour
+	 * @param callback
+	 * 		the callback to be invoked when the operation finishes, null to ignore
+	 * @return a handle for cancelling delivery to the callback, not null
+	 */
+	@Override
+	public LoadHandle loadData(final boolean forceRefresh,
+			final DataLoadedListener<List<D>> callback) {
+		final SearchLoad load = new SearchLoad(callback);
+		load.setSourceHandle(source.loadData(forceRefresh, load));
+
+		return load;
+	}
+
+	/**
+	 * Sets the search query and replaces the results. This method must be called on the callback
+	 * executor.
+	 *
+	 * @param query
+	 * 		the text to search for, null is treated as empty
+	 */
+	public void setQuery(final CharSequence query) {
+		this.query = query == null ? "" : query;
+
+		if (results != null) {
+			resultsStale = true;
+			publishIfIndexed();
+		}
+	}
+
+	/**
+	 * @return the current search query, not null
+	 */
+	public CharSequence getQuery() {
+		return query;
+	}
+
+	/**
+	 * @return the data source being searched, not null
+	 */
+	public ListDataSource<D> getSource() {
+		return source;
+	}
+
+	/**
+	 * Replaces the copy of the source list and queues any items which are not yet indexed.
+	 *
+	 * @param items
+	 * 		the new source list, null is treated as empty
+	 * @throws IllegalArgumentException
+	 * 		if {@code items} contains the same instance more than once
+	 */
+	private void setSourceItems(final List<D> items) {
+		if (containsDuplicateInstances(items)) {
+			throw new IllegalArgumentException("The source list cannot contain the same instance " +
+					"more than once.");
+		}
+
+		final IndexedList<D> newSourceItems = items == null ? new IndexedList<D>() :
+				new IndexedList<>(items);
+
+		for (final D item : sourceItems == null ? Collections.<D>emptyList() : sourceItems) {
+			if (!newSourceItems.containsInstance(item)) {
+				searchIndex.remove(item);
+				pendingItems.remove(item);
+			}
+		}
+
+		for (final D item : newSourceItems) {
+			if (!searchIndex.contains(item)) {
+				pendingItems.add(item);
+			}
+		}
+
+		sourceItems = newSourceItems;
+		resultsStale = true;
+
+		readPendingItems();
+		publishIfIndexed();
+	}
+
+	/**
+	 * Reads the text of the pending items on the worker executor, unless a read is already in
+	 * progress. Items which become pending during a read are read once it finishes.
+	 */
+	private void readPendingItems() {
+		if (readInProgress || pendingItems.isEmpty()) {
+			return;
+		}
+
+		readInProgress = true;
+
+		final List<D> batch = new ArrayList<>(pendingItems);
+		pendingItems.clear();
+
+		getWorkerExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				final List<CharSequence> titles = new ArrayList<>(batch.size());
+				final List<CharSequence> subtitles = new ArrayList<>(batch.size());
+
+				for (final D item : batch) {
+					titles.add(readTitle(item));
+					subtitles.add(readSubtitle(item));
+				}
+
+				getCallbackExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						readInProgress = false;
+						indexBatch(batch, titles, subtitles);
+						readPendingItems();
+						publishIfIndexed();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Adds a batch of read items to the index, ignoring any which have left the source list since
+	 * the read began, and updates the results.
+	 *
+	 * @param batch
+	 * 		the items which were read, not null
+	 * @param titles
+	 * 		the title of each item, not null
+	 * @param subtitles
+	 * 		the subtitle of each item, not null
+	 */
+	private void indexBatch(final List<D> batch, final List<CharSequence> titles,
+			final List<CharSequence> subtitles) {
+		final List<D> indexedItems = new ArrayList<>();
+
+		for (int i = 0; i < batch.size(); i++) {
+			final D item = batch.get(i);
+
+			if (sourceItems.containsInstance(item)) {
+				searchIndex.put(item, titles.get(i), subtitles.get(i));
+				indexedItems.add(item);
+			}
+		}
+
+		if (results == null || resultsStale) {
+			return;
+		}
+
+		if (indexedItems.size() > MAX_ITEM_UPDATES) {
+			resultsStale = true;
+		} else {
+			for (final D item : indexedItems) {
+				updateResult(item);
+			}
+		}
+	}
+
+	/**
+	 * Moves, adds or removes a single item in the results to reflect its indexed text, and
+	 * notifies the item level listeners.
+	 *
+	 * @param item
+	 * 		the item to update, not null
+	 */
+	private void updateResult(final D item) {
+		final int initialIndex = results.indexOfInstance(item);
+
+		if (initialIndex != -1) {
+			results.remove(initialIndex);
+		}
+
+		if (!searchIndex.matches(item, query)) {
+			if (initialIndex != -1) {
+				notifyItemRemoved(item, initialIndex);
+			}
+
+			return;
+		}
+
+		final int finalIndex = findInsertionIndex(item);
+		results.add(finalIndex, item);
+
+		if (initialIndex == -1) {
+			notifyItemAdded(item, finalIndex);
+		} else {
+			if (initialIndex != finalIndex) {
+				notifyItemMoved(item, initialIndex, finalIndex);
+			}
+
+			notifyItemModified(item, finalIndex);
+		}
+	}
+
+	/**
+	 * Removes an item from the index and the results, notifying the item removed listeners if it
+	 * was in the results.
+	 *
+	 * @param item
+	 * 		the item to remove, not null
+	 */
+	private void removeItem(final D item) {
+		searchIndex.remove(item);
+		pendingItems.remove(item);
+
+		if (results != null && !resultsStale) {
+			final int resultIndex = results.indexOfInstance(item);
+
+			if (resultIndex != -1) {
+				results.remove(resultIndex);
+				notifyItemRemoved(item, resultIndex);
+			}
+		}
+	}
+
+	/**
+	 * Uses a binary search to find where an item belongs in the results.
+	 *
+	 * @param item
+	 * 		the item to find the position of, must match the query
+	 * @return the index to insert the item at
+	 */
+	private int findInsertionIndex(final D item) {
+		final Comparator<D> comparator = searchIndex.createComparator(query);
+
+		int low = 0;
+		int high = results.size();
+
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+
+			if (comparator.compare(results.get(middle), item) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Replaces the results if they are stale and delivers them to any waiting loads, provided no
+	 * items are waiting to be indexed.
+	 */
+	private void publishIfIndexed() {
+		if (readInProgress || !pendingItems.isEmpty()) {
+			return;
+		}
+
+		if (resultsStale || results == null) {
+			resultsStale = false;
+
+			final List<D> oldResults = results;
+			results = new IndexedList<>(searchIndex.search(query));
+
+			if (oldResults != null) {
+				notifyDataReplaced(oldResults, results);
+			}
+		}
+
+		final List<SearchLoad> loads = new ArrayList<>(waitingLoads);
+		waitingLoads.clear();
+
+		for (final SearchLoad load : loads) {
+			deliverDataLoaded(load, load.callback, results);
+		}
+	}
+
+	/**
+	 * @param items
+	 * 		the list to check, may be null
+	 * @return true if the list contains the same instance more than once, false otherwise
+	 */
+	private static boolean containsDuplicateInstances(final List<?> items) {
+		if (items == null) {
+			return false;
+		}
+
+		final Set<Object> instances = Collections.newSetFromMap(
+				new IdentityHashMap<Object, Boolean>());
+
+		for (final Object item : items) {
+			if (!instances.add(item)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads the title of an item.
+	 *
+	 * @param item
+	 * 		the item to read from, not null
+	 * @return the title, null if it cannot be read
+	 */
+	private static CharSequence readTitle(final LibraryItem item) {
+		try {
+			return item.getTitle();
+		} catch (final LibraryReadException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the subtitle of an item.
+	 *
+	 * @param item
+	 * 		the item to read from, not null
+	 * @return the subtitle, null if it cannot be read
+	 */
+	private static CharSequence readSubtitle(final LibraryItem item) {
+		try {
+			return item.getSubtitle();
+		} catch (final LibraryReadException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A request to load the results, which waits for the source list to load and be indexed.
+	 */
+	private class SearchLoad extends SimpleLoadHandle implements DataLoadedListener<List<D>> {
+		/**
+		 * The callback to deliver the results to, may be null.
+		 */
+		private final DataLoadedListener<List<D>> callback;
+
+		/**
+		 * The handle for the source load, null until the source load has started.
+		 */
+		private volatile LoadHandle sourceHandle;
+
+		/**
+		 * Constructs a new SearchLoad.
+		 *
+		 * @param callback
+		 * 		the callback to deliver the results to, may be null
+		 */
+		private SearchLoad(final DataLoadedListener<List<D>> callback) {
+			this.callback = callback;
+		}
+
+		/**
+		 * @param sourceHandle
+		 * 		the handle for the source load, not null
+		 */
+		private void setSourceHandle(final LoadHandle sourceHandle) {
+			this.sourceHandle = sourceHandle;
+
+			if (isCancelled()) {
+				sourceHandle.cancel();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			super.cancel();
+
+			final LoadHandle handle = sourceHandle;
+
+			if (handle != null) {
+				handle.cancel();
+			}
+		}
+
+		@Override
+		public void onDataLoaded(final BaseDataSource<List<D>> source, final List<D> data) {
+			if (containsDuplicateInstances(data)) {
+				deliverLoadDataFailed(this, callback);
+				return;
+			}
+
+			waitingLoads.add(this);
+			setSourceItems(data);
+		}
+
+		@Override
+		public void onLoadDataFailed(final BaseDataSource<List<D>> source) {
+			deliverLoadDataFailed(this, callback);
+		}
+	}
+
+	/**
+	 * Keeps the copy of the source list and the index up to date with the source.
+	 */
+	private class SourceListener implements DataReplacedListener<List<D>>,
+			DataModifiedListener<List<D>>, ItemAddedListener<D>, ItemRemovedListener<D>,
+			ItemFieldsModifiedListener<D>, ItemMovedListener<D> {
+		@Override
+		public void onDataReplaced(final BaseDataSource<List<D>> source, final List<D> oldData,
+				final List<D> newData) {
+			setSourceItems(newData);
+		}
+
+		@Override
+		public void onDataModified(final BaseDataSource<List<D>> source, final List<D> data) {
+			// Any item may have changed, so everything must be read again
+			searchIndex.clear();
+			setSourceItems(data);
+		}
+
+		@Override
+		public void onDataAdded(final ListDataSource<D> source, final D added, final int index) {
+			// Item events before the first load are covered by the list the load delivers
+			if (sourceItems == null) {
+				return;
+			}
+
+			sourceItems.add(index, added);
+			pendingItems.add(added);
+			readPendingItems();
+		}
+
+		@Override
+		public void onDataRemoved(final ListDataSource<D> source, final D removed,
+				final int index) {
+			if (sourceItems == null) {
+				return;
+			}
+
+			sourceItems.remove(index);
+			removeItem(removed);
+			publishIfIndexed();
+		}
+
+		@Override
+		public void onItemModified(final ListDataSource<D> source, final D modified,
+				final int index) {
+			if (sourceItems == null) {
+				return;
+			}
+
+			final D replaced = sourceItems.set(index, modified);
+
+			if (replaced != modified) {
+				removeItem(replaced);
+			}
+
+			pendingItems.add(modified);
+			readPendingItems();
+		}
+
+		@Override
+		public void onItemFieldsModified(final ListDataSource<D> source, final D modified,
+				final int index, final Set<LibraryItemField> fields) {
+			if (sourceItems == null) {
+				return;
+			}
+
+			if (fields.contains(LibraryItemField.TITLE) ||
+					fields.contains(LibraryItemField.SUBTITLE) ||
+					sourceItems.get(index) != modified) {
+				onItemModified(source, modified, index);
+			} else if (results != null && !resultsStale && results.containsInstance(modified)) {
+				// The text is unchanged, so only the views of the item need to be updated
+				notifyItemModified(modified, results.indexOfInstance(modified), fields);
+			}
+		}
+
+		@Override
+		public void onDataMoved(final ListDataSource<D> source, final D moved,
+				final int initialIndex, final int finalIndex) {
+			// The results are ranked rather than kept in source order, so only the copy changes
+			if (sourceItems != null) {
+				sourceItems.move(initialIndex, finalIndex);
+			}
+		}
+	}
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A bigram and trigram inverted index over the titles and subtitles of items, which answers prefix
+ * and substring queries without reading the items. Text is normalised before it is indexed or
+ * searched, so matching ignores case, accents and repeated whitespace.
+ * <p>
+ * Queries of three or more characters only examine the items which contain the rarest trigram of
+ * the query, and queries of two characters only examine the items which contain the query as a
+ * bigram. Single character queries match most items anyway, so they are answered by scanning the
+ * indexed text. Results are ranked so that
+ * items with titles which start with the query come first, followed by items with a word which
+ * starts with the query, followed by all other matches. Items of equal rank are ordered by title.
+ * <p>
+ * Items are indexed by identity. This class is not thread safe.
+ *
+ * @param <D>
+ * 		the type of items in the index
+ */
+@Tested(testMethod = "automated")
+public class SearchIndex<D> {
+	/**
+	 * The number of characters in the shortest indexed grams.
+	 */
+	private static final int MIN_GRAM_LENGTH = 2;
+
+	/**
+	 * The number of characters in the longest indexed grams.
+	 */
+	private static final int MAX_GRAM_LENGTH = 3;
+
+	/**
+	 * Separates the title and subtitle in the indexed text. Normalised queries never contain this
+	 * character, so matches cannot span both fields.
+	 */
+	private static final char FIELD_SEPARATOR = '\n';
+
+	/**
+	 * Matches the combining marks left behind by decomposing accented characters.
+	 */
+	private static final Pattern COMBINING_MARKS = Pattern.compile(
+			"\\p{InCombiningDiacriticalMarks}+");
+
+	/**
+	 * Matches runs of whitespace.
+	 */
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * Rank of items with titles which start with the query.
+	 */
+	private static final int RANK_TITLE_PREFIX = 0;
+
+	/**
+	 * Rank of items with a word which starts with the query.
+	 */
+	private static final int RANK_WORD_PREFIX = 1;
+
+	/**
+	 * Rank of items which contain the query anywhere else.
+	 */
+	private static final int RANK_SUBSTRING = 2;
+
+	/**
+	 * The indexed text of each item.
+	 */
+	private final Map<D, Entry> entries = new IdentityHashMap<>();
+
+	/**
+	 * Maps each bigram and trigram to the items which contain it. Grams are packed into longs, and
+	 * the sets never contain null and are never empty.
+	 */
+	private final Map<Long, Set<D>> postings = new HashMap<>();
+
+	/**
+	 * Adds an item to the index, replacing any text previously indexed for it.
+	 *
+	 * @param item
+	 * 		the item to index, not null
+	 * @param title
+	 * 		the title of the item, null if it has none
+	 * @param subtitle
+	 * 		the subtitle of the item, null if it has none
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 */
+	public void put(final D item, final CharSequence title, final CharSequence subtitle) {
+		checkNotNull(item, "item cannot be null.");
+
+		remove(item);
+
+		final Entry entry = new Entry(normalize(title), normalize(subtitle));
+		entries.put(item, entry);
+
+		for (final Long gram : getIndexedGrams(entry.text)) {
+			Set<D> posting = postings.get(gram);
+
+			if (posting == null) {
+				posting = Collections.newSetFromMap(new IdentityHashMap<D, Boolean>());
+				postings.put(gram, posting);
+			}
+
+			posting.add(item);
+		}
+	}
+
+	/**
+	 * Removes an item from the index.
+	 *
+	 * @param item
+	 * 		the item to remove
+	 * @return true if the item was in the index, false otherwise
+	 */
+	public boolean remove(final D item) {
+		final Entry entry = entries.remove(item);
+
+		if (entry == null) {
+			return false;
+		}
+
+		for (final Long gram : getIndexedGrams(entry.text)) {
+			final Set<D> posting = postings.get(gram);
+
+			posting.remove(item);
+
+			if (posting.isEmpty()) {
+				postings.remove(gram);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param item
+	 * 		the item to check
+	 * @return true if the item is in the index, false otherwise
+	 */
+	public boolean contains(final D item) {
+		return entries.containsKey(item);
+	}
+
+	/**
+	 * @return the number of items in the index
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Removes all items from the index.
+	 */
+	public void clear() {
+		entries.clear();
+		postings.clear();
+	}
+
+	/**
+	 * Finds the items which match a query, in ranked order. An empty query matches nothing.
+	 *
+	 * @param query
+	 * 		the text to search for, null is treated as empty
+	 * @return the matching items, not null
+	 */
+	public List<D> search(final CharSequence query) {
+		final String normalizedQuery = normalize(query);
+
+		if (normalizedQuery.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		// Rank each match once, rather than on every comparison made by the sort
+		final List<Match<D>> matches = new ArrayList<>();
+
+		for (final D candidate : getCandidates(normalizedQuery)) {
+			final Entry entry = entries.get(candidate);
+
+			if (entry.text.contains(normalizedQuery)) {
+				matches.add(new Match<>(candidate, entry, entry.getRank(normalizedQuery)));
+			}
+		}
+
+		Collections.sort(matches);
+
+		final List<D> results = new ArrayList<>(matches.size());
+
+		for (final Match<D> match : matches) {
+			results.add(match.item);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Determines whether or not an item matches a query.
+	 *
+	 * @param item
+	 * 		the item to check
+	 * @param query
+	 * 		the text to search for, null is treated as empty
+	 * @return true if the item is in the index and matches the query, false otherwise
+	 */
+	public boolean matches(final D item, final CharSequence query) {
+		final String normalizedQuery = normalize(query);
+		final Entry entry = entries.get(item);
+
+		return entry != null && !normalizedQuery.isEmpty() &&
+				entry.text.contains(normalizedQuery);
+	}
+
+	/**
+	 * Creates a comparator which orders items in the same way as {@link #search(CharSequence)}.
+	 * The comparator only supports items which are in the index and match the query, and it
+	 * reflects the index at the time of comparison.
+	 *
+	 * @param query
+	 * 		the text to search for, null is treated as empty
+	 * @return the comparator, not null
+	 */
+	public Comparator<D> createComparator(final CharSequence query) {
+		final String normalizedQuery = normalize(query);
+
+		return new Comparator<D>() {
+			@Override
+			public int compare(final D item1, final D item2) {
+				final Entry entry1 = entries.get(item1);
+				final Entry entry2 = entries.get(item2);
+
+				return compareRanked(entry1, entry1.getRank(normalizedQuery), entry2,
+						entry2.getRank(normalizedQuery));
+			}
+		};
+	}
+
+	/**
+	 * Normalises text for indexing or searching by removing accents, converting to lower case,
+	 * collapsing runs of whitespace to single spaces and trimming the ends.
+	 *
+	 * @param text
+	 * 		the text to normalise, null is treated as empty
+	 * @return the normalised text, not null
+	 */
+	public static String normalize(final CharSequence text) {
+		if (text == null || text.length() == 0) {
+			return "";
+		}
+
+		final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		final String unaccented = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+		final String lowerCase = unaccented.toLowerCase(Locale.ROOT);
+
+		return WHITESPACE.matcher(lowerCase).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Returns the items which could match a normalised query, without checking that they do.
+	 *
+	 * @param normalizedQuery
+	 * 		the normalised query, not empty
+	 * @return the candidates, not null
+	 */
+	private Collection<D> getCandidates(final String normalizedQuery) {
+		if (normalizedQuery.length() < MIN_GRAM_LENGTH) {
+			return entries.keySet();
+		}
+
+		final int gramLength = Math.min(normalizedQuery.length(), MAX_GRAM_LENGTH);
+		Set<D> smallestPosting = null;
+
+		for (final Long gram : getGrams(normalizedQuery, gramLength)) {
+			final Set<D> posting = postings.get(gram);
+
+			if (posting == null) {
+				return Collections.emptySet();
+			} else if (smallestPosting == null || posting.size() < smallestPosting.size()) {
+				smallestPosting = posting;
+			}
+		}
+
+		return smallestPosting;
+	}
+
+	/**
+	 * Orders two matches by rank, and then by their indexed text.
+	 *
+	 * @param entry1
+	 * 		the entry of the first match, not null
+	 * @param rank1
+	 * 		the rank of the first match
+	 * @param entry2
+	 * 		the entry of the second match, not null
+	 * @param rank2
+	 * 		the rank of the second match
+	 * @return a negative number, zero or a positive number if the first match is ordered before,
+	 * with or after the second match
+	 */
+	private static int compareRanked(final Entry entry1, final int rank1, final Entry entry2,
+			final int rank2) {
+		if (rank1 != rank2) {
+			return rank1 < rank2 ? -1 : 1;
+		} else {
+			return entry1.text.compareTo(entry2.text);
+		}
+	}
+
+	/**
+	 * @param text
+	 * 		the text to split into grams, not null
+	 * @return the distinct bigrams and trigrams of the text packed into longs, not null
+	 */
+	private static Set<Long> getIndexedGrams(final String text) {
+		final Set<Long> grams = new HashSet<>();
+
+		for (int length = MIN_GRAM_LENGTH; length <= MAX_GRAM_LENGTH; length++) {
+			grams.addAll(getGrams(text, length));
+		}
+
+		return grams;
+	}
+
+	/**
+	 * Splits text into grams and packs each gram into a long. Each character takes 16 bits and the
+	 * gram length is stored above the characters, so grams of different lengths never collide.
+	 *
+	 * @param text
+	 * 		the text to split into grams, not null
+	 * @param length
+	 * 		the number of characters in each gram, at most {@link #MAX_GRAM_LENGTH}
+	 * @return the distinct grams of the text packed into longs, not null
+	 */
+	private static Set<Long> getGrams(final String text, final int length) {
+		final Set<Long> grams = new HashSet<>();
+
+		for (int i = 0; i + length <= text.length(); i++) {
+			long gram = length;
+
+			for (int j = i; j < i + length; j++) {
+				gram = (gram << 16) | text.charAt(j);
+			}
+
+			grams.add(gram);
+		}
+
+		return grams;
+	}
+
+	/**
+	 * An item which matches a query, along with its rank for the query.
+	 *
+	 * @param <D>
+	 * 		the type of the item
+	 */
+	private static final class Match<D> implements Comparable<Match<D>> {
+		/**
+		 * The matching item, not null.
+		 */
+		private final D item;
+
+		/**
+		 * The indexed text of the item, not null.
+		 */
+		private final Entry entry;
+
+		/**
+		 * The rank of the item for the query.
+		 */
+		private final int rank;
+
+		/**
+		 * Constructs a new Match.
+		 *
+		 * @param item
+		 * 		the matching item, not null
+		 * @param entry
+		 * 		the indexed text of the item, not null
+		 * @param rank
+		 * 		the rank of the item for the query
+		 */
+		private Match(final D item, final Entry entry, final int rank) {
+			this.item = item;
+			this.entry = entry;
+			this.rank = rank;
+		}
+
+		@Override
+		public int compareTo(final Match<D> other) {
+			return compareRanked(entry, rank, other.entry, other.rank);
+		}
+	}
+
+	/**
+	 * The normalised text of an indexed item.
+	 */
+	private static final class Entry {
+		/**
+		 * The normalised title, not null.
+		 */
+		private final String title;
+
+		/**
+		 * The normalised title and subtitle joined by the field separator, not null.
+		 */
+		private final String text;
+
+		/**
+		 * Constructs a new Entry.
+		 *
+		 * @param title
+		 * 		the normalised title, not null
+		 * @param subtitle
+		 * 		the normalised subtitle, not null
+		 */
+		private Entry(final String title, final String subtitle) {
+			this.title = title;
+			this.text = title + FIELD_SEPARATOR + subtitle;
+		}
+
+		/**
+		 * @param normalizedQuery
+		 * 		a normalised query which this entry matches, not empty
+		 * @return the rank of this entry for the query
+		 */
+		private int getRank(final String normalizedQuery) {
+			if (title.startsWith(normalizedQuery)) {
+				return RANK_TITLE_PREFIX;
+			} else if (text.contains(" " + normalizedQuery) ||
+					text.contains(FIELD_SEPARATOR + normalizedQuery)) {
+				return RANK_WORD_PREFIX;
+			} else {
+				return RANK_SUBSTRING;
+			}
+		}
+	}
+}
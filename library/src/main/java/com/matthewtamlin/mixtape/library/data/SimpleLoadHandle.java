@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
+
+/**
+ * A simple thread safe implementation of the LoadHandle interface which records whether or not it
+ * has been cancelled. Data sources should check {@link #isCancelled()} immediately before
+ * delivering the result of a load.
+ */
+public class SimpleLoadHandle implements LoadHandle {
+	/**
+	 * Whether or not this handle has been cancelled.
+	 */
+	private volatile boolean cancelled = false;
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
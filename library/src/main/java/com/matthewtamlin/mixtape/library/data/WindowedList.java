@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.data;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThan;
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThanOrEqualTo;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A read-only list of fixed size which only holds a window of its contents in memory. The list is
+ * divided into pages of equal size (except for the last page which may be shorter). Accessing an
+ * index in a page which is not loaded returns null and requests the page from the page loader.
+ * Once the page is supplied via {@link #setPage(int, List)}, subsequent accesses return the loaded
+ * items. To keep memory usage roughly constant, the list never holds more than a fixed number of
+ * pages, and the pages furthest from the most recently accessed page are evicted first.
+ * <p>
+ * This class is not thread safe and should only be accessed from the UI thread.
+ *
+ * @param <D>
+ * 		the type of items in the list
+ */
+@Tested(testMethod = "automated")
+public class WindowedList<D> extends AbstractList<D> {
+	/**
+	 * The total number of items in the list, including items which are not loaded.
+	 */
+	private final int size;
+
+	/**
+	 * The number of items in each page.
+	 */
+	private final int pageSize;
+
+	/**
+	 * The maximum number of pages to hold in memory at once.
+	 */
+	private final int maxResidentPages;
+
+	/**
+	 * Loads pages when they are requested.
+	 */
+	private final PageLoader<D> pageLoader;
+
+	/**
+	 * The pages which are currently loaded, mapped by page index.
+	 */
+	private final Map<Integer, List<D>> loadedPages = new HashMap<>();
+
+	/**
+	 * The indices of pages which have been requested but not yet supplied.
+	 */
+	private final Set<Integer> requestedPages = new HashSet<>();
+
+	/**
+	 * The index of the page most recently accessed by {@link #get(int)}.
+	 */
+	private int lastAccessedPage = 0;
+
+	/**
+	 * Constructs a new WindowedList.
+	 *
+	 * @param size
+	 * 		the total number of items in the list, not less than zero
+	 * @param pageSize
+	 * 		the number of items in each page, greater than zero
+	 * @param maxResidentPages
+	 * 		the maximum number of pages to hold in memory at once, greater than zero
+	 * @param pageLoader
+	 * 		loads pages when they are requested, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code size} is less than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code pageSize} is not greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxResidentPages} is not greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code pageLoader} is null
+	 */
+	public WindowedList(final int size, final int pageSize, final int maxResidentPages,
+			final PageLoader<D> pageLoader) {
+		this.size = checkGreaterThanOrEqualTo(size, 0);
+		this.pageSize = checkGreaterThan(pageSize, 0);
+		this.maxResidentPages = checkGreaterThan(maxResidentPages, 0);
+		this.pageLoader = checkNotNull(pageLoader, "pageLoader cannot be null.");
+	}
+
+	/**
+	 * Returns the item at the supplied index if it is loaded. If the item is not loaded then null is
+	 * returned and the containing page is requested from the page loader.
+	 *
+	 * @param index
+	 * 		the index of the item to get
+	 * @return the item, null if it is not loaded
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code index} is outside the bounds of the list
+	 */
+	@Override
+	public D get(final int index) {
+		checkIndex(index);
+
+		final int pageIndex = index / pageSize;
+		lastAccessedPage = pageIndex;
+
+		final List<D> page = loadedPages.get(pageIndex);
+
+		if (page == null) {
+			requestPage(pageIndex);
+			return null;
+		} else {
+			return page.get(index - getPageStart(pageIndex));
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Supplies the contents of a page. The number of supplied items must match the size of the
+	 * page. Pages may be supplied even if they were not requested. If supplying the page causes the
+	 * list to exceed the maximum number of resident pages, the pages furthest from the most recently
+	 * accessed page are evicted.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page
+	 * @param items
+	 * 		the items in the page, not null
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code pageIndex} does not refer to a page in this list
+	 * @throws IllegalArgumentException
+	 * 		if {@code items} is null
+	 * @throws IllegalArgumentException
+	 * 		if the number of items does not match the size of the page
+	 */
+	public void setPage(final int pageIndex, final List<D> items) {
+		checkPageIndex(pageIndex);
+		checkNotNull(items, "items cannot be null.");
+
+		if (items.size() != getPageLength(pageIndex)) {
+			throw new IllegalArgumentException("Expected " + getPageLength(pageIndex) + " items " +
+					"for page " + pageIndex + " but received " + items.size() + ".");
+		}
+
+		requestedPages.remove(pageIndex);
+		loadedPages.put(pageIndex, new ArrayList<>(items));
+
+		evictDistantPages();
+	}
+
+	/**
+	 * Records that a requested page could not be supplied, so that it will be requested again the
+	 * next time one of its items is accessed.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page
+	 */
+	public void onPageLoadFailed(final int pageIndex) {
+		requestedPages.remove(pageIndex);
+	}
+
+	/**
+	 * @return the number of items in each page
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @return the maximum number of pages which are held in memory at once
+	 */
+	public int getMaxResidentPages() {
+		return maxResidentPages;
+	}
+
+	/**
+	 * @return the total number of pages in the list, including pages which are not loaded
+	 */
+	public int getPageCount() {
+		return (size + pageSize - 1) / pageSize;
+	}
+
+	/**
+	 * @return the number of pages currently held in memory
+	 */
+	public int getLoadedPageCount() {
+		return loadedPages.size();
+	}
+
+	/**
+	 * Returns the index of the first item in the supplied page.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page
+	 * @return the index of the first item in the page
+	 */
+	public int getPageStart(final int pageIndex) {
+		return pageIndex * pageSize;
+	}
+
+	/**
+	 * Returns the number of items in the supplied page. All pages contain {@link #getPageSize()}
+	 * items except for the last page, which may contain fewer.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page
+	 * @return the number of items in the page
+	 */
+	public int getPageLength(final int pageIndex) {
+		return Math.min(pageSize, size - getPageStart(pageIndex));
+	}
+
+	/**
+	 * Determines whether or not the item at the supplied index is currently loaded. Unlike {@link
+	 * #get(int)}, this method never causes pages to be requested.
+	 *
+	 * @param index
+	 * 		the index of the item
+	 * @return true if the item is loaded, false otherwise
+	 */
+	public boolean isLoaded(final int index) {
+		checkIndex(index);
+		return loadedPages.containsKey(index / pageSize);
+	}
+
+	/**
+	 * Requests the supplied page from the page loader unless it has already been requested.
+	 *
+	 * @param pageIndex
+	 * 		the index of the page to request
+	 */
+	private void requestPage(final int pageIndex) {
+		if (requestedPages.add(pageIndex)) {
+			pageLoader.onPageRequested(this, pageIndex);
+		}
+	}
+
+	/**
+	 * Evicts loaded pages until the maximum number of resident pages is not exceeded. The pages
+	 * furthest from the most recently accessed page are evicted first.
+	 */
+	private void evictDistantPages() {
+		while (loadedPages.size() > maxResidentPages) {
+			int furthestPage = -1;
+			int furthestDistance = -1;
+
+			for (final Integer pageIndex : loadedPages.keySet()) {
+				final int distance = Math.abs(pageIndex - lastAccessedPage);
+
+				if (distance > furthestDistance) {
+					furthestPage = pageIndex;
+					furthestDistance = distance;
+				}
+			}
+
+			loadedPages.remove(furthestPage);
+		}
+	}
+
+	/**
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code index} is outside the bounds of the list
+	 */
+	private void checkIndex(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * @throws IndexOutOfBoundsException
+	 * 		if {@code pageIndex} does not refer to a page in this list
+	 */
+	private void checkPageIndex(final int pageIndex) {
+		if (pageIndex < 0 || pageIndex >= getPageCount()) {
+			throw new IndexOutOfBoundsException("Page: " + pageIndex + ", Pages: " +
+					getPageCount());
+		}
+	}
+
+	/**
+	 * Callback to be invoked when a WindowedList requires a page which is not loaded.
+	 *
+	 * @param <D>
+	 * 		the type of items in the list
+	 */
+	public interface PageLoader<D> {
+		/**
+		 * Invoked when a page is required. The implementation should load the page asynchronously
+		 * and then pass the result to {@link WindowedList#setPage(int, List)}, or call {@link
+		 * WindowedList#onPageLoadFailed(int)} if the page cannot be loaded.
+		 *
+		 * @param list
+		 * 		the list which requires the page, not null
+		 * @param pageIndex
+		 * 		the index of the required page
+		 */
+		void onPageRequested(WindowedList<D> list, int pageIndex);
+	}
+}
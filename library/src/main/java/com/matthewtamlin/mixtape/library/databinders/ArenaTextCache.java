@@ -0,0 +1,660 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThan;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A MetadataCache for text which stores values as UTF-8 bytes in large contiguous arenas instead
+ * of as individual objects. Identical values are stored once and shared by every item which
+ * returns them, which suits libraries where the same artist or album name appears on many items.
+ * The arenas can optionally be allocated outside of the Java heap. Lookups return lightweight
+ * CharSequence views of the stored bytes, and no String is created unless the view is converted
+ * or contains non-ASCII characters.
+ * <p>
+ * Stored values are never evicted individually. Once the byte budget is exhausted, every entry is
+ * discarded and the cache starts filling again. Views returned before that point remain valid.
+ * IdentifiableLibraryItems are keyed on their ids, and all other items are never cached. Values
+ * longer than {@link #MAX_VALUE_BYTES} bytes once encoded, or too large for the byte budget, are
+ * not cached. This class is thread safe.
+ */
+@Tested(testMethod = "automated")
+public class ArenaTextCache implements MetadataCache<CharSequence> {
+	/**
+	 * The largest value which can be cached, measured in encoded bytes.
+	 */
+	public static final int MAX_VALUE_BYTES = 0xFFFF;
+
+	/**
+	 * The size of each arena, measured in bytes.
+	 */
+	private static final int ARENA_SIZE = 64 * 1024;
+
+	/**
+	 * The size of the header stored before each value, measured in bytes. The header holds the
+	 * encoded length and the character length as unsigned shorts.
+	 */
+	private static final int HEADER_SIZE = 4;
+
+	/**
+	 * The initial capacity of the hash tables. Always a power of two.
+	 */
+	private static final int INITIAL_TABLE_CAPACITY = 64;
+
+	/**
+	 * The charset used to encode values.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * The maximum number of bytes to store across all arenas.
+	 */
+	private final int maxBytes;
+
+	/**
+	 * Whether or not arenas are allocated outside of the Java heap.
+	 */
+	private final boolean offHeap;
+
+	/**
+	 * The arenas allocated so far. Values are appended to the last arena.
+	 */
+	private List<ByteBuffer> arenas = new ArrayList<>();
+
+	/**
+	 * The number of bytes used in the last arena.
+	 */
+	private int lastArenaUsed = 0;
+
+	/**
+	 * The total number of bytes used across all arenas.
+	 */
+	private int usedBytes = 0;
+
+	/**
+	 * The item ids in the item table.
+	 */
+	private long[] itemIds;
+
+	/**
+	 * The handle of the value for each item in the item table, plus one. Zero marks an empty slot.
+	 */
+	private long[] itemHandles;
+
+	/**
+	 * The number of items in the item table.
+	 */
+	private int itemCount;
+
+	/**
+	 * The handle of each distinct value, plus one. Zero marks an empty slot. Used to deduplicate
+	 * values, and indexed by the hash of the encoded bytes.
+	 */
+	private long[] valueHandles;
+
+	/**
+	 * The number of distinct values in the value table.
+	 */
+	private int valueCount;
+
+	/**
+	 * Constructs a new ArenaTextCache which stores values on the Java heap.
+	 *
+	 * @param maxBytes
+	 * 		the maximum number of bytes to store, greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxBytes} is not greater than zero
+	 */
+	public ArenaTextCache(final int maxBytes) {
+		this(maxBytes, false);
+	}
+
+	/**
+	 * Constructs a new ArenaTextCache.
+	 *
+	 * @param maxBytes
+	 * 		the maximum number of bytes to store, greater than zero
+	 * @param offHeap
+	 * 		true to allocate arenas as direct buffers outside of the Java heap, false to allocate
+	 * 		them on the heap
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxBytes} is not greater than zero
+	 */
+	public ArenaTextCache(final int maxBytes, final boolean offHeap) {
+		this.maxBytes = checkGreaterThan(maxBytes, 0);
+		this.offHeap = offHeap;
+
+		resetTables();
+	}
+
+	@Override
+	public synchronized CharSequence get(final LibraryItem item) {
+		if (!(item instanceof IdentifiableLibraryItem)) {
+			return null;
+		}
+
+		final int slot = findItemSlot(((IdentifiableLibraryItem) item).getId());
+
+		return slot == -1 ? null : createView(itemHandles[slot] - 1);
+	}
+
+	@Override
+	public synchronized void put(final LibraryItem item, final CharSequence value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		if (!(item instanceof IdentifiableLibraryItem)) {
+			return;
+		}
+
+		final byte[] bytes = value.toString().getBytes(UTF_8);
+
+		// Values which could never fit in the budget would otherwise discard every entry
+		if (bytes.length > MAX_VALUE_BYTES || HEADER_SIZE + bytes.length > maxBytes) {
+			return;
+		}
+
+		final long handle = storeValue(bytes, value.length());
+		final long id = ((IdentifiableLibraryItem) item).getId();
+		final int existingSlot = findItemSlot(id);
+
+		if (existingSlot == -1) {
+			insertItem(id, handle);
+		} else {
+			itemHandles[existingSlot] = handle + 1;
+		}
+	}
+
+	@Override
+	public synchronized void remove(final LibraryItem item) {
+		if (!(item instanceof IdentifiableLibraryItem)) {
+			return;
+		}
+
+		final int slot = findItemSlot(((IdentifiableLibraryItem) item).getId());
+
+		if (slot != -1) {
+			removeItemSlot(slot);
+		}
+	}
+
+	@Override
+	public synchronized void evictAll() {
+		arenas = new ArrayList<>();
+		lastArenaUsed = 0;
+		usedBytes = 0;
+		resetTables();
+	}
+
+	/**
+	 * @return the number of items which currently have a cached value
+	 */
+	public synchronized int size() {
+		return itemCount;
+	}
+
+	/**
+	 * @return the number of distinct values currently stored
+	 */
+	public synchronized int getDistinctValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * @return the number of bytes currently used to store values, including headers
+	 */
+	public synchronized int getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * @return the maximum number of bytes to store
+	 */
+	public int getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return true if arenas are allocated outside of the Java heap, false otherwise
+	 */
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	/**
+	 * Returns the handle of a stored copy of the supplied value, storing it if no identical value
+	 * is already stored. If the value does not fit within the byte budget, every entry is
+	 * discarded first.
+	 *
+	 * @param bytes
+	 * 		the encoded value, not null
+	 * @param charLength
+	 * 		the number of characters in the value
+	 * @return the handle of the stored value
+	 */
+	private long storeValue(final byte[] bytes, final int charLength) {
+		final int hash = hashBytes(bytes);
+		int slot = hash & (valueHandles.length - 1);
+
+		while (valueHandles[slot] != 0) {
+			if (contentEquals(valueHandles[slot] - 1, bytes)) {
+				return valueHandles[slot] - 1;
+			}
+
+			slot = (slot + 1) & (valueHandles.length - 1);
+		}
+
+		final int recordSize = HEADER_SIZE + bytes.length;
+
+		if (usedBytes + recordSize > maxBytes) {
+			evictAll();
+			return storeValue(bytes, charLength);
+		}
+
+		final long handle = append(bytes, charLength);
+
+		valueHandles[slot] = handle + 1;
+		valueCount++;
+
+		if (valueCount * 4 > valueHandles.length * 3) {
+			growValueTable();
+		}
+
+		return handle;
+	}
+
+	/**
+	 * Appends a record to the arenas, allocating a new arena if the record does not fit in the
+	 * current one.
+	 *
+	 * @param bytes
+	 * 		the encoded value, not null
+	 * @param charLength
+	 * 		the number of characters in the value
+	 * @return the handle of the record, which combines the arena index and the offset within it
+	 */
+	private long append(final byte[] bytes, final int charLength) {
+		final int recordSize = HEADER_SIZE + bytes.length;
+
+		if (arenas.isEmpty() || lastArenaUsed + recordSize > arenas.get(arenas.size() - 1)
+				.capacity()) {
+			final int arenaSize = Math.max(ARENA_SIZE, recordSize);
+			arenas.add(offHeap ? ByteBuffer.allocateDirect(arenaSize) : ByteBuffer.allocate
+					(arenaSize));
+			lastArenaUsed = 0;
+		}
+
+		final int arenaIndex = arenas.size() - 1;
+		final ByteBuffer arena = arenas.get(arenaIndex);
+		final int offset = lastArenaUsed;
+
+		arena.putShort(offset, (short) bytes.length);
+		arena.putShort(offset + 2, (short) charLength);
+
+		for (int i = 0; i < bytes.length; i++) {
+			arena.put(offset + HEADER_SIZE + i, bytes[i]);
+		}
+
+		lastArenaUsed += recordSize;
+		usedBytes += recordSize;
+
+		return ((long) arenaIndex << 32) | offset;
+	}
+
+	/**
+	 * Determines whether or not the stored value for a handle matches the supplied bytes.
+	 *
+	 * @param handle
+	 * 		the handle of a stored value
+	 * @param bytes
+	 * 		the encoded value to compare against, not null
+	 * @return true if the values are identical, false otherwise
+	 */
+	private boolean contentEquals(final long handle, final byte[] bytes) {
+		final ByteBuffer arena = arenas.get((int) (handle >>> 32));
+		final int offset = (int) handle;
+
+		if ((arena.getShort(offset) & 0xFFFF) != bytes.length) {
+			return false;
+		}
+
+		for (int i = 0; i < bytes.length; i++) {
+			if (arena.get(offset + HEADER_SIZE + i) != bytes[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Creates a view of the value stored for a handle.
+	 *
+	 * @param handle
+	 * 		the handle of a stored value
+	 * @return the view, not null
+	 */
+	private CharSequence createView(final long handle) {
+		final ByteBuffer arena = arenas.get((int) (handle >>> 32));
+		final int offset = (int) handle;
+
+		return new ArenaText(arena, offset + HEADER_SIZE, arena.getShort(offset) & 0xFFFF,
+				arena.getShort(offset + 2) & 0xFFFF);
+	}
+
+	/**
+	 * Finds the item table slot for an id.
+	 *
+	 * @param id
+	 * 		the id to find
+	 * @return the slot, -1 if the id is not in the table
+	 */
+	private int findItemSlot(final long id) {
+		final int mask = itemIds.length - 1;
+		int slot = slotFor(id, mask);
+
+		while (itemHandles[slot] != 0) {
+			if (itemIds[slot] == id) {
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Inserts an id which is not already present into the item table.
+	 *
+	 * @param id
+	 * 		the id to insert
+	 * @param handle
+	 * 		the handle of the value for the id
+	 */
+	private void insertItem(final long id, final long handle) {
+		final int mask = itemIds.length - 1;
+		int slot = slotFor(id, mask);
+
+		while (itemHandles[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		itemIds[slot] = id;
+		itemHandles[slot] = handle + 1;
+		itemCount++;
+
+		if (itemCount * 4 > itemIds.length * 3) {
+			growItemTable();
+		}
+	}
+
+	/**
+	 * Removes an occupied slot from the item table, and then shifts any following slots in the
+	 * same probe sequence back to fill the gap.
+	 *
+	 * @param slot
+	 * 		the slot to remove
+	 */
+	private void removeItemSlot(final int slot) {
+		final int mask = itemIds.length - 1;
+		int hole = slot;
+		int current = slot;
+
+		itemHandles[hole] = 0;
+		itemCount--;
+
+		while (true) {
+			current = (current + 1) & mask;
+
+			if (itemHandles[current] == 0) {
+				return;
+			}
+
+			final int ideal = slotFor(itemIds[current], mask);
+
+			if (((current - ideal) & mask) >= ((current - hole) & mask)) {
+				itemIds[hole] = itemIds[current];
+				itemHandles[hole] = itemHandles[current];
+				itemHandles[current] = 0;
+				hole = current;
+			}
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the item table.
+	 */
+	private void growItemTable() {
+		final long[] oldIds = itemIds;
+		final long[] oldHandles = itemHandles;
+
+		itemIds = new long[oldIds.length * 2];
+		itemHandles = new long[oldIds.length * 2];
+		itemCount = 0;
+
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldHandles[i] != 0) {
+				insertItem(oldIds[i], oldHandles[i] - 1);
+			}
+		}
+	}
+
+	/**
+	 * Doubles the capacity of the value table.
+	 */
+	private void growValueTable() {
+		final long[] oldHandles = valueHandles;
+		final int mask = oldHandles.length * 2 - 1;
+
+		valueHandles = new long[oldHandles.length * 2];
+
+		for (final long storedHandle : oldHandles) {
+			if (storedHandle != 0) {
+				int slot = hashStoredValue(storedHandle - 1) & mask;
+
+				while (valueHandles[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+
+				valueHandles[slot] = storedHandle;
+			}
+		}
+	}
+
+	/**
+	 * Discards the contents of both hash tables.
+	 */
+	private void resetTables() {
+		itemIds = new long[INITIAL_TABLE_CAPACITY];
+		itemHandles = new long[INITIAL_TABLE_CAPACITY];
+		itemCount = 0;
+		valueHandles = new long[INITIAL_TABLE_CAPACITY];
+		valueCount = 0;
+	}
+
+	/**
+	 * Computes the same hash as {@link #hashBytes(byte[])} for a stored value.
+	 *
+	 * @param handle
+	 * 		the handle of a stored value
+	 * @return the hash
+	 */
+	private int hashStoredValue(final long handle) {
+		final ByteBuffer arena = arenas.get((int) (handle >>> 32));
+		final int offset = (int) handle;
+		final int length = arena.getShort(offset) & 0xFFFF;
+
+		int hash = 0x811c9dc5;
+
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ (arena.get(offset + HEADER_SIZE + i) & 0xFF)) * 0x01000193;
+		}
+
+		return mix(hash);
+	}
+
+	/**
+	 * Computes the FNV-1a hash of some bytes.
+	 *
+	 * @param bytes
+	 * 		the bytes to hash, not null
+	 * @return the hash
+	 */
+	private static int hashBytes(final byte[] bytes) {
+		int hash = 0x811c9dc5;
+
+		for (final byte b : bytes) {
+			hash = (hash ^ (b & 0xFF)) * 0x01000193;
+		}
+
+		return mix(hash);
+	}
+
+	/**
+	 * Spreads the bits of a hash so that the low bits are usable as a table index.
+	 */
+	private static int mix(final int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Computes the ideal item table slot for an id.
+	 *
+	 * @param id
+	 * 		the id to compute the slot for
+	 * @param mask
+	 * 		the table capacity minus one
+	 * @return the slot
+	 */
+	private static int slotFor(final long id, final int mask) {
+		long hash = id * 0x9e3779b97f4a7c15L;
+		hash ^= hash >>> 32;
+
+		return (int) hash & mask;
+	}
+
+	/**
+	 * A read-only view of a value stored in an arena. Values which contain only ASCII characters
+	 * are read directly from the arena, and all other values are decoded once on first access.
+	 */
+	private static class ArenaText implements CharSequence {
+		/**
+		 * The arena containing the value.
+		 */
+		private final ByteBuffer arena;
+
+		/**
+		 * The offset of the encoded value within the arena.
+		 */
+		private final int offset;
+
+		/**
+		 * The length of the encoded value, measured in bytes.
+		 */
+		private final int byteLength;
+
+		/**
+		 * The length of the value, measured in characters.
+		 */
+		private final int charLength;
+
+		/**
+		 * The decoded value, null until first needed.
+		 */
+		private String decoded;
+
+		/**
+		 * Constructs a new ArenaText.
+		 *
+		 * @param arena
+		 * 		the arena containing the value, not null
+		 * @param offset
+		 * 		the offset of the encoded value within the arena
+		 * @param byteLength
+		 * 		the length of the encoded value, measured in bytes
+		 * @param charLength
+		 * 		the length of the value, measured in characters
+		 */
+		private ArenaText(final ByteBuffer arena, final int offset, final int byteLength,
+				final int charLength) {
+			this.arena = arena;
+			this.offset = offset;
+			this.byteLength = byteLength;
+			this.charLength = charLength;
+		}
+
+		@Override
+		public int length() {
+			return charLength;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			if (index < 0 || index >= charLength) {
+				throw new IndexOutOfBoundsException("index out of bounds: " + index);
+			}
+
+			// A value is pure ASCII exactly when each character encodes to a single byte
+			if (byteLength == charLength) {
+				return (char) arena.get(offset + index);
+			} else {
+				return toString().charAt(index);
+			}
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public synchronized String toString() {
+			if (decoded == null) {
+				final byte[] bytes = new byte[byteLength];
+
+				for (int i = 0; i < byteLength; i++) {
+					bytes[i] = arena.get(offset + i);
+				}
+
+				decoded = new String(bytes, UTF_8);
+			}
+
+			return decoded;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof ArenaText && toString().equals(obj.toString());
+		}
+
+		@Override
+		public int hashCode() {
+			return toString().hashCode();
+		}
+	}
+}
@@ -16,40 +16,85 @@
 
 package com.matthewtamlin.mixtape.library.databinders;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
 import android.support.v4.util.LruCache;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 
 import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.ArtworkPreview;
 import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
+import com.matthewtamlin.mixtape.library.data.FingerprintedArtworkItem;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.data.PreviewableLibraryItem;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Field;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Result;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
 import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
 
 /**
  * Binds artwork data from LibraryItems to ImageViews. Data is cached as it is loaded to improve
  * future performance, and asynchronous processing is only used if data is not already cached. By
- * default a fade-in effect is used when artwork is bound, but this can be disabled if desired.
+ * default a fade-in effect is used when loaded artwork is bound, but this can be disabled if
+ * desired. Fading is performed by a {@link FadeInDrawable}, so no animators are created. Artwork
+ * which is available without loading, such as cached artwork, is never faded in, and neither is
+ * artwork which is bound while the list is flinging.
+ * <p>
+ * Artwork is decoded at the final size of the target ImageView. The size is taken from the
+ * measured dimensions of the view if it has been laid out, or otherwise from exact dimensions in
+ * its layout parameters. If neither is available, loading is deferred until the view is about to
+ * be drawn. The fallback decoding dimensions are only used for views which are never measured.
+ * <p>
+ * A NegativeResultCache can optionally be supplied to record items which have no artwork or which
+ * fail to return it. Such items are bound synchronously on subsequent binds without being read
+ * again. If the cache is a ContentAddressedArtworkCache, the artwork of FingerprintedArtworkItems
+ * is decoded once per distinct image and shared between all items with the same artwork.
+ * <p>
+ * If an item is a PreviewableLibraryItem, its artwork preview is bound synchronously while the
+ * full artwork loads, and the full artwork is then faded in over the preview.
+ * <p>
+ * While the containing list is flinging faster than the deferral velocity threshold, cached
+ * artwork is still bound immediately but artwork which must be loaded is deferred. Deferred loads
+ * are started once the list slows down or stops, and only for views which are still shown. Views
+ * which implement {@link HostedTarget} are considered shown whenever their host is shown.
+ * <p>
+ * Bind operations are cancelled automatically when the target ImageView is detached from its
+ * window, and restarted if the ImageView is reattached without being rebound. Completed
+ * operations are released immediately, since fading does not need to be cancelled.
  */
 @Tested(testMethod = "automated")
-public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
+public class ArtworkBinder implements ScrollAwareDataBinder<LibraryItem, ImageView>,
+		BatchableDataBinder<LibraryItem, ImageView> {
 	/**
 	 * A record of all bind tasks currently in progress. Each task is mapped to the target
 	 * ImageView.
 	 */
 	private final HashMap<ImageView, BinderTask> tasks = new HashMap<>();
 
+	/**
+	 * Cancels bind operations when their ImageViews are detached, and restarts them when the
+	 * ImageViews are reattached.
+	 */
+	private final AttachStateTracker<LibraryItem, ImageView> attachStateTracker = new
+			AttachStateTracker<>(this);
+
 	/**
 	 * Stores artwork to increase performance and efficiency.
 	 */
+	private final MetadataCache<Drawable> metadataCache;
+
+	/**
+	 * The LruCache supplied at construction, null if a MetadataCache was supplied instead.
+	 */
 	private final LruCache<LibraryItem, Drawable> cache;
 
 	/**
@@ -57,6 +102,11 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 	 */
 	private final DisplayableDefaults defaults;
 
+	/**
+	 * Records items which have no artwork or which fail to return it, null if not used.
+	 */
+	private final NegativeResultCache negativeResultCache;
+
 	/**
 	 * The duration to use when transitioning artwork, measured in milliseconds.
 	 */
@@ -75,7 +125,29 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 	private int fallbackDecodingHeight = 300;
 
 	/**
-	 * Constructs a new ArtworkBinder.
+	 * Tasks which have not been started because the list was flinging when they were created.
+	 */
+	private final List<BinderTask> deferredTasks = new ArrayList<>();
+
+	/**
+	 * The current scroll state of the list containing the bound views.
+	 */
+	private int scrollState = SCROLL_STATE_IDLE;
+
+	/**
+	 * The current scroll speed of the list containing the bound views, measured in pixels per
+	 * second.
+	 */
+	private int scrollVelocity = 0;
+
+	/**
+	 * The scroll speed above which loads are deferred while the list is settling, measured in
+	 * pixels per second.
+	 */
+	private int deferralVelocityThreshold = 2000;
+
+	/**
+	 * Constructs a new ArtworkBinder which does not record negative results.
 	 *
 	 * @param cache
 	 * 		stores subtitles to increase performance and efficiency, not null
@@ -88,31 +160,108 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 	 */
 	public ArtworkBinder(final LruCache<LibraryItem, Drawable> cache,
 			final DisplayableDefaults defaults) {
-		this.cache = checkNotNull(cache, "cache cannot be null.");
+		this(cache, null, defaults);
+	}
+
+	/**
+	 * Constructs a new ArtworkBinder.
+	 *
+	 * @param cache
+	 * 		stores artwork to increase performance and efficiency, not null
+	 * @param negativeResultCache
+	 * 		records items which have no artwork or which fail to return it, may be null
+	 * @param defaults
+	 * 		supplies the default artwork, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	public ArtworkBinder(final LruCache<LibraryItem, Drawable> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this(new LibraryItemLruCacheAdapter<>(checkNotNull(cache, "cache cannot be null.")), cache,
+				negativeResultCache, defaults);
+	}
+
+	/**
+	 * Constructs a new ArtworkBinder which uses a MetadataCache. This allows
+	 * IdentifiableLibraryItems to be keyed on their ids.
+	 *
+	 * @param cache
+	 * 		stores artwork to increase performance and efficiency, not null
+	 * @param negativeResultCache
+	 * 		records items which have no artwork or which fail to return it, may be null
+	 * @param defaults
+	 * 		supplies the default artwork, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	public ArtworkBinder(final MetadataCache<Drawable> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this(cache, null, negativeResultCache, defaults);
+	}
+
+	/**
+	 * Constructs a new ArtworkBinder.
+	 *
+	 * @param metadataCache
+	 * 		stores artwork to increase performance and efficiency, not null
+	 * @param cache
+	 * 		the LruCache which backs {@code metadataCache}, may be null
+	 * @param negativeResultCache
+	 * 		records items which have no artwork or which fail to return it, may be null
+	 * @param defaults
+	 * 		supplies the default artwork, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code metadataCache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	private ArtworkBinder(final MetadataCache<Drawable> metadataCache,
+			final LruCache<LibraryItem, Drawable> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this.metadataCache = checkNotNull(metadataCache, "cache cannot be null.");
+		this.cache = cache;
+		this.negativeResultCache = negativeResultCache;
 		this.defaults = checkNotNull(defaults, "defaults cannot be null.");
 	}
 
 	@Override
 	public void bind(final ImageView imageView, final LibraryItem data) {
-		checkNotNull(imageView, "imageView cannot be null");
+		final BinderTask task = prepareTask(imageView, data);
 
-		// There should never be more than one task operating on the same ImageView concurrently
-		cancel(imageView);
+		if (task != null) {
+			task.executeWhenSized();
+		}
+	}
 
-		// Create, register and start task
-		final BinderTask task = new BinderTask(imageView, data);
-		tasks.put(imageView, task);
-		task.execute();
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Loads which are deferred because the list is flinging are not returned, since they are
+	 * started by this binder once the list slows down. The returned load decodes the artwork at
+	 * the size of the ImageView when {@link PendingLoad#onPreLoad()} is called, so it should not
+	 * be started until the ImageView has been measured.
+	 */
+	@Override
+	public PendingLoad prepare(final ImageView imageView, final LibraryItem data) {
+		return prepareTask(imageView, data);
 	}
 
 	@Override
 	public void cancel(final ImageView imageView) {
-		final AsyncTask existingTask = tasks.get(imageView);
+		final BinderTask existingTask = tasks.get(imageView);
 
 		if (existingTask != null) {
 			existingTask.cancel(false);
+			existingTask.stopWaitingForSize();
+			deferredTasks.remove(existingTask);
 			tasks.remove(imageView);
 		}
+
+		attachStateTracker.onBindCancelled(imageView);
 	}
 
 	@Override
@@ -120,22 +269,44 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		final Iterator<ImageView> imageViewIterator = tasks.keySet().iterator();
 
 		while (imageViewIterator.hasNext()) {
-			final AsyncTask existingTask = tasks.get(imageViewIterator.next());
+			final BinderTask existingTask = tasks.get(imageViewIterator.next());
 
 			if (existingTask != null) {
 				existingTask.cancel(false);
+				existingTask.stopWaitingForSize();
 				imageViewIterator.remove();
 			}
 		}
+
+		deferredTasks.clear();
+		attachStateTracker.clear();
+	}
+
+	@Override
+	public void onScrollStateChanged(final int scrollState, final int velocity) {
+		this.scrollState = scrollState;
+		this.scrollVelocity = velocity;
+
+		if (!isLoadingDeferred()) {
+			startDeferredTasks();
+		}
 	}
 
 	/**
-	 * @return the cache used to store artwork, not null
+	 * @return the LruCache used to store artwork, null if the binder was constructed with a
+	 * MetadataCache
 	 */
 	public LruCache<LibraryItem, Drawable> getCache() {
 		return cache;
 	}
 
+	/**
+	 * @return the cache used to store artwork, not null
+	 */
+	public MetadataCache<Drawable> getMetadataCache() {
+		return metadataCache;
+	}
+
 	/**
 	 * @return the default artwork supplier, not null
 	 */
@@ -143,6 +314,13 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		return defaults;
 	}
 
+	/**
+	 * @return the cache used to record negative results, null if negative results are not recorded
+	 */
+	public NegativeResultCache getNegativeResultCache() {
+		return negativeResultCache;
+	}
+
 	/**
 	 * @return the duration used when fading in artwork
 	 */
@@ -192,10 +370,176 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		this.fallbackDecodingHeight = height;
 	}
 
+	/**
+	 * @return the scroll speed above which loads are deferred while the list is settling,
+	 * measured in pixels per second
+	 */
+	public int getDeferralVelocityThreshold() {
+		return deferralVelocityThreshold;
+	}
+
+	/**
+	 * Sets the scroll speed above which loads are deferred while the list is settling. Loads are
+	 * never deferred while the list is idle or being dragged.
+	 *
+	 * @param velocity
+	 * 		the threshold, measured in pixels per second
+	 */
+	public void setDeferralVelocityThreshold(final int velocity) {
+		this.deferralVelocityThreshold = velocity;
+		onScrollStateChanged(scrollState, scrollVelocity);
+	}
+
+	/**
+	 * @return true if loads are currently deferred because the list is flinging, false otherwise
+	 */
+	private boolean isLoadingDeferred() {
+		return scrollState == SCROLL_STATE_SETTLING && scrollVelocity > deferralVelocityThreshold;
+	}
+
+	/**
+	 * Starts the deferred tasks of all views which are still shown. The tasks of views which are
+	 * not currently shown, such as rows which have been scrolled off screen but not yet rebound,
+	 * remain deferred until their views are shown again or rebound.
+	 */
+	private void startDeferredTasks() {
+		final Iterator<BinderTask> taskIterator = deferredTasks.iterator();
+
+		while (taskIterator.hasNext()) {
+			final BinderTask task = taskIterator.next();
+
+			if (task.isCancelled()) {
+				taskIterator.remove();
+			} else if (isShown(task.imageView)) {
+				taskIterator.remove();
+				task.executeWhenSized();
+			}
+		}
+	}
+
+	/**
+	 * Determines whether or not an ImageView is currently shown. A {@link HostedTarget} is never
+	 * attached to the window, so it is shown if it is visible and its host is shown.
+	 *
+	 * @param imageView
+	 * 		the ImageView to check, not null
+	 * @return true if the ImageView is shown, false otherwise
+	 */
+	private static boolean isShown(final ImageView imageView) {
+		if (imageView instanceof HostedTarget) {
+			return imageView.getVisibility() == View.VISIBLE && ((HostedTarget) imageView).getHost()
+					.isShown();
+		}
+
+		return imageView.isShown();
+	}
+
+	/**
+	 * Starts a bind operation by creating and registering a task, and binds the artwork
+	 * immediately if it is available without loading. Otherwise the preview is bound, if there is
+	 * one.
+	 *
+	 * @param imageView
+	 * 		the ImageView to bind data to, not null
+	 * @param data
+	 * 		the LibraryItem to source the artwork from, may be null
+	 * @return the task, which must be executed to complete the bind operation, null if the bind
+	 * operation is already complete or has been deferred
+	 * @throws IllegalArgumentException
+	 * 		if {@code imageView} is null
+	 */
+	private BinderTask prepareTask(final ImageView imageView, final LibraryItem data) {
+		checkNotNull(imageView, "imageView cannot be null");
+
+		// There should never be more than one task operating on the same ImageView concurrently
+		cancel(imageView);
+
+		// Using asynchronous processing is unnecessary if the item is known to have no artwork
+		final Result negativeResult = getNegativeResult(data);
+
+		// Create, register and start task, showing the preview only if artwork is expected
+		final BinderTask task = new BinderTask(imageView, data, negativeResult == null ?
+				getArtworkPreview(data) : null);
+		tasks.put(imageView, task);
+		attachStateTracker.onBindStarted(imageView, data);
+
+		task.bindPreview();
+
+		if (negativeResult != null) {
+			task.bindWithoutLoading(getFallbackArtwork(negativeResult));
+			return null;
+		} else if (data != null && isLoadingDeferred()) {
+			// Cache lookups are cheap enough to perform even while flinging
+			final Drawable cachedArtwork = metadataCache.get(data);
+
+			if (cachedArtwork == null) {
+				deferredTasks.add(task);
+			} else {
+				task.bindWithoutLoading(cachedArtwork);
+			}
+
+			return null;
+		} else {
+			return task;
+		}
+	}
+
+	/**
+	 * Returns the negative result recorded for the artwork of an item.
+	 *
+	 * @param item
+	 * 		the item to get the result for, may be null
+	 * @return the recorded result, null if there is none or if negative results are not recorded
+	 */
+	private Result getNegativeResult(final LibraryItem item) {
+		return negativeResultCache == null ? null : negativeResultCache.get(item, Field.ARTWORK);
+	}
+
+	/**
+	 * Records a negative result for the artwork of an item, if negative results are recorded.
+	 *
+	 * @param item
+	 * 		the item the result applies to, not null
+	 * @param result
+	 * 		the result to record, not null
+	 */
+	private void putNegativeResult(final LibraryItem item, final Result result) {
+		if (negativeResultCache != null) {
+			negativeResultCache.put(item, Field.ARTWORK, result);
+		}
+	}
+
+	/**
+	 * Returns the artwork preview supplied by an item.
+	 *
+	 * @param item
+	 * 		the item to get the preview from, may be null
+	 * @return the preview, null if the item does not supply one
+	 */
+	private ArtworkPreview getArtworkPreview(final LibraryItem item) {
+		if (item instanceof PreviewableLibraryItem) {
+			return ((PreviewableLibraryItem) item).getArtworkPreview();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the artwork to bind in place of a negative result. This is the same value which is
+	 * bound when the item is read and produces that result.
+	 *
+	 * @param result
+	 * 		the negative result, not null
+	 * @return the artwork to bind
+	 */
+	private Drawable getFallbackArtwork(final Result result) {
+		return result == Result.READ_FAILED ? defaults.getArtwork() : null;
+	}
+
 	/**
 	 * Task for asynchronously loading data and binding it to the UI when available.
 	 */
-	private class BinderTask extends AsyncTask<Void, Void, Drawable> {
+	private class BinderTask extends AsyncTask<Void, Void, Drawable> implements PendingLoad {
 		/**
 		 * The ImageView to bind data to.
 		 */
@@ -206,6 +550,22 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		 */
 		private final LibraryItem data;
 
+		/**
+		 * The preview to display while the artwork loads, null if there is none.
+		 */
+		private final ArtworkPreview preview;
+
+		/**
+		 * The Drawable created from the preview, null if there is no preview.
+		 */
+		private Drawable previewDrawable;
+
+		/**
+		 * Executes this task once the ImageView has been measured, null if execution is not
+		 * deferred.
+		 */
+		private ViewTreeObserver.OnPreDrawListener preDrawListener;
+
 		/**
 		 * The width to use when decoding the artwork, measured in pixels.
 		 */
@@ -216,6 +576,16 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		 */
 		private int imageHeight;
 
+		/**
+		 * The artwork loaded by {@link #load()}.
+		 */
+		private Drawable result;
+
+		/**
+		 * Whether or not the artwork was available without loading it from the data.
+		 */
+		private boolean availableWithoutLoading;
+
 		/**
 		 * Constructs a new BinderTask.
 		 *
@@ -223,24 +593,114 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 		 * 		the ImageView to bind data to, not null
 		 * @param data
 		 * 		the LibraryItem to source the artwork from
+		 * @param preview
+		 * 		the preview to display while the artwork loads, may be null
 		 * @throws IllegalArgumentException
 		 * 		if {@code imageView} is null
 		 */
-		public BinderTask(final ImageView imageView, final LibraryItem data) {
+		public BinderTask(final ImageView imageView, final LibraryItem data,
+				final ArtworkPreview preview) {
 			this.imageView = checkNotNull(imageView, "imageView cannot be null");
 			this.data = data;
+			this.preview = preview;
+		}
+
+		/**
+		 * Binds the preview to the ImageView, or clears the ImageView if there is no preview. The
+		 * preview is cheap to create, so it is bound before any loading begins.
+		 */
+		public void bindPreview() {
+			if (!isCancelled()) {
+				previewDrawable = preview == null ? null : preview.createDrawable(imageView
+						.getResources());
+
+				imageView.setImageDrawable(previewDrawable);
+			}
+		}
+
+		/**
+		 * Executes this task once the final size of the ImageView is known, so that the artwork
+		 * is decoded at exactly that size. If the size cannot be determined from the measured
+		 * dimensions or the layout parameters of the ImageView, execution is deferred until the
+		 * ImageView is about to be drawn, at which point it has been measured. Rows bound during
+		 * layout are drawn in the same frame, so deferring does not delay loading noticeably.
+		 */
+		public void executeWhenSized() {
+			final ViewTreeObserver observer = imageView.getViewTreeObserver();
+
+			if (getTargetWidth() > 0 && getTargetHeight() > 0) {
+				execute();
+			} else if (observer == null || !observer.isAlive()) {
+				// Without a live observer the view cannot report its size, so don't wait
+				execute();
+			} else {
+				preDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+					@Override
+					public boolean onPreDraw() {
+						stopWaitingForSize();
+
+						if (!isCancelled()) {
+							execute();
+						}
+
+						return true;
+					}
+				};
+
+				observer.addOnPreDrawListener(preDrawListener);
+			}
+		}
+
+		/**
+		 * Stops waiting for the size of the ImageView, if execution was deferred.
+		 */
+		public void stopWaitingForSize() {
+			if (preDrawListener != null) {
+				imageView.getViewTreeObserver().removeOnPreDrawListener(preDrawListener);
+				preDrawListener = null;
+			}
 		}
 
 		@Override
 		public void onPreExecute() {
 			if (!isCancelled()) {
-				imageView.setImageDrawable(null);
+				// Decode at the final size of the image view, if it is known
+				final int targetWidth = getTargetWidth();
+				final int targetHeight = getTargetHeight();
+				imageWidth = targetWidth > 0 ? targetWidth : fallbackDecodingWidth;
+				imageHeight = targetHeight > 0 ? targetHeight : fallbackDecodingHeight;
+			}
+		}
+
+		/**
+		 * @return the width the ImageView has or will have once laid out, measured in pixels,
+		 * zero if unknown
+		 */
+		private int getTargetWidth() {
+			final ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
 
-				// Read the dimensions from the image view and select decoding values
-				final int viewWidth = imageView.getWidth();
-				final int viewHeight = imageView.getHeight();
-				imageWidth = viewWidth == 0 ? fallbackDecodingWidth : viewWidth;
-				imageHeight = viewHeight == 0 ? fallbackDecodingHeight : viewHeight;
+			if (imageView.getWidth() > 0) {
+				return imageView.getWidth();
+			} else if (layoutParams != null && layoutParams.width > 0) {
+				return layoutParams.width;
+			} else {
+				return 0;
+			}
+		}
+
+		/**
+		 * @return the height the ImageView has or will have once laid out, measured in pixels,
+		 * zero if unknown
+		 */
+		private int getTargetHeight() {
+			final ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+
+			if (imageView.getHeight() > 0) {
+				return imageView.getHeight();
+			} else if (layoutParams != null && layoutParams.height > 0) {
+				return layoutParams.height;
+			} else {
+				return 0;
 			}
 		}
 
@@ -250,67 +710,158 @@ public class ArtworkBinder implements DataBinder<LibraryItem, ImageView> {
 				return null;
 			}
 
-			final Drawable cachedArtwork = cache.get(data);
+			final Drawable cachedArtwork = metadataCache.get(data);
 
 			if (cachedArtwork == null) {
 				try {
-					final Drawable loadedArtwork = data.getArtwork(imageWidth, imageHeight);
+					final Drawable loadedArtwork = loadArtwork();
 
-					if (loadedArtwork != null) {
-						cache.put(data, loadedArtwork);
+					if (loadedArtwork == null) {
+						putNegativeResult(data, Result.MISSING);
 					}
 
 					return loadedArtwork;
 				} catch (final LibraryReadException e) {
+					putNegativeResult(data, Result.READ_FAILED);
 					return defaults.getArtwork();
 				}
 			} else {
+				availableWithoutLoading = true;
 				return cachedArtwork;
 			}
 		}
 
-		@Override
-		public void onPostExecute(final Drawable artwork) {
-			// Skip the animation if it isn't necessary
-			if (fadeInDurationMs <= 0 || artwork == null) {
-				if (!isCancelled()) {
-					imageView.setImageDrawable(null); // Resets view
-					imageView.setImageDrawable(artwork);
+		/**
+		 * Loads the artwork from the data and caches it. If both the cache and the data support
+		 * fingerprints, the artwork is only decoded if no other item with the same artwork has
+		 * already been cached.
+		 *
+		 * @return the artwork, null if the data has no artwork
+		 * @throws LibraryReadException
+		 * 		if the artwork cannot be accessed
+		 */
+		private Drawable loadArtwork() throws LibraryReadException {
+			if (metadataCache instanceof ContentAddressedArtworkCache &&
+					data instanceof FingerprintedArtworkItem) {
+				final ContentAddressedArtworkCache sharedCache = (ContentAddressedArtworkCache)
+						metadataCache;
+				final Long fingerprint = ((FingerprintedArtworkItem) data).getArtworkFingerprint();
+
+				if (fingerprint == null) {
+					return null;
 				}
+
+				final Drawable sharedArtwork = sharedCache.getAndLink(data, fingerprint);
+
+				if (sharedArtwork != null) {
+					// Already decoded for another item with the same artwork
+					availableWithoutLoading = true;
+					return sharedArtwork;
+				}
+
+				final Drawable loadedArtwork = data.getArtwork(imageWidth, imageHeight);
+
+				if (loadedArtwork != null) {
+					sharedCache.put(data, fingerprint, loadedArtwork);
+				}
+
+				return loadedArtwork;
 			} else {
-				// Animation to fade in from fully invisible to fully visible
-				final ValueAnimator fadeInAnimation = ValueAnimator.ofFloat(0, 1);
+				final Drawable loadedArtwork = data.getArtwork(imageWidth, imageHeight);
 
-				// When the animations starts, bind the artwork but make it invisible
-				fadeInAnimation.addListener(new AnimatorListenerAdapter() {
-					@Override
-					public void onAnimationStart(final Animator animation) {
-						// If the task has been cancelled, it must not modify the UI
-						if (!isCancelled()) {
-							imageView.setAlpha(0f);
-							imageView.setImageDrawable(null); // Resets ensures image changes
-							imageView.setImageDrawable(artwork);
-						}
-					}
-				});
+				if (loadedArtwork != null) {
+					metadataCache.put(data, loadedArtwork);
+				}
 
-				// As the animation progresses, fade-in the artwork by changing the transparency
-				fadeInAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-					@Override
-					public void onAnimationUpdate(final ValueAnimator animation) {
-						// If the task has been cancelled, the animation must also be cancelled
-						if (isCancelled()) {
-							fadeInAnimation.cancel();
-						} else {
-							final Float value = (Float) animation.getAnimatedValue();
-							imageView.setAlpha(value);
-						}
-					}
-				});
+				return loadedArtwork;
+			}
+		}
+
+		@Override
+		public void onPostExecute(final Drawable artwork) {
+			release();
+
+			if (!isCancelled()) {
+				final Drawable fadeIn = shouldFadeIn(artwork) ? createFadeIn(artwork) : null;
+
+				imageView.setImageDrawable(null); // Resets view
+				imageView.setImageDrawable(fadeIn == null ? artwork : fadeIn);
+			}
+		}
 
-				fadeInAnimation.setDuration(fadeInDurationMs);
-				fadeInAnimation.start();
+		/**
+		 * Binds artwork which is available without loading, such as cached artwork. The artwork is
+		 * not faded in, since fading would make rebinding visible.
+		 *
+		 * @param artwork
+		 * 		the artwork to bind, may be null
+		 */
+		public void bindWithoutLoading(final Drawable artwork) {
+			availableWithoutLoading = true;
+			onPostExecute(artwork);
+		}
+
+		/**
+		 * Determines whether loaded artwork should be faded in. Artwork is not faded in if it was
+		 * available without loading, or if the list is flinging, since the row is likely to be
+		 * scrolled off screen before the fade finishes.
+		 *
+		 * @param artwork
+		 * 		the loaded artwork, may be null
+		 * @return true if the artwork should be faded in, false otherwise
+		 */
+		private boolean shouldFadeIn(final Drawable artwork) {
+			return fadeInDurationMs > 0 && artwork != null && !availableWithoutLoading &&
+					!isLoadingDeferred();
+		}
+
+		/**
+		 * Creates a Drawable which fades in the artwork over the preview, or from nothing if there
+		 * is no preview.
+		 *
+		 * @param artwork
+		 * 		the artwork to fade in, not null
+		 * @return the Drawable, null if the artwork cannot be copied
+		 */
+		private Drawable createFadeIn(final Drawable artwork) {
+			// Fading changes the alpha of the artwork, which must not leak into the cached artwork
+			final Drawable.ConstantState state = artwork.getConstantState();
+
+			if (state == null) {
+				return null;
+			}
+
+			final Drawable copy = state.newDrawable(imageView.getResources()).mutate();
+
+			return new FadeInDrawable(previewDrawable, copy, fadeInDurationMs);
+		}
+
+		/**
+		 * Unregisters this task, unless it has already been replaced by a newer task.
+		 */
+		private void release() {
+			if (tasks.get(imageView) == this) {
+				tasks.remove(imageView);
+				attachStateTracker.onBindFinished(imageView);
+			}
+		}
+
+		@Override
+		public void onPreLoad() {
+			onPreExecute();
+		}
+
+		@Override
+		public void load() {
+			result = doInBackground();
+		}
+
+		@Override
+		public void publish() {
+			// Unlike AsyncTask, a cancelled load must not touch the view since it may be rebound
+			if (!isCancelled()) {
+				onPostExecute(result);
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.view.View;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Ties the bind operations of a DataBinder to the attach state of the bound views. When a view is
+ * detached from its window while a bind operation is in progress, the operation is cancelled so
+ * that no work is wasted on views which cannot be seen. If the view is later reattached without
+ * being rebound, as happens when a RecyclerView reuses a view from its cache, the bind operation
+ * is restarted. Views are only weakly referenced, so tracking a view never prevents it from being
+ * garbage collected. This class must only be used on the UI thread.
+ *
+ * @param <D>
+ * 		the type of data being bound
+ * @param <V>
+ * 		the type of view being bound to
+ */
+final class AttachStateTracker<D, V extends View> implements View.OnAttachStateChangeListener {
+	/**
+	 * The data binder to cancel and restart bind operations with.
+	 */
+	private final DataBinder<D, V> dataBinder;
+
+	/**
+	 * The data of each bind operation which is currently in progress, keyed on the target view.
+	 */
+	private final Map<V, D> activeBinds = new WeakHashMap<>();
+
+	/**
+	 * The data of each bind operation which was cancelled because its target view was detached,
+	 * keyed on the target view.
+	 */
+	private final Map<V, D> interruptedBinds = new WeakHashMap<>();
+
+	/**
+	 * Constructs a new AttachStateTracker.
+	 *
+	 * @param dataBinder
+	 * 		the data binder to cancel and restart bind operations with, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code dataBinder} is null
+	 */
+	public AttachStateTracker(final DataBinder<D, V> dataBinder) {
+		this.dataBinder = checkNotNull(dataBinder, "dataBinder cannot be null.");
+	}
+
+	/**
+	 * Records the start of a bind operation which may not complete synchronously.
+	 *
+	 * @param view
+	 * 		the target view, not null
+	 * @param data
+	 * 		the data being bound, may be null
+	 */
+	public void onBindStarted(final V view, final D data) {
+		interruptedBinds.remove(view);
+		activeBinds.put(view, data);
+
+		// Listeners are not deduplicated, so remove first to avoid registering twice
+		view.removeOnAttachStateChangeListener(this);
+		view.addOnAttachStateChangeListener(this);
+	}
+
+	/**
+	 * Records the completion of a bind operation.
+	 *
+	 * @param view
+	 * 		the target view, not null
+	 */
+	public void onBindFinished(final V view) {
+		activeBinds.remove(view);
+	}
+
+	/**
+	 * Records the cancellation of a bind operation, so that it is not restarted when the view is
+	 * next attached.
+	 *
+	 * @param view
+	 * 		the target view, not null
+	 */
+	public void onBindCancelled(final V view) {
+		activeBinds.remove(view);
+		interruptedBinds.remove(view);
+	}
+
+	/**
+	 * Forgets all bind operations.
+	 */
+	public void clear() {
+		activeBinds.clear();
+		interruptedBinds.clear();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked") // Only registered with views of type V
+	public void onViewDetachedFromWindow(final View v) {
+		final V view = (V) v;
+
+		if (activeBinds.containsKey(view)) {
+			final D data = activeBinds.get(view);
+
+			dataBinder.cancel(view);
+			interruptedBinds.put(view, data);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked") // Only registered with views of type V
+	public void onViewAttachedToWindow(final View v) {
+		final V view = (V) v;
+
+		if (interruptedBinds.containsKey(view)) {
+			dataBinder.bind(view, interruptedBinds.remove(view));
+		}
+	}
+}
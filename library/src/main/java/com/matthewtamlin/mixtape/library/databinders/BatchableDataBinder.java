@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.view.View;
+
+/**
+ * A DataBinder which allows the loading for a bind operation to be performed by the caller, so
+ * that the loads for several views can be combined into one background unit of work.
+ *
+ * @param <D>
+ * 		the type of data to bind
+ * @param <V>
+ * 		the type of view to bind data to
+ */
+public interface BatchableDataBinder<D, V extends View> extends DataBinder<D, V> {
+	/**
+	 * Starts a bind operation for the supplied view without loading anything in the background.
+	 * Data which is available synchronously, such as cached data, is bound immediately. If the
+	 * data must be loaded, the load is returned instead of being executed, and the caller becomes
+	 * responsible for executing it. The bind operation can be cancelled in the same way as one
+	 * started by {@link #bind(View, Object)}.
+	 *
+	 * @param view
+	 * 		the View to bind data to, not null
+	 * @param data
+	 * 		the data to bind, null to clear the view
+	 * @return the load which must be executed to complete the bind operation, null if the bind
+	 * operation was completed synchronously or will be completed by the binder itself
+	 */
+	PendingLoad prepare(V view, D data);
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.graphics.drawable.Drawable;
+import android.support.v4.util.LruCache;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.FingerprintedArtworkItem;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A MetadataCache for artwork which stores each distinct image once, keyed on the fingerprint of
+ * its content. Items are linked to fingerprints, so any number of items with the same artwork
+ * share a single cached image and only count against the cache budget once. Fingerprints are
+ * supplied by {@link FingerprintedArtworkItem}s, and artwork for other items is stored per item as
+ * it would be in a {@link LruMetadataCache}.
+ * <p>
+ * Shared artwork is returned as a new Drawable created from the constant state of the cached
+ * Drawable, so that each view gets its own bounds and alpha while sharing the underlying bitmap.
+ * Drawables without constant state are returned as is. This class is thread safe.
+ */
+@Tested(testMethod = "automated")
+public class ContentAddressedArtworkCache implements MetadataCache<Drawable> {
+	/**
+	 * Stores the artwork. Shared artwork is keyed on fingerprints, and other artwork is keyed on
+	 * ItemKeys.
+	 */
+	private final LruCache<Object, Drawable> artworkCache;
+
+	/**
+	 * Maps item keys to the fingerprints of their artwork.
+	 */
+	private final LruCache<Object, Long> fingerprintCache;
+
+	/**
+	 * Constructs a new ContentAddressedArtworkCache.
+	 *
+	 * @param artworkCache
+	 * 		stores the artwork, not null; its keys are fingerprints for shared artwork and opaque
+	 * 		objects otherwise, so any sizing should be based on the values only
+	 * @param maxLinkedItems
+	 * 		the maximum number of items to remember the fingerprints of, greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code artworkCache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxLinkedItems} is not greater than zero
+	 */
+	public ContentAddressedArtworkCache(final LruCache<Object, Drawable> artworkCache,
+			final int maxLinkedItems) {
+		this.artworkCache = checkNotNull(artworkCache, "artworkCache cannot be null.");
+		this.fingerprintCache = new LruCache<>(maxLinkedItems);
+	}
+
+	@Override
+	public Drawable get(final LibraryItem item) {
+		if (item == null) {
+			return null;
+		}
+
+		final Object itemKey = ItemIdentity.getKey(item);
+		final Long fingerprint = fingerprintCache.get(itemKey);
+
+		if (fingerprint == null) {
+			return artworkCache.get(new ItemKey(itemKey));
+		} else {
+			return newInstance(artworkCache.get(fingerprint));
+		}
+	}
+
+	@Override
+	public void put(final LibraryItem item, final Drawable value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		artworkCache.put(new ItemKey(ItemIdentity.getKey(item)), value);
+	}
+
+	/**
+	 * Caches shared artwork and links an item to it. Any other items which are later linked to the
+	 * same fingerprint receive the same artwork.
+	 *
+	 * @param item
+	 * 		the item the artwork belongs to, not null
+	 * @param fingerprint
+	 * 		the fingerprint of the artwork
+	 * @param value
+	 * 		the artwork, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code value} is null
+	 */
+	public void put(final LibraryItem item, final long fingerprint, final Drawable value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		artworkCache.put(fingerprint, value);
+		fingerprintCache.put(ItemIdentity.getKey(item), fingerprint);
+	}
+
+	/**
+	 * Returns the cached artwork for a fingerprint and links an item to it. If no artwork is cached
+	 * for the fingerprint, the item is not linked.
+	 *
+	 * @param item
+	 * 		the item to link, not null
+	 * @param fingerprint
+	 * 		the fingerprint of the artwork of the item
+	 * @return the shared artwork, null if none is cached for the fingerprint
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 */
+	public Drawable getAndLink(final LibraryItem item, final long fingerprint) {
+		checkNotNull(item, "item cannot be null.");
+
+		final Drawable artwork = artworkCache.get(fingerprint);
+
+		if (artwork != null) {
+			fingerprintCache.put(ItemIdentity.getKey(item), fingerprint);
+		}
+
+		return newInstance(artwork);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Shared artwork is only unlinked from the item, since other items may still use it.
+	 */
+	@Override
+	public void remove(final LibraryItem item) {
+		if (item != null) {
+			final Object itemKey = ItemIdentity.getKey(item);
+
+			fingerprintCache.remove(itemKey);
+			artworkCache.remove(new ItemKey(itemKey));
+		}
+	}
+
+	@Override
+	public void evictAll() {
+		fingerprintCache.evictAll();
+		artworkCache.evictAll();
+	}
+
+	/**
+	 * @return the LruCache which stores the artwork, not null
+	 */
+	public LruCache<Object, Drawable> getArtworkCache() {
+		return artworkCache;
+	}
+
+	/**
+	 * Creates a Drawable which shares the state of the supplied Drawable.
+	 *
+	 * @param drawable
+	 * 		the Drawable to copy, may be null
+	 * @return the new Drawable, or the supplied Drawable if it cannot be copied
+	 */
+	private static Drawable newInstance(final Drawable drawable) {
+		if (drawable == null || drawable.getConstantState() == null) {
+			return drawable;
+		} else {
+			return drawable.getConstantState().newDrawable();
+		}
+	}
+
+	/**
+	 * Wraps the key of an item which has no fingerprint, so that it cannot clash with a
+	 * fingerprint in the artwork cache.
+	 */
+	private static final class ItemKey {
+		/**
+		 * The wrapped key.
+		 */
+		private final Object key;
+
+		/**
+		 * Constructs a new ItemKey.
+		 *
+		 * @param key
+		 * 		the key to wrap, not null
+		 */
+		private ItemKey(final Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof ItemKey && key.equals(((ItemKey) obj).key);
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode();
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A Drawable which fades in one Drawable over another. The fade starts the first time this
+ * Drawable is drawn, and progresses each time it is redrawn, so no animators or listeners are
+ * needed. While fading, this Drawable invalidates itself after every draw. Once the fade has
+ * finished, only the end Drawable is drawn.
+ * <p>
+ * The alpha of the end Drawable is changed during the fade, so the end Drawable must not be shared
+ * with other views. A mutated copy of a shared Drawable can be used instead.
+ */
+@Tested(testMethod = "automated")
+public class FadeInDrawable extends Drawable implements Drawable.Callback {
+	/**
+	 * The Drawable to fade from, null if fading from nothing.
+	 */
+	private Drawable start;
+
+	/**
+	 * The Drawable to fade in.
+	 */
+	private final Drawable end;
+
+	/**
+	 * The duration of the fade, measured in milliseconds.
+	 */
+	private final int durationMs;
+
+	/**
+	 * The uptime at which the fade started, measured in milliseconds, -1 if it hasn't started.
+	 */
+	private long startTimeMs = -1;
+
+	/**
+	 * The alpha of this Drawable, between 0 and 255.
+	 */
+	private int alpha = 255;
+
+	/**
+	 * Constructs a new FadeInDrawable.
+	 *
+	 * @param start
+	 * 		the Drawable to show before the fade and underneath the end Drawable during the fade,
+	 * 		null to fade in from nothing
+	 * @param end
+	 * 		the Drawable to fade in, not null and not shared with other views
+	 * @param durationMs
+	 * 		the duration of the fade, measured in milliseconds
+	 * @throws IllegalArgumentException
+	 * 		if {@code end} is null
+	 */
+	public FadeInDrawable(final Drawable start, final Drawable end, final int durationMs) {
+		this.start = start;
+		this.end = checkNotNull(end, "end cannot be null.");
+		this.durationMs = durationMs;
+
+		if (start != null) {
+			start.setCallback(this);
+		}
+
+		end.setCallback(this);
+	}
+
+	/**
+	 * @return the Drawable to fade in, not null
+	 */
+	public Drawable getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return true if the fade has finished, false if it hasn't started or is in progress
+	 */
+	public boolean isFinished() {
+		return startTimeMs >= 0 && getProgress() >= 1;
+	}
+
+	@Override
+	public void draw(final Canvas canvas) {
+		if (startTimeMs < 0) {
+			startTimeMs = SystemClock.uptimeMillis();
+		}
+
+		final float progress = getProgress();
+
+		if (progress >= 1) {
+			// The start Drawable is completely covered, so it is no longer needed
+			releaseStart();
+
+			end.setAlpha(alpha);
+			end.draw(canvas);
+		} else {
+			if (start != null) {
+				start.draw(canvas);
+			}
+
+			end.setAlpha(Math.round(alpha * progress));
+			end.draw(canvas);
+
+			invalidateSelf();
+		}
+	}
+
+	@Override
+	public void setAlpha(final int alpha) {
+		this.alpha = alpha;
+
+		if (start != null) {
+			start.setAlpha(alpha);
+		}
+
+		invalidateSelf();
+	}
+
+	@Override
+	public int getAlpha() {
+		return alpha;
+	}
+
+	@Override
+	public void setColorFilter(final ColorFilter colorFilter) {
+		if (start != null) {
+			start.setColorFilter(colorFilter);
+		}
+
+		end.setColorFilter(colorFilter);
+	}
+
+	@Override
+	public int getOpacity() {
+		// The end Drawable is partially transparent until the fade finishes
+		return isFinished() ? end.getOpacity() : PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicWidth() {
+		return end.getIntrinsicWidth();
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		return end.getIntrinsicHeight();
+	}
+
+	@Override
+	protected void onBoundsChange(final Rect bounds) {
+		if (start != null) {
+			start.setBounds(bounds);
+		}
+
+		end.setBounds(bounds);
+	}
+
+	@Override
+	public void invalidateDrawable(final Drawable who) {
+		invalidateSelf();
+	}
+
+	@Override
+	public void scheduleDrawable(final Drawable who, final Runnable what, final long when) {
+		scheduleSelf(what, when);
+	}
+
+	@Override
+	public void unscheduleDrawable(final Drawable who, final Runnable what) {
+		unscheduleSelf(what);
+	}
+
+	/**
+	 * @return the progress of the fade, between 0 and 1
+	 */
+	private float getProgress() {
+		if (durationMs <= 0) {
+			return 1;
+		}
+
+		final long elapsedMs = SystemClock.uptimeMillis() - startTimeMs;
+
+		return Math.max(0, Math.min(1, (float) elapsedMs / durationMs));
+	}
+
+	/**
+	 * Stops drawing the start Drawable.
+	 */
+	private void releaseStart() {
+		if (start != null) {
+			start.setCallback(null);
+			start = null;
+		}
+	}
+}
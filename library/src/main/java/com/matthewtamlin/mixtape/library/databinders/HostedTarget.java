@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.view.View;
+
+/**
+ * A view which is never attached to the window, and whose bound data is instead drawn by a host
+ * view. Since such a view is never shown itself, data binders which only act on views that are
+ * shown check whether the host is shown instead.
+ */
+public interface HostedTarget {
+	/**
+	 * @return the view which draws the data bound to this view, not null
+	 */
+	View getHost();
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.support.v4.util.LruCache;
+
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Adapts an LruCache keyed on LibraryItems to the MetadataCache interface. This supports binders
+ * which are constructed with an LruCache, and keys every item on the item itself so that entries
+ * added directly to the LruCache remain visible to the binder.
+ *
+ * @param <V>
+ * 		the type of metadata stored in the cache
+ */
+class LibraryItemLruCacheAdapter<V> implements MetadataCache<V> {
+	/**
+	 * Stores the metadata.
+	 */
+	private final LruCache<LibraryItem, V> cache;
+
+	/**
+	 * Constructs a new LibraryItemLruCacheAdapter.
+	 *
+	 * @param cache
+	 * 		stores the metadata, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 */
+	public LibraryItemLruCacheAdapter(final LruCache<LibraryItem, V> cache) {
+		this.cache = checkNotNull(cache, "cache cannot be null.");
+	}
+
+	@Override
+	public V get(final LibraryItem item) {
+		return item == null ? null : cache.get(item);
+	}
+
+	@Override
+	public void put(final LibraryItem item, final V value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		cache.put(item, value);
+	}
+
+	@Override
+	public void remove(final LibraryItem item) {
+		if (item != null) {
+			cache.remove(item);
+		}
+	}
+
+	@Override
+	public void evictAll() {
+		cache.evictAll();
+	}
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.IdentifiableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import java.util.Arrays;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThan;
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkLessThanOrEqualTo;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A least recently used cache keyed on primitive longs, which holds a fixed maximum number of
+ * entries. Unlike LruCache, no objects are allocated per entry: keys, values and recency links are
+ * stored in parallel arrays indexed by entry, and the recency order is a doubly linked list
+ * threaded through those arrays by index. Entries are located through an open addressing hash
+ * table of entry indices with linear probing. All arrays are allocated once at construction,
+ * which keeps the footprint of very large caches to a few words per entry.
+ * <p>
+ * When used as a MetadataCache, IdentifiableLibraryItems are keyed on their ids and all other
+ * items are never cached. This class is thread safe.
+ *
+ * @param <V>
+ * 		the type of values stored in the cache
+ */
+@Tested(testMethod = "automated")
+public class LongKeyedLruCache<V> implements MetadataCache<V> {
+	/**
+	 * The largest supported maximum size. Larger sizes would overflow the table capacity.
+	 */
+	public static final int MAX_SUPPORTED_SIZE = 1 << 29;
+
+	/**
+	 * Marks the absence of an entry in the recency and free lists.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * The maximum number of entries.
+	 */
+	private final int maxSize;
+
+	/**
+	 * Masks a hash to a table slot. The table capacity is always a power of two.
+	 */
+	private final int mask;
+
+	/**
+	 * The hash table. Each slot holds one more than the index of the entry in that slot, or zero
+	 * if the slot is empty.
+	 */
+	private final int[] table;
+
+	/**
+	 * The key of each entry.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The value of each entry, null if the entry is not in use.
+	 */
+	private final Object[] values;
+
+	/**
+	 * The index of the next more recently used entry, for each entry in use.
+	 */
+	private final int[] newer;
+
+	/**
+	 * The index of the next less recently used entry, for each entry in use. For entries on the
+	 * free list, the index of the next free entry.
+	 */
+	private final int[] older;
+
+	/**
+	 * The index of the most recently used entry.
+	 */
+	private int mostRecent = NONE;
+
+	/**
+	 * The index of the least recently used entry.
+	 */
+	private int leastRecent = NONE;
+
+	/**
+	 * The index of the first entry on the free list of removed entries.
+	 */
+	private int firstFree = NONE;
+
+	/**
+	 * The number of entries which have ever been allocated. Entries at or above this index have
+	 * never been used.
+	 */
+	private int allocated = 0;
+
+	/**
+	 * The number of entries currently in the cache.
+	 */
+	private int size = 0;
+
+	/**
+	 * Constructs a new LongKeyedLruCache. All storage is allocated immediately, and the hash table
+	 * is sized so that it is never more than three quarters full.
+	 *
+	 * @param maxSize
+	 * 		the maximum number of entries, greater than zero and not greater than {@link
+	 * 		#MAX_SUPPORTED_SIZE}
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxSize} is not greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxSize} is greater than {@link #MAX_SUPPORTED_SIZE}
+	 */
+	public LongKeyedLruCache(final int maxSize) {
+		this.maxSize = checkLessThanOrEqualTo(checkGreaterThan(maxSize, 0), MAX_SUPPORTED_SIZE);
+
+		final int minimumCapacity = (int) ((maxSize * 4L + 2) / 3);
+		final int capacity = Integer.highestOneBit(minimumCapacity - 1) << 1;
+
+		mask = capacity - 1;
+		table = new int[capacity];
+		keys = new long[maxSize];
+		values = new Object[maxSize];
+		newer = new int[maxSize];
+		older = new int[maxSize];
+	}
+
+	/**
+	 * Returns the value for a key, and marks the entry as the most recently used.
+	 *
+	 * @param key
+	 * 		the key to get the value for
+	 * @return the value, null if the key is not in the cache
+	 */
+	@SuppressWarnings("unchecked") // Only values of type V are ever stored
+	public synchronized V get(final long key) {
+		final int slot = findSlot(key);
+
+		if (slot == NONE) {
+			return null;
+		}
+
+		final int entry = table[slot] - 1;
+		moveToFront(entry);
+
+		return (V) values[entry];
+	}
+
+	/**
+	 * Stores a value for a key and marks the entry as the most recently used. If the cache is full
+	 * and the key is not already present, the least recently used entry is evicted.
+	 *
+	 * @param key
+	 * 		the key to store the value under
+	 * @param value
+	 * 		the value to store, not null
+	 * @return the value previously stored for the key, null if there was none
+	 * @throws IllegalArgumentException
+	 * 		if {@code value} is null
+	 */
+	@SuppressWarnings("unchecked") // Only values of type V are ever stored
+	public synchronized V put(final long key, final V value) {
+		checkNotNull(value, "value cannot be null.");
+
+		final int existingSlot = findSlot(key);
+
+		if (existingSlot != NONE) {
+			final int entry = table[existingSlot] - 1;
+			final V previous = (V) values[entry];
+			values[entry] = value;
+			moveToFront(entry);
+
+			return previous;
+		}
+
+		if (size == maxSize) {
+			removeSlot(findSlot(keys[leastRecent]));
+		}
+
+		final int entry = allocateEntry();
+		keys[entry] = key;
+		values[entry] = value;
+		linkAtFront(entry);
+		size++;
+
+		// Eviction may have shifted the table, so the free slot is only found afterwards
+		int slot = slotFor(key);
+
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		table[slot] = entry + 1;
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry for a key.
+	 *
+	 * @param key
+	 * 		the key to remove
+	 * @return the value which was stored for the key, null if there was none
+	 */
+	@SuppressWarnings("unchecked") // Only values of type V are ever stored
+	public synchronized V remove(final long key) {
+		final int slot = findSlot(key);
+
+		if (slot == NONE) {
+			return null;
+		}
+
+		final V removed = (V) values[table[slot] - 1];
+		removeSlot(slot);
+
+		return removed;
+	}
+
+	/**
+	 * Determines whether or not the cache contains an entry for a key, without affecting the
+	 * recency order.
+	 *
+	 * @param key
+	 * 		the key to check for
+	 * @return true if the cache contains the key, false otherwise
+	 */
+	public synchronized boolean containsKey(final long key) {
+		return findSlot(key) != NONE;
+	}
+
+	@Override
+	public V get(final LibraryItem item) {
+		if (item instanceof IdentifiableLibraryItem) {
+			return get(((IdentifiableLibraryItem) item).getId());
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	public void put(final LibraryItem item, final V value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		if (item instanceof IdentifiableLibraryItem) {
+			put(((IdentifiableLibraryItem) item).getId(), value);
+		}
+	}
+
+	@Override
+	public void remove(final LibraryItem item) {
+		if (item instanceof IdentifiableLibraryItem) {
+			remove(((IdentifiableLibraryItem) item).getId());
+		}
+	}
+
+	@Override
+	public synchronized void evictAll() {
+		Arrays.fill(table, 0);
+		Arrays.fill(values, null);
+		mostRecent = NONE;
+		leastRecent = NONE;
+		firstFree = NONE;
+		allocated = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return the number of entries currently in the cache
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return the maximum number of entries
+	 */
+	public int maxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Finds the table slot which refers to the entry for a key.
+	 *
+	 * @param key
+	 * 		the key to find
+	 * @return the slot, or {@link #NONE} if the key is not in the cache
+	 */
+	private int findSlot(final long key) {
+		int slot = slotFor(key);
+
+		while (table[slot] != 0) {
+			if (keys[table[slot] - 1] == key) {
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * Removes the entry referred to by a table slot and releases it to the free list. Any
+	 * following slots in the same probe sequence are shifted back to fill the gap, which avoids
+	 * the need for deletion markers.
+	 *
+	 * @param slot
+	 * 		the occupied slot to remove
+	 */
+	private void removeSlot(final int slot) {
+		final int entry = table[slot] - 1;
+
+		unlink(entry);
+		values[entry] = null;
+		older[entry] = firstFree;
+		firstFree = entry;
+		size--;
+
+		int hole = slot;
+		int current = slot;
+		table[hole] = 0;
+
+		while (true) {
+			current = (current + 1) & mask;
+
+			if (table[current] == 0) {
+				return;
+			}
+
+			// The slot can only fill the hole if the hole lies on its probe sequence
+			final int ideal = slotFor(keys[table[current] - 1]);
+
+			if (((current - ideal) & mask) >= ((current - hole) & mask)) {
+				table[hole] = table[current];
+				table[current] = 0;
+				hole = current;
+			}
+		}
+	}
+
+	/**
+	 * @return the index of an unused entry, taken from the free list if possible
+	 */
+	private int allocateEntry() {
+		if (firstFree == NONE) {
+			return allocated++;
+		}
+
+		final int entry = firstFree;
+		firstFree = older[entry];
+
+		return entry;
+	}
+
+	/**
+	 * Marks an entry as the most recently used.
+	 *
+	 * @param entry
+	 * 		the index of the entry
+	 */
+	private void moveToFront(final int entry) {
+		if (entry != mostRecent) {
+			unlink(entry);
+			linkAtFront(entry);
+		}
+	}
+
+	/**
+	 * Removes an entry from the recency list.
+	 *
+	 * @param entry
+	 * 		the index of the linked entry
+	 */
+	private void unlink(final int entry) {
+		final int newerEntry = newer[entry];
+		final int olderEntry = older[entry];
+
+		if (newerEntry == NONE) {
+			mostRecent = olderEntry;
+		} else {
+			older[newerEntry] = olderEntry;
+		}
+
+		if (olderEntry == NONE) {
+			leastRecent = newerEntry;
+		} else {
+			newer[olderEntry] = newerEntry;
+		}
+	}
+
+	/**
+	 * Adds an entry to the most recently used end of the recency list.
+	 *
+	 * @param entry
+	 * 		the index of the unlinked entry
+	 */
+	private void linkAtFront(final int entry) {
+		newer[entry] = NONE;
+		older[entry] = mostRecent;
+
+		if (mostRecent == NONE) {
+			leastRecent = entry;
+		} else {
+			newer[mostRecent] = entry;
+		}
+
+		mostRecent = entry;
+	}
+
+	/**
+	 * Computes the ideal table slot for a key. The key is mixed so that sequential and patterned
+	 * ids are spread evenly across the table.
+	 *
+	 * @param key
+	 * 		the key to compute the slot for
+	 * @return the slot
+	 */
+	private int slotFor(final long key) {
+		long hash = key;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+
+		return (int) hash & mask;
+	}
+}
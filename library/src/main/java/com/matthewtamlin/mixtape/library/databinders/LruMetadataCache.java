@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.support.v4.util.LruCache;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A MetadataCache backed by an LruCache. IdentifiableLibraryItems are keyed on their ids, and all
+ * other items are keyed on the items themselves.
+ *
+ * @param <V>
+ * 		the type of metadata stored in the cache
+ */
+@Tested(testMethod = "automated")
+public class LruMetadataCache<V> implements MetadataCache<V> {
+	/**
+	 * Stores the metadata.
+	 */
+	private final LruCache<Object, V> cache;
+
+	/**
+	 * Constructs a new LruMetadataCache which counts each item as one unit of size.
+	 *
+	 * @param maxSize
+	 * 		the maximum number of items to cache metadata for, greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxSize} is not greater than zero
+	 */
+	public LruMetadataCache(final int maxSize) {
+		this(new LruCache<Object, V>(maxSize));
+	}
+
+	/**
+	 * Constructs a new LruMetadataCache backed by the supplied LruCache. This allows the sizing of
+	 * entries to be customised. The keys of the supplied cache are ids or LibraryItems, as
+	 * returned by {@link ItemIdentity#getKey(LibraryItem)}.
+	 *
+	 * @param cache
+	 * 		stores the metadata, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 */
+	public LruMetadataCache(final LruCache<Object, V> cache) {
+		this.cache = checkNotNull(cache, "cache cannot be null.");
+	}
+
+	@Override
+	public V get(final LibraryItem item) {
+		return item == null ? null : cache.get(ItemIdentity.getKey(item));
+	}
+
+	@Override
+	public void put(final LibraryItem item, final V value) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(value, "value cannot be null.");
+
+		cache.put(ItemIdentity.getKey(item), value);
+	}
+
+	@Override
+	public void remove(final LibraryItem item) {
+		if (item != null) {
+			cache.remove(ItemIdentity.getKey(item));
+		}
+	}
+
+	@Override
+	public void evictAll() {
+		cache.evictAll();
+	}
+
+	/**
+	 * @return the LruCache which stores the metadata, not null
+	 */
+	public LruCache<Object, V> getLruCache() {
+		return cache;
+	}
+}
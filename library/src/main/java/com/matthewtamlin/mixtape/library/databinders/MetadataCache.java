@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.matthewtamlin.mixtape.library.databinders;
+
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+/**
+ * Stores metadata loaded from LibraryItems so that it does not need to be loaded again.
+ * Implementations decide how items are keyed, and should key IdentifiableLibraryItems on their ids.
+ * Implementations must be thread safe, since binders access their caches from both the UI thread
+ * and background threads.
+ *
+ * @param <V>
+ * 		the type of metadata stored in the cache
+ */
+public interface MetadataCache<V> {
+	/**
+	 * Returns the metadata cached for the supplied item.
+	 *
+	 * @param item
+	 * 		the item to get the metadata for, may be null
+	 * @return the cached metadata, null if there is none
+	 */
+	V get(LibraryItem item);
+
+	/**
+	 * Caches metadata for the supplied item, replacing any metadata which is already cached for it.
+	 *
+	 * @param item
+	 * 		the item the metadata belongs to, not null
+	 * @param value
+	 * 		the metadata to cache, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code value} is null
+	 */
+	void put(LibraryItem item, V value);
+
+	/**
+	 * Removes the metadata cached for the supplied item, if any.
+	 *
+	 * @param item
+	 * 		the item to remove the metadata of, may be null
+	 */
+	void remove(LibraryItem item);
+
+	/**
+	 * Removes all cached metadata.
+	 */
+	void evictAll();
+}
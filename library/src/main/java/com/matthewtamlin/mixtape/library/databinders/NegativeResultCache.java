@@ -0,0 +1,256 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterThan;
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Records LibraryItem fields which could not be read, so that binders can bind the fallback value
+ * immediately instead of reading the item again. A field is recorded as missing if the item
+ * returned null for it, or as failed if reading it threw a LibraryReadException. Each record
+ * expires after a fixed time to live, and the least recently used items are evicted once the
+ * maximum size is exceeded. IdentifiableLibraryItems are keyed on their ids. A single instance
+ * should be shared by all binders which display the same items. This class is thread safe.
+ */
+@Tested(testMethod = "automated")
+public class NegativeResultCache {
+	/**
+	 * The fields which can be recorded.
+	 */
+	public enum Field {
+		TITLE,
+		SUBTITLE,
+		ARTWORK
+	}
+
+	/**
+	 * The negative results which can be recorded.
+	 */
+	public enum Result {
+		/**
+		 * The item returned null for the field.
+		 */
+		MISSING,
+
+		/**
+		 * The item threw a LibraryReadException when the field was read.
+		 */
+		READ_FAILED
+	}
+
+	/**
+	 * The maximum number of items to hold records for.
+	 */
+	private final int maxSize;
+
+	/**
+	 * The length of time each record remains valid, measured in milliseconds.
+	 */
+	private final long timeToLiveMs;
+
+	/**
+	 * The records for each item, in access order. Each item is keyed as per {@link
+	 * ItemIdentity#getKey(LibraryItem)}.
+	 */
+	private final LinkedHashMap<Object, Entry> entries;
+
+	/**
+	 * Constructs a new NegativeResultCache.
+	 *
+	 * @param maxSize
+	 * 		the maximum number of items to hold records for, greater than zero
+	 * @param timeToLiveMs
+	 * 		the length of time each record remains valid, measured in milliseconds, greater than
+	 * 		zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxSize} is not greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code timeToLiveMs} is not greater than zero
+	 */
+	public NegativeResultCache(final int maxSize, final long timeToLiveMs) {
+		this.maxSize = checkGreaterThan(maxSize, 0);
+
+		if (timeToLiveMs <= 0) {
+			throw new IllegalArgumentException("timeToLiveMs must be greater than zero.");
+		}
+
+		this.timeToLiveMs = timeToLiveMs;
+
+		entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Object, Entry> eldest) {
+				return size() > NegativeResultCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Records a negative result for a field of an item, replacing any existing record for that
+	 * field.
+	 *
+	 * @param item
+	 * 		the item the result applies to, not null
+	 * @param field
+	 * 		the field the result applies to, not null
+	 * @param result
+	 * 		the result to record, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code field} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code result} is null
+	 */
+	public synchronized void put(final LibraryItem item, final Field field, final Result result) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(field, "field cannot be null.");
+		checkNotNull(result, "result cannot be null.");
+
+		final Object key = ItemIdentity.getKey(item);
+		Entry entry = entries.get(key);
+
+		if (entry == null) {
+			entry = new Entry();
+			entries.put(key, entry);
+		}
+
+		entry.results[field.ordinal()] = result;
+		entry.expiryTimesMs[field.ordinal()] = currentTimeMillis() + timeToLiveMs;
+	}
+
+	/**
+	 * Returns the negative result recorded for a field of an item. Expired records are discarded.
+	 *
+	 * @param item
+	 * 		the item to get the result for, may be null
+	 * @param field
+	 * 		the field to get the result for, not null
+	 * @return the recorded result, null if there is no valid record
+	 * @throws IllegalArgumentException
+	 * 		if {@code field} is null
+	 */
+	public synchronized Result get(final LibraryItem item, final Field field) {
+		checkNotNull(field, "field cannot be null.");
+
+		final Object key = ItemIdentity.getKey(item);
+		final Entry entry = key == null ? null : entries.get(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		final int slot = field.ordinal();
+
+		if (entry.results[slot] != null && currentTimeMillis() >= entry.expiryTimesMs[slot]) {
+			entry.results[slot] = null;
+
+			if (entry.isEmpty()) {
+				entries.remove(key);
+			}
+		}
+
+		return entry.results[slot];
+	}
+
+	/**
+	 * Discards all records for an item. This should be called when an item is modified.
+	 *
+	 * @param item
+	 * 		the item to discard the records of, may be null
+	 */
+	public synchronized void remove(final LibraryItem item) {
+		if (item != null) {
+			entries.remove(ItemIdentity.getKey(item));
+		}
+	}
+
+	/**
+	 * Discards all records.
+	 */
+	public synchronized void evictAll() {
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of items currently holding records, including expired records which have
+	 * not yet been discarded
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the maximum number of items to hold records for
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the length of time each record remains valid, measured in milliseconds
+	 */
+	public long getTimeToLiveMs() {
+		return timeToLiveMs;
+	}
+
+	/**
+	 * Returns the current time from a monotonic clock. Subclasses may override this method to
+	 * supply a different clock.
+	 *
+	 * @return the current time, measured in milliseconds
+	 */
+	protected long currentTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	/**
+	 * The records for a single item, indexed by field ordinal.
+	 */
+	private static class Entry {
+		/**
+		 * The recorded results, null where there is no record.
+		 */
+		private final Result[] results = new Result[Field.values().length];
+
+		/**
+		 * The time at which each record expires, measured in milliseconds.
+		 */
+		private final long[] expiryTimesMs = new long[Field.values().length];
+
+		/**
+		 * @return true if this entry holds no records, false otherwise
+		 */
+		private boolean isEmpty() {
+			for (final Result result : results) {
+				if (result != null) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+}
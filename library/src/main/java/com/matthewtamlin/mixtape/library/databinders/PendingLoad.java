@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+/**
+ * A single view's share of a bind operation which could not be completed synchronously. Pending
+ * loads allow the loading for several views to be performed together in one background unit of
+ * work, such as one task per row of a list. The methods must be called in order, and each must be
+ * called at most once. If the bind operation is cancelled at any point, the remaining methods do
+ * nothing.
+ */
+public interface PendingLoad {
+	/**
+	 * Prepares to load. This method must be called on the UI thread immediately before {@link
+	 * #load()} is called.
+	 */
+	void onPreLoad();
+
+	/**
+	 * Loads the data. This method must be called on a background thread.
+	 */
+	void load();
+
+	/**
+	 * Binds the loaded data to the view. This method must be called on the UI thread after {@link
+	 * #load()} has returned.
+	 */
+	void publish();
+}
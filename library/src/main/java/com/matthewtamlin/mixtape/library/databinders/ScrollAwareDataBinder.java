@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.view.View;
+
+/**
+ * A DataBinder which adapts its behaviour to the scrolling of the list containing its views. For
+ * example, a binder may defer expensive loads while the list is flinging quickly, since most of
+ * the rows bound during a fling are scrolled off screen before their data could be displayed.
+ *
+ * @param <D>
+ * 		the type of data to bind
+ * @param <V>
+ * 		the type of view to bind data to
+ */
+public interface ScrollAwareDataBinder<D, V extends View> extends DataBinder<D, V> {
+	/**
+	 * The list is not scrolling. Equal to {@code RecyclerView.SCROLL_STATE_IDLE}.
+	 */
+	int SCROLL_STATE_IDLE = 0;
+
+	/**
+	 * The list is being dragged by the user. Equal to {@code RecyclerView.SCROLL_STATE_DRAGGING}.
+	 */
+	int SCROLL_STATE_DRAGGING = 1;
+
+	/**
+	 * The list is scrolling without being dragged, for example during a fling. Equal to {@code
+	 * RecyclerView.SCROLL_STATE_SETTLING}.
+	 */
+	int SCROLL_STATE_SETTLING = 2;
+
+	/**
+	 * Called on the UI thread whenever the scroll state of the list changes, and each time the
+	 * list scrolls.
+	 *
+	 * @param scrollState
+	 * 		the current scroll state, one of {@link #SCROLL_STATE_IDLE}, {@link
+	 * 		#SCROLL_STATE_DRAGGING} or {@link #SCROLL_STATE_SETTLING}
+	 * @param velocity
+	 * 		the current scroll speed, measured in pixels per second, zero if the list is idle
+	 */
+	void onScrollStateChanged(int scrollState, int velocity);
+}
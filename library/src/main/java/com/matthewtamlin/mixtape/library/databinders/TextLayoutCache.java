@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.graphics.Typeface;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.ItemIdentity;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Caches single line text layouts for items, so that text which has already been measured and
+ * ellipsized does not need to be laid out again when it is rebound. One layout is stored per item,
+ * and a cached layout is only returned if it was computed for the same text, width, text size and
+ * typeface. Since only one layout is stored per item, the title and subtitle binders must not
+ * share a cache. This class is thread safe.
+ */
+@Tested(testMethod = "automated")
+public class TextLayoutCache {
+	/**
+	 * Stores the layouts, keyed on the identity keys of the items.
+	 */
+	private final LruCache<Object, Entry> layouts;
+
+	/**
+	 * Constructs a new TextLayoutCache.
+	 *
+	 * @param maxSize
+	 * 		the maximum number of layouts to cache, greater than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code maxSize} is not greater than zero
+	 */
+	public TextLayoutCache(final int maxSize) {
+		layouts = new LruCache<>(maxSize);
+	}
+
+	/**
+	 * Returns the cached layout of the text of an item.
+	 *
+	 * @param item
+	 * 		the item the text belongs to, may be null
+	 * @param text
+	 * 		the text the layout must display, may be null
+	 * @param paint
+	 * 		the paint the layout must use, not null
+	 * @param width
+	 * 		the width the layout must fit, measured in pixels
+	 * @return the layout, null if no matching layout is cached
+	 * @throws IllegalArgumentException
+	 * 		if {@code paint} is null
+	 */
+	public Layout get(final LibraryItem item, final CharSequence text, final TextPaint paint,
+			final int width) {
+		checkNotNull(paint, "paint cannot be null.");
+
+		if (item == null || text == null) {
+			return null;
+		}
+
+		final Entry entry = layouts.get(ItemIdentity.getKey(item));
+
+		return entry != null && entry.matches(text, paint, width) ? entry.layout : null;
+	}
+
+	/**
+	 * Returns the cached layout of the text of an item, and creates and caches a new layout if
+	 * there is no matching layout. Layouts may be created on any thread, provided the paint is not
+	 * used elsewhere at the same time.
+	 *
+	 * @param item
+	 * 		the item the text belongs to, not null
+	 * @param text
+	 * 		the text the layout must display, not null
+	 * @param paint
+	 * 		the paint the layout must use, not null
+	 * @param width
+	 * 		the width the layout must fit, measured in pixels, greater than zero
+	 * @return the layout, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code item}, {@code text} or {@code paint} is null
+	 */
+	public Layout getOrCreate(final LibraryItem item, final CharSequence text,
+			final TextPaint paint, final int width) {
+		checkNotNull(item, "item cannot be null.");
+		checkNotNull(text, "text cannot be null.");
+
+		final Layout cachedLayout = get(item, text, paint, width);
+
+		if (cachedLayout != null) {
+			return cachedLayout;
+		}
+
+		final Layout layout = createLayout(text, paint, width);
+		layouts.put(ItemIdentity.getKey(item), new Entry(text, paint, width, layout));
+
+		return layout;
+	}
+
+	/**
+	 * Removes the cached layout of an item.
+	 *
+	 * @param item
+	 * 		the item to remove the layout of, may be null
+	 */
+	public void remove(final LibraryItem item) {
+		if (item != null) {
+			layouts.remove(ItemIdentity.getKey(item));
+		}
+	}
+
+	/**
+	 * Removes all cached layouts.
+	 */
+	public void evictAll() {
+		layouts.evictAll();
+	}
+
+	/**
+	 * Creates a layout which displays text on a single line, ellipsized at the end if it does not
+	 * fit the width.
+	 *
+	 * @param text
+	 * 		the text to display, not null
+	 * @param paint
+	 * 		the paint to measure and draw the text with, not null
+	 * @param width
+	 * 		the available width, measured in pixels
+	 * @return the new layout, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code text} or {@code paint} is null
+	 */
+	public static Layout createLayout(final CharSequence text, final TextPaint paint,
+			final int width) {
+		checkNotNull(text, "text cannot be null.");
+		checkNotNull(paint, "paint cannot be null.");
+
+		final CharSequence ellipsized = TextUtils.ellipsize(text, paint, width, TextUtils
+				.TruncateAt.END);
+
+		return new StaticLayout(ellipsized, paint, Math.max(0, width), Layout.Alignment
+				.ALIGN_NORMAL, 1, 0, false);
+	}
+
+	/**
+	 * A cached layout and the parameters it was computed for.
+	 */
+	private static final class Entry {
+		/**
+		 * The text of the layout.
+		 */
+		private final CharSequence text;
+
+		/**
+		 * The text size of the paint the layout was computed with.
+		 */
+		private final float textSize;
+
+		/**
+		 * The typeface of the paint the layout was computed with.
+		 */
+		private final Typeface typeface;
+
+		/**
+		 * The width the layout was computed for, measured in pixels.
+		 */
+		private final int width;
+
+		/**
+		 * The layout.
+		 */
+		private final Layout layout;
+
+		/**
+		 * Constructs a new Entry.
+		 *
+		 * @param text
+		 * 		the text of the layout, not null
+		 * @param paint
+		 * 		the paint the layout was computed with, not null
+		 * @param width
+		 * 		the width the layout was computed for, measured in pixels
+		 * @param layout
+		 * 		the layout, not null
+		 */
+		private Entry(final CharSequence text, final TextPaint paint, final int width,
+				final Layout layout) {
+			this.text = text;
+			this.textSize = paint.getTextSize();
+			this.typeface = paint.getTypeface();
+			this.width = width;
+			this.layout = layout;
+		}
+
+		/**
+		 * Determines whether the layout can be used to display text.
+		 *
+		 * @param text
+		 * 		the text to display, not null
+		 * @param paint
+		 * 		the paint to display the text with, not null
+		 * @param width
+		 * 		the available width, measured in pixels
+		 * @return true if the layout matches the parameters, false otherwise
+		 */
+		private boolean matches(final CharSequence text, final TextPaint paint, final int width) {
+			return this.width == width && textSize == paint.getTextSize() && typeface == paint
+					.getTypeface() && (this.text == text || this.text.toString().equals(text
+					.toString()));
+		}
+	}
+}
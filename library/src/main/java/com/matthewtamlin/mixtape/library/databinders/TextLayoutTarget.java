@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.databinders;
+
+import android.text.Layout;
+import android.text.TextPaint;
+
+/**
+ * A view which draws its text using a precomputed layout. Text data binders which are configured
+ * with a {@link TextLayoutCache} compute layouts for such views in the background, so that the
+ * text does not need to be measured and shaped on the UI thread when it is drawn.
+ */
+public interface TextLayoutTarget {
+	/**
+	 * Returns the paint the text is drawn with. Data binders copy the paint on the UI thread before
+	 * using it in the background, so the returned object is never accessed concurrently.
+	 *
+	 * @return the paint, not null
+	 */
+	TextPaint getLayoutPaint();
+
+	/**
+	 * @return the width available to the text, measured in pixels, zero if it is not yet known
+	 */
+	int getLayoutWidth();
+
+	/**
+	 * Supplies a precomputed layout for text which has been bound to the view. The view should
+	 * only use the layout while it still displays the text, and while the available width and
+	 * paint still match those the layout was computed for.
+	 *
+	 * @param text
+	 * 		the text the layout was computed for, not null
+	 * @param layout
+	 * 		the precomputed layout, not null
+	 */
+	void setTextLayout(CharSequence text, Layout layout);
+}
@@ -18,6 +18,8 @@ package com.matthewtamlin.mixtape.library.databinders;
 
 import android.os.AsyncTask;
 import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.TextPaint;
 import android.widget.TextView;
 
 import com.matthewtamlin.java_utilities.checkers.NullChecker;
@@ -25,6 +27,8 @@ import com.matthewtamlin.java_utilities.testing.Tested;
 import com.matthewtamlin.mixtape.library.data.DisplayableDefaults;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
 import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Field;
+import com.matthewtamlin.mixtape.library.databinders.NegativeResultCache.Result;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,17 +37,43 @@ import java.util.Iterator;
  * Binds title data from LibraryItems to TextViews. Data is cached as it is loaded to improve future
  * performance, and asynchronous processing is only used if data is not already cached. In case an
  * item fails to return a title, a default must be supplied.
+ * <p>
+ * A NegativeResultCache can optionally be supplied to record items which have no title or which
+ * fail to return one. Such items are bound synchronously on subsequent binds without being read
+ * again.
+ * <p>
+ * A TextLayoutCache can optionally be supplied to precompute the layouts of titles bound to
+ * {@link TextLayoutTarget}s. Layouts are computed in the background along with the titles, so the
+ * titles do not need to be measured on the UI thread. A title is only bound synchronously if its
+ * layout is also cached.
+ * <p>
+ * Bind operations are cancelled automatically when the target TextView is detached from its
+ * window, and restarted if the TextView is reattached without being rebound. Completed operations
+ * are released immediately, so the binder never holds on to views it is not currently loading
+ * data for.
  */
 @Tested(testMethod = "automated")
-public class TitleBinder implements DataBinder<LibraryItem, TextView> {
+public class TitleBinder implements BatchableDataBinder<LibraryItem, TextView> {
 	/**
 	 * All bind tasks currently in progress. Each task is mapped to the target TextView.
 	 */
 	private final HashMap<TextView, BinderTask> tasks = new HashMap<>();
 
+	/**
+	 * Cancels bind operations when their TextViews are detached, and restarts them when the
+	 * TextViews are reattached.
+	 */
+	private final AttachStateTracker<LibraryItem, TextView> attachStateTracker = new
+			AttachStateTracker<>(this);
+
 	/**
 	 * Stores titles to increase performance and efficiency.
 	 */
+	private final MetadataCache<CharSequence> metadataCache;
+
+	/**
+	 * The LruCache supplied at construction, null if a MetadataCache was supplied instead.
+	 */
 	private final LruCache<LibraryItem, CharSequence> cache;
 
 	/**
@@ -52,7 +82,17 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 	private final DisplayableDefaults defaults;
 
 	/**
-	 * Constructs a new TitleBinder.
+	 * Records items which have no title or which fail to return one, null if not used.
+	 */
+	private final NegativeResultCache negativeResultCache;
+
+	/**
+	 * Stores precomputed layouts of titles, null if layouts are not precomputed.
+	 */
+	private TextLayoutCache textLayoutCache;
+
+	/**
+	 * Constructs a new TitleBinder which does not record negative results.
 	 *
 	 * @param cache
 	 * 		stores titles to increase performance and efficiency, not null
@@ -65,32 +105,88 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 	 */
 	public TitleBinder(final LruCache<LibraryItem, CharSequence> cache,
 			final DisplayableDefaults defaults) {
-		this.cache = NullChecker.checkNotNull(cache, "cache cannot be null");
+		this(cache, null, defaults);
+	}
+
+	/**
+	 * Constructs a new TitleBinder.
+	 *
+	 * @param cache
+	 * 		stores titles to increase performance and efficiency, not null
+	 * @param negativeResultCache
+	 * 		records items which have no title or which fail to return one, may be null
+	 * @param defaults
+	 * 		supplies the default title, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	public TitleBinder(final LruCache<LibraryItem, CharSequence> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this(new LibraryItemLruCacheAdapter<>(NullChecker.checkNotNull(cache,
+				"cache cannot be null")), cache, negativeResultCache, defaults);
+	}
+
+	/**
+	 * Constructs a new TitleBinder which uses a MetadataCache. This allows
+	 * IdentifiableLibraryItems to be keyed on their ids.
+	 *
+	 * @param cache
+	 * 		stores titles to increase performance and efficiency, not null
+	 * @param negativeResultCache
+	 * 		records items which have no title or which fail to return one, may be null
+	 * @param defaults
+	 * 		supplies the default title, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code cache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	public TitleBinder(final MetadataCache<CharSequence> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this(cache, null, negativeResultCache, defaults);
+	}
+
+	/**
+	 * Constructs a new TitleBinder.
+	 *
+	 * @param metadataCache
+	 * 		stores titles to increase performance and efficiency, not null
+	 * @param cache
+	 * 		the LruCache which backs {@code metadataCache}, may be null
+	 * @param negativeResultCache
+	 * 		records items which have no title or which fail to return one, may be null
+	 * @param defaults
+	 * 		supplies the default title, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code metadataCache} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code defaults} is null
+	 */
+	private TitleBinder(final MetadataCache<CharSequence> metadataCache,
+			final LruCache<LibraryItem, CharSequence> cache,
+			final NegativeResultCache negativeResultCache, final DisplayableDefaults defaults) {
+		this.metadataCache = NullChecker.checkNotNull(metadataCache, "cache cannot be null");
+		this.cache = cache;
+		this.negativeResultCache = negativeResultCache;
 		this.defaults = NullChecker.checkNotNull(defaults, "defaults cannot be null");
 	}
 
 	@Override
 	public void bind(final TextView view, final LibraryItem data) {
-		NullChecker.checkNotNull(view, "textView cannot be null");
-
-		// There must never be more than one task operating on the same TextView concurrently
-		cancel(view);
+		final BinderTask task = prepareTask(view, data);
 
-		// Create the task but don't execute it immediately
-		final BinderTask task = new BinderTask(view, data);
-		tasks.put(view, task);
-
-		// Using asynchronous processing is unnecessary if the title is already cached
-		if (data == null) {
-			task.execute();
-		} else if (cache.get(data) != null) {
-			task.onPreExecute();
-			task.onPostExecute(cache.get(data));
-		} else {
+		if (task != null) {
 			task.execute();
 		}
 	}
 
+	@Override
+	public PendingLoad prepare(final TextView view, final LibraryItem data) {
+		return prepareTask(view, data);
+	}
+
 	@Override
 	public void cancel(final TextView view) {
 		final AsyncTask task = tasks.get(view);
@@ -99,6 +195,8 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 			task.cancel(false);
 			tasks.remove(view);
 		}
+
+		attachStateTracker.onBindCancelled(view);
 	}
 
 	@Override
@@ -113,15 +211,25 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 				textViewIterator.remove();
 			}
 		}
+
+		attachStateTracker.clear();
 	}
 
 	/**
-	 * @return the cache used to store titles, not null
+	 * @return the LruCache used to store titles, null if the binder was constructed with a
+	 * MetadataCache
 	 */
 	public LruCache<LibraryItem, CharSequence> getCache() {
 		return cache;
 	}
 
+	/**
+	 * @return the cache used to store titles, not null
+	 */
+	public MetadataCache<CharSequence> getMetadataCache() {
+		return metadataCache;
+	}
+
 	/**
 	 * @return the default title supplier, not null
 	 */
@@ -129,10 +237,117 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 		return defaults;
 	}
 
+	/**
+	 * @return the cache used to record negative results, null if negative results are not recorded
+	 */
+	public NegativeResultCache getNegativeResultCache() {
+		return negativeResultCache;
+	}
+
+	/**
+	 * @return the cache used to store precomputed layouts of titles, null if layouts are not
+	 * precomputed
+	 */
+	public TextLayoutCache getTextLayoutCache() {
+		return textLayoutCache;
+	}
+
+	/**
+	 * Sets the cache used to store precomputed layouts of titles. Layouts are only computed for
+	 * views which implement {@link TextLayoutTarget} and have been laid out. Changing the cache
+	 * does not affect bind operations which are already in progress.
+	 *
+	 * @param textLayoutCache
+	 * 		stores precomputed layouts of titles, null to not precompute layouts
+	 */
+	public void setTextLayoutCache(final TextLayoutCache textLayoutCache) {
+		this.textLayoutCache = textLayoutCache;
+	}
+
+	/**
+	 * Starts a bind operation by creating and registering a task, and binds the title immediately
+	 * if it is available without loading.
+	 *
+	 * @param view
+	 * 		the TextView to bind data to, not null
+	 * @param data
+	 * 		the LibraryItem to source the title from, may be null
+	 * @return the task, which must be executed to complete the bind operation, null if the bind
+	 * operation is already complete
+	 * @throws IllegalArgumentException
+	 * 		if {@code view} is null
+	 */
+	private BinderTask prepareTask(final TextView view, final LibraryItem data) {
+		NullChecker.checkNotNull(view, "textView cannot be null");
+
+		// There must never be more than one task operating on the same TextView concurrently
+		cancel(view);
+
+		// Create the task but don't execute it immediately
+		final BinderTask task = new BinderTask(view, data);
+		tasks.put(view, task);
+		attachStateTracker.onBindStarted(view, data);
+
+		// Using asynchronous processing is unnecessary if the title is already cached
+		final Result negativeResult = getNegativeResult(data);
+		final CharSequence cachedTitle = data == null ? null : metadataCache.get(data);
+
+		if (data == null) {
+			return task;
+		} else if (cachedTitle != null && task.isLayoutReady(cachedTitle)) {
+			task.onPreExecute();
+			task.onPostExecute(cachedTitle);
+			return null;
+		} else if (negativeResult != null) {
+			task.onPreExecute();
+			task.onPostExecute(getFallbackTitle(negativeResult));
+			return null;
+		} else {
+			return task;
+		}
+	}
+
+	/**
+	 * Returns the negative result recorded for the title of an item.
+	 *
+	 * @param item
+	 * 		the item to get the result for, may be null
+	 * @return the recorded result, null if there is none or if negative results are not recorded
+	 */
+	private Result getNegativeResult(final LibraryItem item) {
+		return negativeResultCache == null ? null : negativeResultCache.get(item, Field.TITLE);
+	}
+
+	/**
+	 * Records a negative result for the title of an item, if negative results are recorded.
+	 *
+	 * @param item
+	 * 		the item the result applies to, not null
+	 * @param result
+	 * 		the result to record, not null
+	 */
+	private void putNegativeResult(final LibraryItem item, final Result result) {
+		if (negativeResultCache != null) {
+			negativeResultCache.put(item, Field.TITLE, result);
+		}
+	}
+
+	/**
+	 * Returns the title to bind in place of a negative result. This is the same value which is
+	 * bound when the item is read and produces that result.
+	 *
+	 * @param result
+	 * 		the negative result, not null
+	 * @return the title to bind
+	 */
+	private CharSequence getFallbackTitle(final Result result) {
+		return result == Result.READ_FAILED ? defaults.getTitle() : null;
+	}
+
 	/**
 	 * Task for asynchronously loading data and binding it to the UI when available.
 	 */
-	private class BinderTask extends AsyncTask<Void, Void, CharSequence> {
+	private class BinderTask extends AsyncTask<Void, Void, CharSequence> implements PendingLoad {
 		/**
 		 * The TextView to bind data to.
 		 */
@@ -143,6 +358,31 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 		 */
 		private final LibraryItem data;
 
+		/**
+		 * The title loaded by {@link #load()}.
+		 */
+		private CharSequence result;
+
+		/**
+		 * Stores the precomputed layout, null if no layout is computed.
+		 */
+		private final TextLayoutCache layoutCache;
+
+		/**
+		 * A copy of the paint of the TextView, null if no layout is computed.
+		 */
+		private final TextPaint layoutPaint;
+
+		/**
+		 * The width available to the text of the TextView, measured in pixels.
+		 */
+		private final int layoutWidth;
+
+		/**
+		 * The precomputed layout of the title, null if it has not been computed.
+		 */
+		private Layout layout;
+
 		/**
 		 * Constructs a new BinderTask.
 		 *
@@ -156,6 +396,37 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 		public BinderTask(final TextView textView, final LibraryItem data) {
 			this.textView = NullChecker.checkNotNull(textView, "textView cannot be null");
 			this.data = data;
+
+			// The paint is copied on the UI thread so that it is never used concurrently
+			if (textLayoutCache != null && textView instanceof TextLayoutTarget) {
+				final TextLayoutTarget target = (TextLayoutTarget) textView;
+
+				layoutWidth = target.getLayoutWidth();
+				layoutPaint = layoutWidth > 0 ? new TextPaint(target.getLayoutPaint()) : null;
+				layoutCache = layoutPaint != null ? textLayoutCache : null;
+			} else {
+				layoutWidth = 0;
+				layoutPaint = null;
+				layoutCache = null;
+			}
+		}
+
+		/**
+		 * Looks up the cached layout of a title, if this task computes layouts.
+		 *
+		 * @param title
+		 * 		the title to look up the layout of, may be null
+		 * @return true if the layout is cached or no layout is required, false if the layout must
+		 * be computed
+		 */
+		public boolean isLayoutReady(final CharSequence title) {
+			if (layoutCache == null || title == null) {
+				return true;
+			}
+
+			layout = layoutCache.get(data, title, layoutPaint, layoutWidth);
+
+			return layout != null;
 		}
 
 		@Override
@@ -167,11 +438,27 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 
 		@Override
 		public CharSequence doInBackground(final Void... params) {
+			final CharSequence title = loadTitle();
+
+			// Measuring and ellipsizing the text is the expensive part of displaying it
+			if (!isCancelled() && layoutCache != null && title != null) {
+				layout = layoutCache.getOrCreate(data, title, layoutPaint, layoutWidth);
+			}
+
+			return title;
+		}
+
+		/**
+		 * Loads the title from the cache, or from the data if it is not cached.
+		 *
+		 * @return the title, may be null
+		 */
+		private CharSequence loadTitle() {
 			if (isCancelled() || data == null) {
 				return null;
 			}
 
-			final CharSequence cachedTitle = cache.get(data);
+			final CharSequence cachedTitle = metadataCache.get(data);
 
 			if (cachedTitle != null) {
 				return cachedTitle;
@@ -180,11 +467,14 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 					final CharSequence loadedTitle = data.getTitle();
 
 					if (loadedTitle != null) {
-						cache.put(data, loadedTitle);
+						metadataCache.put(data, loadedTitle);
+					} else {
+						putNegativeResult(data, Result.MISSING);
 					}
 
 					return loadedTitle;
 				} catch (final LibraryReadException e) {
+					putNegativeResult(data, Result.READ_FAILED);
 					return defaults.getTitle();
 				}
 			}
@@ -192,12 +482,46 @@ public class TitleBinder implements DataBinder<LibraryItem, TextView> {
 
 		@Override
 		protected void onPostExecute(final CharSequence title) {
+			release();
+
 			if (!isCancelled()) {
 				textView.setText(null); // Resets the view to ensure the text changes
 				textView.setText(title);
+
+				if (layout != null) {
+					((TextLayoutTarget) textView).setTextLayout(title, layout);
+				}
 			} else {
 				textView.setText(null);
 			}
 		}
+
+		/**
+		 * Unregisters this task, unless it has already been replaced by a newer task.
+		 */
+		private void release() {
+			if (tasks.get(textView) == this) {
+				tasks.remove(textView);
+				attachStateTracker.onBindFinished(textView);
+			}
+		}
+
+		@Override
+		public void onPreLoad() {
+			onPreExecute();
+		}
+
+		@Override
+		public void load() {
+			result = doInBackground();
+		}
+
+		@Override
+		public void publish() {
+			// Unlike AsyncTask, a cancelled load must not touch the view since it may be rebound
+			if (!isCancelled()) {
+				onPostExecute(result);
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -16,11 +16,14 @@
 
 package com.matthewtamlin.mixtape.library.mixtape_body;
 
+import android.os.Parcelable;
 import android.view.MenuItem;
 
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * A view which displays a list of LibraryItems to the user. The view shows a contextual menu button
@@ -103,6 +106,18 @@ public interface BodyView {
 	 */
 	void notifyItemModified(int index);
 
+	/**
+	 * Notifies the view of a change to specific fields of one of the items in the current list.
+	 * This is equivalent to {@link #notifyItemModified(int)}, except that the view only needs to
+	 * rebind the supplied fields.
+	 *
+	 * @param index
+	 * 		the index of the changed item
+	 * @param fields
+	 * 		the fields which changed, not null and not empty
+	 */
+	void notifyItemModified(int index, Set<LibraryItemField> fields);
+
 	/**
 	 * Notifies the view of a structural change to the current list where a single item was moved to
 	 * a new index.
@@ -114,6 +129,52 @@ public interface BodyView {
 	 */
 	void notifyItemMoved(int initialIndex, int finalIndex);
 
+	/**
+	 * Notifies the view of the addition of a contiguous range of items to the current list.
+	 *
+	 * @param startIndex
+	 * 		the index of the first added item
+	 * @param count
+	 * 		the number of added items
+	 */
+	void notifyItemRangeAdded(int startIndex, int count);
+
+	/**
+	 * Notifies the view of the removal of a contiguous range of items from the current list.
+	 *
+	 * @param startIndex
+	 * 		the index of the first removed item, with respect to the list before removal
+	 * @param count
+	 * 		the number of removed items
+	 */
+	void notifyItemRangeRemoved(int startIndex, int count);
+
+	/**
+	 * Notifies the view of a change to a contiguous range of items in the current list. As with
+	 * {@link #notifyItemModified(int)}, this notification does not signify a change in the
+	 * structure of the list.
+	 *
+	 * @param startIndex
+	 * 		the index of the first changed item
+	 * @param count
+	 * 		the number of changed items
+	 */
+	void notifyItemRangeModified(int startIndex, int count);
+
+	/**
+	 * Notifies the view of a change to specific fields of a contiguous range of items in the
+	 * current list. This is equivalent to {@link #notifyItemRangeModified(int, int)}, except that
+	 * the view only needs to rebind the supplied fields.
+	 *
+	 * @param startIndex
+	 * 		the index of the first changed item
+	 * @param count
+	 * 		the number of changed items
+	 * @param fields
+	 * 		the fields which changed, not null and not empty
+	 */
+	void notifyItemRangeModified(int startIndex, int count, Set<LibraryItemField> fields);
+
 	/**
 	 * Changes the visibility of the loading indicator.
 	 *
@@ -127,6 +188,23 @@ public interface BodyView {
 	 */
 	boolean loadingIndicatorIsShown();
 
+	/**
+	 * Captures the scroll position of this view, so that it can be restored to this view or to a
+	 * new instance of the view. The returned state is only valid while the items are unchanged.
+	 *
+	 * @return the scroll state, may be null
+	 */
+	Parcelable saveScrollState();
+
+	/**
+	 * Restores a scroll position previously captured by {@link #saveScrollState()}. If the view
+	 * does not yet contain any items, the position is restored once items are set.
+	 *
+	 * @param scrollState
+	 * 		the scroll state to restore, null to ignore
+	 */
+	void restoreScrollState(Parcelable scrollState);
+
 	/**
 	 * Registers the supplied listener for library item selected callbacks. If the supplied listener
 	 * is null or is already registered, then the method exits normally.
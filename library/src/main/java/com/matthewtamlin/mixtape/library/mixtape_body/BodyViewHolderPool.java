@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.mixtape_body;
+
+import android.support.v7.widget.RecyclerView;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * A RecycledViewPool which can be shared by several RecyclerBodyViews, so that a view holder
+ * inflated by one body can be reused by the others instead of each body inflating its own. In
+ * addition to recycled view holders, the pool holds prewarmed view holders which have been
+ * inflated ahead of time but never bound. Prewarmed view holders are handed out before any new
+ * view holders are inflated. View holders are grouped by view type, and bodies which inflate the
+ * same layout use the same view type.
+ * <p>
+ * All methods must be called on the UI thread.
+ */
+@Tested(testMethod = "automated")
+public class BodyViewHolderPool extends RecyclerView.RecycledViewPool {
+	/**
+	 * The prewarmed view holders, grouped by view type.
+	 */
+	private final Map<Integer, Deque<BodyViewHolder>> prewarmedViewHolders = new HashMap<>();
+
+	/**
+	 * Adds a prewarmed view holder to the pool.
+	 *
+	 * @param viewType
+	 * 		the view type of the view holder
+	 * @param viewHolder
+	 * 		the view holder to add, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code viewHolder} is null
+	 */
+	public void putPrewarmedViewHolder(final int viewType, final BodyViewHolder viewHolder) {
+		checkNotNull(viewHolder, "viewHolder cannot be null.");
+
+		Deque<BodyViewHolder> viewHolders = prewarmedViewHolders.get(viewType);
+
+		if (viewHolders == null) {
+			viewHolders = new ArrayDeque<>();
+			prewarmedViewHolders.put(viewType, viewHolders);
+		}
+
+		viewHolders.add(viewHolder);
+	}
+
+	/**
+	 * Removes a prewarmed view holder from the pool.
+	 *
+	 * @param viewType
+	 * 		the view type of the view holder
+	 * @return the view holder, null if there are no prewarmed view holders of the view type
+	 */
+	public BodyViewHolder takePrewarmedViewHolder(final int viewType) {
+		final Deque<BodyViewHolder> viewHolders = prewarmedViewHolders.get(viewType);
+
+		return viewHolders == null ? null : viewHolders.poll();
+	}
+
+	/**
+	 * Removes a specific prewarmed view holder from the pool, if it has not already been taken.
+	 *
+	 * @param viewType
+	 * 		the view type of the view holder
+	 * @param viewHolder
+	 * 		the view holder to remove
+	 * @return true if the view holder was removed, false if it was not in the pool
+	 */
+	public boolean removePrewarmedViewHolder(final int viewType, final BodyViewHolder viewHolder) {
+		final Deque<BodyViewHolder> viewHolders = prewarmedViewHolders.get(viewType);
+
+		return viewHolders != null && viewHolders.remove(viewHolder);
+	}
+
+	/**
+	 * @param viewType
+	 * 		the view type to count
+	 * @return the number of prewarmed view holders of the view type in the pool
+	 */
+	public int getPrewarmedViewHolderCount(final int viewType) {
+		final Deque<BodyViewHolder> viewHolders = prewarmedViewHolders.get(viewType);
+
+		return viewHolders == null ? 0 : viewHolders.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Prewarmed view holders are discarded as well.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		prewarmedViewHolders.clear();
+	}
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.mixtape_body;
+
+import android.os.AsyncTask;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.BatchReadableLibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
+import com.matthewtamlin.mixtape.library.data.LibraryReadException;
+import com.matthewtamlin.mixtape.library.databinders.BatchableDataBinder;
+import com.matthewtamlin.mixtape.library.databinders.DataBinder;
+import com.matthewtamlin.mixtape.library.databinders.PendingLoad;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Binds the title, subtitle and artwork of LibraryItems to BodyViewHolders using one background
+ * task per row, instead of one task per field. Each field is bound by its own DataBinder, but the
+ * loads of all {@link BatchableDataBinder}s are combined into a single unit of work which reads
+ * the fields of the item one after another on the same thread. Each field is published to the UI
+ * as soon as it has been loaded, so cheap fields such as titles are not held back by artwork.
+ * DataBinders which are not batchable are bound individually, so custom binders continue to work
+ * as before.
+ * <p>
+ * Items which implement {@link BatchReadableLibraryItem} are asked to begin a batch read before
+ * the fields of a row are loaded, so that an item which stores all of its fields in one file only
+ * needs to read the file once per row.
+ * <p>
+ * Row tasks are started once the row has been measured, so that artwork can be decoded at the
+ * final size of the ImageView. This class must only be used on the UI thread.
+ */
+@Tested(testMethod = "automated")
+public class CompositeRowBinder {
+	/**
+	 * All row tasks currently in progress. Each task is mapped to the target BodyViewHolder.
+	 */
+	private final HashMap<BodyViewHolder, RowTask> tasks = new HashMap<>();
+
+	/**
+	 * Binds titles, null if titles are not bound.
+	 */
+	private final DataBinder<LibraryItem, TextView> titleDataBinder;
+
+	/**
+	 * Binds subtitles, null if subtitles are not bound.
+	 */
+	private final DataBinder<LibraryItem, TextView> subtitleDataBinder;
+
+	/**
+	 * Binds artwork, null if artwork is not bound.
+	 */
+	private final DataBinder<LibraryItem, ImageView> artworkDataBinder;
+
+	/**
+	 * Constructs a new CompositeRowBinder.
+	 *
+	 * @param titleDataBinder
+	 * 		binds titles, null to not bind titles
+	 * @param subtitleDataBinder
+	 * 		binds subtitles, null to not bind subtitles
+	 * @param artworkDataBinder
+	 * 		binds artwork, null to not bind artwork
+	 */
+	public CompositeRowBinder(final DataBinder<LibraryItem, TextView> titleDataBinder,
+			final DataBinder<LibraryItem, TextView> subtitleDataBinder,
+			final DataBinder<LibraryItem, ImageView> artworkDataBinder) {
+		this.titleDataBinder = titleDataBinder;
+		this.subtitleDataBinder = subtitleDataBinder;
+		this.artworkDataBinder = artworkDataBinder;
+	}
+
+	/**
+	 * Binds data to the supplied view holder. Data which is available synchronously is bound
+	 * immediately, and all other data is loaded using a single background task.
+	 *
+	 * @param viewHolder
+	 * 		the view holder to bind data to, not null
+	 * @param data
+	 * 		the data to bind, null to clear the view holder
+	 * @throws IllegalArgumentException
+	 * 		if {@code viewHolder} is null
+	 */
+	public void bind(final BodyViewHolder viewHolder, final LibraryItem data) {
+		checkNotNull(viewHolder, "viewHolder cannot be null.");
+
+		// There must never be more than one task operating on the same view holder concurrently
+		cancelRowTask(viewHolder);
+
+		final List<PendingLoad> loads = new ArrayList<>();
+
+		prepareField(titleDataBinder, viewHolder.getTitleTextView(), data, loads);
+		prepareField(subtitleDataBinder, viewHolder.getSubtitleTextView(), data, loads);
+		prepareField(artworkDataBinder, viewHolder.getArtworkImageView(), data, loads);
+
+		// Using asynchronous processing is unnecessary if everything was bound synchronously
+		if (!loads.isEmpty()) {
+			final RowTask task = new RowTask(viewHolder, data, loads);
+			tasks.put(viewHolder, task);
+			task.executeWhenMeasured();
+		}
+	}
+
+	/**
+	 * Rebinds only the supplied fields of the view holder, leaving all other fields untouched.
+	 * Any loading which is already in progress for the other fields continues. Each field is bound
+	 * directly by its DataBinder, since a partial rebind rarely involves more than one field.
+	 * Custom fields are not bound by this class, and are ignored.
+	 *
+	 * @param viewHolder
+	 * 		the view holder to bind data to, not null
+	 * @param data
+	 * 		the data to bind, null to clear the fields
+	 * @param fields
+	 * 		the fields to rebind, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code viewHolder} is null
+	 * @throws IllegalArgumentException
+	 * 		if {@code fields} is null
+	 */
+	public void bindFields(final BodyViewHolder viewHolder, final LibraryItem data,
+			final Set<LibraryItemField> fields) {
+		checkNotNull(viewHolder, "viewHolder cannot be null.");
+		checkNotNull(fields, "fields cannot be null.");
+
+		if (fields.contains(LibraryItemField.TITLE) && titleDataBinder != null) {
+			titleDataBinder.bind(viewHolder.getTitleTextView(), data);
+		}
+
+		if (fields.contains(LibraryItemField.SUBTITLE) && subtitleDataBinder != null) {
+			subtitleDataBinder.bind(viewHolder.getSubtitleTextView(), data);
+		}
+
+		if (fields.contains(LibraryItemField.ARTWORK) && artworkDataBinder != null) {
+			artworkDataBinder.bind(viewHolder.getArtworkImageView(), data);
+		}
+	}
+
+	/**
+	 * Cancels the current bind operation for the supplied view holder, including the bind
+	 * operations of the individual fields. If no bind operation exists, the method exits normally.
+	 *
+	 * @param viewHolder
+	 * 		the view holder to cancel the bind operation for, not null
+	 */
+	public void cancel(final BodyViewHolder viewHolder) {
+		cancelRowTask(viewHolder);
+
+		if (titleDataBinder != null) {
+			titleDataBinder.cancel(viewHolder.getTitleTextView());
+		}
+
+		if (subtitleDataBinder != null) {
+			subtitleDataBinder.cancel(viewHolder.getSubtitleTextView());
+		}
+
+		if (artworkDataBinder != null) {
+			artworkDataBinder.cancel(viewHolder.getArtworkImageView());
+		}
+	}
+
+	/**
+	 * Cancels all existing bind operations, including those of the individual data binders.
+	 */
+	public void cancelAll() {
+		final Iterator<BodyViewHolder> viewHolderIterator = tasks.keySet().iterator();
+
+		while (viewHolderIterator.hasNext()) {
+			final RowTask existingTask = tasks.get(viewHolderIterator.next());
+
+			if (existingTask != null) {
+				existingTask.cancel(false);
+				existingTask.stopWaitingForMeasure();
+				viewHolderIterator.remove();
+			}
+		}
+
+		if (titleDataBinder != null) {
+			titleDataBinder.cancelAll();
+		}
+
+		if (subtitleDataBinder != null) {
+			subtitleDataBinder.cancelAll();
+		}
+
+		if (artworkDataBinder != null) {
+			artworkDataBinder.cancelAll();
+		}
+	}
+
+	/**
+	 * @return the data binder used to bind titles, null if there is none
+	 */
+	public DataBinder<LibraryItem, TextView> getTitleDataBinder() {
+		return titleDataBinder;
+	}
+
+	/**
+	 * @return the data binder used to bind subtitles, null if there is none
+	 */
+	public DataBinder<LibraryItem, TextView> getSubtitleDataBinder() {
+		return subtitleDataBinder;
+	}
+
+	/**
+	 * @return the data binder used to bind artwork, null if there is none
+	 */
+	public DataBinder<LibraryItem, ImageView> getArtworkDataBinder() {
+		return artworkDataBinder;
+	}
+
+	/**
+	 * Cancels the row task for the supplied view holder, but not the bind operations of the
+	 * individual fields.
+	 *
+	 * @param viewHolder
+	 * 		the view holder to cancel the row task for
+	 */
+	private void cancelRowTask(final BodyViewHolder viewHolder) {
+		final RowTask existingTask = tasks.remove(viewHolder);
+
+		if (existingTask != null) {
+			existingTask.cancel(false);
+			existingTask.stopWaitingForMeasure();
+		}
+	}
+
+	/**
+	 * Starts binding a single field. If the data binder is batchable, its load is added to the
+	 * supplied list instead of being executed, otherwise the data binder binds the field itself.
+	 *
+	 * @param dataBinder
+	 * 		the data binder for the field, null if the field is not bound
+	 * @param view
+	 * 		the view to bind the field to, not null
+	 * @param data
+	 * 		the data to bind, may be null
+	 * @param loads
+	 * 		the list to add the load to, not null
+	 * @param <V>
+	 * 		the type of view to bind the field to
+	 */
+	private static <V extends View> void prepareField(final DataBinder<LibraryItem, V> dataBinder,
+			final V view, final LibraryItem data, final List<PendingLoad> loads) {
+		if (dataBinder instanceof BatchableDataBinder) {
+			final PendingLoad load = ((BatchableDataBinder<LibraryItem, V>) dataBinder).prepare(
+					view, data);
+
+			if (load != null) {
+				loads.add(load);
+			}
+		} else if (dataBinder != null) {
+			dataBinder.bind(view, data);
+		}
+	}
+
+	/**
+	 * Task for loading all fields of a row in the background, and binding each field to the UI as
+	 * soon as it is available.
+	 */
+	private class RowTask extends AsyncTask<Void, PendingLoad, Void> {
+		/**
+		 * The view holder to bind data to.
+		 */
+		private final BodyViewHolder viewHolder;
+
+		/**
+		 * The item the fields are loaded from, may be null.
+		 */
+		private final LibraryItem data;
+
+		/**
+		 * The loads to execute, in order.
+		 */
+		private final List<PendingLoad> loads;
+
+		/**
+		 * Executes this task once the row has been measured, null if execution is not deferred.
+		 */
+		private ViewTreeObserver.OnPreDrawListener preDrawListener;
+
+		/**
+		 * Constructs a new RowTask.
+		 *
+		 * @param viewHolder
+		 * 		the view holder to bind data to, not null
+		 * @param data
+		 * 		the item the fields are loaded from, may be null
+		 * @param loads
+		 * 		the loads to execute, not null
+		 */
+		public RowTask(final BodyViewHolder viewHolder, final LibraryItem data,
+				final List<PendingLoad> loads) {
+			this.viewHolder = viewHolder;
+			this.data = data;
+			this.loads = loads;
+		}
+
+		/**
+		 * Executes this task once the root view of the row has been measured. If the row has not
+		 * been measured, execution is deferred until the row is about to be drawn. Rows bound
+		 * during layout are drawn in the same frame, so deferring does not delay loading
+		 * noticeably.
+		 */
+		public void executeWhenMeasured() {
+			final View rootView = viewHolder.getRootView();
+			final ViewTreeObserver observer = rootView.getViewTreeObserver();
+
+			if (rootView.getWidth() > 0 && rootView.getHeight() > 0) {
+				execute();
+			} else if (observer == null || !observer.isAlive()) {
+				// Without a live observer the row cannot report its size, so don't wait
+				execute();
+			} else {
+				preDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+					@Override
+					public boolean onPreDraw() {
+						stopWaitingForMeasure();
+
+						if (!isCancelled()) {
+							execute();
+						}
+
+						return true;
+					}
+				};
+
+				observer.addOnPreDrawListener(preDrawListener);
+			}
+		}
+
+		/**
+		 * Stops waiting for the row to be measured, if execution was deferred.
+		 */
+		public void stopWaitingForMeasure() {
+			if (preDrawListener != null) {
+				viewHolder.getRootView().getViewTreeObserver().removeOnPreDrawListener(
+						preDrawListener);
+				preDrawListener = null;
+			}
+		}
+
+		@Override
+		public void onPreExecute() {
+			for (final PendingLoad load : loads) {
+				load.onPreLoad();
+			}
+		}
+
+		@Override
+		public Void doInBackground(final Void... params) {
+			final boolean batchRead = beginBatchRead();
+
+			try {
+				for (final PendingLoad load : loads) {
+					if (isCancelled()) {
+						return null;
+					}
+
+					load.load();
+					publishProgress(load);
+				}
+			} finally {
+				if (batchRead) {
+					((BatchReadableLibraryItem) data).endBatchRead();
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Begins a batch read of the item, if it supports batch reads.
+		 *
+		 * @return true if a batch read was started, false otherwise
+		 */
+		private boolean beginBatchRead() {
+			if (!(data instanceof BatchReadableLibraryItem) || isCancelled()) {
+				return false;
+			}
+
+			try {
+				((BatchReadableLibraryItem) data).beginBatchRead();
+				return true;
+			} catch (final LibraryReadException e) {
+				// Each load reads its field individually and handles the failure itself
+				return false;
+			}
+		}
+
+		@Override
+		public void onProgressUpdate(final PendingLoad... values) {
+			if (!isCancelled()) {
+				for (final PendingLoad load : values) {
+					load.publish();
+				}
+			}
+		}
+
+		@Override
+		public void onPostExecute(final Void result) {
+			// Only remove this task if it hasn't already been replaced
+			if (tasks.get(viewHolder) == this) {
+				tasks.remove(viewHolder);
+			}
+		}
+	}
+}
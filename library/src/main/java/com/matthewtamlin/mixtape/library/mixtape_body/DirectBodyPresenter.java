@@ -16,20 +16,52 @@
 
 package com.matthewtamlin.mixtape.library.mixtape_body;
 
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcelable;
+import android.view.Choreographer;
 import android.view.MenuItem;
 
 import com.matthewtamlin.java_utilities.testing.Tested;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.base_mvp.BasePresenter;
 import com.matthewtamlin.mixtape.library.base_mvp.ListDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.PagedListDataSource;
+import com.matthewtamlin.mixtape.library.data.ItemFieldsModifiedListener;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
+import com.matthewtamlin.mixtape.library.data.LooperExecutor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A simple implementation of the BodyContract.Presenter interface where the list returned by the
  * data source is directly reflected in the view. Listeners can be registered to handle user input
  * events.
+ * <p>
+ * By default each item event delivered by the data source is immediately forwarded to the view.
+ * When a data source delivers many events in quick succession (for example during a background
+ * metadata refresh), notification coalescing can be enabled instead. When enabled, item events are
+ * recorded as they arrive (on any thread) and are merged into a minimal set of range notifications
+ * which are delivered to the view once per frame. While coalescing, the view is given a copy of the
+ * list, and structural changes are applied to the copy only when the matching notifications are
+ * delivered. The view therefore never observes a change before it is notified of it.
+ * <p>
+ * Data source callbacks may arrive on any thread, but the view is only ever updated using the view
+ * executor, which runs updates on the main thread by default.
+ * <p>
+ * The data most recently delivered by the data source is retained, so setting a new view restores
+ * it without loading it again. To recreate the view without interrupting a load in progress (for
+ * example during a configuration change), detach the current view using {@link #detachView()}
+ * instead of setting a null view. The scroll position of the detached view is restored to the next
+ * view.
  *
  * @param <D>
  * 		the type of data to present
@@ -43,7 +75,8 @@ public class DirectBodyPresenter<
 		D extends LibraryItem,
 		S extends ListDataSource<D>,
 		V extends BodyView>
-		implements BasePresenter<S, V>, ListDataSource.FullListener<D>, BodyView.FullListener {
+		implements BasePresenter<S, V>, ListDataSource.FullListener<D>,
+		ItemFieldsModifiedListener<D>, BodyView.FullListener {
 	/**
 	 * The data source to present from.
 	 */
@@ -54,16 +87,96 @@ public class DirectBodyPresenter<
 	 */
 	private V view;
 
+	/**
+	 * The handle for the most recent load requested by this presenter, null if there is none.
+	 */
+	private LoadHandle loadHandle;
+
+	/**
+	 * The data most recently delivered by the current data source, null if none has been delivered.
+	 * Only accessed using the view executor.
+	 */
+	private List<D> retainedData;
+
+	/**
+	 * The scroll state of the most recently detached view, null if there is none.
+	 */
+	private Parcelable retainedScrollState;
+
+	/**
+	 * Runs view updates, lazily initialised to the main thread.
+	 */
+	private Executor viewExecutor;
+
+	/**
+	 * Records item events between frames when notification coalescing is enabled.
+	 */
+	private final NotificationCoalescer coalescer = new NotificationCoalescer();
+
+	/**
+	 * Structural changes recorded since the last flush, applied to the displayed copy when the
+	 * pending notifications are flushed. Access must be synchronized on this list, and the
+	 * coalescer must only be updated while holding the same lock.
+	 */
+	private final List<PendingEdit<D>> pendingEdits = new ArrayList<>();
+
+	/**
+	 * The list most recently delivered to the view by the data source, null if there is none. Only
+	 * accessed using the view executor.
+	 */
+	private List<D> sourceItems;
+
+	/**
+	 * The copy of the source items shown by the view while coalescing is enabled, null if the view
+	 * shows the source items directly. Only accessed using the view executor.
+	 */
+	private List<D> displayedItems;
+
+	/**
+	 * Whether or not item events are coalesced before being delivered to the view.
+	 */
+	private volatile boolean coalescingEnabled = false;
+
+	/**
+	 * Whether or not a flush of the pending notifications has been scheduled but not yet run.
+	 */
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+	/**
+	 * Posts work to the UI thread, lazily initialised.
+	 */
+	private Handler mainHandler;
+
+	/**
+	 * Flushes the pending notifications at the start of the next frame, lazily initialised.
+	 */
+	private Choreographer.FrameCallback frameCallback;
+
+	/**
+	 * Schedules the flush from the UI thread, since the Choreographer can only be accessed on a
+	 * looper thread.
+	 */
+	private final Runnable scheduleFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			postFrameFlush();
+		}
+	};
+
 	@Override
 	public void setDataSource(final S dataSource) {
+		cancelLoad();
 		unsubscribeFromDataSourceCallbacks(this.dataSource);
 		this.dataSource = dataSource;
 		subscribeToDataSourceCallbacks(this.dataSource);
 
+		retainedData = null;
+		retainedScrollState = null;
+
 		if (dataSource != null) {
-			dataSource.loadData(false, this);
+			requestLoad();
 		} else if (view != null) {
-			view.setItems(null);
+			showItems(null);
 		}
 	}
 
@@ -78,8 +191,38 @@ public class DirectBodyPresenter<
 		this.view = view;
 		registerForViewCallbacks(this.view);
 
-		if (dataSource != null) {
-			dataSource.loadData(false, this);
+		// The new view reflects the current list, so pending notifications are redundant
+		discardPendingNotifications();
+
+		if (view != null && dataSource != null) {
+			// Views hold on to the scroll state until they have items to scroll
+			view.restoreScrollState(retainedScrollState);
+
+			if (retainedData == null) {
+				requestLoad();
+			} else {
+				showItems(retainedData);
+			}
+		} else {
+			cancelLoad();
+		}
+
+		retainedScrollState = null;
+	}
+
+	/**
+	 * Detaches the current view without cancelling the load in progress. The scroll position of
+	 * the view is captured, and is restored along with the retained data when the next view is
+	 * set. This allows the presenter and its data source to outlive the view, for example when the
+	 * view is recreated during a configuration change. This method must be called on the UI
+	 * thread.
+	 */
+	public void detachView() {
+		if (view != null) {
+			retainedScrollState = view.saveScrollState();
+			unregisterFromViewCallbacks(view);
+			view = null;
+			discardPendingNotifications();
 		}
 	}
 
@@ -90,73 +233,209 @@ public class DirectBodyPresenter<
 
 	@Override
 	public void onDataLoaded(final BaseDataSource<List<D>> source, final List<D> data) {
-		if (view != null) {
-			view.setItems(data);
-		}
+		discardPendingNotifications();
+
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedData = data;
+				}
+
+				if (view != null) {
+					showItems(data);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onLoadDataFailed(final BaseDataSource source) {
-		if (view != null) {
-			view.setItems(null);
-		}
+		discardPendingNotifications();
+
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedData = null;
+				}
+
+				if (view != null) {
+					showItems(null);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onDataReplaced(final BaseDataSource<List<D>> source, final List<D> oldData,
 			final List<D> newData) {
-		if (view != null) {
-			view.setItems(newData);
-		}
+		discardPendingNotifications();
+
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedData = newData;
+				}
+
+				if (view != null) {
+					showItems(newData);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onDataModified(final BaseDataSource<List<D>> source, final List<D> data) {
-		if (view != null) {
-			view.notifyItemsChanged();
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				coalescer.itemsChanged();
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemsChanged();
+					}
+				}
+			});
 		}
 	}
 
 	@Override
 	public void onLongOperationStarted(final BaseDataSource<List<D>> source) {
-		if (view != null) {
-			view.showLoadingIndicator(true);
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				// Revalidating stale items should not hide them behind the indicator
+				if (view != null && (view.getItems() == null || view.getItems().isEmpty())) {
+					view.showLoadingIndicator(true);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onLongOperationFinished(final BaseDataSource<List<D>> source) {
-		if (view != null) {
-			view.showLoadingIndicator(false);
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (view != null) {
+					view.showLoadingIndicator(false);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onDataAdded(final ListDataSource<D> source, final D added, final int index) {
-		if (view != null) {
-			view.notifyItemAdded(index);
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				pendingEdits.add(new PendingEdit<>(PendingEdit.ADD, index, index, added));
+				coalescer.itemAdded(index);
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemAdded(index);
+					}
+				}
+			});
 		}
 	}
 
 	@Override
 	public void onDataRemoved(final ListDataSource<D> source, final D removed, final int index) {
-		if (view != null) {
-			view.notifyItemRemoved(index);
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				pendingEdits.add(new PendingEdit<>(PendingEdit.REMOVE, index, index, removed));
+				coalescer.itemRemoved(index);
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemRemoved(index);
+					}
+				}
+			});
 		}
 	}
 
 	@Override
 	public void onItemModified(final ListDataSource<D> source, final D modified, final int index) {
-		if (view != null) {
-			view.notifyItemModified(index);
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				pendingEdits.add(new PendingEdit<>(PendingEdit.SET, index, index, modified));
+				coalescer.itemModified(index);
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemModified(index);
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	public void onItemFieldsModified(final ListDataSource<D> source, final D modified,
+			final int index, final Set<LibraryItemField> fields) {
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				pendingEdits.add(new PendingEdit<>(PendingEdit.SET, index, index, modified));
+				coalescer.itemModified(index, fields);
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemModified(index, fields);
+					}
+				}
+			});
 		}
 	}
 
 	@Override
 	public void onDataMoved(final ListDataSource<D> source, final D moved, final int initialIndex,
 			final int finalIndex) {
-		if (view != null) {
-			view.notifyItemMoved(initialIndex, finalIndex);
+		if (coalescingEnabled) {
+			synchronized (pendingEdits) {
+				pendingEdits.add(
+						new PendingEdit<>(PendingEdit.MOVE, initialIndex, finalIndex, moved));
+				coalescer.itemMoved(initialIndex, finalIndex);
+			}
+
+			scheduleNotificationFlush();
+		} else {
+			runOnView(new Runnable() {
+				@Override
+				public void run() {
+					if (view != null) {
+						view.notifyItemMoved(initialIndex, finalIndex);
+					}
+				}
+			});
 		}
 	}
 
@@ -171,6 +450,210 @@ public class DirectBodyPresenter<
 		// Do nothing
 	}
 
+	/**
+	 * Sets the executor used to update the view in response to data source callbacks. Passing null
+	 * restores the default, which runs updates on the main thread. Since data sources may deliver
+	 * callbacks on any thread, this ensures the view is only touched on the thread which owns it.
+	 *
+	 * @param viewExecutor
+	 * 		the executor to use, may be null
+	 */
+	public synchronized void setViewExecutor(final Executor viewExecutor) {
+		this.viewExecutor = viewExecutor;
+	}
+
+	/**
+	 * @return the executor used to update the view, not null
+	 */
+	public synchronized Executor getViewExecutor() {
+		if (viewExecutor == null) {
+			viewExecutor = LooperExecutor.forMainThread();
+		}
+
+		return viewExecutor;
+	}
+
+	/**
+	 * Enables or disables notification coalescing. While enabled, item events delivered by the data
+	 * source are merged and delivered to the view once per frame. Disabling coalescing immediately
+	 * flushes any pending notifications. This method must be called on the UI thread.
+	 *
+	 * @param enabled
+	 * 		true to enable coalescing, false to disable it
+	 */
+	public void setNotificationCoalescingEnabled(final boolean enabled) {
+		if (enabled == coalescingEnabled) {
+			return;
+		}
+
+		coalescingEnabled = enabled;
+
+		if (!enabled) {
+			flushPendingNotifications();
+		}
+
+		// Switch the view between the source items and a copy of them
+		if (view != null && sourceItems != null) {
+			showItems(sourceItems);
+		}
+	}
+
+	/**
+	 * @return true if notification coalescing is enabled, false otherwise
+	 */
+	public boolean isNotificationCoalescingEnabled() {
+		return coalescingEnabled;
+	}
+
+	/**
+	 * Delivers all pending coalesced notifications to the view immediately, after applying the
+	 * matching structural changes to the list shown by the view. If there is no view, the pending
+	 * notifications are discarded. This method must be called on the UI thread.
+	 */
+	public void flushPendingNotifications() {
+		flushScheduled.set(false);
+
+		synchronized (pendingEdits) {
+			if (view != null) {
+				if (displayedItems != null) {
+					for (final PendingEdit<D> edit : pendingEdits) {
+						edit.applyTo(displayedItems);
+					}
+				}
+
+				coalescer.dispatchTo(view);
+			} else {
+				coalescer.clear();
+			}
+
+			pendingEdits.clear();
+		}
+	}
+
+	/**
+	 * Schedules a call to {@link #flushPendingNotifications()} at the start of the next frame,
+	 * unless a flush is already scheduled. This method may be called on any thread.
+	 */
+	protected void scheduleNotificationFlush() {
+		if (!flushScheduled.compareAndSet(false, true)) {
+			return;
+		}
+
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			postFrameFlush();
+		} else {
+			getMainHandler().post(scheduleFlushRunnable);
+		}
+	}
+
+	/**
+	 * Shows the supplied items in the view. While coalescing is enabled the view is given a copy
+	 * of the items, unless the data source is paged, since copying a paged list would load every
+	 * page. Paged lists are never structurally modified, so sharing them is safe. This method must
+	 * be called using the view executor when there is a view.
+	 *
+	 * @param items
+	 * 		the items to show, may be null
+	 */
+	private void showItems(final List<D> items) {
+		sourceItems = items;
+
+		if (coalescingEnabled && items != null && !(dataSource instanceof PagedListDataSource)) {
+			displayedItems = new ArrayList<>(items);
+			view.setItems(displayedItems);
+		} else {
+			displayedItems = null;
+			view.setItems(items);
+		}
+	}
+
+	/**
+	 * Discards all pending coalesced notifications and structural changes. This method may be
+	 * called on any thread.
+	 */
+	private void discardPendingNotifications() {
+		synchronized (pendingEdits) {
+			pendingEdits.clear();
+			coalescer.clear();
+		}
+	}
+
+	/**
+	 * Requests data from the current data source, replacing any previous request. This method must
+	 * only be called when the data source is not null.
+	 */
+	private void requestLoad() {
+		cancelLoad();
+		loadHandle = dataSource.loadData(false, this);
+	}
+
+	/**
+	 * Cancels the most recent load requested by this presenter, if there is one. The data source
+	 * may continue loading for other callers, but the result is not delivered to this presenter.
+	 */
+	private void cancelLoad() {
+		if (loadHandle != null) {
+			loadHandle.cancel();
+			loadHandle = null;
+		}
+	}
+
+	/**
+	 * Runs the supplied view update on the view executor.
+	 *
+	 * @param update
+	 * 		the update to run, not null
+	 */
+	private void runOnView(final Runnable update) {
+		getViewExecutor().execute(update);
+	}
+
+	/**
+	 * Posts a flush to the next frame. Frame callbacks are not available prior to Jelly Bean, so on
+	 * older platforms the flush is posted to the UI thread instead. This method must be called on
+	 * the UI thread.
+	 */
+	private void postFrameFlush() {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			postFrameCallback();
+		} else {
+			getMainHandler().post(new Runnable() {
+				@Override
+				public void run() {
+					flushPendingNotifications();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Registers the frame callback with the Choreographer of the UI thread.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private void postFrameCallback() {
+		if (frameCallback == null) {
+			frameCallback = new Choreographer.FrameCallback() {
+				@Override
+				public void doFrame(final long frameTimeNanos) {
+					flushPendingNotifications();
+				}
+			};
+		}
+
+		Choreographer.getInstance().postFrameCallback(frameCallback);
+	}
+
+	/**
+	 * @return a handler attached to the UI thread, not null
+	 */
+	private synchronized Handler getMainHandler() {
+		if (mainHandler == null) {
+			mainHandler = new Handler(Looper.getMainLooper());
+		}
+
+		return mainHandler;
+	}
+
 	/**
 	 * Unsubscribes this presenter from all callbacks delivered by the supplied data source.
 	 *
@@ -232,4 +715,107 @@ public class DirectBodyPresenter<
 			view.addContextualMenuItemSelectedListener(this);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A structural change recorded while coalescing, which is applied to the displayed copy of the
+	 * source items when the pending notifications are flushed.
+	 *
+	 * @param <D>
+	 * 		the type of item changed
+	 */
+	private static class PendingEdit<D> {
+		/**
+		 * An item was inserted at the initial index.
+		 */
+		private static final int ADD = 0;
+
+		/**
+		 * The item at the initial index was removed.
+		 */
+		private static final int REMOVE = 1;
+
+		/**
+		 * The item at the initial index was moved to the final index.
+		 */
+		private static final int MOVE = 2;
+
+		/**
+		 * The item at the initial index was modified, and may have been replaced.
+		 */
+		private static final int SET = 3;
+
+		/**
+		 * The type of change, one of the constants declared in this class.
+		 */
+		private final int type;
+
+		/**
+		 * The index of the item before the change.
+		 */
+		private final int initialIndex;
+
+		/**
+		 * The index of the item after the change.
+		 */
+		private final int finalIndex;
+
+		/**
+		 * The item affected by the change.
+		 */
+		private final D item;
+
+		/**
+		 * Constructs a new PendingEdit.
+		 *
+		 * @param type
+		 * 		the type of change, one of the constants declared in this class
+		 * @param initialIndex
+		 * 		the index of the item before the change
+		 * @param finalIndex
+		 * 		the index of the item after the change
+		 * @param item
+		 * 		the item affected by the change
+		 */
+		private PendingEdit(final int type, final int initialIndex, final int finalIndex,
+				final D item) {
+			this.type = type;
+			this.initialIndex = initialIndex;
+			this.finalIndex = finalIndex;
+			this.item = item;
+		}
+
+		/**
+		 * Applies this change to the supplied list.
+		 *
+		 * @param items
+		 * 		the list to change, not null
+		 */
+		private void applyTo(final List<D> items) {
+			switch (type) {
+				case ADD: {
+					items.add(initialIndex, item);
+					break;
+				}
+
+				case REMOVE: {
+					items.remove(initialIndex);
+					break;
+				}
+
+				case MOVE: {
+					items.add(finalIndex, items.remove(initialIndex));
+					break;
+				}
+
+				case SET: {
+					// Modified items are usually the same instance, which needs no change
+					if (initialIndex < items.size() && items.get(initialIndex) != item) {
+						items.set(initialIndex, item);
+					}
+
+					break;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.mixtape_body;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageButton;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.R;
+import com.matthewtamlin.mixtape.library.databinders.HostedTarget;
+import com.matthewtamlin.mixtape.library.databinders.TextLayoutCache;
+import com.matthewtamlin.mixtape.library.databinders.TextLayoutTarget;
+
+import static com.matthewtamlin.android_utilities.library.helpers.DimensionHelper.dpToPx;
+
+/**
+ * A ListBody row which draws the title, subtitle and artwork of an item itself, instead of using a
+ * hierarchy of child views which must each be measured, laid out and drawn. Only the overflow menu
+ * button is a real child view, since the contextual menu must be anchored to an attached view and
+ * the button provides touch feedback. The text of each line is measured and ellipsized once, and
+ * the resulting layout is reused until the text or the available width changes. The text targets
+ * are {@link TextLayoutTarget}s, so text data binders can precompute the layouts in the background.
+ * <p>
+ * Data binders bind to lightweight target views, which are never attached to the window. The
+ * targets store the bound data and ask the row to redraw whenever it changes. The artwork target is
+ * given the size of the artwork, so artwork is decoded at the size it is drawn. Because the targets
+ * are never attached, binds are not interrupted when the row is detached, and are instead cancelled
+ * when the row is recycled. The artwork target is a {@link HostedTarget}, so artwork loads which
+ * are deferred while the list is flinging are started once the row itself is shown.
+ */
+@Tested(testMethod = "automated")
+public class FlatListBodyItem extends ViewGroup {
+	/**
+	 * The space around the artwork and between the artwork and the text, measured in dp.
+	 */
+	private static final int MARGIN_DP = 8;
+
+	/**
+	 * The text size of the title, measured in sp.
+	 */
+	private static final int TITLE_TEXT_SIZE_SP = 16;
+
+	/**
+	 * The text size of the subtitle, measured in sp.
+	 */
+	private static final int SUBTITLE_TEXT_SIZE_SP = 14;
+
+	/**
+	 * Stores the title bound by data binders.
+	 */
+	private final TargetTextView titleTarget;
+
+	/**
+	 * Stores the subtitle bound by data binders.
+	 */
+	private final TargetTextView subtitleTarget;
+
+	/**
+	 * Stores the artwork bound by data binders.
+	 */
+	private final TargetImageView artworkTarget;
+
+	/**
+	 * The button which displays the contextual menu.
+	 */
+	private final ImageButton menuButton;
+
+	/**
+	 * The space around the artwork and between the artwork and the text, measured in pixels.
+	 */
+	private final int margin;
+
+	/**
+	 * The width and height of the artwork, measured in pixels.
+	 */
+	private final int artworkSize;
+
+	/**
+	 * The distance between the left edge of this view and the text, measured in pixels.
+	 */
+	private int textLeft;
+
+	/**
+	 * The distance between the top edge of this view and the text, measured in pixels.
+	 */
+	private int textTop;
+
+	/**
+	 * The width available to the text, measured in pixels.
+	 */
+	private int textWidth;
+
+	/**
+	 * Constructs a new FlatListBodyItem.
+	 *
+	 * @param context
+	 * 		the Context the view is attached to, not null
+	 */
+	public FlatListBodyItem(final Context context) {
+		super(context);
+
+		margin = dpToPx(context, MARGIN_DP);
+		artworkSize = getResources().getDimensionPixelSize(R.dimen.listBodyItem_artworkSize);
+
+		titleTarget = new TargetTextView(context, this, createTextPaint(TITLE_TEXT_SIZE_SP));
+		titleTarget.setTextColor(Color.BLACK);
+
+		subtitleTarget = new TargetTextView(context, this, createTextPaint(SUBTITLE_TEXT_SIZE_SP));
+		subtitleTarget.setTextColor(Color.GRAY);
+
+		// Allows the artwork binder to determine the decoding size before the first layout
+		artworkTarget = new TargetImageView(context, this);
+		artworkTarget.setLayoutParams(new LayoutParams(artworkSize, artworkSize));
+
+		menuButton = new ImageButton(context, null, android.R.attr.borderlessButtonStyle);
+		menuButton.setImageResource(R.drawable.ic_dots_vertical);
+		menuButton.setMinimumWidth(0);
+		menuButton.setPadding(0, 0, 0, 0);
+		addView(menuButton, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+
+		// ViewGroups skip drawing by default
+		setWillNotDraw(false);
+	}
+
+	/**
+	 * Creates a new BodyViewHolder which binds data to a new FlatListBodyItem.
+	 *
+	 * @param context
+	 * 		the Context the view is attached to, not null
+	 * @return the new view holder, not null
+	 */
+	public static BodyViewHolder createViewHolder(final Context context) {
+		final FlatListBodyItem item = new FlatListBodyItem(context);
+
+		return new BodyViewHolder(item, item.titleTarget, item.subtitleTarget, item
+				.artworkTarget, item.menuButton);
+	}
+
+	/**
+	 * @return the view which data binders bind titles to, not null
+	 */
+	public TextView getTitleTarget() {
+		return titleTarget;
+	}
+
+	/**
+	 * @return the view which data binders bind subtitles to, not null
+	 */
+	public TextView getSubtitleTarget() {
+		return subtitleTarget;
+	}
+
+	/**
+	 * @return the view which data binders bind artwork to, not null
+	 */
+	public ImageView getArtworkTarget() {
+		return artworkTarget;
+	}
+
+	/**
+	 * @return the button which displays the contextual menu, not null
+	 */
+	public ImageButton getMenuButton() {
+		return menuButton;
+	}
+
+	@Override
+	protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+		final int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+		menuButton.measure(unspecified, unspecified);
+
+		final int artworkHeight = artworkIsShown() ? artworkSize + 2 * margin : 0;
+		final int textHeight = titleTarget.getLineHeight() + subtitleTarget.getLineHeight();
+		final int height = Math.max(Math.max(artworkHeight, textHeight), menuButton
+				.getMeasuredHeight());
+
+		setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), resolveSize(height,
+				heightMeasureSpec));
+	}
+
+	@Override
+	protected void onLayout(final boolean changed, final int l, final int t, final int r,
+			final int b) {
+		final int width = r - l;
+		final int height = b - t;
+
+		final int buttonWidth = menuButton.getMeasuredWidth();
+		final int buttonHeight = menuButton.getMeasuredHeight();
+		final int buttonTop = (height - buttonHeight) / 2;
+		menuButton.layout(width - buttonWidth, buttonTop, width, buttonTop + buttonHeight);
+
+		// The target is never drawn, but its size tells the artwork binder the decoding size
+		artworkTarget.layout(margin, margin, margin + artworkSize, margin + artworkSize);
+
+		textLeft = artworkIsShown() ? artworkSize + 2 * margin : margin;
+		textWidth = Math.max(0, width - buttonWidth - textLeft);
+		textTop = (height - titleTarget.getLineHeight() - subtitleTarget.getLineHeight()) / 2;
+	}
+
+	@Override
+	protected void onDraw(final Canvas canvas) {
+		if (artworkIsShown()) {
+			drawArtwork(canvas);
+		}
+
+		canvas.save();
+		canvas.translate(textLeft, textTop);
+		titleTarget.drawLine(canvas, textWidth);
+		canvas.translate(0, titleTarget.getLineHeight());
+		subtitleTarget.drawLine(canvas, textWidth);
+		canvas.restore();
+	}
+
+	/**
+	 * Draws the artwork bound to the artwork target, scaled to fill the artwork area and cropped to
+	 * its bounds.
+	 *
+	 * @param canvas
+	 * 		the canvas to draw on, not null
+	 */
+	private void drawArtwork(final Canvas canvas) {
+		final Drawable artwork = artworkTarget.getDrawable();
+		final int alpha = Math.round(artworkTarget.getAlpha() * 255);
+
+		if (artwork == null || alpha <= 0) {
+			return;
+		}
+
+		final int intrinsicWidth = artwork.getIntrinsicWidth();
+		final int intrinsicHeight = artwork.getIntrinsicHeight();
+
+		final int saveCount;
+
+		// Fading is applied to a layer, since changing the alpha of the drawable affects its cache
+		if (alpha < 255) {
+			saveCount = canvas.saveLayerAlpha(margin, margin, margin + artworkSize, margin +
+					artworkSize, alpha, Canvas.ALL_SAVE_FLAG);
+		} else {
+			saveCount = canvas.save();
+		}
+
+		canvas.clipRect(margin, margin, margin + artworkSize, margin + artworkSize);
+
+		if (intrinsicWidth <= 0 || intrinsicHeight <= 0) {
+			// Drawables without an intrinsic size (e.g. colours) fill the area
+			artwork.setBounds(margin, margin, margin + artworkSize, margin + artworkSize);
+		} else {
+			// Equivalent to the centre crop scale type of the original row layout
+			final float scale = Math.max((float) artworkSize / intrinsicWidth, (float) artworkSize
+					/ intrinsicHeight);
+
+			canvas.translate(margin + (artworkSize - intrinsicWidth * scale) / 2, margin +
+					(artworkSize - intrinsicHeight * scale) / 2);
+			canvas.scale(scale, scale);
+			artwork.setBounds(0, 0, intrinsicWidth, intrinsicHeight);
+		}
+
+		artwork.draw(canvas);
+		canvas.restoreToCount(saveCount);
+	}
+
+	/**
+	 * @return true if the artwork target is visible, false otherwise
+	 */
+	private boolean artworkIsShown() {
+		return artworkTarget.getVisibility() != GONE;
+	}
+
+	/**
+	 * Creates a TextPaint for drawing text of the supplied size.
+	 *
+	 * @param textSizeSp
+	 * 		the size of the text, measured in sp
+	 * @return the new TextPaint, not null
+	 */
+	private TextPaint createTextPaint(final int textSizeSp) {
+		final TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+		paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, textSizeSp,
+				getResources().getDisplayMetrics()));
+
+		return paint;
+	}
+
+	/**
+	 * A TextView which is never attached to the window, and instead stores bound text and asks a
+	 * host view to redraw when it changes. The text is drawn as a single ellipsized line, using a
+	 * layout which is cached until the text or the available width changes. Precomputed layouts
+	 * supplied by data binders are used in place of the cached layout when they match.
+	 */
+	private static final class TargetTextView extends TextView implements TextLayoutTarget {
+		/**
+		 * The view which draws the text. Null during construction of the superclass.
+		 */
+		private final FlatListBodyItem host;
+
+		/**
+		 * The paint to draw the text with.
+		 */
+		private final TextPaint paint;
+
+		/**
+		 * The height of a line of text, measured in pixels.
+		 */
+		private final int lineHeight;
+
+		/**
+		 * The layout of the text, null if no layout has been created or supplied yet.
+		 */
+		private Layout layout;
+
+		/**
+		 * The text of the layout.
+		 */
+		private CharSequence layoutText;
+
+		/**
+		 * Constructs a new TargetTextView.
+		 *
+		 * @param context
+		 * 		the Context the host is attached to, not null
+		 * @param host
+		 * 		the view which draws the text, not null
+		 * @param paint
+		 * 		the paint to draw the text with, not null
+		 */
+		private TargetTextView(final Context context, final FlatListBodyItem host,
+				final TextPaint paint) {
+			super(context);
+			this.host = host;
+			this.paint = paint;
+			this.lineHeight = paint.getFontMetricsInt(null);
+		}
+
+		/**
+		 * @return the height of a line of text, measured in pixels
+		 */
+		public int getLineHeight() {
+			return lineHeight;
+		}
+
+		/**
+		 * Draws the text at the origin of the canvas.
+		 *
+		 * @param canvas
+		 * 		the canvas to draw on, not null
+		 * @param width
+		 * 		the width available to the text, measured in pixels
+		 */
+		public void drawLine(final Canvas canvas, final int width) {
+			final CharSequence text = getText();
+
+			if (text == null || text.length() == 0 || width <= 0) {
+				return;
+			}
+
+			if (layout == null || layout.getWidth() != width || !TextUtils.equals(text,
+					layoutText)) {
+				layout = TextLayoutCache.createLayout(text, paint, width);
+				layoutText = text;
+			}
+
+			// Precomputed layouts use their own copy of the paint
+			layout.getPaint().setColor(getCurrentTextColor());
+			layout.draw(canvas);
+		}
+
+		@Override
+		public TextPaint getLayoutPaint() {
+			return paint;
+		}
+
+		@Override
+		public int getLayoutWidth() {
+			return host.textWidth;
+		}
+
+		@Override
+		public void setTextLayout(final CharSequence text, final Layout layout) {
+			this.layout = layout;
+			this.layoutText = text;
+		}
+
+		@Override
+		public void setText(final CharSequence text, final BufferType type) {
+			super.setText(text, type);
+			invalidateHost();
+		}
+
+		@Override
+		public void setTextColor(final int color) {
+			super.setTextColor(color);
+			invalidateHost();
+		}
+
+		@Override
+		public void setTextColor(final ColorStateList colors) {
+			super.setTextColor(colors);
+			invalidateHost();
+		}
+
+		/**
+		 * Redraws the host, if it has been set.
+		 */
+		private void invalidateHost() {
+			if (host != null) {
+				host.invalidate();
+			}
+		}
+	}
+
+	/**
+	 * An ImageView which is never attached to the window, and instead stores bound artwork and asks
+	 * a host view to redraw when it changes.
+	 */
+	private static final class TargetImageView extends ImageView implements HostedTarget {
+		/**
+		 * The view which draws the artwork. Null during construction of the superclass.
+		 */
+		private final View host;
+
+		/**
+		 * Constructs a new TargetImageView.
+		 *
+		 * @param context
+		 * 		the Context the host is attached to, not null
+		 * @param host
+		 * 		the view which draws the artwork, not null
+		 */
+		private TargetImageView(final Context context, final View host) {
+			super(context);
+			this.host = host;
+		}
+
+		@Override
+		public View getHost() {
+			return host;
+		}
+
+		@Override
+		public void setImageDrawable(final Drawable drawable) {
+			super.setImageDrawable(drawable);
+			invalidateHost();
+		}
+
+		@Override
+		public void setAlpha(final float alpha) {
+			super.setAlpha(alpha);
+			invalidateHost();
+		}
+
+		@Override
+		public void setVisibility(final int visibility) {
+			final boolean changed = visibility != getVisibility();
+			super.setVisibility(visibility);
+
+			// Showing or hiding the artwork moves the text
+			if (changed && host != null) {
+				host.requestLayout();
+				host.invalidate();
+			}
+		}
+
+		@Override
+		public void invalidateDrawable(final Drawable drawable) {
+			// Called by animated drawables, such as the cross-fade from a preview
+			super.invalidateDrawable(drawable);
+			invalidateHost();
+		}
+
+		/**
+		 * Redraws the host, if it has been set.
+		 */
+		private void invalidateHost() {
+			if (host != null) {
+				host.invalidate();
+			}
+		}
+	}
+}
@@ -51,6 +51,28 @@ import static com.matthewtamlin.java_utilities.checkers.IntChecker.checkGreaterT
  * This setup will pull data from the data source and display it in the view.
  */
 public class GridBody extends RecyclerBodyView {
+	/**
+	 * Inflates the grid items and creates their view holders.
+	 */
+	private static final BodyItemFactory ITEM_FACTORY = new BodyItemFactory() {
+		@Override
+		public int getLayoutResource() {
+			return R.layout.gridbodyitem;
+		}
+
+		@Override
+		public BodyViewHolder createViewHolder(final View gridItem) {
+			final TextView titleView = (TextView) gridItem.findViewById(R.id.gridBodyItem_title);
+			final TextView subtitleView = (TextView) gridItem.findViewById(R.id
+					.gridBodyItem_subtitle);
+			final ImageView artworkView = (ImageView) gridItem.findViewById(R.id
+					.gridBodyItem_artwork);
+			final View menuButton = gridItem.findViewById(R.id.gridBodyItem_menu);
+
+			return new BodyViewHolder(gridItem, titleView, subtitleView, artworkView, menuButton);
+		}
+	};
+
 	/**
 	 * The number of columns to display.
 	 */
@@ -120,16 +142,20 @@ public class GridBody extends RecyclerBodyView {
 	}
 
 	@Override
-	protected BodyViewHolder supplyNewBodyViewHolder(final ViewGroup parent) {
-		final View gridItem = LayoutInflater.from(getContext()).inflate(R.layout
-				.gridbodyitem, parent, false);
+	protected int getBodyViewType() {
+		// Bodies which inflate the same layout can share view holders
+		return R.layout.gridbodyitem;
+	}
 
-		final TextView titleView = (TextView) gridItem.findViewById(R.id.gridBodyItem_title);
-		final TextView subtitleView = (TextView) gridItem.findViewById(R.id.gridBodyItem_subtitle);
-		final ImageView artworkView = (ImageView) gridItem.findViewById(R.id.gridBodyItem_artwork);
-		final View menuButton = gridItem.findViewById(R.id.gridBodyItem_menu);
+	@Override
+	protected BodyViewHolder supplyNewBodyViewHolder(final ViewGroup parent) {
+		return ITEM_FACTORY.createViewHolder(LayoutInflater.from(getContext()).inflate(
+				ITEM_FACTORY.getLayoutResource(), parent, false));
+	}
 
-		return new BodyViewHolder(gridItem, titleView, subtitleView, artworkView, menuButton);
+	@Override
+	protected BodyItemFactory getBodyItemFactory() {
+		return ITEM_FACTORY;
 	}
 
 	@Override
@@ -38,7 +38,9 @@ import static com.matthewtamlin.android_utilities.library.helpers.DimensionHelpe
  * A RecyclerViewBody which displays the list of items in a vertical list. Each list item shows the
  * title, subtitle and artwork of an item, as well as a three-dot overflow button for the contextual
  * menu. The view can be customised by hiding all artwork (shown by default) and showing horizontal
- * dividers between items (hidden by default).
+ * dividers between items (hidden by default). Rows can also be drawn by a single flattened view
+ * rather than inflated from a layout (inflated by default), which reduces the time spent measuring,
+ * laying out and drawing each frame of a long list.
  */
 public class ListBody extends RecyclerBodyView {
 	/**
@@ -48,6 +50,34 @@ public class ListBody extends RecyclerBodyView {
 	 */
 	private static final int DECORATION_PADDING_DP = 8;
 
+	/**
+	 * The view type of flattened rows. Other bodies use layout resource ids as view types, so this
+	 * value never clashes with them in a shared view holder pool.
+	 */
+	private static final int FLATTENED_ROW_VIEW_TYPE = 1;
+
+	/**
+	 * Inflates the list items which are not flattened and creates their view holders.
+	 */
+	private static final BodyItemFactory ITEM_FACTORY = new BodyItemFactory() {
+		@Override
+		public int getLayoutResource() {
+			return R.layout.listbodyitem;
+		}
+
+		@Override
+		public BodyViewHolder createViewHolder(final View listItem) {
+			final TextView titleView = (TextView) listItem.findViewById(R.id.listBodyItem_title);
+			final TextView subtitleView = (TextView) listItem.findViewById(R.id
+					.listBodyItem_subtitle);
+			final ImageView artworkView = (ImageView) listItem.findViewById(R.id
+					.listBodyItem_artwork);
+			final View menuButton = listItem.findViewById(R.id.listIBodyItem_menu);
+
+			return new BodyViewHolder(listItem, titleView, subtitleView, artworkView, menuButton);
+		}
+	};
+
 	/**
 	 * Whether or not horizontal dividers should be shown between each item in the list.
 	 */
@@ -58,6 +88,11 @@ public class ListBody extends RecyclerBodyView {
 	 */
 	private boolean showArtwork;
 
+	/**
+	 * Whether or not rows are drawn by a single flattened view.
+	 */
+	private boolean useFlattenedRows;
+
 	/**
 	 * The RecyclerView.ItemDecoration to show below each list item.
 	 */
@@ -120,17 +155,26 @@ public class ListBody extends RecyclerBodyView {
 		init(attrs, defStyleAttr, 0);
 	}
 
+	@Override
+	protected int getBodyViewType() {
+		// Bodies which inflate the same layout can share view holders
+		return useFlattenedRows ? FLATTENED_ROW_VIEW_TYPE : R.layout.listbodyitem;
+	}
+
 	@Override
 	protected BodyViewHolder supplyNewBodyViewHolder(final ViewGroup parent) {
-		final View listItem = LayoutInflater.from(getContext()).inflate(R.layout
-				.listbodyitem, parent, false);
+		if (useFlattenedRows) {
+			return FlatListBodyItem.createViewHolder(getContext());
+		}
 
-		final TextView titleView = (TextView) listItem.findViewById(R.id.listBodyItem_title);
-		final TextView subtitleView = (TextView) listItem.findViewById(R.id.listBodyItem_subtitle);
-		final ImageView artworkView = (ImageView) listItem.findViewById(R.id.listBodyItem_artwork);
-		final View menuButton = listItem.findViewById(R.id.listIBodyItem_menu);
+		return ITEM_FACTORY.createViewHolder(LayoutInflater.from(getContext()).inflate(
+				ITEM_FACTORY.getLayoutResource(), parent, false));
+	}
 
-		return new BodyViewHolder(listItem, titleView, subtitleView, artworkView, menuButton);
+	@Override
+	protected BodyItemFactory getBodyItemFactory() {
+		// Flattened rows are built in code rather than inflated, so they are cheap to create
+		return useFlattenedRows ? null : ITEM_FACTORY;
 	}
 
 	@Override
@@ -216,6 +260,28 @@ public class ListBody extends RecyclerBodyView {
 		return showArtwork;
 	}
 
+	/**
+	 * Sets whether rows are drawn by a single flattened view, or inflated from a layout with a
+	 * child view for each component. Flattened rows are cheaper to measure, lay out and draw,
+	 * but cannot be styled using layout resources.
+	 *
+	 * @param use
+	 * 		true to use flattened rows, false to use inflated rows
+	 */
+	public void useFlattenedRows(final boolean use) {
+		useFlattenedRows = use;
+
+		// The view type changes, so existing rows are replaced rather than rebound
+		getRecyclerView().getAdapter().notifyDataSetChanged();
+	}
+
+	/**
+	 * @return true if rows are drawn by a single flattened view, false otherwise
+	 */
+	public boolean flattenedRowsAreUsed() {
+		return useFlattenedRows;
+	}
+
 	/**
 	 * Sets the color to use for the dividers in-between the list items. The visibility of the
 	 * dividers is not changed by calling this method
@@ -260,6 +326,7 @@ public class ListBody extends RecyclerBodyView {
 		// The methods handle both setting member variables and updating the UI
 		showDividers(attributes.getBoolean(R.styleable.ListBody_showListDividers, false));
 		showArtwork(attributes.getBoolean(R.styleable.ListBody_showListArtwork, true));
+		useFlattenedRows(attributes.getBoolean(R.styleable.ListBody_useFlattenedRows, false));
 
 		attributes.recycle();
 	}
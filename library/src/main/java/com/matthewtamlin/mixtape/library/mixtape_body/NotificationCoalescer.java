@@ -0,0 +1,432 @@
+/*
+ * Copyright 2017 Matthew Tamlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.matthewtamlin.mixtape.library.mixtape_body;
+
+import com.matthewtamlin.java_utilities.testing.Tested;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull;
+
+/**
+ * Records BodyView change notifications and merges them into a minimal sequence of range
+ * notifications. The order of structural changes is preserved, but consecutive notifications are
+ * combined where possible: adjacent additions, removals and modifications are merged into ranges,
+ * modifications to items which are subsequently removed are dropped, and items which are added and
+ * then removed before dispatch cancel out. Once a full change is recorded, all other pending
+ * notifications are discarded since the view must rebind everything anyway.
+ * <p>
+ * Modifications may describe which fields of the item changed. Adjacent modifications are only
+ * merged into a range if they changed the same fields, and repeated modifications to the same
+ * item combine their fields.
+ * <p>
+ * This class is thread safe, so notifications can be recorded on any thread. The pending
+ * notifications must be dispatched to the view on the UI thread.
+ */
+@Tested(testMethod = "automated")
+public class NotificationCoalescer {
+	/**
+	 * The pending notifications, in the order they must be dispatched.
+	 */
+	private final List<Operation> pending = new ArrayList<>();
+
+	/**
+	 * Whether or not a full change is pending.
+	 */
+	private boolean fullChangePending = false;
+
+	/**
+	 * Records that an item was added to the list.
+	 *
+	 * @param index
+	 * 		the index of the added item
+	 */
+	public synchronized void itemAdded(final int index) {
+		if (fullChangePending) {
+			return;
+		}
+
+		final Operation last = getLastOperation();
+
+		if (last != null && last.type == Operation.ADD && index >= last.start &&
+				index <= last.start + last.count) {
+			last.count++;
+		} else {
+			pending.add(new Operation(Operation.ADD, index, 1));
+		}
+	}
+
+	/**
+	 * Records that an item was removed from the list.
+	 *
+	 * @param index
+	 * 		the index of the item before removal
+	 */
+	public synchronized void itemRemoved(final int index) {
+		if (fullChangePending) {
+			return;
+		}
+
+		final boolean modificationsTrail = removeFromTrailingModifications(index);
+		final Operation last = getLastOperation();
+
+		if (last == null) {
+			pending.add(new Operation(Operation.REMOVE, index, 1));
+		} else if (!modificationsTrail && last.type == Operation.ADD && index >= last.start &&
+				index < last.start + last.count) {
+			// The item was added and removed within the same batch, so the view never sees it
+			last.count--;
+
+			if (last.count == 0) {
+				pending.remove(last);
+			}
+		} else if (last.type == Operation.REMOVE && index == last.start) {
+			last.count++;
+		} else if (last.type == Operation.REMOVE && index + 1 == last.start) {
+			last.start = index;
+			last.count++;
+		} else {
+			pending.add(new Operation(Operation.REMOVE, index, 1));
+		}
+	}
+
+	/**
+	 * Records that an item in the list was modified.
+	 *
+	 * @param index
+	 * 		the index of the modified item
+	 */
+	public synchronized void itemModified(final int index) {
+		itemModified(index, null);
+	}
+
+	/**
+	 * Records that specific fields of an item in the list were modified.
+	 *
+	 * @param index
+	 * 		the index of the modified item
+	 * @param fields
+	 * 		the modified fields, null if any field may have been modified
+	 * @throws IllegalArgumentException
+	 * 		if {@code fields} is empty
+	 */
+	public synchronized void itemModified(final int index, final Set<LibraryItemField> fields) {
+		if (fields != null && fields.isEmpty()) {
+			throw new IllegalArgumentException("fields cannot be empty.");
+		}
+
+		if (fullChangePending) {
+			return;
+		}
+
+		Operation before = null;
+		Operation after = null;
+
+		// Modifications do not shift indices, so all trailing modifications share an index space
+		for (int i = pending.size() - 1; i >= 0 && pending.get(i).type == Operation.MODIFY; i--) {
+			final Operation operation = pending.get(i);
+
+			if (index >= operation.start && index < operation.start + operation.count) {
+				// The whole range is widened, which at worst rebinds a few unchanged fields
+				operation.fields = union(operation.fields, fields);
+				return;
+			} else if (operation.start + operation.count == index &&
+					sameFields(operation.fields, fields)) {
+				before = operation;
+			} else if (operation.start == index + 1 && sameFields(operation.fields, fields)) {
+				after = operation;
+			}
+		}
+
+		if (before != null && after != null) {
+			before.count += 1 + after.count;
+			pending.remove(after);
+		} else if (before != null) {
+			before.count++;
+		} else if (after != null) {
+			after.start--;
+			after.count++;
+		} else {
+			final Operation operation = new Operation(Operation.MODIFY, index, 1);
+			operation.fields = fields == null ? null : EnumSet.copyOf(fields);
+			pending.add(operation);
+		}
+	}
+
+	/**
+	 * Records that an item was moved within the list.
+	 *
+	 * @param initialIndex
+	 * 		the index of the item before being moved
+	 * @param finalIndex
+	 * 		the index of the item after being moved
+	 */
+	public synchronized void itemMoved(final int initialIndex, final int finalIndex) {
+		if (fullChangePending || initialIndex == finalIndex) {
+			return;
+		}
+
+		pending.add(new Operation(Operation.MOVE, initialIndex, finalIndex));
+	}
+
+	/**
+	 * Records an undefined change to the entire list. All other pending notifications are
+	 * discarded, as are any notifications recorded before the next dispatch.
+	 */
+	public synchronized void itemsChanged() {
+		pending.clear();
+		fullChangePending = true;
+	}
+
+	/**
+	 * @return true if there are notifications waiting to be dispatched, false otherwise
+	 */
+	public synchronized boolean hasPendingNotifications() {
+		return fullChangePending || !pending.isEmpty();
+	}
+
+	/**
+	 * Discards all pending notifications without dispatching them.
+	 */
+	public synchronized void clear() {
+		pending.clear();
+		fullChangePending = false;
+	}
+
+	/**
+	 * Dispatches all pending notifications to the supplied view and then clears them. Single items
+	 * are dispatched using the single item notifications, and larger ranges are dispatched using
+	 * the range notifications. This method must be called on the UI thread.
+	 *
+	 * @param view
+	 * 		the view to notify, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code view} is null
+	 */
+	public void dispatchTo(final BodyView view) {
+		checkNotNull(view, "view cannot be null.");
+
+		final List<Operation> operations;
+		final boolean fullChange;
+
+		synchronized (this) {
+			operations = new ArrayList<>(pending);
+			fullChange = fullChangePending;
+			clear();
+		}
+
+		if (fullChange) {
+			view.notifyItemsChanged();
+			return;
+		}
+
+		for (final Operation operation : operations) {
+			switch (operation.type) {
+				case Operation.ADD: {
+					if (operation.count == 1) {
+						view.notifyItemAdded(operation.start);
+					} else {
+						view.notifyItemRangeAdded(operation.start, operation.count);
+					}
+
+					break;
+				}
+
+				case Operation.REMOVE: {
+					if (operation.count == 1) {
+						view.notifyItemRemoved(operation.start);
+					} else {
+						view.notifyItemRangeRemoved(operation.start, operation.count);
+					}
+
+					break;
+				}
+
+				case Operation.MODIFY: {
+					if (operation.fields == null && operation.count == 1) {
+						view.notifyItemModified(operation.start);
+					} else if (operation.fields == null) {
+						view.notifyItemRangeModified(operation.start, operation.count);
+					} else if (operation.count == 1) {
+						view.notifyItemModified(operation.start, operation.fields);
+					} else {
+						view.notifyItemRangeModified(operation.start, operation.count,
+								operation.fields);
+					}
+
+					break;
+				}
+
+				case Operation.MOVE: {
+					view.notifyItemMoved(operation.start, operation.count);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the most recently recorded pending operation, null if there is none
+	 */
+	private Operation getLastOperation() {
+		return pending.isEmpty() ? null : pending.get(pending.size() - 1);
+	}
+
+	/**
+	 * Removes the supplied index from the modifications at the end of the pending list, since there
+	 * is no need to notify the view of changes to an item which is about to be removed.
+	 *
+	 * @param index
+	 * 		the index of the removed item
+	 * @return true if the pending list ended with at least one modification, false otherwise
+	 */
+	private boolean removeFromTrailingModifications(final int index) {
+		boolean trailingModifications = false;
+
+		for (int i = pending.size() - 1; i >= 0 && pending.get(i).type == Operation.MODIFY; i--) {
+			trailingModifications = true;
+
+			final Operation operation = pending.get(i);
+			final int end = operation.start + operation.count;
+
+			if (index < operation.start || index >= end) {
+				continue;
+			}
+
+			if (operation.count == 1) {
+				pending.remove(i);
+			} else if (index == operation.start) {
+				operation.start++;
+				operation.count--;
+			} else if (index == end - 1) {
+				operation.count--;
+			} else {
+				// Split the range around the removed index
+				final Operation split = new Operation(Operation.MODIFY, index + 1, end - index - 1);
+				split.fields = operation.fields;
+
+				operation.count = index - operation.start;
+				pending.add(i + 1, split);
+			}
+		}
+
+		// Only modifications which were entirely removed leave no trace
+		return trailingModifications && !pending.isEmpty() &&
+				getLastOperation().type == Operation.MODIFY;
+	}
+
+	/**
+	 * Combines two sets of modified fields.
+	 *
+	 * @param fields1
+	 * 		the first set, null if any field may have been modified
+	 * @param fields2
+	 * 		the second set, null if any field may have been modified
+	 * @return the combined set, null if any field may have been modified
+	 */
+	private static Set<LibraryItemField> union(final Set<LibraryItemField> fields1,
+			final Set<LibraryItemField> fields2) {
+		if (fields1 == null || fields2 == null) {
+			return null;
+		}
+
+		final Set<LibraryItemField> union = EnumSet.copyOf(fields1);
+		union.addAll(fields2);
+
+		return union;
+	}
+
+	/**
+	 * Determines whether two sets of modified fields are the same.
+	 *
+	 * @param fields1
+	 * 		the first set, null if any field may have been modified
+	 * @param fields2
+	 * 		the second set, null if any field may have been modified
+	 * @return true if the sets are equal or both null, false otherwise
+	 */
+	private static boolean sameFields(final Set<LibraryItemField> fields1,
+			final Set<LibraryItemField> fields2) {
+		return fields1 == null ? fields2 == null : fields1.equals(fields2);
+	}
+
+	/**
+	 * A single pending notification.
+	 */
+	private static class Operation {
+		/**
+		 * Type code for additions.
+		 */
+		static final int ADD = 0;
+
+		/**
+		 * Type code for removals.
+		 */
+		static final int REMOVE = 1;
+
+		/**
+		 * Type code for modifications.
+		 */
+		static final int MODIFY = 2;
+
+		/**
+		 * Type code for moves.
+		 */
+		static final int MOVE = 3;
+
+		/**
+		 * The type of the operation.
+		 */
+		final int type;
+
+		/**
+		 * The first index affected by the operation. For moves, this is the initial index.
+		 */
+		int start;
+
+		/**
+		 * The number of items affected by the operation. For moves, this is the final index.
+		 */
+		int count;
+
+		/**
+		 * The modified fields, null if any field may have been modified or if the operation is
+		 * not a modification. Operations share field sets, so sets must be replaced rather than
+		 * modified.
+		 */
+		Set<LibraryItemField> fields;
+
+		/**
+		 * Constructs a new Operation.
+		 *
+		 * @param type
+		 * 		the type of the operation
+		 * @param start
+		 * 		the first index affected by the operation
+		 * @param count
+		 * 		the number of items affected by the operation
+		 */
+		Operation(final int type, final int start, final int count) {
+			this.type = type;
+			this.start = start;
+			this.count = count;
+		}
+	}
+}
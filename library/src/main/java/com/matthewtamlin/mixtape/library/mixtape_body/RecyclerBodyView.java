@@ -18,6 +18,9 @@ package com.matthewtamlin.mixtape.library.mixtape_body;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.view.AsyncLayoutInflater;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.PopupMenu;
 import android.support.v7.widget.PopupMenu.OnMenuItemClickListener;
@@ -34,12 +37,23 @@ import android.widget.TextView;
 
 import com.matthewtamlin.android_utilities.library.helpers.ThemeColorHelper;
 import com.matthewtamlin.mixtape.library.R;
+import com.matthewtamlin.mixtape.library.data.ItemIdProvider;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LibraryItemField;
+import com.matthewtamlin.mixtape.library.data.ListDiffer;
+import com.matthewtamlin.mixtape.library.data.WindowedList;
 import com.matthewtamlin.mixtape.library.databinders.DataBinder;
+import com.matthewtamlin.mixtape.library.databinders.ScrollAwareDataBinder;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import timber.log.Timber;
@@ -49,8 +63,30 @@ import static com.matthewtamlin.java_utilities.checkers.NullChecker.checkNotNull
 /**
  * A RecyclerView backed partial-implementation of the BodyContract.View interface. This class binds
  * data to the UI using DataBinders, and delegates the appearance of the UI to subclasses.
+ * <p>
+ * If an ItemIdProvider is supplied, the adapter uses stable ids and replacing the items compares
+ * the old and new lists. Only the rows whose items were added, removed, moved or changed are then
+ * notified, so rows for unchanged items keep their bound data and item animations are shown.
+ * Items with the same id are compared by reference to detect changes, since equal items may
+ * still display different contents. Items without an id are matched by equality, and are given
+ * unique fallback ids so that the ids seen by the adapter are always distinct. Windowed lists are
+ * never compared, since comparing them would load every page.
+ * <p>
+ * Several bodies can share a {@link BodyViewHolderPool} so that view holders inflated by one body
+ * are reused by the others, and view holders can be prewarmed in the background so that the first
+ * rows are shown without inflating layouts on the UI thread.
  */
 public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
+	/**
+	 * The first fallback id given to an item which has no stable id.
+	 */
+	private static final long FIRST_FALLBACK_ID = ItemIdProvider.NO_ID - 1;
+
+	/**
+	 * The base of the ids given to null placeholders, which are offset by the placeholder position.
+	 */
+	private static final long PLACEHOLDER_ID_BASE = Long.MIN_VALUE;
+
 	/**
 	 * All top reached listeners which are currently registered. This set must never contain null.
 	 */
@@ -73,6 +109,44 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 */
 	private List<? extends LibraryItem> data = new ArrayList<>();
 
+	/**
+	 * Supplies the stable ids of the items, null if stable ids are not used.
+	 */
+	private ItemIdProvider itemIdProvider;
+
+	/**
+	 * The ids given to items which the item id provider has no id for. Fallback ids are negative
+	 * and count down from {@link #FIRST_FALLBACK_ID}, so they cannot be confused with {@link
+	 * ItemIdProvider#NO_ID}.
+	 */
+	private Map<LibraryItem, Long> fallbackIds = new IdentityHashMap<>();
+
+	/**
+	 * The next fallback id to assign.
+	 */
+	private long nextFallbackId = FIRST_FALLBACK_ID;
+
+	/**
+	 * Compares the current items to replacement items. Items are matched by stable id if they
+	 * have one, and by equality otherwise. Matched items are only considered unchanged if they are
+	 * the same instance.
+	 */
+	private final ListDiffer<LibraryItem> itemDiffer = new ListDiffer<>(
+			new ListDiffer.Callback<LibraryItem>() {
+				@Override
+				public Object getKey(final LibraryItem item) {
+					final long id = itemIdProvider.getItemId(item);
+					return id == ItemIdProvider.NO_ID ? item : id;
+				}
+
+				@Override
+				public boolean areContentsTheSame(final LibraryItem oldItem,
+						final LibraryItem newItem) {
+					// Equality may ignore displayed contents, so a new instance is always rebound
+					return oldItem == newItem;
+				}
+			});
+
 	/**
 	 * The menu resource of the item specific contextual menus. Default is -1 as specified by
 	 * interface.
@@ -94,6 +168,12 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 */
 	private DataBinder<LibraryItem, ImageView> artworkDataBinder;
 
+	/**
+	 * Binds the title, subtitle and artwork of each row using a single task per row. This member
+	 * variable must never be null, and must be recreated whenever a data binder changes.
+	 */
+	private CompositeRowBinder rowBinder = new CompositeRowBinder(null, null, null);
+
 	/**
 	 * Displays the data list to the user.
 	 */
@@ -109,6 +189,44 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 */
 	private Adapter<BodyViewHolder> adapter;
 
+	/**
+	 * Stores view holders for reuse, null if the recycler view uses a pool which is not shared.
+	 */
+	private BodyViewHolderPool viewHolderPool;
+
+	/**
+	 * Inflates the rows of prewarmed view holders off the UI thread, lazily initialised.
+	 */
+	private AsyncLayoutInflater asyncLayoutInflater;
+
+	/**
+	 * Identifies the current round of prewarming. Rows inflated for an earlier round are
+	 * discarded.
+	 */
+	private int prewarmGeneration = 0;
+
+	/**
+	 * The view holders prewarmed by this body which may still be in the pool. They are removed
+	 * from the pool when this body is detached, since they hold on to the context of this body.
+	 */
+	private final List<BodyViewHolder> prewarmedViewHolders = new ArrayList<>();
+
+	/**
+	 * The current scroll state of the recycler view.
+	 */
+	private int scrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+	/**
+	 * The current scroll speed of the recycler view, measured in pixels per second.
+	 */
+	private int scrollVelocity = 0;
+
+	/**
+	 * The uptime at which the recycler view last scrolled or changed scroll state, measured in
+	 * milliseconds.
+	 */
+	private long lastScrollTimeMs = 0;
+
 	/**
 	 * Constructs a new RecyclerViewBody.
 	 *
@@ -157,8 +275,94 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 
 	@Override
 	public void setItems(final List<? extends LibraryItem> items) {
-		data = items == null ? new ArrayList<LibraryItem>() : items;
-		adapter.notifyDataSetChanged();
+		final List<? extends LibraryItem> newData = items == null ? new ArrayList<LibraryItem>() :
+				items;
+
+		// Without ids there is no way to match items, and the same list cannot be compared
+		if (itemIdProvider == null || newData == data) {
+			data = newData;
+			adapter.notifyDataSetChanged();
+		} else if (data instanceof WindowedList || newData instanceof WindowedList) {
+			// Reading every item of a windowed list would load every page
+			fallbackIds = new IdentityHashMap<>();
+			data = newData;
+			adapter.notifyDataSetChanged();
+		} else {
+			final List<ListDiffer.Operation<LibraryItem>> operations = itemDiffer
+					.computeOperations(Collections.<LibraryItem>unmodifiableList(data),
+							Collections.<LibraryItem>unmodifiableList(newData));
+
+			transferFallbackIds(newData);
+			data = newData;
+			dispatchOperations(operations);
+		}
+	}
+
+	/**
+	 * Gives the items of a replacement list the fallback ids of the current items they are matched
+	 * to, and discards the fallback ids of items which are no longer shown. Items without ids are
+	 * matched in order of equality, which is the same way they are matched when the lists are
+	 * compared.
+	 *
+	 * @param newData
+	 * 		the replacement items, not null
+	 */
+	private void transferFallbackIds(final List<? extends LibraryItem> newData) {
+		final Map<LibraryItem, ArrayDeque<Long>> reusableIds = new HashMap<>();
+
+		for (final LibraryItem item : data) {
+			final Long id = item == null ? null : fallbackIds.get(item);
+
+			if (id != null) {
+				if (!reusableIds.containsKey(item)) {
+					reusableIds.put(item, new ArrayDeque<Long>());
+				}
+
+				reusableIds.get(item).add(id);
+			}
+		}
+
+		final Map<LibraryItem, Long> newFallbackIds = new IdentityHashMap<>();
+
+		for (final LibraryItem item : newData) {
+			final ArrayDeque<Long> ids = item == null ? null : reusableIds.get(item);
+
+			if (ids != null && !ids.isEmpty()) {
+				newFallbackIds.put(item, ids.poll());
+			}
+		}
+
+		fallbackIds = newFallbackIds;
+	}
+
+	/**
+	 * Returns the id the adapter uses for the item at a position. The id from the item id provider
+	 * is used if there is one, otherwise a fallback id unique to the item (or to the position for
+	 * null placeholders) is used. This method must only be called when there is an item id
+	 * provider.
+	 *
+	 * @param position
+	 * 		the position of the item
+	 * @return the id, not {@link ItemIdProvider#NO_ID}
+	 */
+	private long getAdapterItemId(final int position) {
+		final LibraryItem item = data.get(position);
+		final long id = itemIdProvider.getItemId(item);
+
+		if (id != ItemIdProvider.NO_ID) {
+			return id;
+		} else if (item == null) {
+			return PLACEHOLDER_ID_BASE + position;
+		}
+
+		Long fallbackId = fallbackIds.get(item);
+
+		if (fallbackId == null) {
+			fallbackId = nextFallbackId--;
+			fallbackIds.put(item, fallbackId);
+		}
+
+		return fallbackId;
 	}
 
 	@Override
@@ -197,11 +401,38 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 		adapter.notifyItemChanged(index);
 	}
 
+	@Override
+	public void notifyItemModified(final int index, final Set<LibraryItemField> fields) {
+		// The payload tells the adapter which fields to rebind
+		adapter.notifyItemChanged(index, createPayload(fields));
+	}
+
 	@Override
 	public void notifyItemMoved(final int initialIndex, final int finalIndex) {
 		adapter.notifyItemMoved(initialIndex, finalIndex);
 	}
 
+	@Override
+	public void notifyItemRangeAdded(final int startIndex, final int count) {
+		adapter.notifyItemRangeInserted(startIndex, count);
+	}
+
+	@Override
+	public void notifyItemRangeRemoved(final int startIndex, final int count) {
+		adapter.notifyItemRangeRemoved(startIndex, count);
+	}
+
+	@Override
+	public void notifyItemRangeModified(final int startIndex, final int count) {
+		adapter.notifyItemRangeChanged(startIndex, count);
+	}
+
+	@Override
+	public void notifyItemRangeModified(final int startIndex, final int count,
+			final Set<LibraryItemField> fields) {
+		adapter.notifyItemRangeChanged(startIndex, count, createPayload(fields));
+	}
+
 	@Override
 	public void showLoadingIndicator(final boolean show) {
 		recyclerView.setVisibility(show ? INVISIBLE : VISIBLE);
@@ -213,6 +444,23 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 		return (loadingIndicator.getVisibility() == VISIBLE);
 	}
 
+	@Override
+	public Parcelable saveScrollState() {
+		final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+		return layoutManager == null ? null : layoutManager.onSaveInstanceState();
+	}
+
+	@Override
+	public void restoreScrollState(final Parcelable scrollState) {
+		final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+		// The layout manager holds on to the state until it next lays out a non-empty list
+		if (scrollState != null && layoutManager != null) {
+			layoutManager.onRestoreInstanceState(scrollState);
+		}
+	}
+
 	@Override
 	public void addLibraryItemSelectedListener(final LibraryItemSelectedListener listener) {
 		if (listener != null) {
@@ -260,6 +508,8 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 			}
 
 			this.titleDataBinder = titleDataBinder;
+			dispatchScrollState(titleDataBinder);
+			updateRowBinder();
 			recyclerView.getAdapter().notifyDataSetChanged(); // Ensures the new data binder is used
 		}
 	}
@@ -286,6 +536,8 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 			}
 
 			this.subtitleDataBinder = subtitleDataBinder;
+			dispatchScrollState(subtitleDataBinder);
+			updateRowBinder();
 			recyclerView.getAdapter().notifyDataSetChanged(); // Ensures the new data binder is used
 		}
 	}
@@ -312,10 +564,142 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 			}
 
 			this.artworkDataBinder = artworkDataBinder;
+			dispatchScrollState(artworkDataBinder);
+			updateRowBinder();
 			recyclerView.getAdapter().notifyDataSetChanged(); // Ensures the new data binder is used
 		}
 	}
 
+	/**
+	 * @return the provider of the stable ids of the items, null if stable ids are not used
+	 */
+	public ItemIdProvider getItemIdProvider() {
+		return itemIdProvider;
+	}
+
+	/**
+	 * Sets the provider of the stable ids of the items. Stable ids allow the RecyclerView to keep
+	 * the rows of unchanged items when the items are replaced, rather than rebinding every row.
+	 * Changing the provider results in a full rebind of the recycler view. This method must be
+	 * called on the UI thread.
+	 *
+	 * @param itemIdProvider
+	 * 		supplies the ids of the items, null to not use stable ids
+	 */
+	public void setItemIdProvider(final ItemIdProvider itemIdProvider) {
+		if (this.itemIdProvider != itemIdProvider) {
+			this.itemIdProvider = itemIdProvider;
+			fallbackIds = new IdentityHashMap<>();
+
+			// Stable ids can only be changed while the adapter is not attached
+			recyclerView.setAdapter(null);
+			adapter.setHasStableIds(itemIdProvider != null);
+			recyclerView.setAdapter(adapter);
+		}
+	}
+
+	/**
+	 * @return the pool which stores view holders for reuse, null if the recycler view uses a pool
+	 * which is not shared
+	 */
+	public BodyViewHolderPool getViewHolderPool() {
+		return viewHolderPool;
+	}
+
+	/**
+	 * Sets the pool which stores view holders for reuse. Sharing a pool between several bodies
+	 * allows each body to reuse the view holders inflated by the others. Any view holders which
+	 * are being prewarmed for the previous pool are discarded. This method must be called on the
+	 * UI thread.
+	 *
+	 * @param viewHolderPool
+	 * 		the pool to use, null to use a pool which is not shared
+	 */
+	public void setViewHolderPool(final BodyViewHolderPool viewHolderPool) {
+		if (this.viewHolderPool != viewHolderPool) {
+			cancelPrewarming();
+			discardPrewarmedViewHolders();
+
+			this.viewHolderPool = viewHolderPool;
+			recyclerView.setRecycledViewPool(viewHolderPool);
+		}
+	}
+
+	/**
+	 * Inflates view holders in the background and adds them to the view holder pool, so that rows
+	 * can be shown without inflating their layouts on the UI thread. View holders are inflated one
+	 * at a time until the pool contains the requested number of prewarmed view holders of the view
+	 * type of this body. A pool is created if none has been set. Bodies which do not supply a
+	 * {@link BodyItemFactory} using {@link #getBodyItemFactory()} are not prewarmed. The
+	 * prewarmed view holders which have not been used are removed from the pool when this body is
+	 * detached from its window. This method must be called on the UI thread.
+	 *
+	 * @param count
+	 * 		the number of prewarmed view holders to provide, not less than zero
+	 * @throws IllegalArgumentException
+	 * 		if {@code count} is less than zero
+	 */
+	public void prewarmViewHolders(final int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("count cannot be less than zero.");
+		}
+
+		if (viewHolderPool == null) {
+			setViewHolderPool(new BodyViewHolderPool());
+		}
+
+		cancelPrewarming();
+
+		final BodyItemFactory factory = getBodyItemFactory();
+		final int requiredCount = count - viewHolderPool.getPrewarmedViewHolderCount(
+				getBodyViewType());
+
+		if (factory != null && requiredCount > 0) {
+			if (asyncLayoutInflater == null) {
+				asyncLayoutInflater = new AsyncLayoutInflater(getContext());
+			}
+
+			inflatePrewarmedViewHolder(factory, requiredCount, prewarmGeneration);
+		}
+	}
+
+	/**
+	 * Inflates a row in the background and adds a view holder for it to the pool, and then
+	 * continues with the next row. Only one row is requested at a time, since the inflater blocks
+	 * the UI thread when too many requests are queued.
+	 *
+	 * @param factory
+	 * 		the factory which supplies the layout of the rows and creates their view holders
+	 * @param remainingCount
+	 * 		the number of view holders still to inflate, greater than zero
+	 * @param generation
+	 * 		the round of prewarming the request belongs to
+	 */
+	private void inflatePrewarmedViewHolder(final BodyItemFactory factory,
+			final int remainingCount, final int generation) {
+		final BodyViewHolderPool pool = viewHolderPool;
+		final int viewType = getBodyViewType();
+
+		asyncLayoutInflater.inflate(factory.getLayoutResource(), recyclerView,
+				new AsyncLayoutInflater.OnInflateFinishedListener() {
+					@Override
+					public void onInflateFinished(final View view, final int resid,
+							final ViewGroup parent) {
+						if (generation != prewarmGeneration) {
+							return;
+						}
+
+						final BodyViewHolder viewHolder = factory.createViewHolder(view);
+						pool.putPrewarmedViewHolder(viewType, viewHolder);
+						prewarmedViewHolders.add(viewHolder);
+
+						if (remainingCount > 1) {
+							inflatePrewarmedViewHolder(factory, remainingCount - 1, generation);
+						}
+					}
+				});
+	}
+
 	/**
 	 * Sets the color of the loading indicator.
 	 *
@@ -334,6 +718,27 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 		return recyclerView;
 	}
 
+	/**
+	 * Returns the number of items which are currently visible, which approximates the number of
+	 * items which fit on one screen. This is useful for deciding how many items to include in a
+	 * snapshot of the first screens of the list.
+	 *
+	 * @return the number of visible items, zero if the list has not been laid out
+	 */
+	public int getVisibleItemCount() {
+		final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+		if (layoutManager instanceof LinearLayoutManager) {
+			final LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+			final int first = linearLayoutManager.findFirstVisibleItemPosition();
+
+			return first == RecyclerView.NO_POSITION ? 0 :
+					linearLayoutManager.findLastVisibleItemPosition() - first + 1;
+		} else {
+			return layoutManager == null ? 0 : layoutManager.getChildCount();
+		}
+	}
+
 	/**
 	 * Registers the supplied listener for top reached callbacks. If the supplied listener is null
 	 * or is already registered, then the method exits normally.
@@ -388,6 +793,14 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 */
 	public abstract void setOverflowMenuButtonColor(final int color);
 
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+
+		cancelPrewarming();
+		discardPrewarmedViewHolders();
+	}
+
 	/**
 	 * Called when the RecyclerView is created to allow customisation before the adapter is set. The
 	 * default implementation does nothing.
@@ -403,10 +816,21 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 * @param viewHolder
 	 * 		the view holder which data was bound to, not null
 	 * @param data
-	 * 		the data which was bound to the view holder, not null
+	 * 		the data which was bound to the view holder, null if the row is a placeholder
 	 */
 	protected void onViewHolderBound(final BodyViewHolder viewHolder, final LibraryItem data) {}
 
+	/**
+	 * Returns the view type of the rows of this body. Bodies which share a BodyViewHolderPool must
+	 * return different view types if their view holders cannot be used interchangeably. The
+	 * default implementation returns 0.
+	 *
+	 * @return the view type of the rows of this body
+	 */
+	protected int getBodyViewType() {
+		return 0;
+	}
+
 	/**
 	 * Called each time a new BodyViewHolder is required.
 	 *
@@ -416,6 +840,18 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 	 */
 	protected abstract BodyViewHolder supplyNewBodyViewHolder(final ViewGroup parent);
 
+	/**
+	 * Returns the factory which inflates the rows of this body, so that rows can be inflated in
+	 * the background when view holders are prewarmed. The default implementation returns null,
+	 * which means view holders are not prewarmed.
+	 *
+	 * @return the factory for the rows of this body, null if the rows are not inflated from a
+	 * layout
+	 */
+	protected BodyItemFactory getBodyItemFactory() {
+		return null;
+	}
+
 	/**
 	 * Initialises this view. This method should only be called from a constructor.
 	 */
@@ -438,6 +874,8 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 			@Override
 			public void onScrollStateChanged(RecyclerView recyclerView,
 					int newState) {
+				onRecyclerViewScrolled(newState, 0, 0);
+
 				if (newState == RecyclerView.SCROLL_STATE_IDLE) {
 					final LinearLayoutManager llm = (LinearLayoutManager) recyclerView
 							.getLayoutManager();
@@ -449,9 +887,87 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 					}
 				}
 			}
+
+			@Override
+			public void onScrolled(final RecyclerView recyclerView, final int dx, final int dy) {
+				onRecyclerViewScrolled(recyclerView.getScrollState(), dx, dy);
+			}
 		});
 	}
 
+	/**
+	 * Updates the scroll state and velocity, and passes them to the data binders.
+	 *
+	 * @param newState
+	 * 		the current scroll state of the recycler view
+	 * @param dx
+	 * 		the horizontal distance scrolled since the last call, measured in pixels
+	 * @param dy
+	 * 		the vertical distance scrolled since the last call, measured in pixels
+	 */
+	private void onRecyclerViewScrolled(final int newState, final int dx, final int dy) {
+		final long nowMs = SystemClock.uptimeMillis();
+
+		if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+			scrollVelocity = 0;
+		} else if (dx != 0 || dy != 0) {
+			// Measured against the previous scroll or state change, which is about a frame ago
+			final long elapsedMs = Math.max(1, nowMs - lastScrollTimeMs);
+			scrollVelocity = (int) (Math.max(Math.abs(dx), Math.abs(dy)) * 1000L / elapsedMs);
+		}
+
+		lastScrollTimeMs = nowMs;
+
+		scrollState = newState;
+
+		dispatchScrollState(titleDataBinder);
+		dispatchScrollState(subtitleDataBinder);
+		dispatchScrollState(artworkDataBinder);
+	}
+
+	/**
+	 * Passes the current scroll state and velocity to a data binder, if it is scroll aware.
+	 *
+	 * @param dataBinder
+	 * 		the data binder to pass the scroll state to, may be null
+	 */
+	private void dispatchScrollState(final DataBinder<?, ?> dataBinder) {
+		if (dataBinder instanceof ScrollAwareDataBinder) {
+			((ScrollAwareDataBinder) dataBinder).onScrollStateChanged(scrollState, scrollVelocity);
+		}
+	}
+
+	/**
+	 * Stops inflating prewarmed view holders. View holders which were already added to the pool
+	 * are kept.
+	 */
+	private void cancelPrewarming() {
+		prewarmGeneration++;
+	}
+
+	/**
+	 * Removes the unused view holders prewarmed by this body from the pool.
+	 */
+	private void discardPrewarmedViewHolders() {
+		if (viewHolderPool != null) {
+			final int viewType = getBodyViewType();
+
+			for (final BodyViewHolder viewHolder : prewarmedViewHolders) {
+				viewHolderPool.removePrewarmedViewHolder(viewType, viewHolder);
+			}
+		}
+
+		prewarmedViewHolders.clear();
+	}
+
+	/**
+	 * Cancels all row tasks and recreates the row binder using the current data binders.
+	 */
+	private void updateRowBinder() {
+		rowBinder.cancelAll();
+		rowBinder = new CompositeRowBinder(titleDataBinder, subtitleDataBinder, artworkDataBinder);
+	}
+
 	/**
 	 * Creates a new recycler view adapter but does not assign it to the recycler view.
 	 */
@@ -459,61 +975,203 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 		adapter = new Adapter<BodyViewHolder>() {
 			@Override
 			public BodyViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
-				return supplyNewBodyViewHolder(parent);
+				final BodyViewHolder prewarmed = viewHolderPool == null ? null : viewHolderPool
+						.takePrewarmedViewHolder(viewType);
+
+				if (prewarmed != null) {
+					prewarmedViewHolders.remove(prewarmed);
+				}
+
+				return prewarmed == null ? supplyNewBodyViewHolder(parent) : prewarmed;
+			}
+
+			@Override
+			public int getItemViewType(final int position) {
+				return getBodyViewType();
 			}
 
 			@Override
 			public void onBindViewHolder(final BodyViewHolder holder, final int position) {
-				final LibraryItem dataItem = data.get(holder.getAdapterPosition());
+				bindViewHolder(holder, null);
+			}
 
-				if (titleDataBinder != null) {
-					titleDataBinder.bind(holder.getTitleTextView(), dataItem);
+			@Override
+			public void onBindViewHolder(final BodyViewHolder holder, final int position,
+					final List<Object> payloads) {
+				// Without payloads the change is undefined, so the whole row must be rebound
+				bindViewHolder(holder, getModifiedFields(payloads));
+			}
+
+			@Override
+			public long getItemId(final int position) {
+				if (itemIdProvider == null) {
+					return RecyclerView.NO_ID;
 				} else {
-					Timber.w("No title data binder set, could not bind title.");
+					return getAdapterItemId(position);
 				}
+			}
 
-				if (subtitleDataBinder != null) {
-					subtitleDataBinder.bind(holder.getSubtitleTextView(), dataItem);
-				} else {
-					Timber.w("No subtitle data binder set, could not bind subtitle.");
+			@Override
+			public void onViewRecycled(final BodyViewHolder holder) {
+				// Recycled rows will be rebound before they are shown again, so stop loading
+				rowBinder.cancel(holder);
+			}
+
+			@Override
+			public int getItemCount() {
+				return data == null ? 0 : data.size();
+			}
+		};
+	}
+
+	/**
+	 * Notifies the adapter of each of the supplied operations, in order.
+	 *
+	 * @param operations
+	 * 		the operations which transformed the previous items into the current items, not null
+	 */
+	private void dispatchOperations(final List<ListDiffer.Operation<LibraryItem>> operations) {
+		for (final ListDiffer.Operation<LibraryItem> operation : operations) {
+			switch (operation.getType()) {
+				case ListDiffer.Operation.REMOVE: {
+					adapter.notifyItemRemoved(operation.getIndex());
+					break;
 				}
 
-				if (artworkDataBinder != null) {
-					artworkDataBinder.bind(holder.getArtworkImageView(), dataItem);
-				} else {
-					Timber.w("No artwork data binder set, could not bind artwork.");
+				case ListDiffer.Operation.INSERT: {
+					adapter.notifyItemInserted(operation.getIndex());
+					break;
 				}
 
-				holder.getRootView().setOnClickListener(new OnClickListener() {
-					@Override
-					public void onClick(final View v) {
-						for (final LibraryItemSelectedListener listener :
-								libraryItemSelectedListeners) {
-							listener.onLibraryItemSelected(RecyclerBodyView.this, dataItem);
-						}
-					}
-				});
+				case ListDiffer.Operation.MOVE: {
+					adapter.notifyItemMoved(operation.getIndex(), operation.getFinalIndex());
+					break;
+				}
 
-				final View overflowButton = holder.getContextualMenuButton();
-				overflowButton.setOnClickListener(new OnClickListener() {
-					@Override
-					public void onClick(final View v) {
-						// If the resource hasn't been set, inflating the menu will fail
-						if (contextualMenuResourceId != -1) {
-							showMenu(overflowButton, dataItem);
-						}
-					}
-				});
+				case ListDiffer.Operation.CHANGE: {
+					adapter.notifyItemChanged(operation.getIndex());
+					break;
+				}
 
-				// Allow further customisation by subclasses
-				onViewHolderBound(holder, dataItem);
+				case ListDiffer.Operation.REPLACE: {
+					// The displayed fields are the same, but the listeners must use the new item
+					adapter.notifyItemChanged(operation.getIndex(), createPayload(EnumSet.of(
+							LibraryItemField.CUSTOM)));
+				}
 			}
+		}
+	}
 
+	/**
+	 * Binds data to a view holder and applies the click listeners.
+	 *
+	 * @param holder
+	 * 		the view holder to bind, not null
+	 * @param fields
+	 * 		the fields to rebind, null to bind all fields
+	 */
+	private void bindViewHolder(final BodyViewHolder holder, final Set<LibraryItemField> fields) {
+		final LibraryItem dataItem = data.get(holder.getAdapterPosition());
+
+		if (fields == null) {
+			if (titleDataBinder == null) {
+				Timber.w("No title data binder set, could not bind title.");
+			}
+
+			if (subtitleDataBinder == null) {
+				Timber.w("No subtitle data binder set, could not bind subtitle.");
+			}
+
+			if (artworkDataBinder == null) {
+				Timber.w("No artwork data binder set, could not bind artwork.");
+			}
+
+			// Loads all missing fields of the row in one task, publishing each when ready
+			rowBinder.bind(holder, dataItem);
+		} else {
+			// Other fields are unchanged, so rebinding them would only restart their loading
+			rowBinder.bindFields(holder, dataItem, fields);
+		}
+
+		holder.getRootView().setOnClickListener(new OnClickListener() {
 			@Override
-			public int getItemCount() {
-				return data == null ? 0 : data.size();
+			public void onClick(final View v) {
+				// Placeholder rows (e.g. unloaded pages) cannot be selected
+				if (dataItem == null) {
+					return;
+				}
+
+				for (final LibraryItemSelectedListener listener :
+						libraryItemSelectedListeners) {
+					listener.onLibraryItemSelected(RecyclerBodyView.this, dataItem);
+				}
 			}
-		};
+		});
+
+		final View overflowButton = holder.getContextualMenuButton();
+		overflowButton.setOnClickListener(new OnClickListener() {
+			@Override
+			public void onClick(final View v) {
+				// If the resource hasn't been set, inflating the menu will fail
+				if (contextualMenuResourceId != -1 && dataItem != null) {
+					showMenu(overflowButton, dataItem);
+				}
+			}
+		});
+
+		// Allow further customisation by subclasses
+		onViewHolderBound(holder, dataItem);
+	}
+
+	/**
+	 * Creates a RecyclerView payload which describes a change to the supplied fields.
+	 *
+	 * @param fields
+	 * 		the fields which changed, not null and not empty
+	 * @return the payload, not null
+	 * @throws IllegalArgumentException
+	 * 		if {@code fields} is null or empty
+	 */
+	private static Object createPayload(final Set<LibraryItemField> fields) {
+		checkNotNull(fields, "fields cannot be null.");
+
+		if (fields.isEmpty()) {
+			throw new IllegalArgumentException("fields cannot be empty.");
+		}
+
+		return Collections.unmodifiableSet(EnumSet.copyOf(fields));
+	}
+
+	/**
+	 * Combines the payloads of the pending changes to a view holder into a single set of fields.
+	 *
+	 * @param payloads
+	 * 		the payloads supplied by the RecyclerView, not null
+	 * @return the fields which changed, null if the whole view holder must be rebound
+	 */
+	private static Set<LibraryItemField> getModifiedFields(final List<Object> payloads) {
+		if (payloads.isEmpty()) {
+			return null;
+		}
+
+		final Set<LibraryItemField> fields = EnumSet.noneOf(LibraryItemField.class);
+
+		for (final Object payload : payloads) {
+			if (payload instanceof Set) {
+				for (final Object field : (Set<?>) payload) {
+					if (field instanceof LibraryItemField) {
+						fields.add((LibraryItemField) field);
+					} else {
+						return null;
+					}
+				}
+			} else {
+				// Payloads from other sources cannot be interpreted
+				return null;
+			}
+		}
+
+		return fields;
 	}
 
 	/**
@@ -546,6 +1204,27 @@ public abstract class RecyclerBodyView extends FrameLayout implements BodyView {
 		});
 	}
 
+	/**
+	 * Supplies the layout the rows of a RecyclerBodyView are inflated from, and creates the view
+	 * holders for the inflated rows.
+	 */
+	public interface BodyItemFactory {
+		/**
+		 * @return the layout resource the rows are inflated from
+		 */
+		int getLayoutResource();
+
+		/**
+		 * Creates a BodyViewHolder for a row which was inflated from the layout returned by {@link
+		 * #getLayoutResource()}. This method is called on the UI thread.
+		 *
+		 * @param itemView
+		 * 		the inflated row, not null
+		 * @return a new BodyViewHolder for the row, not null
+		 */
+		BodyViewHolder createViewHolder(View itemView);
+	}
+
 	/**
 	 * Callbacks to be invoked when a RecyclerViewBody is scrolled to the top.
 	 */
@@ -18,12 +18,23 @@ package com.matthewtamlin.mixtape.library.mixtape_header;
 
 import com.matthewtamlin.java_utilities.testing.Tested;
 import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource;
+import com.matthewtamlin.mixtape.library.base_mvp.BaseDataSource.LoadHandle;
 import com.matthewtamlin.mixtape.library.base_mvp.BasePresenter;
 import com.matthewtamlin.mixtape.library.data.LibraryItem;
+import com.matthewtamlin.mixtape.library.data.LooperExecutor;
+
+import java.util.concurrent.Executor;
 
 /**
  * A simple implementation of the HeaderContract.Presenter interface where the LibraryItem returned
- * by the data source is directly reflected in the view.
+ * by the data source is directly reflected in the view. Data source callbacks may arrive on any
+ * thread, but the view is only ever updated using the view executor, which runs updates on the main
+ * thread by default.
+ * <p>
+ * The item most recently delivered by the data source is retained, so setting a new view restores
+ * it without loading it again. To recreate the view without interrupting a load in progress (for
+ * example during a configuration change), detach the current view using {@link #detachView()}
+ * instead of setting a null view.
  *
  * @param <S>
  * 		the type of data source
@@ -43,14 +54,33 @@ public class DirectHeaderPresenter<D extends LibraryItem, S extends BaseDataSour
 	 */
 	private V view;
 
+	/**
+	 * The handle for the most recent load requested by this presenter, null if there is none.
+	 */
+	private LoadHandle loadHandle;
+
+	/**
+	 * The item most recently delivered by the current data source, null if none has been delivered.
+	 * Only accessed using the view executor.
+	 */
+	private LibraryItem retainedItem;
+
+	/**
+	 * Runs view updates, lazily initialised to the main thread.
+	 */
+	private Executor viewExecutor;
+
 	@Override
 	public final void setDataSource(final S dataSource) {
+		cancelLoad();
 		unsubscribeFromDataSourceCallbacks(this.dataSource);
 		this.dataSource = dataSource;
 		subscribeToDataSourceCallbacks(this.dataSource);
 
+		retainedItem = null;
+
 		if (dataSource != null) {
-			dataSource.loadData(true, this); // Register this class for callbacks
+			requestLoad();
 		} else if (view != null) {
 			view.setItem(null);
 		}
@@ -65,11 +95,27 @@ public class DirectHeaderPresenter<D extends LibraryItem, S extends BaseDataSour
 	public void setView(final V view) {
 		this.view = view;
 
-		if (dataSource != null) {
-			dataSource.loadData(true, this); // Register this class for callbacks
+		if (view != null && dataSource != null) {
+			if (retainedItem == null) {
+				requestLoad();
+			} else {
+				view.setItem(retainedItem);
+			}
+		} else {
+			cancelLoad();
 		}
 	}
 
+	/**
+	 * Detaches the current view without cancelling the load in progress. The retained item is
+	 * restored when the next view is set, which allows the presenter and its data source to outlive
+	 * the view, for example when the view is recreated during a configuration change. This method
+	 * must be called on the UI thread.
+	 */
+	public void detachView() {
+		view = null;
+	}
+
 	@Override
 	public final V getView() {
 		return view;
@@ -77,30 +123,62 @@ public class DirectHeaderPresenter<D extends LibraryItem, S extends BaseDataSour
 
 	@Override
 	public void onDataLoaded(final BaseDataSource source, final LibraryItem data) {
-		if (view != null) {
-			view.setItem(data);
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedItem = data;
+				}
+
+				if (view != null) {
+					view.setItem(data);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onLoadDataFailed(final BaseDataSource source) {
-		if (view != null) {
-			view.setItem(null);
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedItem = null;
+				}
+
+				if (view != null) {
+					view.setItem(null);
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onDataModified(final BaseDataSource<D> source, final D data) {
-		if (view != null) {
-			view.notifyItemChanged();
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (view != null) {
+					view.notifyItemChanged();
+				}
+			}
+		});
 	}
 
 	@Override
 	public void onDataReplaced(final BaseDataSource<D> source, final D oldData, final D newData) {
-		if (view != null) {
-			view.setItem(newData);
-		}
+		runOnView(new Runnable() {
+			@Override
+			public void run() {
+				if (source == dataSource) {
+					retainedItem = newData;
+				}
+
+				if (view != null) {
+					view.setItem(newData);
+				}
+			}
+		});
 	}
 
 	@Override
@@ -113,6 +191,58 @@ public class DirectHeaderPresenter<D extends LibraryItem, S extends BaseDataSour
 		// Do nothing since the view doesn't have a loading indicator
 	}
 
+	/**
+	 * Sets the executor used to update the view in response to data source callbacks. Passing null
+	 * restores the default, which runs updates on the main thread.
+	 *
+	 * @param viewExecutor
+	 * 		the executor to use, may be null
+	 */
+	public synchronized void setViewExecutor(final Executor viewExecutor) {
+		this.viewExecutor = viewExecutor;
+	}
+
+	/**
+	 * @return the executor used to update the view, not null
+	 */
+	public synchronized Executor getViewExecutor() {
+		if (viewExecutor == null) {
+			viewExecutor = LooperExecutor.forMainThread();
+		}
+
+		return viewExecutor;
+	}
+
+	/**
+	 * Requests data from the current data source, replacing any previous request. This method must
+	 * only be called when the data source is not null.
+	 */
+	private void requestLoad() {
+		cancelLoad();
+		loadHandle = dataSource.loadData(true, this);
+	}
+
+	/**
+	 * Cancels the most recent load requested by this presenter, if there is one. The data source
+	 * may continue loading for other callers, but the result is not delivered to this presenter.
+	 */
+	private void cancelLoad() {
+		if (loadHandle != null) {
+			loadHandle.cancel();
+			loadHandle = null;
+		}
+	}
+
+	/**
+	 * Runs the supplied view update on the view executor.
+	 *
+	 * @param update
+	 * 		the update to run, not null
+	 */
+	private void runOnView(final Runnable update) {
+		getViewExecutor().execute(update);
+	}
+
 	/**
 	 * Unsubscribes this presenter from all data source callbacks.
 	 *